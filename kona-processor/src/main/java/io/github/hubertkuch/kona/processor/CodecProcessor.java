@@ -0,0 +1,470 @@
+package io.github.hubertkuch.kona.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.RecordComponentElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardLocation;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Generates type-specialized JSON codecs for the payload and response types of Kona message handlers.
+ * <p>
+ * For every {@code @KonaController}, the processor walks the parameter and return types of its
+ * {@code @MessageHandler} methods, and recursively the field types of those, and writes a
+ * {@code GeneratedCodecFactory} for each record or simple class it can handle. The generated adapters read and
+ * write fields with straight-line {@code JsonReader}/{@code JsonWriter} calls and construct records through
+ * their canonical constructor directly. Types it cannot handle (generic types, classes with private or final
+ * fields, JDK types) are left to Gson's reflective adapters at runtime.
+ * <p>
+ * The processor refers to Kona and Gson types by name only, so it has no dependencies of its own.
+ */
+@SupportedAnnotationTypes("io.github.hubertkuch.kona.message.KonaController")
+public class CodecProcessor extends AbstractProcessor {
+
+    private static final String MESSAGE_HANDLER = "io.github.hubertkuch.kona.message.MessageHandler";
+    private static final String SERIALIZED_NAME = "com.google.gson.annotations.SerializedName";
+    private static final String CODEC_FACTORY = "io.github.hubertkuch.kona.codec.GeneratedCodecFactory";
+    private static final String CODEC_SUFFIX = "_KonaCodec";
+
+    /**
+     * @param getter Reads the property from {@code value}, e.g. {@code name()} or {@code getName()}.
+     * @param setter Assigns {@code $} to the property of {@code result}, e.g. {@code result.setName($)};
+     *               {@code null} for record components, which are passed to the canonical constructor.
+     */
+    private record Property(String name, List<String> jsonNames, TypeMirror type, String getter, String setter) {}
+
+    private final Set<String> visited = new HashSet<>();
+    private final Set<String> generatedCodecs = new LinkedHashSet<>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (TypeElement annotation : annotations) {
+            for (Element controller : roundEnv.getElementsAnnotatedWith(annotation)) {
+                for (ExecutableElement method : ElementFilter.methodsIn(controller.getEnclosedElements())) {
+                    if (findAnnotation(method, MESSAGE_HANDLER) == null) {
+                        continue;
+                    }
+                    for (VariableElement parameter : method.getParameters()) {
+                        collect(parameter.asType());
+                    }
+                    collect(method.getReturnType());
+                }
+            }
+        }
+
+        if (roundEnv.processingOver() && !generatedCodecs.isEmpty()) {
+            writeServiceFile();
+        }
+        return false;
+    }
+
+    private void collect(TypeMirror type) {
+        if (type.getKind() == TypeKind.ARRAY) {
+            collect(((ArrayType) type).getComponentType());
+            return;
+        }
+        if (type.getKind() != TypeKind.DECLARED) {
+            return;
+        }
+
+        DeclaredType declaredType = (DeclaredType) type;
+        for (TypeMirror typeArgument : declaredType.getTypeArguments()) {
+            collect(typeArgument);
+        }
+
+        TypeElement element = (TypeElement) declaredType.asElement();
+        if (!visited.add(element.getQualifiedName().toString())) {
+            return;
+        }
+
+        List<Property> properties = properties(element);
+        if (properties == null) {
+            return;
+        }
+
+        try {
+            generate(element, properties);
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Failed to generate codec: " + e.getMessage(), element);
+            return;
+        }
+        for (Property property : properties) {
+            collect(property.type());
+        }
+    }
+
+    /**
+     * Resolves the serialized properties of a type, or returns {@code null} if the type is left to Gson.
+     */
+    private List<Property> properties(TypeElement element) {
+        String name = element.getQualifiedName().toString();
+        if (name.startsWith("java.") || name.startsWith("javax.") || name.startsWith("jdk.") || name.startsWith("com.google.gson.")) {
+            return null;
+        }
+        if (!element.getTypeParameters().isEmpty() || !isAccessible(element)) {
+            return null;
+        }
+
+        List<Property> properties = new ArrayList<>();
+        if (element.getKind() == ElementKind.RECORD) {
+            for (RecordComponentElement component : element.getRecordComponents()) {
+                String componentName = component.getSimpleName().toString();
+                properties.add(new Property(componentName, jsonNames(fieldNamed(element, componentName), componentName),
+                        component.asType(), componentName + "()", null));
+            }
+            return properties;
+        }
+
+        if (element.getKind() != ElementKind.CLASS
+                || element.getModifiers().contains(Modifier.ABSTRACT)
+                || !element.getSuperclass().toString().equals("java.lang.Object")
+                || !hasNoArgConstructor(element)) {
+            return null;
+        }
+        for (VariableElement field : ElementFilter.fieldsIn(element.getEnclosedElements())) {
+            Set<Modifier> modifiers = field.getModifiers();
+            if (modifiers.contains(Modifier.STATIC) || modifiers.contains(Modifier.TRANSIENT)) {
+                continue;
+            }
+            if (modifiers.contains(Modifier.FINAL)) {
+                return null;
+            }
+            String fieldName = field.getSimpleName().toString();
+            if (!modifiers.contains(Modifier.PRIVATE)) {
+                properties.add(new Property(fieldName, jsonNames(field, fieldName), field.asType(),
+                        fieldName, "result." + fieldName + " = $"));
+                continue;
+            }
+
+            // Private fields are reached through their JavaBean accessors, if both exist
+            String suffix = Character.toUpperCase(fieldName.charAt(0)) + fieldName.substring(1);
+            String getter = accessor(element, field.asType().getKind() == TypeKind.BOOLEAN ? "is" + suffix : "get" + suffix, 0);
+            if (getter == null) {
+                getter = accessor(element, "get" + suffix, 0);
+            }
+            String setter = accessor(element, "set" + suffix, 1);
+            if (getter == null || setter == null) {
+                return null;
+            }
+            properties.add(new Property(fieldName, jsonNames(field, fieldName), field.asType(),
+                    getter + "()", "result." + setter + "($)"));
+        }
+        return properties;
+    }
+
+    private static boolean isAccessible(TypeElement element) {
+        Element current = element;
+        while (current instanceof TypeElement type) {
+            if (type.getModifiers().contains(Modifier.PRIVATE)) {
+                return false;
+            }
+            Element enclosing = type.getEnclosingElement();
+            if (enclosing instanceof TypeElement
+                    && type.getKind() == ElementKind.CLASS
+                    && !type.getModifiers().contains(Modifier.STATIC)) {
+                return false;
+            }
+            current = enclosing;
+        }
+        return true;
+    }
+
+    /**
+     * Finds a non-private, non-static method with the given name and parameter count.
+     */
+    private static String accessor(TypeElement element, String name, int parameterCount) {
+        return ElementFilter.methodsIn(element.getEnclosedElements()).stream()
+                .filter(method -> method.getSimpleName().contentEquals(name)
+                        && method.getParameters().size() == parameterCount
+                        && !method.getModifiers().contains(Modifier.PRIVATE)
+                        && !method.getModifiers().contains(Modifier.STATIC))
+                .findFirst()
+                .map(method -> name)
+                .orElse(null);
+    }
+
+    private static boolean hasNoArgConstructor(TypeElement element) {
+        return ElementFilter.constructorsIn(element.getEnclosedElements()).stream()
+                .anyMatch(constructor -> constructor.getParameters().isEmpty()
+                        && !constructor.getModifiers().contains(Modifier.PRIVATE));
+    }
+
+    private static VariableElement fieldNamed(TypeElement element, String name) {
+        return ElementFilter.fieldsIn(element.getEnclosedElements()).stream()
+                .filter(field -> field.getSimpleName().contentEquals(name))
+                .findFirst()
+                .orElse(null);
+    }
+
+    /**
+     * The JSON name of a property followed by its alternate names, honouring Gson's {@code @SerializedName}.
+     */
+    private static List<String> jsonNames(Element field, String defaultName) {
+        AnnotationMirror serializedName = field != null ? findAnnotation(field, SERIALIZED_NAME) : null;
+        if (serializedName == null) {
+            return List.of(defaultName);
+        }
+
+        List<String> names = new ArrayList<>();
+        for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : serializedName.getElementValues().entrySet()) {
+            String key = entry.getKey().getSimpleName().toString();
+            if (key.equals("value")) {
+                names.addFirst((String) entry.getValue().getValue());
+            } else if (key.equals("alternate")) {
+                @SuppressWarnings("unchecked")
+                List<? extends AnnotationValue> alternates = (List<? extends AnnotationValue>) entry.getValue().getValue();
+                alternates.forEach(alternate -> names.add((String) alternate.getValue()));
+            }
+        }
+        return names;
+    }
+
+    private static AnnotationMirror findAnnotation(Element element, String annotationName) {
+        for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+            if (((TypeElement) mirror.getAnnotationType().asElement()).getQualifiedName().contentEquals(annotationName)) {
+                return mirror;
+            }
+        }
+        return null;
+    }
+
+    private void generate(TypeElement element, List<Property> properties) throws IOException {
+        PackageElement packageElement = processingEnv.getElementUtils().getPackageOf(element);
+        String packageName = packageElement.isUnnamed() ? "" : packageElement.getQualifiedName().toString();
+        String typeName = element.getQualifiedName().toString();
+        String codecName = (packageName.isEmpty() ? typeName : typeName.substring(packageName.length() + 1)).replace('.', '_') + CODEC_SUFFIX;
+        String codecBinaryName = packageName.isEmpty() ? codecName : packageName + "." + codecName;
+        boolean isRecord = element.getKind() == ElementKind.RECORD;
+
+        StringBuilder source = new StringBuilder();
+        source.append("// Generated by kona-processor. Do not edit.\n");
+        if (!packageName.isEmpty()) {
+            source.append("package ").append(packageName).append(";\n\n");
+        }
+        source.append("public final class ").append(codecName).append(" implements ").append(CODEC_FACTORY).append(" {\n\n");
+        source.append("    @Override\n");
+        source.append("    public Class<?> type() {\n");
+        source.append("        return ").append(typeName).append(".class;\n");
+        source.append("    }\n\n");
+        source.append("    @Override\n");
+        source.append("    public com.google.gson.TypeAdapter<?> create(com.google.gson.Gson gson) {\n");
+        source.append("        return new Adapter(gson);\n");
+        source.append("    }\n\n");
+        source.append("    private static final class Adapter extends com.google.gson.TypeAdapter<").append(typeName).append("> {\n");
+        source.append("        private final com.google.gson.Gson gson;\n");
+
+        for (int i = 0; i < properties.size(); i++) {
+            TypeMirror type = properties.get(i).type();
+            if (isDirect(type)) {
+                continue;
+            }
+            String adapterType = "com.google.gson.TypeAdapter<" + boxed(type) + ">";
+            source.append("        private ").append(adapterType).append(" adapter").append(i).append(";\n");
+        }
+
+        source.append("\n        Adapter(com.google.gson.Gson gson) {\n");
+        source.append("            this.gson = gson;\n");
+        source.append("        }\n");
+
+        for (int i = 0; i < properties.size(); i++) {
+            TypeMirror type = properties.get(i).type();
+            if (isDirect(type)) {
+                continue;
+            }
+            String adapterType = "com.google.gson.TypeAdapter<" + boxed(type) + ">";
+            source.append("\n        private ").append(adapterType).append(" adapter").append(i).append("() {\n");
+            source.append("            ").append(adapterType).append(" adapter = adapter").append(i).append(";\n");
+            source.append("            if (adapter == null) {\n");
+            source.append("                adapter = gson.getAdapter(new com.google.gson.reflect.TypeToken<").append(boxed(type)).append(">() {});\n");
+            source.append("                adapter").append(i).append(" = adapter;\n");
+            source.append("            }\n");
+            source.append("            return adapter;\n");
+            source.append("        }\n");
+        }
+
+        // write
+        source.append("\n        @Override\n");
+        source.append("        public void write(com.google.gson.stream.JsonWriter out, ").append(typeName).append(" value) throws java.io.IOException {\n");
+        source.append("            if (value == null) {\n");
+        source.append("                out.nullValue();\n");
+        source.append("                return;\n");
+        source.append("            }\n");
+        source.append("            out.beginObject();\n");
+        for (int i = 0; i < properties.size(); i++) {
+            Property property = properties.get(i);
+            source.append("            out.name(").append(literal(property.jsonNames().getFirst())).append(");\n");
+            source.append("            ").append(writeStatement(property.type(), "value." + property.getter(), i)).append("\n");
+        }
+        source.append("            out.endObject();\n");
+        source.append("        }\n");
+
+        // read
+        source.append("\n        @Override\n");
+        source.append("        public ").append(typeName).append(" read(com.google.gson.stream.JsonReader in) throws java.io.IOException {\n");
+        source.append("            if (in.peek() == com.google.gson.stream.JsonToken.NULL) {\n");
+        source.append("                in.nextNull();\n");
+        source.append("                return null;\n");
+        source.append("            }\n");
+        if (isRecord) {
+            for (int i = 0; i < properties.size(); i++) {
+                TypeMirror type = properties.get(i).type();
+                source.append("            ").append(type.getKind().isPrimitive() ? type.toString() : boxed(type))
+                        .append(" v").append(i).append(" = ").append(defaultValue(type)).append(";\n");
+            }
+        } else {
+            source.append("            ").append(typeName).append(" result = new ").append(typeName).append("();\n");
+        }
+        source.append("            in.beginObject();\n");
+        source.append("            while (in.hasNext()) {\n");
+        source.append("                switch (in.nextName()) {\n");
+        for (int i = 0; i < properties.size(); i++) {
+            Property property = properties.get(i);
+            String assignment = isRecord ? "v" + i + " = $" : property.setter();
+            source.append("                    case ");
+            for (int n = 0; n < property.jsonNames().size(); n++) {
+                source.append(n > 0 ? ", " : "").append(literal(property.jsonNames().get(n)));
+            }
+            source.append(" -> ").append(readStatement(property.type(), assignment, i)).append("\n");
+        }
+        source.append("                    default -> in.skipValue();\n");
+        source.append("                }\n");
+        source.append("            }\n");
+        source.append("            in.endObject();\n");
+        if (isRecord) {
+            source.append("            return new ").append(typeName).append("(");
+            for (int i = 0; i < properties.size(); i++) {
+                source.append(i > 0 ? ", " : "").append("v").append(i);
+            }
+            source.append(");\n");
+        } else {
+            source.append("            return result;\n");
+        }
+        source.append("        }\n");
+        source.append("    }\n");
+        source.append("}\n");
+
+        JavaFileObject file = processingEnv.getFiler().createSourceFile(codecBinaryName, element);
+        try (Writer writer = file.openWriter()) {
+            writer.write(source.toString());
+        }
+        generatedCodecs.add(codecBinaryName);
+    }
+
+    /**
+     * Types read and written inline; every other type is delegated to a Gson adapter.
+     */
+    private static boolean isDirect(TypeMirror type) {
+        return type.getKind().isPrimitive() || type.toString().equals("java.lang.String");
+    }
+
+    private String boxed(TypeMirror type) {
+        if (type.getKind().isPrimitive()) {
+            return processingEnv.getTypeUtils().boxedClass((javax.lang.model.type.PrimitiveType) type).getQualifiedName().toString();
+        }
+        return type.toString();
+    }
+
+    private static String defaultValue(TypeMirror type) {
+        return switch (type.getKind()) {
+            case BOOLEAN -> "false";
+            case CHAR -> "'\\0'";
+            case BYTE, SHORT, INT, LONG, FLOAT, DOUBLE -> "0";
+            default -> "null";
+        };
+    }
+
+    private static String writeStatement(TypeMirror type, String expression, int index) {
+        return switch (type.getKind()) {
+            case BOOLEAN, INT, LONG, SHORT, BYTE, FLOAT, DOUBLE -> "out.value(" + expression + ");";
+            case CHAR -> "out.value(String.valueOf(" + expression + "));";
+            default -> type.toString().equals("java.lang.String")
+                    ? "out.value(" + expression + ");"
+                    : "adapter" + index + "().write(out, " + expression + ");";
+        };
+    }
+
+    /**
+     * @param assignment The statement storing a value, with {@code $} standing for the value expression.
+     */
+    private static String readStatement(TypeMirror type, String assignment, int index) {
+        String nullCheck = "if (in.peek() == com.google.gson.stream.JsonToken.NULL) { in.nextNull(); } else { ";
+        return switch (type.getKind()) {
+            case BOOLEAN -> "{ " + nullCheck + assign(assignment, "in.peek() == com.google.gson.stream.JsonToken.STRING"
+                    + " ? Boolean.parseBoolean(in.nextString()) : in.nextBoolean()") + " } }";
+            case INT -> "{ " + nullCheck + assign(assignment, "in.nextInt()") + " } }";
+            case LONG -> "{ " + nullCheck + assign(assignment, "in.nextLong()") + " } }";
+            case DOUBLE -> "{ " + nullCheck + assign(assignment, "in.nextDouble()") + " } }";
+            case FLOAT -> "{ " + nullCheck + assign(assignment, "(float) in.nextDouble()") + " } }";
+            case SHORT -> "{ " + nullCheck + assign(assignment, "(short) in.nextInt()") + " } }";
+            case BYTE -> "{ " + nullCheck + assign(assignment, "(byte) in.nextInt()") + " } }";
+            case CHAR -> "{ " + nullCheck + assign(assignment, "in.nextString().charAt(0)") + " } }";
+            default -> type.toString().equals("java.lang.String")
+                    ? "{ if (in.peek() == com.google.gson.stream.JsonToken.NULL) { in.nextNull(); " + assign(assignment, "null") + " }"
+                    + " else if (in.peek() == com.google.gson.stream.JsonToken.BOOLEAN) { " + assign(assignment, "Boolean.toString(in.nextBoolean())") + " }"
+                    + " else { " + assign(assignment, "in.nextString()") + " } }"
+                    : assign(assignment, "adapter" + index + "().read(in)");
+        };
+    }
+
+    private static String assign(String assignment, String value) {
+        return assignment.replace("$", value) + ";";
+    }
+
+    private static String literal(String value) {
+        StringBuilder literal = new StringBuilder("\"");
+        for (char c : value.toCharArray()) {
+            switch (c) {
+                case '"' -> literal.append("\\\"");
+                case '\\' -> literal.append("\\\\");
+                case '\n' -> literal.append("\\n");
+                default -> literal.append(c);
+            }
+        }
+        return literal.append('"').toString();
+    }
+
+    private void writeServiceFile() {
+        try {
+            FileObject file = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", "META-INF/services/" + CODEC_FACTORY);
+            try (Writer writer = file.openWriter()) {
+                for (String codec : generatedCodecs) {
+                    writer.write(codec);
+                    writer.write('\n');
+                }
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Failed to register generated codecs: " + e.getMessage());
+        }
+    }
+}
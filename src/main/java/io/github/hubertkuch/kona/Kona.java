@@ -3,11 +3,55 @@ package io.github.hubertkuch.kona;
 import io.github.hubertkuch.kona.application.AppWindow;
 import io.github.hubertkuch.kona.application.GtkWebView;
 import io.github.hubertkuch.kona.application.GtkWindow;
+import io.github.hubertkuch.kona.application.PerformanceProfile;
+import io.github.hubertkuch.kona.application.PushThrottle;
+import io.github.hubertkuch.kona.application.VisibilityPolicy;
+import io.github.hubertkuch.kona.application.WebView;
+import io.github.hubertkuch.kona.application.WindowManager;
+import io.github.hubertkuch.kona.application.WindowOptions;
+import io.github.hubertkuch.kona.codec.MessageCodec;
+import io.github.hubertkuch.kona.diagnostics.StallOptions;
+import io.github.hubertkuch.kona.diagnostics.StallWatchdog;
+import io.github.hubertkuch.kona.events.EventBus;
+import io.github.hubertkuch.kona.events.EventController;
+import io.github.hubertkuch.kona.paging.CursorController;
 import io.github.hubertkuch.kona.platform.Platform;
+import io.github.hubertkuch.kona.recording.TrafficRecorder;
+import io.github.hubertkuch.kona.routing.HandlerPreloader;
+import io.github.hubertkuch.kona.routing.KonaRouter;
 import io.github.hubertkuch.kona.routing.KonaRouterImpl;
+import io.github.hubertkuch.kona.routing.RequestController;
+import io.github.hubertkuch.kona.routing.RouteTable;
+import io.github.hubertkuch.kona.routing.ServiceRegistry;
+import io.github.hubertkuch.kona.startup.AssetPreloader;
+import io.github.hubertkuch.kona.state.StateController;
+import io.github.hubertkuch.kona.files.FileServer;
+import io.github.hubertkuch.kona.message.Priority;
+import io.github.hubertkuch.kona.state.StateStore;
+import io.github.hubertkuch.kona.store.KeyValueStore;
+import io.github.hubertkuch.kona.store.StoreController;
+import io.github.hubertkuch.kona.startup.StartupTimings;
+import io.github.hubertkuch.kona.table.TableController;
+import io.github.hubertkuch.kona.table.TableRegistry;
+import io.github.hubertkuch.kona.transport.LoopbackTransport;
+import io.github.hubertkuch.kona.worker.WorkerOptions;
+import io.github.hubertkuch.kona.worker.WorkerRouter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
 /**
  * The main entry point for a Kona application.
  * This class provides a high-level abstraction for creating and running a Kona application,
@@ -22,6 +66,7 @@ public class Kona {
     private final String title;
     private final int width;
     private final int height;
+    private final PerformanceProfile performanceProfile;
     private final Builder  builder;
 
     private Kona(Builder builder) {
@@ -30,9 +75,19 @@ public class Kona {
         this.title = builder.title;
         this.width = builder.width;
         this.height = builder.height;
+        this.performanceProfile = builder.performanceProfile != null ? builder.performanceProfile : getDefaultPerformanceProfile();
         this.builder = builder;
     }
 
+    private PerformanceProfile getDefaultPerformanceProfile() {
+        if (initialUri.startsWith("http://localhost") || initialUri.startsWith("http://127.0.0.1")) {
+            log.info("Using the development performance profile for {}", initialUri);
+            return PerformanceProfile.development();
+        }
+        log.info("Using the production performance profile for {}", initialUri);
+        return PerformanceProfile.production();
+    }
+
     private String getCallerPackage() {
         StackTraceElement[] stackTrace = Thread.currentThread().getStackTrace();
         // stack[0] is getStackTrace
@@ -67,39 +122,231 @@ public class Kona {
     /**
      * Runs the Kona application.
      * This method initializes the GTK window and web view, sets up the router,
-     * and starts the GTK event loop.
+     * and starts the GTK event loop. It blocks until the event loop finishes.
      */
     public void run() {
-        if (! Platform.isWebViewSupported()) {
+        launch(new KonaHandle());
+    }
+
+    /**
+     * Starts the Kona application on a dedicated UI thread and returns immediately.
+     * The host application can continue its own initialization and use the returned handle
+     * to wait for readiness or termination, or to shut the application down.
+     *
+     * @return A handle to the running application.
+     */
+    public KonaHandle start() {
+        KonaHandle handle = new KonaHandle();
+        Thread.ofPlatform().name("kona-ui").start(() -> {
+            try {
+                launch(handle);
+            } catch (Throwable e) {
+                log.error("[Kona] Application failed", e);
+                handle.fail(e);
+            }
+        });
+        return handle;
+    }
+
+    /**
+     * Runs the startup pipeline and the event loop on the current thread, which becomes the UI thread.
+     * Controller scanning, codec preparation and asset preloading run on background threads while
+     * GTK initializes and the window is shown; messages arriving in the meantime are queued by the router.
+     */
+    private void launch(KonaHandle handle) {
+        StartupTimings timings = new StartupTimings();
+
+        if (! timings.time("native-check", builder.nativeCheck)) {
             throw new RuntimeException(Platform.getUnsupportedMessage());
         }
 
-        try (var window = Platform.getAppWindow(); var webView = Platform.getWebView()) {
+        ExecutorService dispatchExecutor = builder.dispatchThreads > 0
+                ? Executors.newFixedThreadPool(builder.dispatchThreads, Thread.ofPlatform().name("kona-dispatch-", 0).daemon().factory())
+                : null;
+        ExecutorService startupExecutor = Executors.newThreadPerTaskExecutor(
+                Thread.ofVirtual().name("kona-startup-", 0).factory());
+        TrafficRecorder recorder = builder.trafficRecording != null ? TrafficRecorder.open(builder.trafficRecording) : null;
+        // Everything registered below belongs to this run, so a second start from the same builder gets fresh instances
+        ServiceRegistry services = builder.services.copy();
+
+        if (!services.contains(FileServer.class)) {
+            services.register(FileServer.class, new FileServer().allowOrigin(FileServer.originOf(initialUri)));
+        }
+        if (!services.contains(EventBus.class)) {
+            services.register(EventBus.class, new EventBus());
+        }
+        EventBus events = services.get(EventBus.class);
+
+        CompletableFuture<RouteTable> scannedRoutes = CompletableFuture.supplyAsync(
+                () -> timings.time("controller-scan", () -> RouteTable.scan(controllerPackage, services)), startupExecutor);
+        CompletableFuture<Long> preloadedAssets = CompletableFuture.supplyAsync(
+                () -> timings.time("asset-preload", () -> AssetPreloader.preload(initialUri)), startupExecutor);
+
+        try (var window = builder.windowFactory.get(); var webView = builder.webViewFactory.get()) {
 
-            if (!window.initialize() || !webView.initialize()) {
+            window.setPerformanceProfile(performanceProfile);
+            webView.setPerformanceProfile(performanceProfile);
+            webView.setFileServer(services.get(FileServer.class));
+            if (!timings.time("window-init", window::initialize) || !timings.time("webview-init", webView::initialize)) {
                 throw new RuntimeException("Cannot initialize window or webview");
             }
 
-            long webViewHandle = webView.createWebViewWidget();
-            var router = new KonaRouterImpl(window, webView, webViewHandle);
+            long webViewHandle = timings.time("webview-widget", webView::createWebViewWidget);
+            LoopbackTransport transport = builder.loopbackTransport;
+            // Responses for remote clients of the loopback transport go to their sockets instead of the widget
+            WebView routedWebView = transport != null ? transport.wrap(webView) : webView;
+            var router = new KonaRouterImpl(window, routedWebView, webViewHandle, services);
+            if (dispatchExecutor != null) {
+                router.setDispatchExecutor(dispatchExecutor);
+            }
+            builder.codecs.forEach(router::registerCodec);
+            if (recorder != null) {
+                router.setTrafficObserver(recorder);
+                log.info("[Kona] Recording message traffic to {}", builder.trafficRecording);
+            }
+            WorkerRouter workers = builder.workers != null
+                    ? new WorkerRouter(router, window, routedWebView, webViewHandle, builder.workers)
+                    : null;
+            if (workers != null) {
+                workers.start();
+            }
+            webView.setScriptMessageHandler(workers != null ? workers : router);
+            StallWatchdog watchdog = builder.stallWatchdog != null ? new StallWatchdog(window, builder.stallWatchdog) : null;
+            if (watchdog != null) {
+                window.setStallWatchdog(watchdog);
+                router.setStallWatchdog(watchdog);
+                services.register(StallWatchdog.class, watchdog);
+                watchdog.start();
+            }
+            if (transport != null) {
+                transport.addDisconnectListener(router::windowClosed);
+                if (workers != null) {
+                    transport.addDisconnectListener(workers::windowClosed);
+                }
+                try {
+                    transport.start(workers != null ? workers : router, window);
+                } catch (IOException e) {
+                    log.error("[Kona] Cannot start the loopback transport, continuing without it", e);
+                }
+            }
+            HandlerPreloader preloads = HandlerPreloader.start(scannedRoutes, router, startupExecutor);
+            events.setUiExecutor(window::scheduleTask);
 
-            router.registerPackage(controllerPackage);
-            webView.setScriptMessageHandler(router);
+            CompletableFuture<Void> routesLive = scannedRoutes
+                    .exceptionally(e -> {
+                        log.error("[Kona] Controller scan failed, starting without routes", e);
+                        return RouteTable.empty();
+                    })
+                    .thenApply(table -> table.with(RouteTable.of(services, builtInControllers(services))))
+                    .thenApplyAsync(table -> {
+                        timings.time("codec-prepare", () -> router.prepareCodecs(table));
+                        return table;
+                    }, startupExecutor)
+                    .thenCompose(router::install);
 
-            var handle = window.createWindow(title, width, height);
+            var windows = new WindowManager(window, webView, initialUri, builder.windowPoolSize);
+            windows.addCloseListener(closed -> router.windowClosed(closed.webViewHandle()));
+            if (workers != null) {
+                windows.addCloseListener(closed -> workers.windowClosed(closed.webViewHandle()));
+            }
+            Runnable applyVisibility = () -> {
+                boolean hidden = windows.allHidden();
+                if (builder.visibilityPolicy.suspendBackgroundTasks()) {
+                    window.setLaneSuspended(Priority.BACKGROUND, hidden);
+                }
+                if (builder.visibilityPolicy.deferBackgroundRoutes()) {
+                    router.setLaneSuspended(Priority.BACKGROUND, hidden);
+                }
+            };
+            windows.addStateListener((changed, state) -> applyVisibility.run());
+            windows.addCloseListener(closed -> applyVisibility.run());
+            if (!services.contains(StateStore.class)) {
+                services.register(StateStore.class, new StateStore());
+            }
+            services
+                    .register(AppWindow.class, window)
+                    .register(WebView.class, routedWebView)
+                    .register(KonaRouter.class, router)
+                    .register(WindowManager.class, windows)
+                    .register(PushThrottle.class, new PushThrottle(window, windows, builder.visibilityPolicy));
+            // The window is shown right away; only loading the page waits for the preloads it should see
+            timings.time("window-show", () -> {
+                var windowHandle = windows.attach(webViewHandle, new WindowOptions(title, width, height, null)).windowHandle();
 
-            window.addWidget(handle, webViewHandle);
+                window.fullscreen(windowHandle, builder.fullscreen);
+                window.resizable(windowHandle, builder.resizable);
+                window.modal(windowHandle, builder.modal);
+            });
+            String preloadScript = timings.time("preload-wait", () -> preloads.script(builder.preloadBudget));
+            if (preloadScript != null) {
+                webView.addUserScript(webViewHandle, preloadScript);
+            }
             webView.loadUri(webViewHandle, initialUri);
-            window.showWindow(handle);
-            window.fullscreen(handle, builder.fullscreen);
-            window.resizable(handle, builder.resizable);
-            window.modal(handle, builder.modal);
+            window.scheduleTask(Priority.BACKGROUND, windows::prewarm);
+
+            handle.attach(window, windows);
+            // Preloads still running after the budget are answered as regular requests, so readiness does not wait for them
+            CompletableFuture<Void> preloadsSettled = preloads.done().copy()
+                    .exceptionally(e -> null)
+                    .completeOnTimeout(null, builder.preloadBudget.toNanos(), TimeUnit.NANOSECONDS);
+            CompletableFuture.allOf(routesLive, preloadedAssets, preloadsSettled).whenComplete((ignored, error) -> {
+                startupExecutor.shutdown();
+                log.info("[Kona] {}", timings.report());
+                if (error != null) {
+                    Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                    log.error("[Kona] Startup failed", cause);
+                    handle.markFailed(cause);
+                } else {
+                    handle.markReady();
+                }
+            });
 
             log.info("[Kona] Starting GTK event loop (blocking)...");
             window.runEventLoop();
 
+            windows.close();
+            if (watchdog != null) {
+                watchdog.close();
+            }
+            if (transport != null) {
+                transport.close();
+            }
+            if (workers != null) {
+                // Workers also exit on their own once this process does
+                workers.close();
+            }
             log.info("[Kona] Event loop finished. Exiting.");
+        } catch (Throwable e) {
+            // Fail the handle before the finally block marks it terminated, so both futures carry the cause
+            handle.fail(e);
+            throw e;
+        } finally {
+            startupExecutor.shutdownNow();
+            events.close();
+            if (dispatchExecutor != null) {
+                dispatchExecutor.shutdownNow();
+            }
+            if (recorder != null) {
+                recorder.close();
+            }
+            handle.markTerminated();
+        }
+    }
+
+    /**
+     * @return The controllers registered under reserved {@code kona.*} names. Optional ones are only
+     * included when the application provides the service they expose.
+     */
+    private Class<?>[] builtInControllers(ServiceRegistry services) {
+        List<Class<?>> controllers = new ArrayList<>(List.of(StateController.class, CursorController.class, RequestController.class,
+                EventController.class));
+        if (services.contains(TableRegistry.class)) {
+            controllers.add(TableController.class);
+        }
+        if (services.contains(KeyValueStore.class)) {
+            controllers.add(StoreController.class);
         }
+        return controllers.toArray(Class<?>[]::new);
     }
 
     /**
@@ -114,6 +361,20 @@ public class Kona {
         private boolean fullscreen;
         private boolean modal;
         private boolean resizable;
+        private PerformanceProfile performanceProfile;
+        private int windowPoolSize;
+        private int dispatchThreads;
+        private final ServiceRegistry services = new ServiceRegistry();
+        private final List<MessageCodec> codecs = new ArrayList<>();
+        private Path trafficRecording;
+        private VisibilityPolicy visibilityPolicy = VisibilityPolicy.defaults();
+        private Duration preloadBudget = Duration.ofMillis(250);
+        private WorkerOptions workers;
+        private LoopbackTransport loopbackTransport;
+        private StallOptions stallWatchdog = StallOptions.defaults();
+        private Supplier<Boolean> nativeCheck = Platform::isWebViewSupported;
+        private Supplier<AppWindow> windowFactory = Platform::getAppWindow;
+        private Supplier<WebView> webViewFactory = Platform::getWebView;
 
         /**
          * Creates a new builder for a Kona application.
@@ -199,6 +460,167 @@ public class Kona {
             return this;
         }
 
+        /**
+         * Sets the web engine tuning, e.g. {@link PerformanceProfile#production()}.
+         * If not set, the development profile is used when loading from a local dev server,
+         * and the production profile otherwise.
+         *
+         * @param performanceProfile The profile to apply to the web view.
+         * @return This builder instance.
+         */
+        public Builder performanceProfile(PerformanceProfile performanceProfile) {
+            this.performanceProfile = performanceProfile;
+            return this;
+        }
+
+        /**
+         * Sets how many hidden web views are kept prewarmed for additional windows opened through
+         * {@link KonaHandle#windows()}. Each prewarmed view holds a web process with the initial URI loaded,
+         * so new windows appear almost instantly at the cost of that memory. Defaults to {@code 0}.
+         *
+         * @param windowPoolSize The number of prewarmed web views.
+         * @return This builder instance.
+         */
+        public Builder windowPool(int windowPoolSize) {
+            if (windowPoolSize < 0) {
+                throw new IllegalArgumentException("windowPoolSize must not be negative");
+            }
+            this.windowPoolSize = windowPoolSize;
+            return this;
+        }
+
+        /**
+         * Makes a service available for constructor injection into controllers.
+         * Controllers declare it as a constructor parameter of the given type.
+         *
+         * @param type    The type controllers declare.
+         * @param service The service instance.
+         * @param <T>     The service type.
+         * @return This builder instance.
+         */
+        public <T> Builder service(Class<T> type, T service) {
+            this.services.register(type, service);
+            return this;
+        }
+
+        /**
+         * Sets how many threads invoke message handlers. With {@code 0} (the default), handlers run on the
+         * UI thread in arrival order. With more threads, messages are handled concurrently; controllers that
+         * are not thread-safe should use {@link io.github.hubertkuch.kona.message.Lifecycle#POOLED}
+         * or {@link io.github.hubertkuch.kona.message.Lifecycle#PER_WINDOW}.
+         *
+         * @param dispatchThreads The number of dispatch threads.
+         * @return This builder instance.
+         */
+        public Builder dispatchThreads(int dispatchThreads) {
+            if (dispatchThreads < 0) {
+                throw new IllegalArgumentException("dispatchThreads must not be negative");
+            }
+            this.dispatchThreads = dispatchThreads;
+            return this;
+        }
+
+        /**
+         * Adds a wire format that routes can opt into with {@code @MessageHandler(codec = ...)} and messages
+         * can request through their {@code codec} and {@code accept} fields. CBOR and MessagePack are
+         * available without registration.
+         *
+         * @param codec The codec.
+         * @return This builder instance.
+         */
+        public Builder codec(MessageCodec codec) {
+            this.codecs.add(codec);
+            return this;
+        }
+
+        /**
+         * Records every message the frontend sends, with the size and latency of its response, so the session can
+         * be replayed later with {@link io.github.hubertkuch.kona.recording.TrafficReplayer}. Recording is off by
+         * default; the file is rotated as described in {@link TrafficRecorder}.
+         *
+         * @param file The recording file, e.g. {@code traffic.krec}.
+         * @return This builder instance.
+         */
+        public Builder recordTraffic(Path file) {
+            this.trafficRecording = file;
+            return this;
+        }
+
+        /**
+         * Sets how much UI work is done for windows that are minimized, hidden or unfocused.
+         * Defaults to {@link VisibilityPolicy#defaults()}; use {@link VisibilityPolicy#fullRate()} to never throttle.
+         *
+         * @param visibilityPolicy The policy.
+         * @return This builder instance.
+         */
+        public Builder visibilityPolicy(VisibilityPolicy visibilityPolicy) {
+            this.visibilityPolicy = Objects.requireNonNull(visibilityPolicy);
+            return this;
+        }
+
+        /**
+         * Sets how long the main window waits, before loading its page, for
+         * {@link io.github.hubertkuch.kona.message.Preload} handlers that are still running. Their results are
+         * injected into the page; those that take longer are requested by the page as usual. Defaults to 250 ms.
+         *
+         * @param preloadBudget The longest wait.
+         * @return This builder instance.
+         */
+        public Builder preloadBudget(Duration preloadBudget) {
+            if (preloadBudget.isNegative()) {
+                throw new IllegalArgumentException("preloadBudget must not be negative");
+            }
+            this.preloadBudget = preloadBudget;
+            return this;
+        }
+
+        /**
+         * Runs some controllers in worker JVMs instead of this process, so their allocations and crashes do not
+         * affect the UI. See {@link WorkerRouter} for what is forwarded.
+         *
+         * @param workers The forwarded controllers and the workers.
+         * @return This builder instance.
+         */
+        public Builder workers(WorkerOptions workers) {
+            this.workers = workers;
+            return this;
+        }
+
+        /**
+         * Also serves the router over HTTP and WebSocket on the loopback interface, e.g. to run the frontend in a
+         * browser during development or to load-test controllers. Not meant for production builds.
+         *
+         * @param loopbackTransport The transport, started once the window is created.
+         * @return This builder instance.
+         */
+        public Builder loopbackTransport(LoopbackTransport loopbackTransport) {
+            this.loopbackTransport = loopbackTransport;
+            return this;
+        }
+
+        /**
+         * Sets when the UI thread counts as stalled and how often stalls are reported with a stack.
+         * Defaults to {@link StallOptions#defaults()}. The watchdog is registered as a service, e.g. to read its
+         * {@link StallWatchdog#stats()} or add a listener.
+         *
+         * @param stallWatchdog The options, or {@code null} to run without a watchdog.
+         * @return This builder instance.
+         */
+        public Builder stallWatchdog(StallOptions stallWatchdog) {
+            this.stallWatchdog = stallWatchdog;
+            return this;
+        }
+
+        /**
+         * Replaces the native window and web view, so the startup pipeline can run without GTK in tests.
+         */
+        Builder platform(Supplier<AppWindow> windowFactory, Supplier<WebView> webViewFactory) {
+            this.nativeCheck = () -> true;
+            this.windowFactory = Objects.requireNonNull(windowFactory);
+            this.webViewFactory = Objects.requireNonNull(webViewFactory);
+            return this;
+        }
+
         /**
          * Builds the Kona application instance.
          *
@@ -0,0 +1,119 @@
+package io.github.hubertkuch.kona;
+
+import io.github.hubertkuch.kona.application.AppWindow;
+import io.github.hubertkuch.kona.application.WindowManager;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * A handle to a Kona application started with {@link Kona#start()}.
+ * <p>
+ * The handle lets the host application continue its own initialization while Kona starts up,
+ * wait until the window is shown and all routes are live, and stop the GTK event loop later.
+ */
+public final class KonaHandle {
+
+    private final CompletableFuture<Void> ready = new CompletableFuture<>();
+    private final CompletableFuture<Void> terminated = new CompletableFuture<>();
+
+    private volatile AppWindow window;
+    private volatile WindowManager windows;
+    private volatile boolean shutdownRequested;
+
+    KonaHandle() {}
+
+    /**
+     * A future that completes once the window is visible and every controller route is live.
+     * It completes exceptionally if startup fails.
+     *
+     * @return The readiness future.
+     */
+    public CompletableFuture<Void> ready() {
+        return ready;
+    }
+
+    /**
+     * A future that completes when the GTK event loop has finished.
+     *
+     * @return The termination future.
+     */
+    public CompletableFuture<Void> terminated() {
+        return terminated;
+    }
+
+    /**
+     * @return {@code true} while the application has not terminated.
+     */
+    public boolean isRunning() {
+        return !terminated.isDone();
+    }
+
+    /**
+     * Blocks until the GTK event loop has finished.
+     *
+     * @throws InterruptedException If the calling thread is interrupted while waiting.
+     * @throws RuntimeException     If the application failed to start or crashed.
+     */
+    public void awaitTermination() throws InterruptedException {
+        try {
+            terminated.get();
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    /**
+     * The window manager for opening additional windows that share the main window's web context and router.
+     *
+     * @return The window manager.
+     * @throws IllegalStateException If the main window has not been created yet; wait for {@link #ready()}.
+     */
+    public WindowManager windows() {
+        WindowManager current = windows;
+        if (current == null) {
+            throw new IllegalStateException("Kona has not created its main window yet");
+        }
+        return current;
+    }
+
+    /**
+     * Asks the GTK event loop to quit. Safe to call from any thread, including before startup completed.
+     */
+    public void shutdown() {
+        shutdownRequested = true;
+        AppWindow current = window;
+        if (current != null) {
+            current.scheduleTask(current::quit);
+        }
+    }
+
+    void attach(AppWindow window, WindowManager windows) {
+        this.window = window;
+        this.windows = windows;
+        if (shutdownRequested) {
+            window.scheduleTask(window::quit);
+        }
+    }
+
+    void markReady() {
+        ready.complete(null);
+    }
+
+    /**
+     * Fails readiness while the event loop keeps running, e.g. when routes could not be installed.
+     */
+    void markFailed(Throwable cause) {
+        ready.completeExceptionally(cause);
+    }
+
+    void markTerminated() {
+        ready.completeExceptionally(new IllegalStateException("Kona terminated before it became ready"));
+        terminated.complete(null);
+    }
+
+    void fail(Throwable cause) {
+        ready.completeExceptionally(cause);
+        terminated.completeExceptionally(cause);
+    }
+}
@@ -1,5 +1,10 @@
 package io.github.hubertkuch.kona.application;
 
+import io.github.hubertkuch.kona.diagnostics.StallWatchdog;
+import io.github.hubertkuch.kona.message.Priority;
+
+import java.util.function.Consumer;
+
 /**
  * Defines the essential operations for creating and managing an application window.
  * This interface abstracts the underlying windowing system, providing a common
@@ -40,6 +45,12 @@ public interface AppWindow extends AutoCloseable {
      */
     void runEventLoop();
 
+    /**
+     * Stops the main event loop, making {@link #runEventLoop()} return.
+     * Must be called on the UI thread, e.g. from a task passed to {@link #scheduleTask(Runnable)}.
+     */
+    void quit();
+
     /**
      * Adds a widget (e.g., a WebView) to a parent window.
      *
@@ -48,11 +59,88 @@ public interface AppWindow extends AutoCloseable {
      */
     void addWidget(long windowHandle, long widgetHandle);
 
+    /**
+     * Destroys the specified window together with the widgets it contains.
+     *
+     * @param windowHandle The native handle of the window.
+     */
+    void destroyWindow(long windowHandle);
+
+    /**
+     * Registers a callback invoked on the UI thread when the specified window is destroyed,
+     * either by the user closing it or through {@link #destroyWindow(long)}.
+     * The event loop quits once the last window is gone.
+     *
+     * @param windowHandle The native handle of the window.
+     * @param callback     The callback to run.
+     */
+    void onDestroy(long windowHandle, Runnable callback);
+
+    /**
+     * Registers a callback invoked on the UI thread whenever the specified window is shown, hidden, minimized,
+     * restored, focused or unfocused.
+     * <p>
+     * The default implementation never reports a change.
+     *
+     * @param windowHandle The native handle of the window.
+     * @param callback     The callback, receiving the new state.
+     */
+    default void onStateChanged(long windowHandle, Consumer<WindowState> callback) {
+    }
+
     void fullscreen(long windowHandle, boolean fullscreen);
     void resizable(long windowHandle, boolean fullscreen);
     void title(long windowHandle, String title);
     void modal(long windowHandle, boolean modal);
 
     void scheduleTask(Runnable task);
+
+    /**
+     * Schedules a task on the UI thread in the lane of the given priority. Lanes take turns in proportion to
+     * their weight, so interactive tasks are not stuck behind a backlog of background ones.
+     * <p>
+     * The default implementation ignores the priority.
+     *
+     * @param priority The priority of the task.
+     * @param task     The task to run on the UI thread.
+     */
+    default void scheduleTask(Priority priority, Runnable task) {
+        scheduleTask(task);
+    }
+
+    /**
+     * Holds the scheduled tasks of a priority lane until it is resumed, e.g. background work while no window
+     * can be seen. Tasks of other lanes keep running.
+     * <p>
+     * The default implementation ignores the call.
+     *
+     * @param priority  The lane.
+     * @param suspended Whether the lane is held.
+     */
+    default void setLaneSuspended(Priority priority, boolean suspended) {
+    }
+
+    /**
+     * Marks every scheduled task as the UI thread's activity while it runs, so the watchdog can attribute a stall
+     * to the task that caused it.
+     * <p>
+     * The default implementation ignores the watchdog; stalls are still detected, without their task.
+     *
+     * @param watchdog The watchdog, or {@code null} to stop marking tasks.
+     */
+    default void setStallWatchdog(StallWatchdog watchdog) {
+    }
+
+    /**
+     * Applies the process-wide parts of a profile, such as the JavaScript engine's JIT tiers, which the
+     * engine only reads at startup. Must be called before {@link #initialize()}.
+     * <p>
+     * The default implementation ignores the profile.
+     *
+     * @param profile The profile whose process-wide settings to apply.
+     */
+    default void setPerformanceProfile(PerformanceProfile profile) {
+    }
+
     void close();
 }
@@ -0,0 +1,325 @@
+package io.github.hubertkuch.kona.application;
+
+import io.github.hubertkuch.kona.files.FileResponse;
+import io.github.hubertkuch.kona.files.FileServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.FunctionDescriptor;
+import java.lang.foreign.Linker;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.SymbolLookup;
+import java.lang.foreign.ValueLayout;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Answers requests for the {@link FileServer#SCHEME} URI scheme of a WebKit web context.
+ * <p>
+ * The body of a response is a memory mapping of the requested byte range, handed to WebKit as a
+ * {@code GBytes} without copying. The mapping belongs to its own {@link Arena}, which is closed when WebKit
+ * releases the bytes, so a served range stays mapped exactly as long as the web view reads from it.
+ * <p>
+ * Status codes and headers, which {@code Range} requests need, require WebKitGTK 2.36. With older versions
+ * every request is answered with the whole file.
+ */
+final class GtkFileScheme {
+
+    private static final Logger log = LoggerFactory.getLogger(GtkFileScheme.class);
+
+    // SOUP_MESSAGE_HEADERS_RESPONSE
+    private static final int SOUP_HEADERS_RESPONSE = 1;
+
+    private FileServer server;
+    private final Map<Long, Arena> mappings = new ConcurrentHashMap<>();
+    private final AtomicLong nextMapping = new AtomicLong();
+
+    private MethodHandle registerUriScheme;
+    private MethodHandle getSecurityManager;
+    private MethodHandle registerAsSecure;
+    private MethodHandle registerAsCorsEnabled;
+    private MethodHandle requestGetUri;
+    private MethodHandle requestFinish;
+    private MethodHandle requestFinishError;
+    private MethodHandle gQuarkFromString;
+    private MethodHandle gErrorNewLiteral;
+    private MethodHandle gErrorFree;
+    private MethodHandle gBytesNewWithFreeFunc;
+    private MethodHandle gBytesUnref;
+    private MethodHandle gMemoryInputStreamNew;
+    private MethodHandle gMemoryInputStreamNewFromBytes;
+    private MethodHandle gObjectUnref;
+
+    // WebKitGTK 2.36+, with libsoup for the headers
+    private MethodHandle requestGetHttpHeaders;
+    private MethodHandle responseNew;
+    private MethodHandle responseSetStatus;
+    private MethodHandle responseSetContentType;
+    private MethodHandle responseSetHttpHeaders;
+    private MethodHandle requestFinishWithResponse;
+    private MethodHandle soupHeadersNew;
+    private MethodHandle soupHeadersAppend;
+    private MethodHandle soupHeadersGetOne;
+
+    private MemorySegment onRequestStub;
+    private MemorySegment onBytesReleasedStub;
+
+    /**
+     * Looks up the native functions and creates the upcall stubs.
+     */
+    void initialize(Linker linker, Arena arena, SymbolLookup webkitLib, SymbolLookup gobjectLib, SymbolLookup glibLib) throws Throwable {
+        SymbolLookup gioLib = SymbolLookup.libraryLookup("libgio-2.0.so", arena);
+
+        registerUriScheme = linker.downcallHandle(
+                webkitLib.find("webkit_web_context_register_uri_scheme").get(),
+                FunctionDescriptor.ofVoid(ValueLayout.ADDRESS, ValueLayout.ADDRESS, ValueLayout.ADDRESS, ValueLayout.ADDRESS, ValueLayout.ADDRESS)
+        );
+        getSecurityManager = linker.downcallHandle(
+                webkitLib.find("webkit_web_context_get_security_manager").get(),
+                FunctionDescriptor.of(ValueLayout.ADDRESS, ValueLayout.ADDRESS)
+        );
+        registerAsSecure = linker.downcallHandle(
+                webkitLib.find("webkit_security_manager_register_uri_scheme_as_secure").get(),
+                FunctionDescriptor.ofVoid(ValueLayout.ADDRESS, ValueLayout.ADDRESS)
+        );
+        registerAsCorsEnabled = linker.downcallHandle(
+                webkitLib.find("webkit_security_manager_register_uri_scheme_as_cors_enabled").get(),
+                FunctionDescriptor.ofVoid(ValueLayout.ADDRESS, ValueLayout.ADDRESS)
+        );
+        requestGetUri = linker.downcallHandle(
+                webkitLib.find("webkit_uri_scheme_request_get_uri").get(),
+                FunctionDescriptor.of(ValueLayout.ADDRESS, ValueLayout.ADDRESS)
+        );
+        requestFinish = linker.downcallHandle(
+                webkitLib.find("webkit_uri_scheme_request_finish").get(),
+                FunctionDescriptor.ofVoid(ValueLayout.ADDRESS, ValueLayout.ADDRESS, ValueLayout.JAVA_LONG, ValueLayout.ADDRESS)
+        );
+        requestFinishError = linker.downcallHandle(
+                webkitLib.find("webkit_uri_scheme_request_finish_error").get(),
+                FunctionDescriptor.ofVoid(ValueLayout.ADDRESS, ValueLayout.ADDRESS)
+        );
+        gQuarkFromString = linker.downcallHandle(
+                glibLib.find("g_quark_from_string").get(),
+                FunctionDescriptor.of(ValueLayout.JAVA_INT, ValueLayout.ADDRESS)
+        );
+        gErrorNewLiteral = linker.downcallHandle(
+                glibLib.find("g_error_new_literal").get(),
+                FunctionDescriptor.of(ValueLayout.ADDRESS, ValueLayout.JAVA_INT, ValueLayout.JAVA_INT, ValueLayout.ADDRESS)
+        );
+        gErrorFree = linker.downcallHandle(
+                glibLib.find("g_error_free").get(),
+                FunctionDescriptor.ofVoid(ValueLayout.ADDRESS)
+        );
+        gBytesNewWithFreeFunc = linker.downcallHandle(
+                glibLib.find("g_bytes_new_with_free_func").get(),
+                FunctionDescriptor.of(ValueLayout.ADDRESS, ValueLayout.ADDRESS, ValueLayout.JAVA_LONG, ValueLayout.ADDRESS, ValueLayout.ADDRESS)
+        );
+        gBytesUnref = linker.downcallHandle(
+                glibLib.find("g_bytes_unref").get(),
+                FunctionDescriptor.ofVoid(ValueLayout.ADDRESS)
+        );
+        gMemoryInputStreamNew = linker.downcallHandle(
+                gioLib.find("g_memory_input_stream_new").get(),
+                FunctionDescriptor.of(ValueLayout.ADDRESS)
+        );
+        gMemoryInputStreamNewFromBytes = linker.downcallHandle(
+                gioLib.find("g_memory_input_stream_new_from_bytes").get(),
+                FunctionDescriptor.of(ValueLayout.ADDRESS, ValueLayout.ADDRESS)
+        );
+        gObjectUnref = linker.downcallHandle(
+                gobjectLib.find("g_object_unref").get(),
+                FunctionDescriptor.ofVoid(ValueLayout.ADDRESS)
+        );
+
+        if (webkitLib.find("webkit_uri_scheme_response_new").isPresent()) {
+            try {
+                SymbolLookup soupLib = SymbolLookup.libraryLookup("libsoup-2.4.so", arena);
+                requestGetHttpHeaders = linker.downcallHandle(
+                        webkitLib.find("webkit_uri_scheme_request_get_http_headers").get(),
+                        FunctionDescriptor.of(ValueLayout.ADDRESS, ValueLayout.ADDRESS)
+                );
+                responseNew = linker.downcallHandle(
+                        webkitLib.find("webkit_uri_scheme_response_new").get(),
+                        FunctionDescriptor.of(ValueLayout.ADDRESS, ValueLayout.ADDRESS, ValueLayout.JAVA_LONG)
+                );
+                responseSetStatus = linker.downcallHandle(
+                        webkitLib.find("webkit_uri_scheme_response_set_status").get(),
+                        FunctionDescriptor.ofVoid(ValueLayout.ADDRESS, ValueLayout.JAVA_INT, ValueLayout.ADDRESS)
+                );
+                responseSetContentType = linker.downcallHandle(
+                        webkitLib.find("webkit_uri_scheme_response_set_content_type").get(),
+                        FunctionDescriptor.ofVoid(ValueLayout.ADDRESS, ValueLayout.ADDRESS)
+                );
+                responseSetHttpHeaders = linker.downcallHandle(
+                        webkitLib.find("webkit_uri_scheme_response_set_http_headers").get(),
+                        FunctionDescriptor.ofVoid(ValueLayout.ADDRESS, ValueLayout.ADDRESS)
+                );
+                requestFinishWithResponse = linker.downcallHandle(
+                        webkitLib.find("webkit_uri_scheme_request_finish_with_response").get(),
+                        FunctionDescriptor.ofVoid(ValueLayout.ADDRESS, ValueLayout.ADDRESS)
+                );
+                soupHeadersNew = linker.downcallHandle(
+                        soupLib.find("soup_message_headers_new").get(),
+                        FunctionDescriptor.of(ValueLayout.ADDRESS, ValueLayout.JAVA_INT)
+                );
+                soupHeadersAppend = linker.downcallHandle(
+                        soupLib.find("soup_message_headers_append").get(),
+                        FunctionDescriptor.ofVoid(ValueLayout.ADDRESS, ValueLayout.ADDRESS, ValueLayout.ADDRESS)
+                );
+                soupHeadersGetOne = linker.downcallHandle(
+                        soupLib.find("soup_message_headers_get_one").get(),
+                        FunctionDescriptor.of(ValueLayout.ADDRESS, ValueLayout.ADDRESS, ValueLayout.ADDRESS)
+                );
+            } catch (Throwable e) {
+                log.warn("libsoup not available, {} requests will ignore Range headers", FileServer.SCHEME);
+                requestFinishWithResponse = null;
+            }
+        } else {
+            log.info("WebKitGTK older than 2.36, {} requests will ignore Range headers", FileServer.SCHEME);
+        }
+
+        MethodHandle requestHandle = MethodHandles.lookup()
+                .findVirtual(GtkFileScheme.class, "onRequest",
+                        MethodType.methodType(void.class, MemorySegment.class, MemorySegment.class))
+                .bindTo(this);
+        onRequestStub = linker.upcallStub(requestHandle, FunctionDescriptor.ofVoid(ValueLayout.ADDRESS, ValueLayout.ADDRESS), arena);
+
+        MethodHandle releasedHandle = MethodHandles.lookup()
+                .findVirtual(GtkFileScheme.class, "onBytesReleased",
+                        MethodType.methodType(void.class, MemorySegment.class))
+                .bindTo(this);
+        onBytesReleasedStub = linker.upcallStub(releasedHandle, FunctionDescriptor.ofVoid(ValueLayout.ADDRESS), arena);
+    }
+
+    /**
+     * Registers the scheme with a web context. Pages may fetch its URIs cross-origin; only the origin allowed by the
+     * file server can read the responses.
+     */
+    void register(MemorySegment context, FileServer server, Arena arena) throws Throwable {
+        this.server = server;
+        MemorySegment scheme = arena.allocateFrom(FileServer.SCHEME);
+        registerUriScheme.invokeExact(context, scheme, onRequestStub, MemorySegment.NULL, MemorySegment.NULL);
+        MemorySegment securityManager = (MemorySegment) getSecurityManager.invokeExact(context);
+        registerAsSecure.invokeExact(securityManager, scheme);
+        registerAsCorsEnabled.invokeExact(securityManager, scheme);
+    }
+
+    /**
+     * Callback invoked from native code for every request of the scheme, on the UI thread.
+     * <p>
+     * The method signature MUST match {@code WebKitURISchemeRequestCallback}:
+     * {@code (WebKitURISchemeRequest *request, gpointer user_data)}.
+     *
+     * @param request  A pointer to the WebKitURISchemeRequest.
+     * @param userData User data passed at registration (not used here).
+     */
+    public void onRequest(MemorySegment request, MemorySegment userData) {
+        try (Arena call = Arena.ofConfined()) {
+            String uri = ((MemorySegment) requestGetUri.invokeExact(request)).reinterpret(Long.MAX_VALUE).getString(0);
+            boolean ranged = requestFinishWithResponse != null;
+            // Without response headers, cross-origin reads are refused whatever the origin
+            FileResponse response = ranged
+                    ? server.resolve(uri, header(request, "Range", call), header(request, "Origin", call))
+                    : server.resolve(uri, null);
+            log.debug("{} {} -> {} ({} bytes at {})", FileServer.SCHEME, uri, response.status(), response.length(), response.offset());
+
+            if (!ranged && response.path() == null) {
+                finishWithError(request, response, call);
+                return;
+            }
+
+            MemorySegment stream = bodyStream(response);
+            if (ranged) {
+                MemorySegment reply = (MemorySegment) responseNew.invokeExact(stream, response.length());
+                responseSetStatus.invokeExact(reply, response.status(), call.allocateFrom(response.reason()));
+                responseSetContentType.invokeExact(reply, call.allocateFrom(response.contentType()));
+                MemorySegment headers = (MemorySegment) soupHeadersNew.invokeExact(SOUP_HEADERS_RESPONSE);
+                for (Map.Entry<String, String> header : response.headers().entrySet()) {
+                    soupHeadersAppend.invokeExact(headers, call.allocateFrom(header.getKey()), call.allocateFrom(header.getValue()));
+                }
+                // Takes ownership of the headers
+                responseSetHttpHeaders.invokeExact(reply, headers);
+                requestFinishWithResponse.invokeExact(request, reply);
+                gObjectUnref.invokeExact(reply);
+            } else {
+                requestFinish.invokeExact(request, stream, response.length(), call.allocateFrom(response.contentType()));
+            }
+            gObjectUnref.invokeExact(stream);
+        } catch (Throwable e) {
+            log.error("Error serving {} request", FileServer.SCHEME, e);
+        }
+    }
+
+    private String header(MemorySegment request, String name, Arena call) throws Throwable {
+        MemorySegment headers = (MemorySegment) requestGetHttpHeaders.invokeExact(request);
+        if (headers.equals(MemorySegment.NULL)) {
+            return null;
+        }
+        MemorySegment value = (MemorySegment) soupHeadersGetOne.invokeExact(headers, call.allocateFrom(name));
+        return value.equals(MemorySegment.NULL) ? null : value.reinterpret(Long.MAX_VALUE).getString(0);
+    }
+
+    /**
+     * Maps the bytes of a response and wraps them in a {@code GInputStream}, or returns an empty stream.
+     */
+    private MemorySegment bodyStream(FileResponse response) throws Throwable {
+        if (response.path() == null || response.length() == 0) {
+            return (MemorySegment) gMemoryInputStreamNew.invokeExact();
+        }
+
+        Arena mappingArena = Arena.ofShared();
+        MemorySegment mapping;
+        try (FileChannel channel = FileChannel.open(response.path(), StandardOpenOption.READ)) {
+            // The mapping outlives the channel
+            mapping = channel.map(FileChannel.MapMode.READ_ONLY, response.offset(), response.length(), mappingArena);
+        } catch (Throwable e) {
+            mappingArena.close();
+            throw e;
+        }
+
+        long id = nextMapping.incrementAndGet();
+        mappings.put(id, mappingArena);
+        MemorySegment bytes = (MemorySegment) gBytesNewWithFreeFunc.invokeExact(
+                mapping, response.length(), onBytesReleasedStub, MemorySegment.ofAddress(id));
+        MemorySegment stream = (MemorySegment) gMemoryInputStreamNewFromBytes.invokeExact(bytes);
+        gBytesUnref.invokeExact(bytes);
+        return stream;
+    }
+
+    private void finishWithError(MemorySegment request, FileResponse response, Arena call) throws Throwable {
+        int domain = (int) gQuarkFromString.invokeExact(call.allocateFrom(FileServer.SCHEME));
+        MemorySegment error = (MemorySegment) gErrorNewLiteral.invokeExact(domain, response.status(), call.allocateFrom(response.reason()));
+        requestFinishError.invokeExact(request, error);
+        gErrorFree.invokeExact(error);
+    }
+
+    /**
+     * Callback invoked from native code when WebKit releases the bytes of a response, possibly on a
+     * non-UI thread. Unmaps them.
+     * <p>
+     * The method signature MUST match {@code GDestroyNotify}: {@code (gpointer data)}.
+     *
+     * @param userData The id of the mapping, passed to {@code g_bytes_new_with_free_func}.
+     */
+    public void onBytesReleased(MemorySegment userData) {
+        Arena mappingArena = mappings.remove(userData.address());
+        if (mappingArena != null) {
+            mappingArena.close();
+        }
+    }
+
+    /**
+     * Unmaps the responses WebKit still holds, when the web view shuts down.
+     */
+    void close() {
+        mappings.values().forEach(Arena::close);
+        mappings.clear();
+    }
+}
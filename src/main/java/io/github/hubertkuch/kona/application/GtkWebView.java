@@ -1,13 +1,25 @@
 package io.github.hubertkuch.kona.application;
 
+import com.google.gson.JsonObject;
+import io.github.hubertkuch.kona.files.FileServer;
+import io.github.hubertkuch.kona.routing.ChannelReceiver;
 import io.github.hubertkuch.kona.routing.KonaRouter;
+import io.github.hubertkuch.kona.routing.MessageChannel;
+import io.github.hubertkuch.kona.routing.MessageReply;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.InputStream;
 import java.lang.foreign.*;
 import java.lang.invoke.MethodHandle;
 import java.lang.invoke.MethodHandles;
 import java.lang.invoke.MethodType;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * A {@link WebView} implementation that uses GTK's WebKit port (WebKit2GTK).
@@ -28,8 +40,14 @@ public class GtkWebView implements AutoCloseable, WebView {
     private SymbolLookup gobjectLib;
     private SymbolLookup jscLib;
     private SymbolLookup glibLib;
-
-    private MethodHandle webkitWebViewNew;
+    private SymbolLookup gtkLib;
+
+    private MethodHandle webkitWebViewNewWithContext;
+    private MethodHandle webkitWebContextGetDefault;
+    private MethodHandle webkitWebContextNewWithWebsiteDataManager;
+    private MethodHandle webkitWebContextSetCacheModel;
+    private MethodHandle webkitWebsiteDataManagerNew;
+    private MethodHandle gObjectSetInt;
     private MethodHandle webkitWebViewLoadUri;
     private MethodHandle webkitWebViewEvaluateJavascript;
     private MethodHandle webkitWebViewGetSettings;
@@ -41,9 +59,51 @@ public class GtkWebView implements AutoCloseable, WebView {
     private MethodHandle webkitJavascriptResultGetJsValue;
     private MethodHandle jscValueToString;
     private MethodHandle gFree;
+    private MethodHandle gtkWidgetDestroy;
+    private MethodHandle gObjectRefSink;
+    private MethodHandle gObjectUnref;
+    private MethodHandle webkitUserScriptNew;
+    private MethodHandle webkitUserContentManagerAddScript;
+    private MethodHandle webkitUserScriptUnref;
+    private MethodHandle webkitWebViewCallAsyncJavascriptFunction;
+    private MethodHandle gVariantDictNew;
+    private MethodHandle gVariantDictInsertValue;
+    private MethodHandle gVariantDictEnd;
+    private MethodHandle gVariantDictUnref;
+    private MethodHandle gVariantNewString;
+    private MethodHandle webkitUserContentManagerRegisterScriptMessageHandlerWithReply;
+    private MethodHandle webkitScriptMessageReplyRef;
+    private MethodHandle webkitScriptMessageReplyUnref;
+    private MethodHandle webkitScriptMessageReplyReturnValue;
+    private MethodHandle webkitScriptMessageReplyReturnErrorMessage;
+    private MethodHandle jscValueGetContext;
+    private MethodHandle jscValueNewFromJson;
+    private MethodHandle jscValueNewString;
+    private MethodHandle jscValueNewUndefined;
+    private MethodHandle gObjectRef;
+
+    // WEBKIT_USER_CONTENT_INJECT_TOP_FRAME and WEBKIT_USER_SCRIPT_INJECT_AT_DOCUMENT_START
+    private static final int INJECT_TOP_FRAME = 1;
+    private static final int INJECT_AT_DOCUMENT_START = 0;
+    private static final String BRIDGE_RUNTIME = "kona-bridge.js";
+    // The message handler whose postMessage returns a promise; the bridge runtime uses it when it exists
+    private static final String REPLY_HANDLER = "konaReply";
+
+    private MemorySegment bridgeScript;
+    // Function bodies and argument names for call_async_javascript_function, allocated once per function and arity
+    private final Map<String, MemorySegment> functionBodies = new ConcurrentHashMap<>();
+    private final Map<Integer, MemorySegment> argumentNames = new ConcurrentHashMap<>();
     private MemorySegment onScriptMessageStub;
+    private MemorySegment onScriptMessageWithReplyStub;
+    private MemorySegment onWebViewDestroyedStub;
 
     private KonaRouter upCallHandler;
+    private PerformanceProfile profile = PerformanceProfile.development();
+    private MemorySegment webContext;
+    private FileServer fileServer;
+    private final GtkFileScheme fileScheme = new GtkFileScheme();
+    private final Map<Long, Long> webViewsByContentManager = new ConcurrentHashMap<>();
+    private final Map<String, MemorySegment> channelStubs = new LinkedHashMap<>();
 
 
     /**
@@ -89,7 +149,8 @@ public class GtkWebView implements AutoCloseable, WebView {
             MemorySegment cStringData = cStringPointer.reinterpret(Long.MAX_VALUE);
             String message = cStringData.getString(0);
 
-            if (upCallHandler != null) upCallHandler.onMessage(message);
+            long webViewHandle = webViewsByContentManager.getOrDefault(manager.address(), 0L);
+            if (upCallHandler != null) upCallHandler.onMessage(webViewHandle, message);
 
             log.debug("===> UPCALL (JS->Java): {}", message);
 
@@ -99,6 +160,170 @@ public class GtkWebView implements AutoCloseable, WebView {
         }
     }
 
+    /**
+     * Callback method invoked from native code when a message is posted to the reply handler with
+     * {@code window.webkit.messageHandlers.konaReply.postMessage(...)}, which returns a promise in the page.
+     * The reply is kept until the router completes it, so the handler's result resolves that promise directly.
+     * <p>
+     * The method signature MUST match the one expected by the "script-message-with-reply-received" signal:
+     * {@code gboolean (WebKitUserContentManager *manager, JSCValue *value, WebKitScriptMessageReply *reply, gpointer user_data)}.
+     *
+     * @param manager  A pointer to the WebKitUserContentManager that emitted the signal.
+     * @param jscValue A pointer to the JSCValue holding the message from JavaScript.
+     * @param reply    A pointer to the WebKitScriptMessageReply for the message.
+     * @param userData User data passed to the signal connection (not used here).
+     * @return {@code 1}, so that no other handler replies to the message.
+     */
+    public int onScriptMessageWithReplyReceived(MemorySegment manager, MemorySegment jscValue, MemorySegment reply, MemorySegment userData) {
+        try {
+            MemorySegment cStringPointer = (MemorySegment) jscValueToString.invokeExact(jscValue);
+            if (cStringPointer.equals(MemorySegment.NULL)) {
+                log.warn("===> UPCALL (JS->Java): Received NULL string.");
+                webkitScriptMessageReplyReturnErrorMessage.invokeExact(reply, this.arena.allocateFrom("Empty message"));
+                return 1;
+            }
+            String message = cStringPointer.reinterpret(Long.MAX_VALUE).getString(0);
+            gFree.invokeExact(cStringPointer);
+
+            MemorySegment context = (MemorySegment) gObjectRef.invokeExact((MemorySegment) jscValueGetContext.invokeExact(jscValue));
+            MemorySegment heldReply = (MemorySegment) webkitScriptMessageReplyRef.invokeExact(reply);
+            MessageReply messageReply = new NativeReply(heldReply, context);
+
+            log.debug("===> UPCALL (JS->Java, reply): {}", message);
+            if (upCallHandler != null) {
+                upCallHandler.onMessage(webViewsByContentManager.getOrDefault(manager.address(), 0L), message, messageReply);
+            } else {
+                messageReply.reject("No message handler");
+            }
+        } catch (Throwable e) {
+            log.error("Error in onScriptMessageWithReplyReceived", e);
+        }
+        return 1;
+    }
+
+    /**
+     * A {@code WebKitScriptMessageReply} held until the router completes it. Each completion creates the reply
+     * value in the JavaScript context the message came from, hands it to WebKit and drops the references taken
+     * in {@link #onScriptMessageWithReplyReceived}.
+     */
+    private final class NativeReply implements MessageReply {
+
+        private final MemorySegment reply;
+        private final MemorySegment context;
+        private final AtomicBoolean completed = new AtomicBoolean();
+
+        private NativeReply(MemorySegment reply, MemorySegment context) {
+            this.reply = reply;
+            this.context = context;
+        }
+
+        @Override
+        public void resolve(String json) {
+            complete(json, jscValueNewFromJson);
+        }
+
+        @Override
+        public void resolveEncoded(String body, String codec) {
+            // The bridge runtime recognizes the envelope and decodes the body with the codec's decoder
+            JsonObject envelope = new JsonObject();
+            envelope.addProperty("kona:codec", codec);
+            envelope.addProperty("body", body);
+            complete(envelope.toString(), jscValueNewFromJson);
+        }
+
+        @Override
+        public void detach() {
+            complete(null, null);
+        }
+
+        @Override
+        public void reject(String message) {
+            if (!completed.compareAndSet(false, true) || arena == null) {
+                return;
+            }
+            try (Arena call = Arena.ofConfined()) {
+                webkitScriptMessageReplyReturnErrorMessage.invokeExact(reply, call.allocateFrom(message));
+            } catch (Throwable e) {
+                log.error("Error rejecting script message reply", e);
+            } finally {
+                release();
+            }
+        }
+
+        private void complete(String data, MethodHandle factory) {
+            if (!completed.compareAndSet(false, true) || arena == null) {
+                return;
+            }
+            try (Arena call = Arena.ofConfined()) {
+                MemorySegment value = factory == null
+                        ? (MemorySegment) jscValueNewUndefined.invokeExact(context)
+                        : (MemorySegment) factory.invokeExact(context, call.allocateFrom(data));
+                if (value.equals(MemorySegment.NULL)) {
+                    webkitScriptMessageReplyReturnErrorMessage.invokeExact(reply, call.allocateFrom("Invalid response"));
+                } else {
+                    webkitScriptMessageReplyReturnValue.invokeExact(reply, value);
+                    gObjectUnref.invokeExact(value);
+                }
+            } catch (Throwable e) {
+                log.error("Error completing script message reply", e);
+            } finally {
+                release();
+            }
+        }
+
+        private void release() {
+            try {
+                webkitScriptMessageReplyUnref.invokeExact(reply);
+                gObjectUnref.invokeExact(context);
+            } catch (Throwable e) {
+                log.error("Error releasing script message reply", e);
+            }
+        }
+    }
+
+    /**
+     * Callback method invoked from native code when a message is posted to a dedicated channel.
+     * Each channel has its own upcall stub with the receiver bound as the first argument, so the message
+     * reaches its route without passing through the router's envelope parsing.
+     * <p>
+     * Apart from the bound receiver, the signature matches {@link #onScriptMessageReceived}.
+     *
+     * @param receiver The receiver bound to the channel's route.
+     * @param manager  A pointer to the WebKitUserContentManager that emitted the signal.
+     * @param jsResult A pointer to the WebKitJavascriptResult containing the message body.
+     * @param userData User data passed to the signal connection (not used here).
+     */
+    public void onChannelMessageReceived(ChannelReceiver receiver, MemorySegment manager, MemorySegment jsResult, MemorySegment userData) {
+        try {
+            MemorySegment jscValue = (MemorySegment) webkitJavascriptResultGetJsValue.invokeExact(jsResult);
+            MemorySegment cStringPointer = (MemorySegment) jscValueToString.invokeExact(jscValue);
+            if (cStringPointer.equals(MemorySegment.NULL)) {
+                return;
+            }
+
+            String body = cStringPointer.reinterpret(Long.MAX_VALUE).getString(0);
+            gFree.invokeExact(cStringPointer);
+            receiver.onMessage(webViewsByContentManager.getOrDefault(manager.address(), 0L), body);
+        } catch (Throwable e) {
+            log.error("Error in onChannelMessageReceived", e);
+        }
+    }
+
+    /**
+     * Callback method invoked from native code when one of the WebView widgets created by this instance is destroyed,
+     * typically because its window was closed. It forgets the widget so its messages are no longer routed.
+     * <p>
+     * The method signature MUST match the one expected by the GCallback for the "destroy" signal:
+     * {@code (GtkWidget *widget, gpointer user_data)}.
+     *
+     * @param widget   A pointer to the WebKitWebView being destroyed.
+     * @param userData User data passed to the signal connection (not used here).
+     */
+    public void onWebViewDestroyed(MemorySegment widget, MemorySegment userData) {
+        webViewsByContentManager.values().remove(widget.address());
+        log.debug("WebView {} destroyed", widget.address());
+    }
+
     /**
      * Initializes the GtkWebView by loading the required native libraries (WebKit, GObject, etc.)
      * and looking up the necessary function symbols using the Foreign Function and Memory API.
@@ -115,13 +340,36 @@ public class GtkWebView implements AutoCloseable, WebView {
             this.gobjectLib = SymbolLookup.libraryLookup("libgobject-2.0.so", this.arena);
             this.jscLib = SymbolLookup.libraryLookup("libjavascriptcoregtk-4.0.so", this.arena);
             this.glibLib = SymbolLookup.libraryLookup("libglib-2.0.so", this.arena);
+            this.gtkLib = SymbolLookup.libraryLookup("libgtk-3.so", this.arena);
 
 
-            webkitWebViewNew = linker.downcallHandle(
-                    webkitLib.find("webkit_web_view_new").get(),
+            webkitWebViewNewWithContext = linker.downcallHandle(
+                    webkitLib.find("webkit_web_view_new_with_context").get(),
+                    FunctionDescriptor.of(ValueLayout.ADDRESS, ValueLayout.ADDRESS)
+            );
+
+            webkitWebContextGetDefault = linker.downcallHandle(
+                    webkitLib.find("webkit_web_context_get_default").get(),
                     FunctionDescriptor.of(ValueLayout.ADDRESS)
             );
 
+            webkitWebContextNewWithWebsiteDataManager = linker.downcallHandle(
+                    webkitLib.find("webkit_web_context_new_with_website_data_manager").get(),
+                    FunctionDescriptor.of(ValueLayout.ADDRESS, ValueLayout.ADDRESS)
+            );
+
+            webkitWebContextSetCacheModel = linker.downcallHandle(
+                    webkitLib.find("webkit_web_context_set_cache_model").get(),
+                    FunctionDescriptor.ofVoid(ValueLayout.ADDRESS, ValueLayout.JAVA_INT)
+            );
+
+            // webkit_website_data_manager_new(first_option_name, ...) with a single name/value pair and a NULL terminator
+            webkitWebsiteDataManagerNew = linker.downcallHandle(
+                    webkitLib.find("webkit_website_data_manager_new").get(),
+                    FunctionDescriptor.of(ValueLayout.ADDRESS, ValueLayout.ADDRESS, ValueLayout.ADDRESS, ValueLayout.ADDRESS),
+                    Linker.Option.firstVariadicArg(1)
+            );
+
             webkitWebViewLoadUri = linker.downcallHandle(
                     webkitLib.find("webkit_web_view_load_uri").get(),
                     FunctionDescriptor.ofVoid(ValueLayout.ADDRESS, ValueLayout.ADDRESS)
@@ -141,6 +389,91 @@ public class GtkWebView implements AutoCloseable, WebView {
                     .find("webkit_web_view_evaluate_javascript")
                     .get(), evalDescriptor);
 
+            this.webkitUserScriptNew = linker.downcallHandle(
+                    webkitLib.find("webkit_user_script_new").get(),
+                    FunctionDescriptor.of(ValueLayout.ADDRESS, ValueLayout.ADDRESS, ValueLayout.JAVA_INT, ValueLayout.JAVA_INT, ValueLayout.ADDRESS, ValueLayout.ADDRESS)
+            );
+            this.webkitUserContentManagerAddScript = linker.downcallHandle(
+                    webkitLib.find("webkit_user_content_manager_add_script").get(),
+                    FunctionDescriptor.ofVoid(ValueLayout.ADDRESS, ValueLayout.ADDRESS)
+            );
+            this.webkitUserScriptUnref = linker.downcallHandle(
+                    webkitLib.find("webkit_user_script_unref").get(),
+                    FunctionDescriptor.ofVoid(ValueLayout.ADDRESS)
+            );
+
+            // Available since WebKitGTK 2.40; older versions fall back to evaluating a call expression
+            this.webkitWebViewCallAsyncJavascriptFunction = webkitLib.find("webkit_web_view_call_async_javascript_function")
+                    .map(symbol -> linker.downcallHandle(symbol, FunctionDescriptor.ofVoid(
+                            ValueLayout.ADDRESS, ValueLayout.ADDRESS, ValueLayout.JAVA_LONG, ValueLayout.ADDRESS, ValueLayout.ADDRESS,
+                            ValueLayout.ADDRESS, ValueLayout.ADDRESS, ValueLayout.ADDRESS, ValueLayout.ADDRESS)))
+                    .orElse(null);
+            this.gVariantDictNew = linker.downcallHandle(
+                    glibLib.find("g_variant_dict_new").get(),
+                    FunctionDescriptor.of(ValueLayout.ADDRESS, ValueLayout.ADDRESS)
+            );
+            this.gVariantDictInsertValue = linker.downcallHandle(
+                    glibLib.find("g_variant_dict_insert_value").get(),
+                    FunctionDescriptor.ofVoid(ValueLayout.ADDRESS, ValueLayout.ADDRESS, ValueLayout.ADDRESS)
+            );
+            this.gVariantDictEnd = linker.downcallHandle(
+                    glibLib.find("g_variant_dict_end").get(),
+                    FunctionDescriptor.of(ValueLayout.ADDRESS, ValueLayout.ADDRESS)
+            );
+            this.gVariantDictUnref = linker.downcallHandle(
+                    glibLib.find("g_variant_dict_unref").get(),
+                    FunctionDescriptor.ofVoid(ValueLayout.ADDRESS)
+            );
+            this.gVariantNewString = linker.downcallHandle(
+                    glibLib.find("g_variant_new_string").get(),
+                    FunctionDescriptor.of(ValueLayout.ADDRESS, ValueLayout.ADDRESS)
+            );
+
+            // Available since WebKitGTK 2.40; without it the page resolves requests through resolveCallback
+            this.webkitUserContentManagerRegisterScriptMessageHandlerWithReply = webkitLib
+                    .find("webkit_user_content_manager_register_script_message_handler_with_reply")
+                    .map(symbol -> linker.downcallHandle(symbol,
+                            FunctionDescriptor.of(ValueLayout.JAVA_INT, ValueLayout.ADDRESS, ValueLayout.ADDRESS, ValueLayout.ADDRESS)))
+                    .orElse(null);
+            if (this.webkitUserContentManagerRegisterScriptMessageHandlerWithReply != null) {
+                this.webkitScriptMessageReplyRef = linker.downcallHandle(
+                        webkitLib.find("webkit_script_message_reply_ref").get(),
+                        FunctionDescriptor.of(ValueLayout.ADDRESS, ValueLayout.ADDRESS)
+                );
+                this.webkitScriptMessageReplyUnref = linker.downcallHandle(
+                        webkitLib.find("webkit_script_message_reply_unref").get(),
+                        FunctionDescriptor.ofVoid(ValueLayout.ADDRESS)
+                );
+                this.webkitScriptMessageReplyReturnValue = linker.downcallHandle(
+                        webkitLib.find("webkit_script_message_reply_return_value").get(),
+                        FunctionDescriptor.ofVoid(ValueLayout.ADDRESS, ValueLayout.ADDRESS)
+                );
+                this.webkitScriptMessageReplyReturnErrorMessage = linker.downcallHandle(
+                        webkitLib.find("webkit_script_message_reply_return_error_message").get(),
+                        FunctionDescriptor.ofVoid(ValueLayout.ADDRESS, ValueLayout.ADDRESS)
+                );
+                this.jscValueGetContext = linker.downcallHandle(
+                        jscLib.find("jsc_value_get_context").get(),
+                        FunctionDescriptor.of(ValueLayout.ADDRESS, ValueLayout.ADDRESS)
+                );
+                this.jscValueNewFromJson = linker.downcallHandle(
+                        jscLib.find("jsc_value_new_from_json").get(),
+                        FunctionDescriptor.of(ValueLayout.ADDRESS, ValueLayout.ADDRESS, ValueLayout.ADDRESS)
+                );
+                this.jscValueNewString = linker.downcallHandle(
+                        jscLib.find("jsc_value_new_string").get(),
+                        FunctionDescriptor.of(ValueLayout.ADDRESS, ValueLayout.ADDRESS, ValueLayout.ADDRESS)
+                );
+                this.jscValueNewUndefined = linker.downcallHandle(
+                        jscLib.find("jsc_value_new_undefined").get(),
+                        FunctionDescriptor.of(ValueLayout.ADDRESS, ValueLayout.ADDRESS)
+                );
+                this.gObjectRef = linker.downcallHandle(
+                        gobjectLib.find("g_object_ref").get(),
+                        FunctionDescriptor.of(ValueLayout.ADDRESS, ValueLayout.ADDRESS)
+                );
+            }
+
             this.webkitWebViewGetSettings = linker.downcallHandle(
                     webkitLib.find("webkit_web_view_get_settings").get(),
                     FunctionDescriptor.of(ValueLayout.ADDRESS, ValueLayout.ADDRESS)
@@ -156,6 +489,13 @@ public class GtkWebView implements AutoCloseable, WebView {
                     )
             );
 
+            // g_object_set(object, property_name, ...) for gboolean and enum properties, which are passed as gint
+            this.gObjectSetInt = linker.downcallHandle(
+                    gobjectLib.find("g_object_set").get(),
+                    FunctionDescriptor.ofVoid(ValueLayout.ADDRESS, ValueLayout.ADDRESS, ValueLayout.JAVA_INT, ValueLayout.ADDRESS),
+                    Linker.Option.firstVariadicArg(2)
+            );
+
             this.webkitWebViewGetUserContentManager = linker.downcallHandle(
                     webkitLib.find("webkit_web_view_get_user_content_manager").get(),
                     FunctionDescriptor.of(ValueLayout.ADDRESS, ValueLayout.ADDRESS)
@@ -185,6 +525,29 @@ public class GtkWebView implements AutoCloseable, WebView {
                     FunctionDescriptor.ofVoid(ValueLayout.ADDRESS)
             );
 
+            this.gtkWidgetDestroy = linker.downcallHandle(
+                    gtkLib.find("gtk_widget_destroy").get(),
+                    FunctionDescriptor.ofVoid(ValueLayout.ADDRESS)
+            );
+
+            this.gObjectRefSink = linker.downcallHandle(
+                    gobjectLib.find("g_object_ref_sink").get(),
+                    FunctionDescriptor.of(ValueLayout.ADDRESS, ValueLayout.ADDRESS)
+            );
+
+            this.gObjectUnref = linker.downcallHandle(
+                    gobjectLib.find("g_object_unref").get(),
+                    FunctionDescriptor.ofVoid(ValueLayout.ADDRESS)
+            );
+
+            MethodHandle destroyedHandle = MethodHandles
+                    .lookup()
+                    .findVirtual(GtkWebView.class, "onWebViewDestroyed",
+                            MethodType.methodType(void.class, MemorySegment.class, MemorySegment.class)
+                    )
+                    .bindTo(this);
+            this.onWebViewDestroyedStub = linker.upcallStub(destroyedHandle, FunctionDescriptor.ofVoid(ValueLayout.ADDRESS, ValueLayout.ADDRESS), this.arena);
+
             MethodHandle messageHandle = MethodHandles
                     .lookup()
                     .findVirtual(GtkWebView.class, "onScriptMessageReceived",
@@ -195,6 +558,29 @@ public class GtkWebView implements AutoCloseable, WebView {
             FunctionDescriptor messageDesc = FunctionDescriptor.ofVoid(ValueLayout.ADDRESS, ValueLayout.ADDRESS, ValueLayout.ADDRESS);
             this.onScriptMessageStub = linker.upcallStub(messageHandle, messageDesc, this.arena);
 
+            if (this.webkitUserContentManagerRegisterScriptMessageHandlerWithReply != null) {
+                MethodHandle replyHandle = MethodHandles
+                        .lookup()
+                        .findVirtual(GtkWebView.class, "onScriptMessageWithReplyReceived",
+                                MethodType.methodType(int.class, MemorySegment.class, MemorySegment.class, MemorySegment.class, MemorySegment.class)
+                        )
+                        .bindTo(this);
+                FunctionDescriptor replyDesc = FunctionDescriptor.of(ValueLayout.JAVA_INT,
+                        ValueLayout.ADDRESS, ValueLayout.ADDRESS, ValueLayout.ADDRESS, ValueLayout.ADDRESS);
+                this.onScriptMessageWithReplyStub = linker.upcallStub(replyHandle, replyDesc, this.arena);
+            }
+
+            fileScheme.initialize(linker, this.arena, webkitLib, gobjectLib, glibLib);
+
+            try (InputStream runtime = GtkWebView.class.getResourceAsStream(BRIDGE_RUNTIME)) {
+                if (runtime == null) {
+                    throw new IllegalStateException("Missing bridge runtime " + BRIDGE_RUNTIME);
+                }
+                String source = new String(runtime.readAllBytes(), StandardCharsets.UTF_8);
+                this.bridgeScript = (MemorySegment) webkitUserScriptNew.invokeExact(this.arena.allocateFrom(source),
+                        INJECT_TOP_FRAME, INJECT_AT_DOCUMENT_START, MemorySegment.NULL, MemorySegment.NULL);
+            }
+
             return true;
         } catch (Throwable e) {
             if (this.arena != null) this.arena.close();
@@ -218,22 +604,94 @@ public class GtkWebView implements AutoCloseable, WebView {
 
         try {
             MemorySegment webView = MemorySegment.ofAddress(webViewHandle);
-            MemorySegment cScript = this.arena.allocateFrom(script);
+            // WebKit copies the script before returning, so it only needs to live for the call
+            try (Arena call = Arena.ofConfined()) {
+                MemorySegment cScript = call.allocateFrom(script);
+
+                webkitWebViewEvaluateJavascript.invokeExact(
+                        webView,
+                        cScript,
+                        -1L,
+                        MemorySegment.NULL,
+                        MemorySegment.NULL,
+                        MemorySegment.NULL,
+                        MemorySegment.NULL
+                );
+            }
+        } catch (Throwable e) {
+            log.error("Error running JavaScript", e);
+        }
+    }
+
+    /**
+     * Calls a function of the page with {@code webkit_web_view_call_async_javascript_function}. The function body,
+     * e.g. {@code return window.kona.resolveCallback(a0, a1);}, is the same for every call with the same function and
+     * number of arguments, so WebKit compiles it once; the arguments are passed as a {@code GVariant} dictionary
+     * and arrive in the page as JavaScript strings, without being escaped or parsed as source.
+     *
+     * @param webViewHandle The native handle of the WebView widget.
+     * @param function      The function to call.
+     * @param arguments     The arguments.
+     */
+    @Override
+    public void callFunction(long webViewHandle, String function, String... arguments) {
+        if (this.webkitWebViewCallAsyncJavascriptFunction == null) {
+            WebView.super.callFunction(webViewHandle, function, arguments);
+            return;
+        }
+        if (webViewHandle == 0L) {
+            log.error("Cannot call {}: invalid handle.", function);
+            return;
+        }
+
+        try (Arena call = Arena.ofConfined()) {
+            MemorySegment body = functionBody(function, arguments.length);
+            MemorySegment names = argumentNames(arguments.length);
+            MemorySegment dict = (MemorySegment) gVariantDictNew.invokeExact(MemorySegment.NULL);
+            for (int i = 0; i < arguments.length; i++) {
+                MemorySegment value = (MemorySegment) gVariantNewString.invokeExact(call.allocateFrom(arguments[i]));
+                gVariantDictInsertValue.invokeExact(dict, names.getAtIndex(ValueLayout.ADDRESS, i), value);
+            }
+            // Floating; consumed by the call
+            MemorySegment variant = (MemorySegment) gVariantDictEnd.invokeExact(dict);
+            gVariantDictUnref.invokeExact(dict);
 
-            webkitWebViewEvaluateJavascript.invokeExact(
-                    webView,
-                    cScript,
+            webkitWebViewCallAsyncJavascriptFunction.invokeExact(
+                    MemorySegment.ofAddress(webViewHandle),
+                    body,
                     -1L,
+                    variant,
+                    MemorySegment.NULL,
                     MemorySegment.NULL,
                     MemorySegment.NULL,
                     MemorySegment.NULL,
                     MemorySegment.NULL
             );
         } catch (Throwable e) {
-            log.error("Error running JavaScript", e);
+            log.error("Error calling {}", function, e);
         }
     }
 
+    private MemorySegment functionBody(String function, int arity) {
+        return functionBodies.computeIfAbsent(function + "/" + arity, key -> {
+            StringJoiner call = new StringJoiner(", ", "return " + function + "(", ");");
+            for (int i = 0; i < arity; i++) {
+                call.add("a" + i);
+            }
+            return this.arena.allocateFrom(call.toString());
+        });
+    }
+
+    private MemorySegment argumentNames(int arity) {
+        return argumentNames.computeIfAbsent(arity, count -> {
+            MemorySegment names = this.arena.allocate(ValueLayout.ADDRESS, Math.max(count, 1));
+            for (int i = 0; i < count; i++) {
+                names.setAtIndex(ValueLayout.ADDRESS, i, this.arena.allocateFrom("a" + i));
+            }
+            return names;
+        });
+    }
+
     /**
      * Sets the router that will handle incoming messages from the JavaScript context.
      *
@@ -245,31 +703,139 @@ public class GtkWebView implements AutoCloseable, WebView {
     }
 
     /**
-     * Creates the native WebKitGTK widget.
-     * This method also enables developer extras, sets up the script message handler named "kona",
-     * and connects the signal for receiving messages.
+     * Creates an upcall stub for each new channel and registers its script message handler with every
+     * widget created so far. Widgets created later register all channels in {@link #createWebViewWidget()}.
+     */
+    @Override
+    public void openChannels(Map<MessageChannel, ChannelReceiver> channels) {
+        try {
+            MethodHandle channelHandle = MethodHandles
+                    .lookup()
+                    .findVirtual(GtkWebView.class, "onChannelMessageReceived",
+                            MethodType.methodType(void.class, ChannelReceiver.class, MemorySegment.class, MemorySegment.class, MemorySegment.class)
+                    )
+                    .bindTo(this);
+            FunctionDescriptor messageDesc = FunctionDescriptor.ofVoid(ValueLayout.ADDRESS, ValueLayout.ADDRESS, ValueLayout.ADDRESS);
+
+            for (Map.Entry<MessageChannel, ChannelReceiver> channel : channels.entrySet()) {
+                String name = channel.getKey().name();
+                if (channelStubs.containsKey(name)) {
+                    log.warn("Channel {} is already open.", name);
+                    continue;
+                }
+                MemorySegment stub = linker.upcallStub(MethodHandles.insertArguments(channelHandle, 0, channel.getValue()), messageDesc, this.arena);
+                channelStubs.put(name, stub);
+                for (long contentManager : webViewsByContentManager.keySet()) {
+                    registerChannel(MemorySegment.ofAddress(contentManager), name, stub);
+                }
+                log.debug("Opened channel {}", name);
+            }
+        } catch (Throwable e) {
+            log.error("Error opening message channels", e);
+        }
+    }
+
+    private void registerChannel(MemorySegment contentManager, String name, MemorySegment stub) throws Throwable {
+        webkitUserContentManagerRegisterScriptMessageHandler.invokeExact(contentManager, this.arena.allocateFrom(name));
+        MemorySegment signalName = this.arena.allocateFrom("script-message-received::" + name);
+        gSignalConnect.invokeExact(contentManager, signalName, stub, MemorySegment.NULL, MemorySegment.NULL, 0);
+    }
+
+    @Override
+    public void setFileServer(FileServer fileServer) {
+        if (this.webContext != null) {
+            log.warn("Web context already created; {} URIs will not be served.", FileServer.SCHEME);
+        }
+        this.fileServer = fileServer;
+    }
+
+    @Override
+    public void setPerformanceProfile(PerformanceProfile profile) {
+        if (this.webContext != null) {
+            log.warn("Web context already created; only per-view settings of {} will apply.", profile);
+        }
+        this.profile = profile;
+    }
+
+    /**
+     * Creates the web context shared by every widget of this instance on first use.
+     * The JIT switches are not applied here; the window sets them before GTK starts.
+     */
+    private MemorySegment webContext() throws Throwable {
+        if (this.webContext != null) {
+            return this.webContext;
+        }
+
+        MemorySegment context;
+        if (profile.diskCacheDirectory() != null) {
+            MemorySegment dataManager = (MemorySegment) webkitWebsiteDataManagerNew.invokeExact(
+                    this.arena.allocateFrom("disk-cache-directory"),
+                    this.arena.allocateFrom(profile.diskCacheDirectory().toAbsolutePath().toString()),
+                    MemorySegment.NULL);
+            context = (MemorySegment) webkitWebContextNewWithWebsiteDataManager.invokeExact(dataManager);
+        } else {
+            context = (MemorySegment) webkitWebContextGetDefault.invokeExact();
+        }
+        webkitWebContextSetCacheModel.invokeExact(context, profile.cacheModel().nativeValue());
+        if (fileServer != null) {
+            fileScheme.register(context, fileServer, this.arena);
+        }
+
+        log.info("Created web context with {}", profile);
+        this.webContext = context;
+        return context;
+    }
+
+    private void setIntProperty(MemorySegment object, String name, int value) throws Throwable {
+        gObjectSetInt.invokeExact(object, this.arena.allocateFrom(name), value, MemorySegment.NULL);
+    }
+
+    /**
+     * Creates the native WebKitGTK widget in the shared web context.
+     * This method applies the {@link PerformanceProfile} settings, sets up the script message handler named "kona"
+     * and, where WebKit supports replies, the reply handler named "konaReply", and connects the signals for receiving messages.
      *
      * @return The native handle (memory address) of the created WebView widget, or 0L on failure.
      */
     public long createWebViewWidget() {
         try {
-            MemorySegment webView = (MemorySegment) webkitWebViewNew.invokeExact();
+            MemorySegment webView = (MemorySegment) webkitWebViewNewWithContext.invokeExact(webContext());
 
             MemorySegment settings = (MemorySegment) webkitWebViewGetSettings.invokeExact(webView);
-            MemorySegment enableDeveloperExtrasPropName = this.arena.allocateFrom("enable-developer-extras");
             MemorySegment allowFileAccessFromFileUrlsPropName = this.arena.allocateFrom("allow-file-access-from-file-urls");
 
-            gObjectSet.invokeExact(settings, enableDeveloperExtrasPropName, true, MemorySegment.NULL);
             gObjectSet.invokeExact(settings, allowFileAccessFromFileUrlsPropName, true, MemorySegment.NULL);
+            setIntProperty(settings, "enable-developer-extras", profile.developerExtras() ? 1 : 0);
+            setIntProperty(settings, "hardware-acceleration-policy", profile.hardwareAcceleration().nativeValue());
+            setIntProperty(settings, "enable-page-cache", profile.pageCache() ? 1 : 0);
+            setIntProperty(settings, "enable-smooth-scrolling", profile.smoothScrolling() ? 1 : 0);
 
             MemorySegment contentManager = (MemorySegment) webkitWebViewGetUserContentManager.invokeExact(webView);
+            webkitUserContentManagerAddScript.invokeExact(contentManager, this.bridgeScript);
             MemorySegment handlerName = this.arena.allocateFrom("kona");
             webkitUserContentManagerRegisterScriptMessageHandler.invokeExact(contentManager, handlerName);
 
             MemorySegment signalName = this.arena.allocateFrom("script-message-received::kona");
             gSignalConnect.invokeExact(contentManager, signalName, this.onScriptMessageStub, MemorySegment.NULL, MemorySegment.NULL, 0);
+            if (this.onScriptMessageWithReplyStub != null) {
+                int registered = (int) webkitUserContentManagerRegisterScriptMessageHandlerWithReply.invokeExact(
+                        contentManager, this.arena.allocateFrom(REPLY_HANDLER), MemorySegment.NULL);
+                if (registered != 0) {
+                    MemorySegment replySignal = this.arena.allocateFrom("script-message-with-reply-received::" + REPLY_HANDLER);
+                    gSignalConnect.invokeExact(contentManager, replySignal, this.onScriptMessageWithReplyStub, MemorySegment.NULL, MemorySegment.NULL, 0);
+                } else {
+                    // Without the handler the page has no konaReply and answers come through resolveCallback
+                    log.warn("Could not register the {} message handler; responses will use callbacks.", REPLY_HANDLER);
+                }
+            }
+            for (Map.Entry<String, MemorySegment> channel : channelStubs.entrySet()) {
+                registerChannel(contentManager, channel.getKey(), channel.getValue());
+            }
 
+            MemorySegment destroySignal = this.arena.allocateFrom("destroy");
+            gSignalConnect.invokeExact(webView, destroySignal, this.onWebViewDestroyedStub, MemorySegment.NULL, MemorySegment.NULL, 0);
 
+            webViewsByContentManager.put(contentManager.address(), webView.address());
             return webView.address();
         } catch (Throwable e) {
             log.error("Error creating web view widget", e);
@@ -277,6 +843,45 @@ public class GtkWebView implements AutoCloseable, WebView {
         }
     }
 
+    /**
+     * Destroys a WebView widget that was never added to a window, e.g. a prewarmed one that is no longer needed.
+     * The widget still holds its initial floating reference, so it is sunk before being destroyed and released.
+     *
+     * @param webViewHandle The native handle of the WebView widget.
+     */
+    @Override
+    public void destroyWebViewWidget(long webViewHandle) {
+        if (webViewHandle == 0L) {
+            return;
+        }
+        try {
+            MemorySegment webView = MemorySegment.ofAddress(webViewHandle);
+            MemorySegment ignored = (MemorySegment) gObjectRefSink.invokeExact(webView);
+            gtkWidgetDestroy.invokeExact(webView);
+            gObjectUnref.invokeExact(webView);
+        } catch (Throwable e) {
+            log.error("Error destroying web view widget", e);
+        }
+    }
+
+    @Override
+    public void addUserScript(long webViewHandle, String source) {
+        if (webViewHandle == 0L) {
+            log.error("Cannot add user script: invalid web view handle.");
+            return;
+        }
+        try (Arena call = Arena.ofConfined()) {
+            MemorySegment contentManager = (MemorySegment) webkitWebViewGetUserContentManager.invokeExact(MemorySegment.ofAddress(webViewHandle));
+            MemorySegment script = (MemorySegment) webkitUserScriptNew.invokeExact(call.allocateFrom(source),
+                    INJECT_TOP_FRAME, INJECT_AT_DOCUMENT_START, MemorySegment.NULL, MemorySegment.NULL);
+            // The content manager keeps its own reference
+            webkitUserContentManagerAddScript.invokeExact(contentManager, script);
+            webkitUserScriptUnref.invokeExact(script);
+        } catch (Throwable e) {
+            log.error("Error adding user script", e);
+        }
+    }
+
     /**
      * Loads the specified URI into the WebView.
      *
@@ -300,6 +905,15 @@ public class GtkWebView implements AutoCloseable, WebView {
      */
     @Override
     public void close() {
+        fileScheme.close();
+        if (this.bridgeScript != null) {
+            try {
+                webkitUserScriptUnref.invokeExact(this.bridgeScript);
+            } catch (Throwable e) {
+                log.error("Error releasing the bridge runtime", e);
+            }
+            this.bridgeScript = null;
+        }
         if (this.arena != null && this.arena.scope().isAlive()) {
             this.arena.close();
             this.arena = null;
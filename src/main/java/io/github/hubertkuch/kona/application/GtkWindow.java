@@ -1,5 +1,8 @@
 package io.github.hubertkuch.kona.application;
 
+import io.github.hubertkuch.kona.diagnostics.StallWatchdog;
+import io.github.hubertkuch.kona.message.Priority;
+import io.github.hubertkuch.kona.routing.PriorityLanes;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -7,7 +10,10 @@ import java.lang.foreign.*;
 import java.lang.invoke.MethodHandle;
 import java.lang.invoke.MethodHandles;
 import java.lang.invoke.MethodType;
-import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
 
 /**
  * A Linux-specific implementation of {@link AppWindow} that uses GTK 3 for creating and managing the application window.
@@ -20,12 +26,22 @@ public class GtkWindow implements AppWindow, AutoCloseable {
 
     private static final Logger log = LoggerFactory.getLogger(GtkWindow.class);
     private static final int GTK_WINDOW_TOPLEVEL = 0;
+    private static final int GDK_WINDOW_STATE_WITHDRAWN = 1;
+    private static final int GDK_WINDOW_STATE_ICONIFIED = 1 << 1;
+    // Offset of new_window_state in GdkEventWindowState: type, padding, window, send_event, padding, changed_mask
+    private static final long NEW_WINDOW_STATE_OFFSET = 24;
 
     private Arena arena;
     private Linker linker;
 
     private SymbolLookup gtkLib;
-    private final ConcurrentLinkedQueue<Runnable> taskQueue = new ConcurrentLinkedQueue<>();
+    private final PriorityLanes<Runnable> taskQueue = new PriorityLanes<>();
+    private volatile StallWatchdog stallWatchdog;
+    private PerformanceProfile profile = PerformanceProfile.development();
+    private final Set<Long> openWindows = ConcurrentHashMap.newKeySet();
+    private final Map<Long, Runnable> destroyCallbacks = new ConcurrentHashMap<>();
+    private final Map<Long, Consumer<WindowState>> stateCallbacks = new ConcurrentHashMap<>();
+    private final Map<Long, WindowState> states = new ConcurrentHashMap<>();
 
     private MethodHandle gtkInit;
     private MethodHandle gtkWindowNew;
@@ -33,18 +49,25 @@ public class GtkWindow implements AppWindow, AutoCloseable {
     private MethodHandle gtkWindowSetDefaultSize;
     private SymbolLookup gobjectLib;
     private MethodHandle gtkWidgetShowAll;
+    private MethodHandle gtkWidgetDestroy;
     private MethodHandle gtkContainerAdd;
     private MethodHandle gtkWindowSetPosition;
     private MethodHandle gtkMain;
     private MethodHandle gtkMainQuit;
     private MethodHandle gSignalConnect;
     private MethodHandle gIdleAdd;
+    private MethodHandle gSetenv;
     private MemorySegment onWindowDestroyStub;
     private MemorySegment idleCallbackStub;
     private MethodHandle gtkWindowUnfullscreen;
     private MethodHandle gtkWindowSetResizable;
     private MethodHandle gtkWindowFullscreen;
     private MethodHandle gtkWindowSetModal;
+    private MethodHandle gtkWidgetGetMapped;
+    private MethodHandle gtkWindowIsActive;
+    private MemorySegment onWindowStateStub;
+    private MemorySegment onWindowMappingStub;
+    private MemorySegment onWindowActiveStub;
 
     /**
      * Checks if the required native libraries for this windowing implementation are available.
@@ -65,7 +88,8 @@ public class GtkWindow implements AppWindow, AutoCloseable {
     /**
      * Callback method invoked from native code when the GTK window is destroyed (e.g., by closing it).
      * This method is an upcall from C, triggered by the "destroy" signal of the GtkWindow.
-     * Its primary role is to terminate the GTK main event loop.
+     * It runs the callback registered for the window and terminates the GTK main event loop once the
+     * last window is gone.
      * <p>
      * The method signature MUST match the one expected by the GCallback for the "destroy" signal:
      * {@code (GtkWidget *widget, gpointer user_data)}.
@@ -74,6 +98,25 @@ public class GtkWindow implements AppWindow, AutoCloseable {
      * @param userData User data passed to the signal connection (in this case, a pointer to this GtkWindow instance).
      */
     public void onWindowDestroyed(MemorySegment widget, MemorySegment userData) {
+        long handle = widget.address();
+        openWindows.remove(handle);
+        states.remove(handle);
+        stateCallbacks.remove(handle);
+
+        Runnable callback = destroyCallbacks.remove(handle);
+        if (callback != null) {
+            try {
+                callback.run();
+            } catch (Exception e) {
+                log.error("Error in destroy callback", e);
+            }
+        }
+
+        if (!openWindows.isEmpty()) {
+            log.info("===> UPCALL: Window is closing, {} window(s) still open.", openWindows.size());
+            return;
+        }
+
         log.info("===> UPCALL: Window is closing! Quitting main loop.");
         try {
             gtkMainQuit.invokeExact();
@@ -82,9 +125,90 @@ public class GtkWindow implements AppWindow, AutoCloseable {
         }
     }
 
+    /**
+     * Callback method invoked from native code when a window is minimized, restored or withdrawn.
+     * This method is an upcall from C, triggered by the "window-state-event" signal of the GtkWindow.
+     * <p>
+     * The method signature MUST match the one expected by the signal:
+     * {@code gboolean (GtkWidget *widget, GdkEventWindowState *event, gpointer user_data)}.
+     *
+     * @param widget   A pointer to the window.
+     * @param event    A pointer to the event.
+     * @param userData User data passed to the signal connection (not used here).
+     * @return {@code 0} (FALSE) to let other handlers see the event.
+     */
+    public int onWindowStateEvent(MemorySegment widget, MemorySegment event, MemorySegment userData) {
+        int newState = event.reinterpret(NEW_WINDOW_STATE_OFFSET + 4).get(ValueLayout.JAVA_INT, NEW_WINDOW_STATE_OFFSET);
+        WindowState current = state(widget.address());
+        update(widget.address(), new WindowState(
+                current.mapped() && (newState & GDK_WINDOW_STATE_WITHDRAWN) == 0,
+                (newState & GDK_WINDOW_STATE_ICONIFIED) != 0,
+                current.focused()));
+        return 0;
+    }
+
+    /**
+     * Callback method invoked from native code when a window is mapped or unmapped.
+     * This method is an upcall from C, triggered by the "map" and "unmap" signals of the GtkWindow.
+     * <p>
+     * The method signature MUST match the one expected by the signals: {@code (GtkWidget *widget, gpointer user_data)}.
+     *
+     * @param widget   A pointer to the window.
+     * @param userData User data passed to the signal connection (not used here).
+     */
+    public void onWindowMappingChanged(MemorySegment widget, MemorySegment userData) {
+        try {
+            boolean mapped = (int) gtkWidgetGetMapped.invokeExact(widget) != 0;
+            WindowState current = state(widget.address());
+            update(widget.address(), new WindowState(mapped, current.minimized(), current.focused()));
+        } catch (Throwable e) {
+            log.error("Error in onWindowMappingChanged", e);
+        }
+    }
+
+    /**
+     * Callback method invoked from native code when a window gains or loses the focus.
+     * This method is an upcall from C, triggered by the "notify::is-active" signal of the GtkWindow.
+     * <p>
+     * The method signature MUST match the one expected by the signal:
+     * {@code (GObject *object, GParamSpec *pspec, gpointer user_data)}.
+     *
+     * @param widget   A pointer to the window.
+     * @param pspec    The property that changed (not used here).
+     * @param userData User data passed to the signal connection (not used here).
+     */
+    public void onWindowActiveChanged(MemorySegment widget, MemorySegment pspec, MemorySegment userData) {
+        try {
+            boolean active = (int) gtkWindowIsActive.invokeExact(widget) != 0;
+            WindowState current = state(widget.address());
+            update(widget.address(), new WindowState(current.mapped(), current.minimized(), active));
+        } catch (Throwable e) {
+            log.error("Error in onWindowActiveChanged", e);
+        }
+    }
+
+    private WindowState state(long windowHandle) {
+        return states.getOrDefault(windowHandle, WindowState.UNMAPPED);
+    }
+
+    private void update(long windowHandle, WindowState state) {
+        if (state.equals(states.put(windowHandle, state))) {
+            return;
+        }
+        Consumer<WindowState> callback = stateCallbacks.get(windowHandle);
+        if (callback != null) {
+            try {
+                callback.accept(state);
+            } catch (Exception e) {
+                log.error("Error in window state callback", e);
+            }
+        }
+    }
+
     /**
      * Callback method invoked from native code via {@code g_idle_add} to process tasks from the queue.
-     * This method runs on the main GTK thread when the event loop is idle.
+     * This method runs on the main GTK thread when the event loop is idle. Every scheduled task adds one idle
+     * source, and each source runs whichever task is next in the weighted order of the priority lanes.
      * <p>
      * The method signature MUST match the one expected by GLib's GSourceFunc: {@code (gpointer user_data)}.
      *
@@ -95,15 +219,34 @@ public class GtkWindow implements AppWindow, AutoCloseable {
     public int onIdleCallback(MemorySegment userData) {
         Runnable task = taskQueue.poll();
         if (task != null) {
+            StallWatchdog watchdog = stallWatchdog;
+            Object previous = watchdog != null ? watchdog.enter(task) : null;
             try {
                 task.run();
             } catch (Exception e) {
                 log.error("Error executing scheduled task:", e);
+            } finally {
+                if (watchdog != null) {
+                    watchdog.exit(previous);
+                }
             }
         }
         return 0;
     }
 
+    @Override
+    public void setStallWatchdog(StallWatchdog watchdog) {
+        this.stallWatchdog = watchdog;
+    }
+
+    @Override
+    public void setPerformanceProfile(PerformanceProfile profile) {
+        if (this.arena != null) {
+            log.warn("GTK already initialized; the engine options of {} will not apply.", profile);
+        }
+        this.profile = profile;
+    }
+
     @Override
     public boolean initialize() {
         try {
@@ -137,6 +280,10 @@ public class GtkWindow implements AppWindow, AutoCloseable {
                     gtkLib.find("gtk_widget_show_all").get(),
                     FunctionDescriptor.ofVoid(ValueLayout.ADDRESS)
             );
+            gtkWidgetDestroy = linker.downcallHandle(
+                    gtkLib.find("gtk_widget_destroy").get(),
+                    FunctionDescriptor.ofVoid(ValueLayout.ADDRESS)
+            );
             gtkContainerAdd = linker.downcallHandle(gtkLib
                     .find("gtk_container_add")
                     .get(), FunctionDescriptor.ofVoid(ValueLayout.ADDRESS, ValueLayout.ADDRESS));
@@ -153,6 +300,10 @@ public class GtkWindow implements AppWindow, AutoCloseable {
                     .find("g_idle_add")
                     .get(), FunctionDescriptor.of(ValueLayout.JAVA_INT, ValueLayout.ADDRESS, ValueLayout.ADDRESS));
 
+            gSetenv = linker.downcallHandle(gobjectLib
+                    .find("g_setenv")
+                    .get(), FunctionDescriptor.of(ValueLayout.JAVA_INT, ValueLayout.ADDRESS, ValueLayout.ADDRESS, ValueLayout.JAVA_INT));
+
             gtkWindowSetResizable = linker.downcallHandle(
                     gtkLib.find("gtk_window_set_resizable").get(),
                     FunctionDescriptor.ofVoid(ValueLayout.ADDRESS, ValueLayout.JAVA_BOOLEAN)
@@ -173,6 +324,16 @@ public class GtkWindow implements AppWindow, AutoCloseable {
                     FunctionDescriptor.ofVoid(ValueLayout.ADDRESS, ValueLayout.JAVA_INT)
             );
 
+            gtkWidgetGetMapped = linker.downcallHandle(
+                    gtkLib.find("gtk_widget_get_mapped").get(),
+                    FunctionDescriptor.of(ValueLayout.JAVA_INT, ValueLayout.ADDRESS)
+            );
+
+            gtkWindowIsActive = linker.downcallHandle(
+                    gtkLib.find("gtk_window_is_active").get(),
+                    FunctionDescriptor.of(ValueLayout.JAVA_INT, ValueLayout.ADDRESS)
+            );
+
             MethodHandle destroyHandle = MethodHandles
                     .lookup()
                     .findVirtual(GtkWindow.class, "onWindowDestroyed",
@@ -182,6 +343,29 @@ public class GtkWindow implements AppWindow, AutoCloseable {
 
             this.onWindowDestroyStub = linker.upcallStub(destroyHandle, FunctionDescriptor.ofVoid(ValueLayout.ADDRESS, ValueLayout.ADDRESS), this.arena);
 
+            MethodHandle stateHandle = MethodHandles
+                    .lookup()
+                    .findVirtual(GtkWindow.class, "onWindowStateEvent",
+                            MethodType.methodType(int.class, MemorySegment.class, MemorySegment.class, MemorySegment.class))
+                    .bindTo(this);
+            this.onWindowStateStub = linker.upcallStub(stateHandle,
+                    FunctionDescriptor.of(ValueLayout.JAVA_INT, ValueLayout.ADDRESS, ValueLayout.ADDRESS, ValueLayout.ADDRESS), this.arena);
+
+            MethodHandle mappingHandle = MethodHandles
+                    .lookup()
+                    .findVirtual(GtkWindow.class, "onWindowMappingChanged",
+                            MethodType.methodType(void.class, MemorySegment.class, MemorySegment.class))
+                    .bindTo(this);
+            this.onWindowMappingStub = linker.upcallStub(mappingHandle, FunctionDescriptor.ofVoid(ValueLayout.ADDRESS, ValueLayout.ADDRESS), this.arena);
+
+            MethodHandle activeHandle = MethodHandles
+                    .lookup()
+                    .findVirtual(GtkWindow.class, "onWindowActiveChanged",
+                            MethodType.methodType(void.class, MemorySegment.class, MemorySegment.class, MemorySegment.class))
+                    .bindTo(this);
+            this.onWindowActiveStub = linker.upcallStub(activeHandle,
+                    FunctionDescriptor.ofVoid(ValueLayout.ADDRESS, ValueLayout.ADDRESS, ValueLayout.ADDRESS), this.arena);
+
             MethodHandle idleHandle = MethodHandles
                     .lookup()
                     .findVirtual(GtkWindow.class, "onIdleCallback", MethodType.methodType(int.class, MemorySegment.class))
@@ -191,6 +375,11 @@ public class GtkWindow implements AppWindow, AutoCloseable {
 
             this.idleCallbackStub = linker.upcallStub(idleHandle, idleDesc, this.arena);
 
+            // The engine reads its options once; set them while no other thread is inside GLib yet
+            for (Map.Entry<String, String> option : profile.engineEnvironment().entrySet()) {
+                int ignored = (int) gSetenv.invokeExact(this.arena.allocateFrom(option.getKey()),
+                        this.arena.allocateFrom(option.getValue()), 1);
+            }
             gtkInit.invokeExact(MemorySegment.NULL, MemorySegment.NULL);
             return true;
 
@@ -213,7 +402,12 @@ public class GtkWindow implements AppWindow, AutoCloseable {
             MemorySegment cDestroySignal = this.arena.allocateFrom("destroy");
 
             gSignalConnect.invokeExact(window, cDestroySignal, this.onWindowDestroyStub, MemorySegment.NULL, MemorySegment.NULL, 0);
+            gSignalConnect.invokeExact(window, this.arena.allocateFrom("window-state-event"), this.onWindowStateStub, MemorySegment.NULL, MemorySegment.NULL, 0);
+            gSignalConnect.invokeExact(window, this.arena.allocateFrom("map"), this.onWindowMappingStub, MemorySegment.NULL, MemorySegment.NULL, 0);
+            gSignalConnect.invokeExact(window, this.arena.allocateFrom("unmap"), this.onWindowMappingStub, MemorySegment.NULL, MemorySegment.NULL, 0);
+            gSignalConnect.invokeExact(window, this.arena.allocateFrom("notify::is-active"), this.onWindowActiveStub, MemorySegment.NULL, MemorySegment.NULL, 0);
 
+            openWindows.add(window.address());
             return window.address();
         } catch (Throwable e) {
             log.error("Error creating window", e);
@@ -236,6 +430,29 @@ public class GtkWindow implements AppWindow, AutoCloseable {
         }
     }
 
+    @Override
+    public void destroyWindow(long windowHandle) {
+        if (windowHandle == 0L) {
+            log.error("Cannot destroy window: invalid window handle.");
+            return;
+        }
+        try {
+            gtkWidgetDestroy.invokeExact(MemorySegment.ofAddress(windowHandle));
+        } catch (Throwable e) {
+            log.error("Error destroying window", e);
+        }
+    }
+
+    @Override
+    public void onDestroy(long windowHandle, Runnable callback) {
+        destroyCallbacks.put(windowHandle, callback);
+    }
+
+    @Override
+    public void onStateChanged(long windowHandle, Consumer<WindowState> callback) {
+        stateCallbacks.put(windowHandle, callback);
+    }
+
     @Override
     public void fullscreen(long windowHandle, boolean fullscreen) {
         if (windowHandle == 0L)
@@ -322,7 +539,12 @@ public class GtkWindow implements AppWindow, AutoCloseable {
      * @param task The {@link Runnable} task to execute on the GTK main thread.
      */
     public void scheduleTask(Runnable task) {
-        taskQueue.offer(task);
+        scheduleTask(Priority.NORMAL, task);
+    }
+
+    @Override
+    public void scheduleTask(Priority priority, Runnable task) {
+        taskQueue.offer(priority, task);
         try {
             gIdleAdd.invoke(this.idleCallbackStub, MemorySegment.NULL);
         } catch (Throwable e) {
@@ -330,6 +552,22 @@ public class GtkWindow implements AppWindow, AutoCloseable {
         }
     }
 
+    @Override
+    public void setLaneSuspended(Priority priority, boolean suspended) {
+        if (suspended) {
+            taskQueue.suspend(priority);
+            return;
+        }
+        // The idle sources that fired while the lane was held found nothing to run; add one per held task
+        for (int held = taskQueue.resume(priority); held > 0; held--) {
+            try {
+                gIdleAdd.invoke(this.idleCallbackStub, MemorySegment.NULL);
+            } catch (Throwable e) {
+                log.error("Error scheduling task", e);
+            }
+        }
+    }
+
     @Override
     public void runEventLoop() {
         try {
@@ -339,6 +577,15 @@ public class GtkWindow implements AppWindow, AutoCloseable {
         }
     }
 
+    @Override
+    public void quit() {
+        try {
+            gtkMainQuit.invokeExact();
+        } catch (Throwable e) {
+            log.error("Error in quit", e);
+        }
+    }
+
     /**
      * Closes the native memory arena, releasing associated resources.
      */
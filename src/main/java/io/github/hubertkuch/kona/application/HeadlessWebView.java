@@ -0,0 +1,26 @@
+package io.github.hubertkuch.kona.application;
+
+import io.github.hubertkuch.kona.files.FileServer;
+import io.github.hubertkuch.kona.routing.ChannelReceiver;
+import io.github.hubertkuch.kona.routing.KonaRouter;
+import io.github.hubertkuch.kona.routing.MessageChannel;
+
+import java.util.Map;
+
+/**
+ * A {@link WebView} without a page, for running a router outside GTK. Scripts are discarded.
+ */
+public final class HeadlessWebView implements WebView {
+
+    @Override public boolean initialize() { return true; }
+    @Override public void setPerformanceProfile(PerformanceProfile profile) {}
+    @Override public void setFileServer(FileServer fileServer) {}
+    @Override public long createWebViewWidget() { return 1L; }
+    @Override public void destroyWebViewWidget(long webViewHandle) {}
+    @Override public void loadUri(long webViewHandle, String uri) {}
+    @Override public void runJavaScript(long webViewHandle, String script) {}
+    @Override public void callFunction(long webViewHandle, String function, String... arguments) {}
+    @Override public void setScriptMessageHandler(KonaRouter handler) {}
+    @Override public void openChannels(Map<MessageChannel, ChannelReceiver> channels) {}
+    @Override public void close() {}
+}
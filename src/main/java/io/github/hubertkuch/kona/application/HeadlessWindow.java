@@ -0,0 +1,73 @@
+package io.github.hubertkuch.kona.application;
+
+import io.github.hubertkuch.kona.diagnostics.StallWatchdog;
+import io.github.hubertkuch.kona.message.Priority;
+import io.github.hubertkuch.kona.routing.PriorityLanes;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An {@link AppWindow} without a display, for running a router outside GTK. Tasks run on a single
+ * "kona-headless-ui" thread that stands in for the UI thread, taken from the priority lanes like GTK's task queue.
+ */
+public final class HeadlessWindow implements AppWindow {
+
+    private final ExecutorService uiThread = Executors.newSingleThreadExecutor(
+            Thread.ofPlatform().name("kona-headless-ui").daemon().factory());
+    private final PriorityLanes<Runnable> tasks = new PriorityLanes<>();
+    private volatile StallWatchdog stallWatchdog;
+
+    @Override public boolean initialize() { return true; }
+    @Override public long createWindow(String title, int width, int height) { return 1L; }
+    @Override public void showWindow(long handle) {}
+    @Override public void runEventLoop() {}
+    @Override public void quit() {}
+    @Override public void addWidget(long windowHandle, long widgetHandle) {}
+    @Override public void destroyWindow(long windowHandle) {}
+    @Override public void onDestroy(long windowHandle, Runnable callback) {}
+    @Override public void fullscreen(long windowHandle, boolean fullscreen) {}
+    @Override public void resizable(long windowHandle, boolean fullscreen) {}
+    @Override public void title(long windowHandle, String title) {}
+    @Override public void modal(long windowHandle, boolean modal) {}
+
+    @Override
+    public void scheduleTask(Runnable task) {
+        scheduleTask(Priority.NORMAL, task);
+    }
+
+    @Override
+    public void scheduleTask(Priority priority, Runnable task) {
+        tasks.offer(priority, task);
+        uiThread.execute(() -> {
+            Runnable next = tasks.poll();
+            if (next != null) {
+                StallWatchdog watchdog = stallWatchdog;
+                Object previous = watchdog != null ? watchdog.enter(next) : null;
+                try {
+                    next.run();
+                } finally {
+                    if (watchdog != null) {
+                        watchdog.exit(previous);
+                    }
+                }
+            }
+        });
+    }
+
+    @Override
+    public void setStallWatchdog(StallWatchdog watchdog) {
+        this.stallWatchdog = watchdog;
+    }
+
+    @Override
+    public void close() {
+        uiThread.shutdown();
+        try {
+            uiThread.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package io.github.hubertkuch.kona.application;
+
+/**
+ * A window managed by the {@link WindowManager}, together with the web view it hosts.
+ *
+ * @param windowHandle  The native handle of the window.
+ * @param webViewHandle The native handle of the web view widget inside the window.
+ */
+public record KonaWindow(long windowHandle, long webViewHandle) {
+}
@@ -0,0 +1,316 @@
+package io.github.hubertkuch.kona.application;
+
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Tuning knobs for the web engine, applied when a {@link WebView} creates its widgets.
+ * <p>
+ * A profile maps to the engine's per-view settings (hardware acceleration, page cache, smooth scrolling,
+ * developer extras), to the JavaScript engine's JIT tiers, and to the shared web context (cache model and
+ * disk cache directory). Two presets are provided: {@link #development()} keeps the inspector available and
+ * caching minimal so changes show up immediately, while {@link #production()} turns the inspector off and
+ * enables aggressive caching.
+ * <p>
+ * Example:
+ * <pre>{@code
+ * PerformanceProfile profile = new PerformanceProfile.Builder(PerformanceProfile.production())
+ *         .diskCacheDirectory(Path.of(System.getProperty("user.home"), ".cache", "my-app"))
+ *         .build();
+ * }</pre>
+ */
+public final class PerformanceProfile {
+
+    /**
+     * When the engine composites pages on the GPU. Mirrors {@code WebKitHardwareAccelerationPolicy}.
+     */
+    public enum HardwareAcceleration {
+        /** Enable acceleration only when the page needs it (e.g. 3D transforms). */
+        ON_DEMAND(0),
+        /** Always composite on the GPU. */
+        ALWAYS(1),
+        /** Never use GPU compositing. */
+        NEVER(2);
+
+        private final int nativeValue;
+
+        HardwareAcceleration(int nativeValue) {
+            this.nativeValue = nativeValue;
+        }
+
+        public int nativeValue() {
+            return nativeValue;
+        }
+    }
+
+    /**
+     * How much the web context caches in memory and on disk. Mirrors {@code WebKitCacheModel}.
+     */
+    public enum CacheModel {
+        /** Disable the cache entirely; every load goes to the source. */
+        DOCUMENT_VIEWER(0),
+        /** Cache aggressively, like a browser with many pages open. */
+        WEB_BROWSER(1),
+        /** Cache moderately. */
+        DOCUMENT_BROWSER(2);
+
+        private final int nativeValue;
+
+        CacheModel(int nativeValue) {
+            this.nativeValue = nativeValue;
+        }
+
+        public int nativeValue() {
+            return nativeValue;
+        }
+    }
+
+    private final HardwareAcceleration hardwareAcceleration;
+    private final boolean pageCache;
+    private final boolean javascriptJit;
+    private final boolean optimizingJit;
+    private final boolean smoothScrolling;
+    private final boolean developerExtras;
+    private final CacheModel cacheModel;
+    private final Path diskCacheDirectory;
+
+    private PerformanceProfile(Builder builder) {
+        this.hardwareAcceleration = builder.hardwareAcceleration;
+        this.pageCache = builder.pageCache;
+        this.javascriptJit = builder.javascriptJit;
+        this.optimizingJit = builder.optimizingJit;
+        this.smoothScrolling = builder.smoothScrolling;
+        this.developerExtras = builder.developerExtras;
+        this.cacheModel = builder.cacheModel;
+        this.diskCacheDirectory = builder.diskCacheDirectory;
+    }
+
+    /**
+     * The preset used while developing against a dev server: the inspector is enabled and caching is off,
+     * so every reload picks up the latest assets.
+     *
+     * @return The development profile.
+     */
+    public static PerformanceProfile development() {
+        return new Builder()
+                .hardwareAcceleration(HardwareAcceleration.ON_DEMAND)
+                .pageCache(false)
+                .developerExtras(true)
+                .cacheModel(CacheModel.DOCUMENT_VIEWER)
+                .build();
+    }
+
+    /**
+     * The preset for packaged applications: no inspector, GPU compositing, back/forward page cache
+     * and the most aggressive resource caching.
+     *
+     * @return The production profile.
+     */
+    public static PerformanceProfile production() {
+        return new Builder()
+                .hardwareAcceleration(HardwareAcceleration.ALWAYS)
+                .pageCache(true)
+                .developerExtras(false)
+                .cacheModel(CacheModel.WEB_BROWSER)
+                .build();
+    }
+
+    public HardwareAcceleration hardwareAcceleration() {
+        return hardwareAcceleration;
+    }
+
+    public boolean pageCache() {
+        return pageCache;
+    }
+
+    public boolean javascriptJit() {
+        return javascriptJit;
+    }
+
+    public boolean optimizingJit() {
+        return optimizingJit;
+    }
+
+    public boolean smoothScrolling() {
+        return smoothScrolling;
+    }
+
+    public boolean developerExtras() {
+        return developerExtras;
+    }
+
+    public CacheModel cacheModel() {
+        return cacheModel;
+    }
+
+    /**
+     * @return The directory for the HTTP disk cache, or {@code null} to use the engine's default location.
+     */
+    public Path diskCacheDirectory() {
+        return diskCacheDirectory;
+    }
+
+    /**
+     * The JavaScriptCore options for the JIT switches. The engine reads them from the environment once, when
+     * the toolkit starts, so the window applies them before initializing it.
+     *
+     * @return The environment variables to set, empty when every JIT tier is enabled.
+     */
+    Map<String, String> engineEnvironment() {
+        Map<String, String> environment = new LinkedHashMap<>();
+        if (!javascriptJit) {
+            environment.put("JSC_useJIT", "false");
+        } else if (!optimizingJit) {
+            environment.put("JSC_useDFGJIT", "false");
+            environment.put("JSC_useFTLJIT", "false");
+        }
+        return environment;
+    }
+
+    @Override
+    public String toString() {
+        return "PerformanceProfile[hardwareAcceleration=" + hardwareAcceleration
+                + ", pageCache=" + pageCache
+                + ", javascriptJit=" + javascriptJit
+                + ", optimizingJit=" + optimizingJit
+                + ", smoothScrolling=" + smoothScrolling
+                + ", developerExtras=" + developerExtras
+                + ", cacheModel=" + cacheModel
+                + ", diskCacheDirectory=" + diskCacheDirectory + "]";
+    }
+
+    /**
+     * A builder for creating a {@link PerformanceProfile}.
+     */
+    public static class Builder {
+        private HardwareAcceleration hardwareAcceleration = HardwareAcceleration.ON_DEMAND;
+        private boolean pageCache = true;
+        private boolean javascriptJit = true;
+        private boolean optimizingJit = true;
+        private boolean smoothScrolling = true;
+        private boolean developerExtras;
+        private CacheModel cacheModel = CacheModel.WEB_BROWSER;
+        private Path diskCacheDirectory;
+
+        /**
+         * Creates a builder with the engine defaults.
+         */
+        public Builder() {}
+
+        /**
+         * Creates a builder initialized from an existing profile, e.g. one of the presets.
+         *
+         * @param base The profile to start from.
+         */
+        public Builder(PerformanceProfile base) {
+            this.hardwareAcceleration = base.hardwareAcceleration;
+            this.pageCache = base.pageCache;
+            this.javascriptJit = base.javascriptJit;
+            this.optimizingJit = base.optimizingJit;
+            this.smoothScrolling = base.smoothScrolling;
+            this.developerExtras = base.developerExtras;
+            this.cacheModel = base.cacheModel;
+            this.diskCacheDirectory = base.diskCacheDirectory;
+        }
+
+        /**
+         * Sets the GPU compositing policy.
+         *
+         * @param hardwareAcceleration The policy.
+         * @return This builder instance.
+         */
+        public Builder hardwareAcceleration(HardwareAcceleration hardwareAcceleration) {
+            this.hardwareAcceleration = Objects.requireNonNull(hardwareAcceleration);
+            return this;
+        }
+
+        /**
+         * Enables the back/forward page cache, which keeps previous pages alive for instant navigation.
+         *
+         * @param pageCache Whether the page cache is enabled.
+         * @return This builder instance.
+         */
+        public Builder pageCache(boolean pageCache) {
+            this.pageCache = pageCache;
+            return this;
+        }
+
+        /**
+         * Enables the JavaScript JIT. When disabled, JavaScript runs in the interpreter only,
+         * which lowers memory use at the cost of throughput.
+         *
+         * @param javascriptJit Whether any JIT tier is enabled.
+         * @return This builder instance.
+         */
+        public Builder javascriptJit(boolean javascriptJit) {
+            this.javascriptJit = javascriptJit;
+            return this;
+        }
+
+        /**
+         * Enables the optimizing JIT tiers (DFG and FTL). Ignored when {@link #javascriptJit(boolean)} is off.
+         *
+         * @param optimizingJit Whether the optimizing tiers are enabled.
+         * @return This builder instance.
+         */
+        public Builder optimizingJit(boolean optimizingJit) {
+            this.optimizingJit = optimizingJit;
+            return this;
+        }
+
+        /**
+         * Enables animated smooth scrolling.
+         *
+         * @param smoothScrolling Whether smooth scrolling is enabled.
+         * @return This builder instance.
+         */
+        public Builder smoothScrolling(boolean smoothScrolling) {
+            this.smoothScrolling = smoothScrolling;
+            return this;
+        }
+
+        /**
+         * Enables the web inspector and related developer tooling.
+         *
+         * @param developerExtras Whether developer extras are enabled.
+         * @return This builder instance.
+         */
+        public Builder developerExtras(boolean developerExtras) {
+            this.developerExtras = developerExtras;
+            return this;
+        }
+
+        /**
+         * Sets the cache model of the web context.
+         *
+         * @param cacheModel The cache model.
+         * @return This builder instance.
+         */
+        public Builder cacheModel(CacheModel cacheModel) {
+            this.cacheModel = Objects.requireNonNull(cacheModel);
+            return this;
+        }
+
+        /**
+         * Sets the directory for the HTTP disk cache.
+         *
+         * @param diskCacheDirectory The directory, or {@code null} for the engine's default location.
+         * @return This builder instance.
+         */
+        public Builder diskCacheDirectory(Path diskCacheDirectory) {
+            this.diskCacheDirectory = diskCacheDirectory;
+            return this;
+        }
+
+        /**
+         * Builds the profile.
+         *
+         * @return A new {@link PerformanceProfile} instance.
+         */
+        public PerformanceProfile build() {
+            return new PerformanceProfile(this);
+        }
+    }
+}
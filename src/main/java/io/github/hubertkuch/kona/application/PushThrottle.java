@@ -0,0 +1,109 @@
+package io.github.hubertkuch.kona.application;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decides whether an update may be pushed to a page now, following a {@link VisibilityPolicy} for the state of
+ * the page's window. Kona registers one as a service; built-in controllers such as {@code kona.state} use it,
+ * and application controllers that push to the page can do the same:
+ * <pre>{@code
+ * if (throttle.tryPush(webViewHandle, this::pushLatest)) {
+ *     webView.callFunction(webViewHandle, "window.kona.dispatch", "app:progress", json);
+ * }
+ * }</pre>
+ * A refused push is not queued. Instead, the caller's retry callback runs once pushing is allowed again, after
+ * the interval or when the window becomes visible, and should send whatever is latest by then. Only the retry of
+ * the last refused push is kept for each page.
+ * <p>
+ * All methods must be called on the UI thread; retries run on it too.
+ */
+public final class PushThrottle {
+
+    private final AppWindow window;
+    private final WindowManager windows;
+    private final VisibilityPolicy policy;
+    private final Map<Long, Slot> slots = new HashMap<>();
+
+    private static final class Slot {
+        long lastPushNanos = Long.MIN_VALUE;
+        Runnable retry;
+        boolean timerSet;
+    }
+
+    /**
+     * Creates a throttle following the given policy.
+     *
+     * @param window  The window, used for running retries on the UI thread.
+     * @param windows The window manager, reporting the state of every window.
+     * @param policy  The policy.
+     */
+    public PushThrottle(AppWindow window, WindowManager windows, VisibilityPolicy policy) {
+        this.window = window;
+        this.windows = windows;
+        this.policy = policy;
+        windows.addStateListener((changed, state) -> stateChanged(changed.webViewHandle()));
+        windows.addCloseListener(closed -> slots.remove(closed.webViewHandle()));
+    }
+
+    /**
+     * @return The policy.
+     */
+    public VisibilityPolicy policy() {
+        return policy;
+    }
+
+    /**
+     * Checks whether an update may be pushed to a page now, and records the push if so.
+     *
+     * @param webViewHandle The native handle of the page's web view.
+     * @param retry         Run on the UI thread once a push is allowed again, if this one is refused.
+     * @return Whether the update may be pushed now.
+     */
+    public boolean tryPush(long webViewHandle, Runnable retry) {
+        Duration interval = policy.pushInterval(windows.state(webViewHandle));
+        if (Duration.ZERO.equals(interval)) {
+            return true;
+        }
+
+        Slot slot = slots.computeIfAbsent(webViewHandle, handle -> new Slot());
+        if (interval != null) {
+            long now = System.nanoTime();
+            long wait = slot.lastPushNanos == Long.MIN_VALUE ? 0 : slot.lastPushNanos + interval.toNanos() - now;
+            if (wait <= 0) {
+                slot.lastPushNanos = now;
+                return true;
+            }
+            if (!slot.timerSet) {
+                slot.timerSet = true;
+                CompletableFuture.delayedExecutor(wait, TimeUnit.NANOSECONDS, window::scheduleTask)
+                        .execute(() -> {
+                            slot.timerSet = false;
+                            retry(slot);
+                        });
+            }
+        }
+        slot.retry = retry;
+        return false;
+    }
+
+    private void stateChanged(long webViewHandle) {
+        Slot slot = slots.get(webViewHandle);
+        if (slot != null && slot.retry != null && policy.pushInterval(windows.state(webViewHandle)) != null) {
+            // Rate limits of the previous state do not apply to the new one
+            slot.lastPushNanos = Long.MIN_VALUE;
+            retry(slot);
+        }
+    }
+
+    private void retry(Slot slot) {
+        Runnable retry = slot.retry;
+        slot.retry = null;
+        if (retry != null) {
+            retry.run();
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package io.github.hubertkuch.kona.application;
+
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * How much UI work Kona does for windows that cannot be seen or do not have the focus.
+ * <p>
+ * A policy controls three kinds of work:
+ * <ul>
+ *     <li>pushes to a page, such as {@code kona:state} updates, which can be sent at most once per interval
+ *     while its window is hidden or unfocused, or held until it is visible again. Only the latest state is sent
+ *     once the window is back, not every intermediate one;</li>
+ *     <li>UI tasks scheduled with {@link io.github.hubertkuch.kona.message.Priority#BACKGROUND}, which can be held
+ *     while no window can be seen;</li>
+ *     <li>messages to {@link io.github.hubertkuch.kona.message.Priority#BACKGROUND} routes, which can likewise
+ *     wait until a window is visible.</li>
+ * </ul>
+ * Example:
+ * <pre>{@code
+ * VisibilityPolicy policy = new VisibilityPolicy.Builder(VisibilityPolicy.defaults())
+ *         .unfocusedPushInterval(Duration.ofMillis(250))
+ *         .build();
+ * }</pre>
+ */
+public final class VisibilityPolicy {
+
+    private final Duration hiddenPushInterval;
+    private final Duration unfocusedPushInterval;
+    private final boolean suspendBackgroundTasks;
+    private final boolean deferBackgroundRoutes;
+
+    private VisibilityPolicy(Builder builder) {
+        this.hiddenPushInterval = builder.hiddenPushInterval;
+        this.unfocusedPushInterval = builder.unfocusedPushInterval;
+        this.suspendBackgroundTasks = builder.suspendBackgroundTasks;
+        this.deferBackgroundRoutes = builder.deferBackgroundRoutes;
+    }
+
+    /**
+     * The policy used unless another one is set: pushes to hidden windows are held until they are visible,
+     * unfocused windows are updated at full rate, and background tasks and routes wait while no window can be seen.
+     *
+     * @return The default policy.
+     */
+    public static VisibilityPolicy defaults() {
+        return new Builder().build();
+    }
+
+    /**
+     * A policy that never throttles, e.g. for windows that keep streaming to a second screen while unfocused.
+     *
+     * @return The policy.
+     */
+    public static VisibilityPolicy fullRate() {
+        return new Builder()
+                .hiddenPushInterval(Duration.ZERO)
+                .suspendBackgroundTasks(false)
+                .deferBackgroundRoutes(false)
+                .build();
+    }
+
+    /**
+     * @param state The state of a window.
+     * @return The least time between two pushes to the window: {@link Duration#ZERO} for full rate, or
+     * {@code null} if pushes are held until the window is visible.
+     */
+    public Duration pushInterval(WindowState state) {
+        if (!state.visible()) {
+            return hiddenPushInterval;
+        }
+        return state.focused() ? Duration.ZERO : unfocusedPushInterval;
+    }
+
+    /**
+     * @return The least time between pushes to a hidden window, or {@code null} if they are held.
+     */
+    public Duration hiddenPushInterval() {
+        return hiddenPushInterval;
+    }
+
+    public Duration unfocusedPushInterval() {
+        return unfocusedPushInterval;
+    }
+
+    public boolean suspendBackgroundTasks() {
+        return suspendBackgroundTasks;
+    }
+
+    public boolean deferBackgroundRoutes() {
+        return deferBackgroundRoutes;
+    }
+
+    @Override
+    public String toString() {
+        return "VisibilityPolicy[hiddenPushInterval=" + hiddenPushInterval
+                + ", unfocusedPushInterval=" + unfocusedPushInterval
+                + ", suspendBackgroundTasks=" + suspendBackgroundTasks
+                + ", deferBackgroundRoutes=" + deferBackgroundRoutes + "]";
+    }
+
+    /**
+     * A builder for creating a {@link VisibilityPolicy}.
+     */
+    public static class Builder {
+        private Duration hiddenPushInterval;
+        private Duration unfocusedPushInterval = Duration.ZERO;
+        private boolean suspendBackgroundTasks = true;
+        private boolean deferBackgroundRoutes = true;
+
+        /**
+         * Creates a builder with the settings of {@link VisibilityPolicy#defaults()}.
+         */
+        public Builder() {}
+
+        /**
+         * Creates a builder initialized from an existing policy.
+         *
+         * @param base The policy to start from.
+         */
+        public Builder(VisibilityPolicy base) {
+            this.hiddenPushInterval = base.hiddenPushInterval;
+            this.unfocusedPushInterval = base.unfocusedPushInterval;
+            this.suspendBackgroundTasks = base.suspendBackgroundTasks;
+            this.deferBackgroundRoutes = base.deferBackgroundRoutes;
+        }
+
+        /**
+         * Sets the least time between pushes to a window that is minimized or not shown.
+         *
+         * @param hiddenPushInterval The interval, {@link Duration#ZERO} for full rate, or {@code null} to hold
+         *                           pushes until the window is visible.
+         * @return This builder instance.
+         */
+        public Builder hiddenPushInterval(Duration hiddenPushInterval) {
+            this.hiddenPushInterval = requireNotNegative(hiddenPushInterval);
+            return this;
+        }
+
+        /**
+         * Sets the least time between pushes to a visible window that does not have the focus.
+         *
+         * @param unfocusedPushInterval The interval, or {@link Duration#ZERO} for full rate.
+         * @return This builder instance.
+         */
+        public Builder unfocusedPushInterval(Duration unfocusedPushInterval) {
+            this.unfocusedPushInterval = requireNotNegative(Objects.requireNonNull(unfocusedPushInterval));
+            return this;
+        }
+
+        /**
+         * Holds background UI tasks while no window can be seen.
+         *
+         * @param suspendBackgroundTasks Whether background tasks are held.
+         * @return This builder instance.
+         */
+        public Builder suspendBackgroundTasks(boolean suspendBackgroundTasks) {
+            this.suspendBackgroundTasks = suspendBackgroundTasks;
+            return this;
+        }
+
+        /**
+         * Holds messages to background routes while no window can be seen. Their timeouts keep running.
+         *
+         * @param deferBackgroundRoutes Whether background routes wait.
+         * @return This builder instance.
+         */
+        public Builder deferBackgroundRoutes(boolean deferBackgroundRoutes) {
+            this.deferBackgroundRoutes = deferBackgroundRoutes;
+            return this;
+        }
+
+        /**
+         * Builds the policy.
+         *
+         * @return A new {@link VisibilityPolicy} instance.
+         */
+        public VisibilityPolicy build() {
+            return new VisibilityPolicy(this);
+        }
+
+        private static Duration requireNotNegative(Duration interval) {
+            if (interval != null && interval.isNegative()) {
+                throw new IllegalArgumentException("interval must not be negative");
+            }
+            return interval;
+        }
+    }
+}
@@ -1,6 +1,12 @@
 package io.github.hubertkuch.kona.application;
 
+import io.github.hubertkuch.kona.files.FileServer;
+import io.github.hubertkuch.kona.routing.ChannelReceiver;
 import io.github.hubertkuch.kona.routing.KonaRouter;
+import io.github.hubertkuch.kona.routing.MessageChannel;
+
+import java.util.Map;
+import java.util.StringJoiner;
 
 /**
  * Defines the core operations for a web view component, abstracting the underlying native implementation.
@@ -17,6 +23,25 @@ public interface WebView extends AutoCloseable {
      */
     boolean initialize();
 
+    /**
+     * Sets the engine tuning applied to widgets created afterwards.
+     * Settings that belong to the shared web context (cache model, disk cache) only take effect
+     * if this is called before the first widget is created. The JIT tiers are process-wide and are applied
+     * by {@link AppWindow#setPerformanceProfile(PerformanceProfile)}.
+     *
+     * @param profile The performance profile to apply.
+     */
+    void setPerformanceProfile(PerformanceProfile profile);
+
+    /**
+     * Sets the file server that answers requests for {@code kona-file:} URIs.
+     * The scheme is registered with the shared web context, so this only takes effect
+     * if it is called before the first widget is created.
+     *
+     * @param fileServer The file server.
+     */
+    void setFileServer(FileServer fileServer);
+
     /**
      * Creates a new native web view widget.
      *
@@ -25,6 +50,14 @@ public interface WebView extends AutoCloseable {
      */
     long createWebViewWidget();
 
+    /**
+     * Destroys a web view widget that is not attached to any window.
+     * Widgets attached to a window are destroyed together with that window.
+     *
+     * @param webViewHandle The native handle of the web view widget.
+     */
+    void destroyWebViewWidget(long webViewHandle);
+
     /**
      * Loads a specified URI into the web view.
      *
@@ -33,6 +66,19 @@ public interface WebView extends AutoCloseable {
      */
     void loadUri(long webViewHandle, String uri);
 
+    /**
+     * Adds a script that runs at the start of every document later loaded into the web view, before the page's
+     * own scripts, e.g. data the page needs for its first render. Must be called before {@link #loadUri(long, String)}
+     * for the script to run in that page.
+     * <p>
+     * The default implementation ignores the script; pages then request the data themselves.
+     *
+     * @param webViewHandle The native handle of the web view widget.
+     * @param source        The JavaScript source.
+     */
+    default void addUserScript(long webViewHandle, String source) {
+    }
+
     /**
      * Executes a JavaScript script within the context of the web view.
      *
@@ -41,13 +87,61 @@ public interface WebView extends AutoCloseable {
      */
     void runJavaScript(long webViewHandle, String script);
 
+    /**
+     * Calls a JavaScript function with string arguments, e.g. {@code window.kona.resolveCallback} with a callback id
+     * and a JSON response. Implementations that can pass arguments to the page directly avoid compiling a new
+     * script for every call and never splice the arguments into source text.
+     * <p>
+     * The default implementation builds a call expression with the arguments as string literals and runs it
+     * with {@link #runJavaScript(long, String)}.
+     *
+     * @param webViewHandle The native handle of the web view widget.
+     * @param function      The function to call, e.g. {@code window.kona.dispatch}.
+     * @param arguments     The arguments.
+     */
+    default void callFunction(long webViewHandle, String function, String... arguments) {
+        StringJoiner call = new StringJoiner(", ", function + "(", ");");
+        for (String argument : arguments) {
+            call.add(quote(argument));
+        }
+        runJavaScript(webViewHandle, call.toString());
+    }
+
+    private static String quote(String text) {
+        StringBuilder quoted = new StringBuilder(text.length() + 2).append('\'');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '\\' -> quoted.append("\\\\");
+                case '\'' -> quoted.append("\\'");
+                case '\n' -> quoted.append("\\n");
+                case '\r' -> quoted.append("\\r");
+                case '\u2028' -> quoted.append("\\u2028");
+                case '\u2029' -> quoted.append("\\u2029");
+                default -> quoted.append(c);
+            }
+        }
+        return quoted.append('\'').toString();
+    }
+
     /**
      * Registers a handler for messages sent from the JavaScript context of the web view.
+     * The same handler receives the messages of every widget created by this instance,
+     * tagged with the handle of the widget they came from.
      *
      * @param handler The {@link KonaRouter} that will process the incoming messages.
      */
     void setScriptMessageHandler(KonaRouter handler);
 
+    /**
+     * Registers dedicated script message handlers next to the shared one, on every existing widget and on
+     * widgets created afterwards. Messages posted to a channel go straight to its receiver.
+     * Must be called on the UI thread.
+     *
+     * @param channels The channels and the receivers bound to their routes.
+     */
+    void openChannels(Map<MessageChannel, ChannelReceiver> channels);
+
     /**
      * Closes the web view and releases any associated native resources.
      */
@@ -0,0 +1,253 @@
+package io.github.hubertkuch.kona.application;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Opens and tracks the windows of an application. Every window hosts a web view created by the same
+ * {@link WebView} instance, so all of them share one web context (process model, network and cache state)
+ * and deliver their messages to the same router.
+ * <p>
+ * The manager can keep a small pool of hidden, prewarmed web views that have already spawned their web
+ * process and loaded the default URI. Opening a window then only creates the native window and reparents
+ * a ready view into it, instead of paying for process startup and page load.
+ * <p>
+ * Methods documented as UI-thread-only must be called from the GTK thread; {@link #open(WindowOptions)} and
+ * {@link #closeWindow(KonaWindow)} can be called from any thread.
+ */
+public class WindowManager implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(WindowManager.class);
+
+    private final AppWindow window;
+    private final WebView webView;
+    private final String defaultUri;
+    private final int poolSize;
+
+    private final Deque<Long> pool = new ArrayDeque<>();
+    private final Map<Long, KonaWindow> windows = new ConcurrentHashMap<>();
+    private final List<Consumer<KonaWindow>> closeListeners = new CopyOnWriteArrayList<>();
+    private final Map<Long, WindowState> states = new ConcurrentHashMap<>();
+    private final List<BiConsumer<KonaWindow, WindowState>> stateListeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * Constructs a new WindowManager.
+     *
+     * @param window     The windowing system, used for creating windows and scheduling UI tasks.
+     * @param webView    The WebView instance that creates the web view widgets of every window.
+     * @param defaultUri The URI loaded by windows that do not specify one, and by prewarmed web views.
+     * @param poolSize   The number of hidden web views to keep prewarmed; {@code 0} disables the pool.
+     */
+    public WindowManager(AppWindow window, WebView webView, String defaultUri, int poolSize) {
+        this.window = window;
+        this.webView = webView;
+        this.defaultUri = defaultUri;
+        this.poolSize = poolSize;
+    }
+
+    /**
+     * Opens a new window. Safe to call from any thread.
+     *
+     * @param options The window properties.
+     * @return A future completed with the new window once it is shown.
+     */
+    public CompletableFuture<KonaWindow> open(WindowOptions options) {
+        CompletableFuture<KonaWindow> opened = new CompletableFuture<>();
+        window.scheduleTask(() -> {
+            try {
+                opened.complete(openNow(options));
+            } catch (Exception e) {
+                opened.completeExceptionally(e);
+            }
+        });
+        return opened;
+    }
+
+    /**
+     * Opens a new window, taking a prewarmed web view from the pool when one is available.
+     * Must be called on the UI thread.
+     *
+     * @param options The window properties.
+     * @return The new window.
+     */
+    public KonaWindow openNow(WindowOptions options) {
+        long start = System.nanoTime();
+        String uri = options.uri() != null ? options.uri() : defaultUri;
+
+        Long prewarmed = pool.poll();
+        long webViewHandle;
+        if (prewarmed != null) {
+            webViewHandle = prewarmed;
+            if (!uri.equals(defaultUri)) {
+                webView.loadUri(webViewHandle, uri);
+            }
+            window.scheduleTask(this::prewarm);
+        } else {
+            webViewHandle = webView.createWebViewWidget();
+            if (webViewHandle == 0L) {
+                throw new IllegalStateException("Cannot create web view widget");
+            }
+            webView.loadUri(webViewHandle, uri);
+        }
+
+        KonaWindow opened = show(webViewHandle, options);
+        log.info("[WindowManager] Opened window '{}' in {} ms ({}).", options.title(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), prewarmed != null ? "prewarmed" : "cold");
+        return opened;
+    }
+
+    /**
+     * Places an existing web view widget into a new window, loading the URI of the options if one is given.
+     * Used for the main window, whose web view is created before the router. Must be called on the UI thread.
+     *
+     * @param webViewHandle The native handle of a web view widget created by this manager's {@link WebView}.
+     * @param options       The window properties.
+     * @return The new window.
+     */
+    public KonaWindow attach(long webViewHandle, WindowOptions options) {
+        if (options.uri() != null) {
+            webView.loadUri(webViewHandle, options.uri());
+        }
+        return show(webViewHandle, options);
+    }
+
+    private KonaWindow show(long webViewHandle, WindowOptions options) {
+        long windowHandle = window.createWindow(options.title(), options.width(), options.height());
+        if (windowHandle == 0L) {
+            throw new IllegalStateException("Cannot create window");
+        }
+
+        KonaWindow opened = new KonaWindow(windowHandle, webViewHandle);
+        windows.put(windowHandle, opened);
+        window.onDestroy(windowHandle, () -> onWindowDestroyed(opened));
+        window.onStateChanged(windowHandle, state -> onWindowStateChanged(opened, state));
+
+        window.addWidget(windowHandle, webViewHandle);
+        window.showWindow(windowHandle);
+        return opened;
+    }
+
+    private void onWindowStateChanged(KonaWindow changed, WindowState state) {
+        states.put(changed.webViewHandle(), state);
+        for (BiConsumer<KonaWindow, WindowState> listener : stateListeners) {
+            try {
+                listener.accept(changed, state);
+            } catch (Exception e) {
+                log.error("[WindowManager] Error in state listener", e);
+            }
+        }
+    }
+
+    private void onWindowDestroyed(KonaWindow closed) {
+        windows.remove(closed.windowHandle());
+        states.remove(closed.webViewHandle());
+        for (Consumer<KonaWindow> listener : closeListeners) {
+            try {
+                listener.accept(closed);
+            } catch (Exception e) {
+                log.error("[WindowManager] Error in close listener", e);
+            }
+        }
+    }
+
+    /**
+     * Closes a window and destroys its web view. Safe to call from any thread.
+     *
+     * @param konaWindow The window to close.
+     */
+    public void closeWindow(KonaWindow konaWindow) {
+        Objects.requireNonNull(konaWindow);
+        window.scheduleTask(() -> window.destroyWindow(konaWindow.windowHandle()));
+    }
+
+    /**
+     * Registers a listener invoked on the UI thread after a window has been closed.
+     *
+     * @param listener The listener.
+     */
+    public void addCloseListener(Consumer<KonaWindow> listener) {
+        closeListeners.add(listener);
+    }
+
+    /**
+     * Registers a listener invoked on the UI thread whenever a window is shown, hidden, minimized, restored,
+     * focused or unfocused.
+     *
+     * @param listener The listener, receiving the window and its new state.
+     */
+    public void addStateListener(BiConsumer<KonaWindow, WindowState> listener) {
+        stateListeners.add(listener);
+    }
+
+    /**
+     * @param webViewHandle The native handle of a web view.
+     * @return The state of the window hosting the web view, or {@link WindowState#ACTIVE} if none was reported,
+     * e.g. for web views outside any window or on platforms that do not report it.
+     */
+    public WindowState state(long webViewHandle) {
+        return states.getOrDefault(webViewHandle, WindowState.ACTIVE);
+    }
+
+    /**
+     * @return Whether windows are open and none of them can be seen.
+     */
+    public boolean allHidden() {
+        if (windows.isEmpty()) {
+            return false;
+        }
+        for (KonaWindow open : windows.values()) {
+            if (state(open.webViewHandle()).visible()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return The windows that are currently open.
+     */
+    public Collection<KonaWindow> windows() {
+        return List.copyOf(windows.values());
+    }
+
+    /**
+     * Tops the pool of hidden web views up to its configured size. Each prewarmed view loads the default
+     * URI in the background. Must be called on the UI thread.
+     */
+    public void prewarm() {
+        while (pool.size() < poolSize) {
+            long webViewHandle = webView.createWebViewWidget();
+            if (webViewHandle == 0L) {
+                log.warn("[WindowManager] Could not prewarm a web view.");
+                return;
+            }
+            webView.loadUri(webViewHandle, defaultUri);
+            pool.add(webViewHandle);
+            log.debug("[WindowManager] Prewarmed web view {} ({}/{}).", webViewHandle, pool.size(), poolSize);
+        }
+    }
+
+    /**
+     * Destroys the prewarmed web views that were never used. Must be called on the UI thread.
+     */
+    @Override
+    public void close() {
+        Long webViewHandle;
+        while ((webViewHandle = pool.poll()) != null) {
+            webView.destroyWebViewWidget(webViewHandle);
+        }
+    }
+}
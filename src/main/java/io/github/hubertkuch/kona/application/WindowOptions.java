@@ -0,0 +1,34 @@
+package io.github.hubertkuch.kona.application;
+
+/**
+ * The properties of a window opened through the {@link WindowManager}.
+ *
+ * @param title  The title to be displayed in the window's title bar.
+ * @param width  The initial width of the window in pixels.
+ * @param height The initial height of the window in pixels.
+ * @param uri    The URI to load, or {@code null} to use the window manager's default URI.
+ */
+public record WindowOptions(String title, int width, int height, String uri) {
+
+    /**
+     * Creates options for a window showing the window manager's default URI.
+     *
+     * @param title  The window title.
+     * @param width  The initial width in pixels.
+     * @param height The initial height in pixels.
+     * @return The window options.
+     */
+    public static WindowOptions of(String title, int width, int height) {
+        return new WindowOptions(title, width, height, null);
+    }
+
+    /**
+     * Returns a copy of these options loading a different URI.
+     *
+     * @param uri The URI to load.
+     * @return The updated window options.
+     */
+    public WindowOptions withUri(String uri) {
+        return new WindowOptions(title, width, height, uri);
+    }
+}
@@ -0,0 +1,28 @@
+package io.github.hubertkuch.kona.application;
+
+/**
+ * Whether a window can be seen and whether it has the keyboard focus, as reported by the windowing system.
+ *
+ * @param mapped    Whether the window is mapped, i.e. shown and not withdrawn.
+ * @param minimized Whether the window is minimized.
+ * @param focused   Whether the window is the active one.
+ */
+public record WindowState(boolean mapped, boolean minimized, boolean focused) {
+
+    /**
+     * The state assumed for windows whose state was never reported: shown and focused.
+     */
+    public static final WindowState ACTIVE = new WindowState(true, false, true);
+
+    /**
+     * The state of a window that was created but not shown yet.
+     */
+    public static final WindowState UNMAPPED = new WindowState(false, false, false);
+
+    /**
+     * @return Whether the window can be seen, i.e. mapped and not minimized.
+     */
+    public boolean visible() {
+        return mapped && !minimized;
+    }
+}
@@ -0,0 +1,197 @@
+package io.github.hubertkuch.kona.codec;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonPrimitive;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.WildcardType;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Supplier;
+
+/**
+ * Type adapters registered with the Gson instances of the binary codecs:
+ * <ul>
+ *     <li>{@code byte[]} is written as a single binary item instead of an array of numbers.</li>
+ *     <li>Primitive numeric arrays are written as CBOR typed arrays and read back in bulk.</li>
+ *     <li>Maps are read without Gson's name-to-value promotion, which only works on text readers.</li>
+ * </ul>
+ */
+final class BinaryAdapters implements TypeAdapterFactory {
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+        Class<? super T> rawType = type.getRawType();
+        if (rawType == byte[].class) {
+            return (TypeAdapter<T>) new BytesAdapter((TypeAdapter<byte[]>) gson.getDelegateAdapter(this, type));
+        }
+        if (rawType == double[].class || rawType == float[].class || rawType == long[].class
+                || rawType == int[].class || rawType == short[].class) {
+            return new TypedArrayAdapter<>(rawType, gson.getDelegateAdapter(this, type));
+        }
+        if (Map.class.isAssignableFrom(rawType)) {
+            Supplier<Map<Object, Object>> constructor = mapConstructor(rawType);
+            if (constructor == null) {
+                return null;
+            }
+            Type keyType = Object.class;
+            Type valueType = Object.class;
+            if (type.getType() instanceof ParameterizedType parameterized && parameterized.getActualTypeArguments().length == 2) {
+                keyType = upperBound(parameterized.getActualTypeArguments()[0]);
+                valueType = upperBound(parameterized.getActualTypeArguments()[1]);
+            }
+            return (TypeAdapter<T>) new MapAdapter(gson.getDelegateAdapter(this, type), constructor,
+                    keyType == String.class ? null : gson.getAdapter(TypeToken.get(keyType)),
+                    gson.getAdapter(TypeToken.get(valueType)));
+        }
+        return null;
+    }
+
+    private static Type upperBound(Type type) {
+        return type instanceof WildcardType wildcard ? wildcard.getUpperBounds()[0] : type;
+    }
+
+    private static Supplier<Map<Object, Object>> mapConstructor(Class<?> rawType) {
+        if (rawType == Map.class || rawType == LinkedHashMap.class) {
+            return LinkedHashMap::new;
+        }
+        if (rawType == HashMap.class) {
+            return HashMap::new;
+        }
+        if (rawType == SortedMap.class || rawType == NavigableMap.class || rawType == TreeMap.class) {
+            return TreeMap::new;
+        }
+        if (rawType == ConcurrentNavigableMap.class || rawType == ConcurrentSkipListMap.class) {
+            return ConcurrentSkipListMap::new;
+        }
+        if (rawType == ConcurrentMap.class || rawType == ConcurrentHashMap.class) {
+            return ConcurrentHashMap::new;
+        }
+        return null;
+    }
+
+    private static final class BytesAdapter extends TypeAdapter<byte[]> {
+        private final TypeAdapter<byte[]> delegate;
+
+        BytesAdapter(TypeAdapter<byte[]> delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void write(JsonWriter out, byte[] value) throws IOException {
+            if (value != null && out instanceof BinaryWriter writer) {
+                writer.bytesValue(value);
+            } else {
+                delegate.write(out, value);
+            }
+        }
+
+        @Override
+        public byte[] read(JsonReader in) throws IOException {
+            if (in instanceof BinaryReader reader) {
+                byte[] bytes = reader.nextBytes();
+                if (bytes != null) {
+                    return bytes;
+                }
+            }
+            return delegate.read(in);
+        }
+    }
+
+    private static final class TypedArrayAdapter<T> extends TypeAdapter<T> {
+        private final Class<? super T> arrayType;
+        private final TypeAdapter<T> delegate;
+
+        TypedArrayAdapter(Class<? super T> arrayType, TypeAdapter<T> delegate) {
+            this.arrayType = arrayType;
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void write(JsonWriter out, T value) throws IOException {
+            if (!(out instanceof CborWriter writer) || value == null) {
+                delegate.write(out, value);
+                return;
+            }
+            switch (value) {
+                case double[] values -> writer.typedArray(values);
+                case float[] values -> writer.typedArray(values);
+                case long[] values -> writer.typedArray(values);
+                case int[] values -> writer.typedArray(values);
+                case short[] values -> writer.typedArray(values);
+                default -> delegate.write(out, value);
+            }
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public T read(JsonReader in) throws IOException {
+            if (in instanceof CborReader reader) {
+                Object array = reader.nextTypedArray(arrayType);
+                if (array != null) {
+                    return (T) array;
+                }
+            }
+            return delegate.read(in);
+        }
+    }
+
+    private static final class MapAdapter extends TypeAdapter<Map<Object, Object>> {
+        private final TypeAdapter<Map<Object, Object>> delegate;
+        private final Supplier<Map<Object, Object>> constructor;
+        private final TypeAdapter<?> keyAdapter;
+        private final TypeAdapter<?> valueAdapter;
+
+        @SuppressWarnings("unchecked")
+        MapAdapter(TypeAdapter<?> delegate, Supplier<Map<Object, Object>> constructor, TypeAdapter<?> keyAdapter, TypeAdapter<?> valueAdapter) {
+            this.delegate = (TypeAdapter<Map<Object, Object>>) delegate;
+            this.constructor = constructor;
+            this.keyAdapter = keyAdapter;
+            this.valueAdapter = valueAdapter;
+        }
+
+        @Override
+        public void write(JsonWriter out, Map<Object, Object> value) throws IOException {
+            delegate.write(out, value);
+        }
+
+        @Override
+        public Map<Object, Object> read(JsonReader in) throws IOException {
+            if (in.peek() != JsonToken.BEGIN_OBJECT) {
+                // null, or the array-of-entries form Gson uses for complex keys
+                return delegate.read(in);
+            }
+
+            Map<Object, Object> map = constructor.get();
+            in.beginObject();
+            while (in.hasNext()) {
+                String name = in.nextName();
+                Object key = keyAdapter == null ? name : keyAdapter.fromJsonTree(new JsonPrimitive(name));
+                Object value = valueAdapter.read(in);
+                if (map.put(key, value) != null) {
+                    throw new JsonSyntaxException("duplicate key: " + key);
+                }
+            }
+            in.endObject();
+            return map;
+        }
+    }
+}
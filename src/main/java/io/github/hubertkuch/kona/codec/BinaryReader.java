@@ -0,0 +1,310 @@
+package io.github.hubertkuch.kona.codec;
+
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.Reader;
+import java.lang.reflect.Type;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * A {@link JsonReader} that decodes a binary format instead of JSON text, so that Gson's type adapters
+ * (generated or reflective) can read binary messages without an intermediate tree.
+ * This class tracks arrays and maps; subclasses decode the individual data items.
+ */
+abstract class BinaryReader extends JsonReader {
+
+    private static final Reader UNREADABLE = new Reader() {
+        @Override
+        public int read(char[] buffer, int offset, int length) {
+            throw new AssertionError();
+        }
+
+        @Override
+        public void close() {
+            throw new AssertionError();
+        }
+    };
+
+    /**
+     * An open array or map. {@code length} counts data items (two per map entry), or is {@code -1} if the
+     * container is terminated by a break marker.
+     */
+    private static final class Frame {
+        final boolean object;
+        final long length;
+        long consumed;
+
+        Frame(boolean object, long length) {
+            this.object = object;
+            this.length = length;
+        }
+    }
+
+    protected final ByteBuffer in;
+    private final Deque<Frame> stack = new ArrayDeque<>();
+
+    BinaryReader(byte[] data) {
+        super(UNREADABLE);
+        this.in = ByteBuffer.wrap(data);
+    }
+
+    /**
+     * Decodes a complete message with the given Gson instance.
+     */
+    static Object decode(Gson gson, BinaryReader reader, Type type) throws IOException {
+        try {
+            return gson.fromJson(reader, type);
+        } catch (BufferUnderflowException e) {
+            throw new EOFException("Truncated message");
+        }
+    }
+
+    /**
+     * @return The token of the data item at the current position.
+     */
+    protected abstract JsonToken peekItem() throws IOException;
+
+    /**
+     * Reads an array header.
+     *
+     * @return The number of elements, or {@code -1} for an indefinite-length array.
+     */
+    protected abstract long readArrayHeader() throws IOException;
+
+    /**
+     * Reads a map header.
+     *
+     * @return The number of entries, or {@code -1} for an indefinite-length map.
+     */
+    protected abstract long readMapHeader() throws IOException;
+
+    /**
+     * @return {@code true} if the current position holds the break marker of an indefinite-length container.
+     */
+    protected boolean atBreak() {
+        return false;
+    }
+
+    protected void readBreak() throws IOException {
+        throw new IOException("Unexpected break marker");
+    }
+
+    /**
+     * Called after an array has been closed.
+     */
+    protected void arrayEnded() {
+    }
+
+    /**
+     * Reads a text string, or the text form of a number or byte string.
+     */
+    protected abstract String readString() throws IOException;
+
+    protected abstract double readDouble() throws IOException;
+
+    protected abstract long readLong() throws IOException;
+
+    protected abstract boolean readBoolean() throws IOException;
+
+    protected abstract void readNull() throws IOException;
+
+    protected abstract boolean atBytes();
+
+    protected abstract byte[] readBytes() throws IOException;
+
+    protected abstract void skipItem() throws IOException;
+
+    /**
+     * Marks the current data item as read in the enclosing container.
+     */
+    final void valueConsumed() {
+        Frame top = stack.peek();
+        if (top != null) {
+            top.consumed++;
+        }
+    }
+
+    /**
+     * Reads a byte string directly, if the next value is one.
+     *
+     * @return The bytes, or {@code null} if the next value is not a byte string.
+     */
+    final byte[] nextBytes() throws IOException {
+        if (peek() != JsonToken.STRING || !atBytes()) {
+            return null;
+        }
+        byte[] bytes = readBytes();
+        valueConsumed();
+        return bytes;
+    }
+
+    private void expect(JsonToken expected) throws IOException {
+        JsonToken actual = peek();
+        if (actual != expected) {
+            throw new IllegalStateException("Expected " + expected + " but was " + actual + " at " + getPath());
+        }
+    }
+
+    @Override
+    public JsonToken peek() throws IOException {
+        Frame top = stack.peek();
+        if (top == null) {
+            return in.hasRemaining() ? peekItem() : JsonToken.END_DOCUMENT;
+        }
+        if (top.length >= 0 ? top.consumed == top.length : atBreak()) {
+            return top.object ? JsonToken.END_OBJECT : JsonToken.END_ARRAY;
+        }
+        if (top.object && top.consumed % 2 == 0) {
+            return JsonToken.NAME;
+        }
+        return peekItem();
+    }
+
+    @Override
+    public boolean hasNext() throws IOException {
+        JsonToken token = peek();
+        return token != JsonToken.END_OBJECT && token != JsonToken.END_ARRAY && token != JsonToken.END_DOCUMENT;
+    }
+
+    @Override
+    public void beginArray() throws IOException {
+        expect(JsonToken.BEGIN_ARRAY);
+        stack.push(new Frame(false, readArrayHeader()));
+    }
+
+    @Override
+    public void endArray() throws IOException {
+        expect(JsonToken.END_ARRAY);
+        if (stack.pop().length < 0) {
+            readBreak();
+        }
+        arrayEnded();
+        valueConsumed();
+    }
+
+    @Override
+    public void beginObject() throws IOException {
+        expect(JsonToken.BEGIN_OBJECT);
+        long entries = readMapHeader();
+        stack.push(new Frame(true, entries < 0 ? -1 : entries * 2));
+    }
+
+    @Override
+    public void endObject() throws IOException {
+        expect(JsonToken.END_OBJECT);
+        if (stack.pop().length < 0) {
+            readBreak();
+        }
+        valueConsumed();
+    }
+
+    @Override
+    public String nextName() throws IOException {
+        expect(JsonToken.NAME);
+        String name = readString();
+        valueConsumed();
+        return name;
+    }
+
+    @Override
+    public String nextString() throws IOException {
+        JsonToken token = peek();
+        if (token != JsonToken.STRING && token != JsonToken.NUMBER) {
+            throw new IllegalStateException("Expected a string but was " + token + " at " + getPath());
+        }
+        String value = readString();
+        valueConsumed();
+        return value;
+    }
+
+    @Override
+    public boolean nextBoolean() throws IOException {
+        expect(JsonToken.BOOLEAN);
+        boolean value = readBoolean();
+        valueConsumed();
+        return value;
+    }
+
+    @Override
+    public void nextNull() throws IOException {
+        expect(JsonToken.NULL);
+        readNull();
+        valueConsumed();
+    }
+
+    @Override
+    public double nextDouble() throws IOException {
+        JsonToken token = peek();
+        double value;
+        if (token == JsonToken.NUMBER) {
+            value = readDouble();
+        } else if (token == JsonToken.STRING) {
+            value = Double.parseDouble(readString());
+        } else {
+            throw new IllegalStateException("Expected a double but was " + token + " at " + getPath());
+        }
+        valueConsumed();
+        return value;
+    }
+
+    @Override
+    public long nextLong() throws IOException {
+        JsonToken token = peek();
+        long value;
+        if (token == JsonToken.NUMBER) {
+            value = readLong();
+        } else if (token == JsonToken.STRING) {
+            value = Long.parseLong(readString());
+        } else {
+            throw new IllegalStateException("Expected a long but was " + token + " at " + getPath());
+        }
+        valueConsumed();
+        return value;
+    }
+
+    @Override
+    public int nextInt() throws IOException {
+        long value = nextLong();
+        if ((int) value != value) {
+            throw new NumberFormatException("Expected an int but was " + value + " at " + getPath());
+        }
+        return (int) value;
+    }
+
+    @Override
+    public void skipValue() throws IOException {
+        JsonToken token = peek();
+        if (token == JsonToken.END_ARRAY || token == JsonToken.END_OBJECT || token == JsonToken.END_DOCUMENT) {
+            return;
+        }
+        skipItem();
+        valueConsumed();
+    }
+
+    @Override
+    public void close() {
+        stack.clear();
+    }
+
+    @Override
+    public String getPath() {
+        return "$ (offset " + in.position() + ")";
+    }
+
+    @Override
+    public String getPreviousPath() {
+        return getPath();
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + " at offset " + in.position();
+    }
+}
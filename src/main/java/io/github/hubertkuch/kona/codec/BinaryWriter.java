@@ -0,0 +1,286 @@
+package io.github.hubertkuch.kona.codec;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonPrimitive;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A {@link JsonWriter} that encodes to a binary format instead of JSON text, so that Gson's type adapters
+ * (generated or reflective) can write binary messages without an intermediate tree.
+ * Subclasses encode the individual data items.
+ */
+abstract class BinaryWriter extends JsonWriter {
+
+    private static final Writer UNWRITABLE = new Writer() {
+        @Override
+        public void write(char[] buffer, int offset, int length) {
+            throw new AssertionError();
+        }
+
+        @Override
+        public void flush() {
+            throw new AssertionError();
+        }
+
+        @Override
+        public void close() {
+            throw new AssertionError();
+        }
+    };
+
+    protected final Buffer out = new Buffer();
+    private String pendingName;
+
+    /**
+     * A byte buffer whose contents can be patched after writing, for formats that prefix containers with their size.
+     */
+    static final class Buffer extends ByteArrayOutputStream {
+        Buffer() {
+            super(256);
+        }
+
+        void setInt(int position, int value) {
+            buf[position] = (byte) (value >>> 24);
+            buf[position + 1] = (byte) (value >>> 16);
+            buf[position + 2] = (byte) (value >>> 8);
+            buf[position + 3] = (byte) value;
+        }
+    }
+
+    BinaryWriter() {
+        super(UNWRITABLE);
+    }
+
+    byte[] toByteArray() {
+        return out.toByteArray();
+    }
+
+    protected abstract void writeArrayStart() throws IOException;
+
+    protected abstract void writeMapStart() throws IOException;
+
+    protected abstract void writeArrayEnd() throws IOException;
+
+    protected abstract void writeMapEnd() throws IOException;
+
+    protected abstract void writeText(String value) throws IOException;
+
+    protected abstract void writeBytes(byte[] value) throws IOException;
+
+    protected abstract void writeInteger(long value) throws IOException;
+
+    protected abstract void writeFloat(float value) throws IOException;
+
+    protected abstract void writeDouble(double value) throws IOException;
+
+    protected abstract void writeBoolean(boolean value) throws IOException;
+
+    protected abstract void writeNull() throws IOException;
+
+    /**
+     * Called before every value, after the pending name (if any) has been written.
+     */
+    protected void beforeValue() {
+    }
+
+    final void writePendingName() throws IOException {
+        if (pendingName != null) {
+            writeText(pendingName);
+            pendingName = null;
+        }
+        beforeValue();
+    }
+
+    @Override
+    public JsonWriter beginArray() throws IOException {
+        writePendingName();
+        writeArrayStart();
+        return this;
+    }
+
+    @Override
+    public JsonWriter endArray() throws IOException {
+        writeArrayEnd();
+        return this;
+    }
+
+    @Override
+    public JsonWriter beginObject() throws IOException {
+        writePendingName();
+        writeMapStart();
+        return this;
+    }
+
+    @Override
+    public JsonWriter endObject() throws IOException {
+        if (pendingName != null) {
+            throw new IllegalStateException("Dangling name: " + pendingName);
+        }
+        writeMapEnd();
+        return this;
+    }
+
+    @Override
+    public JsonWriter name(String name) {
+        if (name == null) {
+            throw new NullPointerException("name == null");
+        }
+        if (pendingName != null) {
+            throw new IllegalStateException("Name already set: " + pendingName);
+        }
+        pendingName = name;
+        return this;
+    }
+
+    @Override
+    public JsonWriter value(String value) throws IOException {
+        if (value == null) {
+            return nullValue();
+        }
+        writePendingName();
+        writeText(value);
+        return this;
+    }
+
+    /**
+     * Writes raw JSON, e.g. from a {@code JsonElement} field or a pre-serialized payload, by parsing it and writing
+     * its values as binary data items.
+     */
+    @Override
+    public JsonWriter jsonValue(String value) throws IOException {
+        if (value == null) {
+            return nullValue();
+        }
+        writeElement(JsonParser.parseString(value));
+        return this;
+    }
+
+    private void writeElement(JsonElement element) throws IOException {
+        if (element.isJsonNull()) {
+            nullValue();
+        } else if (element.isJsonArray()) {
+            beginArray();
+            for (JsonElement item : element.getAsJsonArray()) {
+                writeElement(item);
+            }
+            endArray();
+        } else if (element.isJsonObject()) {
+            beginObject();
+            for (var entry : element.getAsJsonObject().entrySet()) {
+                name(entry.getKey());
+                writeElement(entry.getValue());
+            }
+            endObject();
+        } else {
+            JsonPrimitive primitive = element.getAsJsonPrimitive();
+            if (primitive.isBoolean()) {
+                value(primitive.getAsBoolean());
+            } else if (primitive.isNumber()) {
+                value(primitive.getAsNumber());
+            } else {
+                value(primitive.getAsString());
+            }
+        }
+    }
+
+    @Override
+    public JsonWriter nullValue() throws IOException {
+        if (pendingName != null && !getSerializeNulls()) {
+            pendingName = null;
+            return this;
+        }
+        writePendingName();
+        writeNull();
+        return this;
+    }
+
+    @Override
+    public JsonWriter value(boolean value) throws IOException {
+        writePendingName();
+        writeBoolean(value);
+        return this;
+    }
+
+    @Override
+    public JsonWriter value(Boolean value) throws IOException {
+        return value == null ? nullValue() : value(value.booleanValue());
+    }
+
+    @Override
+    public JsonWriter value(float value) throws IOException {
+        writePendingName();
+        writeFloat(value);
+        return this;
+    }
+
+    @Override
+    public JsonWriter value(double value) throws IOException {
+        writePendingName();
+        writeDouble(value);
+        return this;
+    }
+
+    @Override
+    public JsonWriter value(long value) throws IOException {
+        writePendingName();
+        writeInteger(value);
+        return this;
+    }
+
+    @Override
+    public JsonWriter value(Number value) throws IOException {
+        if (value == null) {
+            return nullValue();
+        }
+        if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte
+                || value instanceof AtomicInteger || value instanceof AtomicLong) {
+            return value(value.longValue());
+        }
+        if (value instanceof Float f) {
+            return value(f.floatValue());
+        }
+        if (value instanceof Double d) {
+            return value(d.doubleValue());
+        }
+        if (value instanceof BigInteger big && big.bitLength() < Long.SIZE) {
+            return value(big.longValue());
+        }
+        if (value instanceof BigInteger || value instanceof BigDecimal) {
+            // Arbitrary precision numbers keep their exact text form
+            return value(value.toString());
+        }
+
+        // LazilyParsedNumber and other Number implementations
+        String text = value.toString();
+        try {
+            return value(Long.parseLong(text));
+        } catch (NumberFormatException e) {
+            return value(Double.parseDouble(text));
+        }
+    }
+
+    /**
+     * Writes a byte array as a single binary data item.
+     */
+    void bytesValue(byte[] value) throws IOException {
+        writePendingName();
+        writeBytes(value);
+    }
+
+    @Override
+    public void flush() {
+    }
+
+    @Override
+    public void close() {
+    }
+}
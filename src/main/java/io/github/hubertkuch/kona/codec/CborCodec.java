@@ -0,0 +1,48 @@
+package io.github.hubertkuch.kona.codec;
+
+import com.google.gson.Gson;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+
+/**
+ * Encodes messages as CBOR (RFC 8949).
+ * <p>
+ * Values are written and read through the same Gson type adapters as JSON, so generated codecs and
+ * {@code @SerializedName} apply unchanged. Primitive numeric arrays ({@code double[]}, {@code float[]},
+ * {@code long[]}, {@code int[]}, {@code short[]}) are encoded as RFC 8746 little-endian typed arrays, and
+ * {@code byte[]} as a byte string, which the frontend decodes into typed arrays.
+ */
+public final class CborCodec implements MessageCodec {
+
+    private final Gson gson;
+
+    /**
+     * @param gson The Gson instance whose type adapters are used to read and write values.
+     */
+    public CborCodec(Gson gson) {
+        this.gson = gson.newBuilder().registerTypeAdapterFactory(new BinaryAdapters()).create();
+    }
+
+    @Override
+    public String name() {
+        return "cbor";
+    }
+
+    @Override
+    public boolean binary() {
+        return true;
+    }
+
+    @Override
+    public byte[] encode(Object value, Type type) {
+        CborWriter writer = new CborWriter();
+        gson.toJson(value, type, writer);
+        return writer.toByteArray();
+    }
+
+    @Override
+    public Object decode(byte[] data, Type type) throws IOException {
+        return BinaryReader.decode(gson, new CborReader(data), type);
+    }
+}
@@ -0,0 +1,403 @@
+package io.github.hubertkuch.kona.codec;
+
+import com.google.gson.stream.JsonToken;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Reads CBOR (RFC 8949). RFC 8746 typed arrays are presented as arrays of numbers, or, for primitive
+ * array types with a matching element type, read in bulk through {@link #nextTypedArray(Class)}.
+ * Other tags are ignored and their content read as is.
+ */
+final class CborReader extends BinaryReader {
+
+    private static final int BREAK = 0xff;
+
+    // The typed array being iterated element by element, if any
+    private int typedTag;
+
+    CborReader(byte[] data) {
+        super(data);
+    }
+
+    private int initialByte() {
+        return in.get(in.position()) & 0xff;
+    }
+
+    private long readArgument() throws IOException {
+        int info = in.get() & 0x1f;
+        return switch (info) {
+            case 24 -> in.get() & 0xffL;
+            case 25 -> in.getShort() & 0xffffL;
+            case 26 -> in.getInt() & 0xffffffffL;
+            case 27 -> in.getLong();
+            case 31 -> -1;
+            default -> {
+                if (info >= 24) {
+                    throw new IOException("Malformed CBOR at offset " + (in.position() - 1));
+                }
+                yield info;
+            }
+        };
+    }
+
+    private static boolean isTypedArrayTag(long tag) {
+        if (tag < 64 || tag > 87) {
+            return false;
+        }
+        int t = (int) tag - 64;
+        boolean isFloat = (t & 0x10) != 0;
+        // 76 is reserved; half and quadruple precision floats have no Java counterpart
+        return isFloat ? (t & 0x03) == 1 || (t & 0x03) == 2 : t != 12;
+    }
+
+    private static int elementSize(int tag) {
+        int t = tag - 64;
+        return (t & 0x10) != 0 ? 2 << (t & 0x03) : 1 << (t & 0x03);
+    }
+
+    private static ByteOrder elementOrder(int tag) {
+        return ((tag - 64) & 0x04) != 0 ? ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN;
+    }
+
+    /**
+     * Consumes any tags in front of the next item, stopping at a typed array tag.
+     *
+     * @return The typed array tag at the current position, or {@code 0} if there is none.
+     */
+    private int skipTags() throws IOException {
+        while ((initialByte() >>> 5) == 6) {
+            int start = in.position();
+            long tag = readArgument();
+            if (isTypedArrayTag(tag)) {
+                in.position(start);
+                return (int) tag;
+            }
+        }
+        return 0;
+    }
+
+    @Override
+    protected JsonToken peekItem() throws IOException {
+        if (typedTag != 0) {
+            return JsonToken.NUMBER;
+        }
+        if (skipTags() != 0) {
+            return JsonToken.BEGIN_ARRAY;
+        }
+        int initial = initialByte();
+        return switch (initial >>> 5) {
+            case 0, 1 -> JsonToken.NUMBER;
+            case 2, 3 -> JsonToken.STRING;
+            case 4 -> JsonToken.BEGIN_ARRAY;
+            case 5 -> JsonToken.BEGIN_OBJECT;
+            default -> switch (initial) {
+                case 0xf4, 0xf5 -> JsonToken.BOOLEAN;
+                case 0xf6, 0xf7 -> JsonToken.NULL;
+                case 0xf9, 0xfa, 0xfb -> JsonToken.NUMBER;
+                default -> throw new IOException("Unsupported CBOR item 0x" + Integer.toHexString(initial) + " at offset " + in.position());
+            };
+        };
+    }
+
+    @Override
+    protected long readArrayHeader() throws IOException {
+        if ((initialByte() >>> 5) == 6) {
+            typedTag = (int) readArgument();
+            long length = readByteStringLength();
+            return length / elementSize(typedTag);
+        }
+        return readArgument();
+    }
+
+    @Override
+    protected long readMapHeader() throws IOException {
+        return readArgument();
+    }
+
+    private long readByteStringLength() throws IOException {
+        if ((initialByte() >>> 5) != 2) {
+            throw new IOException("Malformed typed array at offset " + in.position());
+        }
+        long length = readArgument();
+        if (length < 0) {
+            throw new IOException("Indefinite-length typed arrays are not supported");
+        }
+        return length;
+    }
+
+    @Override
+    protected boolean atBreak() {
+        return typedTag == 0 && initialByte() == BREAK;
+    }
+
+    @Override
+    protected void readBreak() {
+        in.get();
+    }
+
+    @Override
+    protected void arrayEnded() {
+        typedTag = 0;
+    }
+
+    private double readTypedElement() {
+        int t = typedTag - 64;
+        ByteOrder previous = in.order();
+        in.order(elementOrder(typedTag));
+        try {
+            if ((t & 0x10) != 0) {
+                return (t & 0x03) == 1 ? in.getFloat() : in.getDouble();
+            }
+            return readTypedInteger();
+        } finally {
+            in.order(previous);
+        }
+    }
+
+    private long readTypedInteger() {
+        int t = typedTag - 64;
+        boolean signed = (t & 0x08) != 0;
+        return switch (t & 0x03) {
+            case 0 -> signed ? in.get() : in.get() & 0xffL;
+            case 1 -> signed ? in.getShort() : in.getShort() & 0xffffL;
+            case 2 -> signed ? in.getInt() : in.getInt() & 0xffffffffL;
+            default -> in.getLong();
+        };
+    }
+
+    private boolean typedFloat() {
+        return ((typedTag - 64) & 0x10) != 0;
+    }
+
+    private byte[] readChunks(int majorType) throws IOException {
+        long length = readArgument();
+        if (length >= 0) {
+            byte[] bytes = new byte[Math.toIntExact(length)];
+            in.get(bytes);
+            return bytes;
+        }
+        ByteArrayOutputStream chunks = new ByteArrayOutputStream();
+        while (initialByte() != BREAK) {
+            if ((initialByte() >>> 5) != majorType) {
+                throw new IOException("Malformed string chunk at offset " + in.position());
+            }
+            chunks.writeBytes(readChunks(majorType));
+        }
+        in.get();
+        return chunks.toByteArray();
+    }
+
+    @Override
+    protected String readString() throws IOException {
+        if (typedTag != 0) {
+            return typedFloat() ? Double.toString(readTypedElement()) : Long.toString((long) readTypedElement());
+        }
+        int initial = initialByte();
+        return switch (initial >>> 5) {
+            case 3 -> new String(readChunks(3), StandardCharsets.UTF_8);
+            case 2 -> Base64.getEncoder().encodeToString(readChunks(2));
+            case 0, 1 -> Long.toString(readLong());
+            default -> Double.toString(readDouble());
+        };
+    }
+
+    @Override
+    protected double readDouble() throws IOException {
+        if (typedTag != 0) {
+            return readTypedElement();
+        }
+        int initial = initialByte();
+        return switch (initial) {
+            case 0xf9 -> {
+                in.get();
+                yield halfToDouble(in.getShort());
+            }
+            case 0xfa -> {
+                in.get();
+                yield in.getFloat();
+            }
+            case 0xfb -> {
+                in.get();
+                yield in.getDouble();
+            }
+            default -> readLong();
+        };
+    }
+
+    @Override
+    protected long readLong() throws IOException {
+        if (typedTag != 0) {
+            if (!typedFloat()) {
+                ByteOrder previous = in.order();
+                in.order(elementOrder(typedTag));
+                try {
+                    return readTypedInteger();
+                } finally {
+                    in.order(previous);
+                }
+            }
+            return integral(readTypedElement());
+        }
+        int initial = initialByte();
+        return switch (initial >>> 5) {
+            case 0 -> readArgument();
+            case 1 -> -1 - readArgument();
+            default -> integral(readDouble());
+        };
+    }
+
+    private long integral(double value) {
+        long result = (long) value;
+        if (result != value) {
+            throw new NumberFormatException("Expected a long but was " + value + " at " + getPath());
+        }
+        return result;
+    }
+
+    private static double halfToDouble(short bits) {
+        int exponent = (bits >> 10) & 0x1f;
+        int mantissa = bits & 0x3ff;
+        double value;
+        if (exponent == 0) {
+            value = Math.scalb((double) mantissa, -24);
+        } else if (exponent == 31) {
+            value = mantissa == 0 ? Double.POSITIVE_INFINITY : Double.NaN;
+        } else {
+            value = Math.scalb((double) (mantissa + 1024), exponent - 25);
+        }
+        return (bits & 0x8000) != 0 ? -value : value;
+    }
+
+    @Override
+    protected boolean readBoolean() {
+        return in.get() == (byte) 0xf5;
+    }
+
+    @Override
+    protected void readNull() {
+        in.get();
+    }
+
+    @Override
+    protected boolean atBytes() {
+        return typedTag == 0 && (initialByte() >>> 5) == 2;
+    }
+
+    @Override
+    protected byte[] readBytes() throws IOException {
+        return readChunks(2);
+    }
+
+    @Override
+    protected void skipItem() throws IOException {
+        if (typedTag != 0) {
+            in.position(in.position() + elementSize(typedTag));
+            return;
+        }
+        int initial = initialByte();
+        switch (initial >>> 5) {
+            case 0, 1 -> readArgument();
+            case 2, 3 -> readChunks(initial >>> 5);
+            case 4, 5 -> {
+                long items = readArgument();
+                if (items < 0) {
+                    while (initialByte() != BREAK) {
+                        skipItem();
+                    }
+                    in.get();
+                } else {
+                    long count = (initial >>> 5) == 5 ? items * 2 : items;
+                    for (long i = 0; i < count; i++) {
+                        skipItem();
+                    }
+                }
+            }
+            case 6 -> {
+                readArgument();
+                skipItem();
+            }
+            default -> {
+                in.get();
+                switch (initial) {
+                    case 0xf8 -> in.get();
+                    case 0xf9 -> in.getShort();
+                    case 0xfa -> in.getInt();
+                    case 0xfb -> in.getLong();
+                    default -> {
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads a typed array in bulk, if the next value is one whose element type matches the requested
+     * primitive array type exactly.
+     *
+     * @param arrayType One of {@code double[]}, {@code float[]}, {@code long[]}, {@code int[]} or {@code short[]}.
+     * @return The array, or {@code null} if the next value must be read element by element.
+     */
+    Object nextTypedArray(Class<?> arrayType) throws IOException {
+        if (peek() != JsonToken.BEGIN_ARRAY) {
+            return null;
+        }
+        int tag = skipTags();
+        if (tag == 0 || !matches(tag, arrayType)) {
+            return null;
+        }
+
+        int start = in.position();
+        readArgument();
+        int length = Math.toIntExact(readByteStringLength());
+        ByteBuffer elements = in.slice(in.position(), length).order(elementOrder(tag));
+        in.position(in.position() + length);
+
+        int count = length / elementSize(tag);
+        Object array;
+        if (arrayType == double[].class) {
+            double[] values = new double[count];
+            elements.asDoubleBuffer().get(values);
+            array = values;
+        } else if (arrayType == float[].class) {
+            float[] values = new float[count];
+            elements.asFloatBuffer().get(values);
+            array = values;
+        } else if (arrayType == long[].class) {
+            long[] values = new long[count];
+            elements.asLongBuffer().get(values);
+            array = values;
+        } else if (arrayType == int[].class) {
+            int[] values = new int[count];
+            elements.asIntBuffer().get(values);
+            array = values;
+        } else if (arrayType == short[].class) {
+            short[] values = new short[count];
+            elements.asShortBuffer().get(values);
+            array = values;
+        } else {
+            in.position(start);
+            return null;
+        }
+        valueConsumed();
+        return array;
+    }
+
+    private static boolean matches(int tag, Class<?> arrayType) {
+        int t = tag - 64;
+        boolean isFloat = (t & 0x10) != 0;
+        boolean signed = (t & 0x08) != 0;
+        int size = elementSize(tag);
+        if (isFloat) {
+            return (arrayType == double[].class && size == Double.BYTES) || (arrayType == float[].class && size == Float.BYTES);
+        }
+        return signed && ((arrayType == long[].class && size == Long.BYTES)
+                || (arrayType == int[].class && size == Integer.BYTES)
+                || (arrayType == short[].class && size == Short.BYTES));
+    }
+}
@@ -0,0 +1,152 @@
+package io.github.hubertkuch.kona.codec;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes CBOR (RFC 8949). Arrays and maps use indefinite-length encoding, since their sizes are not known
+ * while streaming. Primitive arrays are written as RFC 8746 typed arrays in little-endian order, which
+ * the frontend can view as {@code Float64Array}, {@code Int32Array} etc. without decoding element by element.
+ */
+final class CborWriter extends BinaryWriter {
+
+    static final int TAG_SINT16_LE = 77;
+    static final int TAG_SINT32_LE = 78;
+    static final int TAG_SINT64_LE = 79;
+    static final int TAG_FLOAT32_LE = 85;
+    static final int TAG_FLOAT64_LE = 86;
+
+    private void writeHead(int majorType, long argument) {
+        int major = majorType << 5;
+        if (argument < 24) {
+            out.write(major | (int) argument);
+        } else if (argument < 0x100) {
+            out.write(major | 24);
+            out.write((int) argument);
+        } else if (argument < 0x10000) {
+            out.write(major | 25);
+            writeBigEndian(argument, 2);
+        } else if (argument < 0x100000000L) {
+            out.write(major | 26);
+            writeBigEndian(argument, 4);
+        } else {
+            out.write(major | 27);
+            writeBigEndian(argument, 8);
+        }
+    }
+
+    private void writeBigEndian(long value, int size) {
+        for (int shift = (size - 1) * 8; shift >= 0; shift -= 8) {
+            out.write((int) (value >>> shift));
+        }
+    }
+
+    @Override
+    protected void writeArrayStart() {
+        out.write(0x9f);
+    }
+
+    @Override
+    protected void writeMapStart() {
+        out.write(0xbf);
+    }
+
+    @Override
+    protected void writeArrayEnd() {
+        out.write(0xff);
+    }
+
+    @Override
+    protected void writeMapEnd() {
+        out.write(0xff);
+    }
+
+    @Override
+    protected void writeText(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeHead(3, bytes.length);
+        out.writeBytes(bytes);
+    }
+
+    @Override
+    protected void writeBytes(byte[] value) {
+        writeHead(2, value.length);
+        out.writeBytes(value);
+    }
+
+    @Override
+    protected void writeInteger(long value) {
+        if (value >= 0) {
+            writeHead(0, value);
+        } else {
+            writeHead(1, -1 - value);
+        }
+    }
+
+    @Override
+    protected void writeFloat(float value) {
+        out.write(0xfa);
+        writeBigEndian(Float.floatToIntBits(value), 4);
+    }
+
+    @Override
+    protected void writeDouble(double value) {
+        float narrowed = (float) value;
+        if (narrowed == value) {
+            // Exactly representable in single precision; the reader widens it back losslessly
+            writeFloat(narrowed);
+        } else {
+            out.write(0xfb);
+            writeBigEndian(Double.doubleToLongBits(value), 8);
+        }
+    }
+
+    @Override
+    protected void writeBoolean(boolean value) {
+        out.write(value ? 0xf5 : 0xf4);
+    }
+
+    @Override
+    protected void writeNull() {
+        out.write(0xf6);
+    }
+
+    private ByteBuffer beginTypedArray(int tag, int elementSize, int length) throws IOException {
+        writePendingName();
+        writeHead(6, tag);
+        writeHead(2, (long) elementSize * length);
+        return ByteBuffer.allocate(elementSize * length).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    void typedArray(double[] values) throws IOException {
+        ByteBuffer buffer = beginTypedArray(TAG_FLOAT64_LE, Double.BYTES, values.length);
+        buffer.asDoubleBuffer().put(values);
+        out.writeBytes(buffer.array());
+    }
+
+    void typedArray(float[] values) throws IOException {
+        ByteBuffer buffer = beginTypedArray(TAG_FLOAT32_LE, Float.BYTES, values.length);
+        buffer.asFloatBuffer().put(values);
+        out.writeBytes(buffer.array());
+    }
+
+    void typedArray(long[] values) throws IOException {
+        ByteBuffer buffer = beginTypedArray(TAG_SINT64_LE, Long.BYTES, values.length);
+        buffer.asLongBuffer().put(values);
+        out.writeBytes(buffer.array());
+    }
+
+    void typedArray(int[] values) throws IOException {
+        ByteBuffer buffer = beginTypedArray(TAG_SINT32_LE, Integer.BYTES, values.length);
+        buffer.asIntBuffer().put(values);
+        out.writeBytes(buffer.array());
+    }
+
+    void typedArray(short[] values) throws IOException {
+        ByteBuffer buffer = beginTypedArray(TAG_SINT16_LE, Short.BYTES, values.length);
+        buffer.asShortBuffer().put(values);
+        out.writeBytes(buffer.array());
+    }
+}
@@ -0,0 +1,29 @@
+package io.github.hubertkuch.kona.codec;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+
+/**
+ * A build-time generated codec for one payload or response type.
+ * <p>
+ * Implementations are written by the {@code kona-processor} annotation processor for every type it finds in
+ * the signatures of {@code @MessageHandler} methods, and registered as services under this interface.
+ * The adapters they create read and write fields with straight-line streaming code instead of reflection.
+ * Application code does not implement this interface.
+ */
+public interface GeneratedCodecFactory {
+
+    /**
+     * @return The type this codec reads and writes.
+     */
+    Class<?> type();
+
+    /**
+     * Creates the adapter for {@link #type()}. Fields whose types have no generated codec are delegated
+     * to adapters obtained from the given Gson instance.
+     *
+     * @param gson The Gson instance the adapter is registered with.
+     * @return The type adapter.
+     */
+    TypeAdapter<?> create(Gson gson);
+}
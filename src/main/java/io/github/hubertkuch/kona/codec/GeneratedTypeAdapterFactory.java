@@ -0,0 +1,67 @@
+package io.github.hubertkuch.kona.codec;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+
+/**
+ * A Gson {@link TypeAdapterFactory} that serves the generated codecs found on the class path.
+ * Types without a generated codec are left to Gson's own (reflective) adapters.
+ */
+public final class GeneratedTypeAdapterFactory implements TypeAdapterFactory {
+
+    private static final Logger log = LoggerFactory.getLogger(GeneratedTypeAdapterFactory.class);
+
+    private final Map<Class<?>, GeneratedCodecFactory> codecs;
+
+    private GeneratedTypeAdapterFactory(Map<Class<?>, GeneratedCodecFactory> codecs) {
+        this.codecs = codecs;
+    }
+
+    /**
+     * Discovers the generated codecs registered as {@link GeneratedCodecFactory} services.
+     *
+     * @return A factory serving every codec found.
+     */
+    public static GeneratedTypeAdapterFactory load() {
+        ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        if (classLoader == null) {
+            classLoader = GeneratedTypeAdapterFactory.class.getClassLoader();
+        }
+
+        Map<Class<?>, GeneratedCodecFactory> codecs = new HashMap<>();
+        try {
+            for (GeneratedCodecFactory codec : ServiceLoader.load(GeneratedCodecFactory.class, classLoader)) {
+                codecs.put(codec.type(), codec);
+            }
+        } catch (ServiceConfigurationError e) {
+            log.warn("[Kona] Failed to load generated codecs, falling back to reflection", e);
+        }
+
+        log.debug("[Kona] Loaded {} generated codec(s)", codecs.size());
+        return new GeneratedTypeAdapterFactory(Map.copyOf(codecs));
+    }
+
+    /**
+     * @param type A payload or response type.
+     * @return {@code true} if the type is served by a generated codec.
+     */
+    public boolean isGenerated(Class<?> type) {
+        return codecs.containsKey(type);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+        GeneratedCodecFactory codec = codecs.get(type.getRawType());
+        return codec != null ? (TypeAdapter<T>) codec.create(gson) : null;
+    }
+}
@@ -0,0 +1,54 @@
+package io.github.hubertkuch.kona.codec;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+
+/**
+ * A wire format for message payloads and responses.
+ * <p>
+ * Messages are JSON by default. A route can opt into another codec through
+ * {@code @MessageHandler(codec = ...)}, and a single message can override it with the {@code codec}
+ * (payload) and {@code accept} (response) fields of its envelope. The envelope itself
+ * ({@code controller}, {@code action}, {@code callbackId}) always stays JSON.
+ * <p>
+ * Binary codecs travel over the bridge base64-encoded. Kona ships {@link CborCodec} and
+ * {@link MessagePackCodec}; further codecs can be added with {@code Kona.Builder#codec(MessageCodec)}.
+ */
+public interface MessageCodec {
+
+    /**
+     * The name of the default JSON format, which is handled by the router itself.
+     */
+    String JSON = "json";
+
+    /**
+     * @return The name used to select this codec, e.g. {@code "cbor"}.
+     */
+    String name();
+
+    /**
+     * @return {@code true} if encoded messages are binary and must be base64-encoded on the bridge,
+     * {@code false} if they are UTF-8 text.
+     */
+    boolean binary();
+
+    /**
+     * Encodes a response.
+     *
+     * @param value The value returned by a handler.
+     * @param type  The declared return type of the handler.
+     * @return The encoded bytes.
+     * @throws IOException If the value cannot be encoded.
+     */
+    byte[] encode(Object value, Type type) throws IOException;
+
+    /**
+     * Decodes a payload.
+     *
+     * @param data The encoded bytes.
+     * @param type The payload type of the handler.
+     * @return The decoded payload.
+     * @throws IOException If the data is malformed.
+     */
+    Object decode(byte[] data, Type type) throws IOException;
+}
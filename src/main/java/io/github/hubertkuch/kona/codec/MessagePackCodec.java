@@ -0,0 +1,47 @@
+package io.github.hubertkuch.kona.codec;
+
+import com.google.gson.Gson;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+
+/**
+ * Encodes messages as MessagePack.
+ * <p>
+ * Values are written and read through the same Gson type adapters as JSON, so generated codecs and
+ * {@code @SerializedName} apply unchanged. {@code byte[]} is encoded as a binary item; MessagePack has no
+ * standard typed arrays, so other primitive arrays are written element by element.
+ */
+public final class MessagePackCodec implements MessageCodec {
+
+    private final Gson gson;
+
+    /**
+     * @param gson The Gson instance whose type adapters are used to read and write values.
+     */
+    public MessagePackCodec(Gson gson) {
+        this.gson = gson.newBuilder().registerTypeAdapterFactory(new BinaryAdapters()).create();
+    }
+
+    @Override
+    public String name() {
+        return "msgpack";
+    }
+
+    @Override
+    public boolean binary() {
+        return true;
+    }
+
+    @Override
+    public byte[] encode(Object value, Type type) {
+        MessagePackWriter writer = new MessagePackWriter();
+        gson.toJson(value, type, writer);
+        return writer.toByteArray();
+    }
+
+    @Override
+    public Object decode(byte[] data, Type type) throws IOException {
+        return BinaryReader.decode(gson, new MessagePackReader(data), type);
+    }
+}
@@ -0,0 +1,196 @@
+package io.github.hubertkuch.kona.codec;
+
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Reads MessagePack. Extension types are not supported.
+ */
+final class MessagePackReader extends BinaryReader {
+
+    MessagePackReader(byte[] data) {
+        super(data);
+    }
+
+    private int initialByte() {
+        return in.get(in.position()) & 0xff;
+    }
+
+    private IOException unsupported(int initial) {
+        return new IOException("Unsupported MessagePack type 0x" + Integer.toHexString(initial) + " at offset " + in.position());
+    }
+
+    @Override
+    protected JsonToken peekItem() throws IOException {
+        int initial = initialByte();
+        if (initial <= 0x7f || initial >= 0xe0) {
+            return JsonToken.NUMBER;
+        }
+        if (initial <= 0x8f) {
+            return JsonToken.BEGIN_OBJECT;
+        }
+        if (initial <= 0x9f) {
+            return JsonToken.BEGIN_ARRAY;
+        }
+        if (initial <= 0xbf) {
+            return JsonToken.STRING;
+        }
+        return switch (initial) {
+            case 0xc0 -> JsonToken.NULL;
+            case 0xc2, 0xc3 -> JsonToken.BOOLEAN;
+            case 0xc4, 0xc5, 0xc6, 0xd9, 0xda, 0xdb -> JsonToken.STRING;
+            case 0xca, 0xcb, 0xcc, 0xcd, 0xce, 0xcf, 0xd0, 0xd1, 0xd2, 0xd3 -> JsonToken.NUMBER;
+            case 0xdc, 0xdd -> JsonToken.BEGIN_ARRAY;
+            case 0xde, 0xdf -> JsonToken.BEGIN_OBJECT;
+            default -> throw unsupported(initial);
+        };
+    }
+
+    @Override
+    protected long readArrayHeader() throws IOException {
+        int initial = in.get() & 0xff;
+        return switch (initial) {
+            case 0xdc -> in.getShort() & 0xffffL;
+            case 0xdd -> in.getInt() & 0xffffffffL;
+            default -> initial & 0x0f;
+        };
+    }
+
+    @Override
+    protected long readMapHeader() throws IOException {
+        int initial = in.get() & 0xff;
+        return switch (initial) {
+            case 0xde -> in.getShort() & 0xffffL;
+            case 0xdf -> in.getInt() & 0xffffffffL;
+            default -> initial & 0x0f;
+        };
+    }
+
+    /**
+     * Reads the header of a string or binary item.
+     *
+     * @return The length of its content.
+     */
+    private int readLength() throws IOException {
+        int initial = in.get() & 0xff;
+        if (initial >= 0xa0 && initial <= 0xbf) {
+            return initial & 0x1f;
+        }
+        return switch (initial) {
+            case 0xc4, 0xd9 -> in.get() & 0xff;
+            case 0xc5, 0xda -> in.getShort() & 0xffff;
+            case 0xc6, 0xdb -> Math.toIntExact(in.getInt() & 0xffffffffL);
+            default -> throw unsupported(initial);
+        };
+    }
+
+    @Override
+    protected String readString() throws IOException {
+        int initial = initialByte();
+        if (atBytes()) {
+            return Base64.getEncoder().encodeToString(readBytes());
+        }
+        if ((initial >= 0xa0 && initial <= 0xbf) || (initial >= 0xd9 && initial <= 0xdb)) {
+            int length = readLength();
+            String value = new String(in.array(), in.arrayOffset() + in.position(), length, StandardCharsets.UTF_8);
+            in.position(in.position() + length);
+            return value;
+        }
+        return initial == 0xca || initial == 0xcb ? Double.toString(readDouble()) : Long.toString(readLong());
+    }
+
+    @Override
+    protected double readDouble() throws IOException {
+        return switch (initialByte()) {
+            case 0xca -> {
+                in.get();
+                yield in.getFloat();
+            }
+            case 0xcb -> {
+                in.get();
+                yield in.getDouble();
+            }
+            default -> readLong();
+        };
+    }
+
+    @Override
+    protected long readLong() throws IOException {
+        int initial = in.get() & 0xff;
+        if (initial <= 0x7f) {
+            return initial;
+        }
+        if (initial >= 0xe0) {
+            return (byte) initial;
+        }
+        return switch (initial) {
+            case 0xcc -> in.get() & 0xffL;
+            case 0xcd -> in.getShort() & 0xffffL;
+            case 0xce -> in.getInt() & 0xffffffffL;
+            case 0xcf, 0xd3 -> in.getLong();
+            case 0xd0 -> in.get();
+            case 0xd1 -> in.getShort();
+            case 0xd2 -> in.getInt();
+            case 0xca, 0xcb -> {
+                in.position(in.position() - 1);
+                double value = readDouble();
+                if ((long) value != value) {
+                    throw new NumberFormatException("Expected a long but was " + value + " at " + getPath());
+                }
+                yield (long) value;
+            }
+            default -> throw unsupported(initial);
+        };
+    }
+
+    @Override
+    protected boolean readBoolean() {
+        return in.get() == (byte) 0xc3;
+    }
+
+    @Override
+    protected void readNull() {
+        in.get();
+    }
+
+    @Override
+    protected boolean atBytes() {
+        int initial = initialByte();
+        return initial >= 0xc4 && initial <= 0xc6;
+    }
+
+    @Override
+    protected byte[] readBytes() throws IOException {
+        byte[] bytes = new byte[readLength()];
+        in.get(bytes);
+        return bytes;
+    }
+
+    @Override
+    protected void skipItem() throws IOException {
+        JsonToken token = peekItem();
+        switch (token) {
+            case BEGIN_ARRAY -> {
+                long count = readArrayHeader();
+                for (long i = 0; i < count; i++) {
+                    skipItem();
+                }
+            }
+            case BEGIN_OBJECT -> {
+                long count = readMapHeader() * 2;
+                for (long i = 0; i < count; i++) {
+                    skipItem();
+                }
+            }
+            case STRING -> {
+                int length = readLength();
+                in.position(in.position() + length);
+            }
+            case NUMBER -> readDouble();
+            default -> in.get();
+        }
+    }
+}
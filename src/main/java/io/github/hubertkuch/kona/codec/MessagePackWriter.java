@@ -0,0 +1,165 @@
+package io.github.hubertkuch.kona.codec;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Writes MessagePack. MessagePack has no indefinite-length containers, so arrays and maps are written with
+ * a 32-bit size placeholder that is patched once the container is closed.
+ */
+final class MessagePackWriter extends BinaryWriter {
+
+    private int[] sizeOffsets = new int[16];
+    private int[] counts = new int[16];
+    private int depth;
+
+    @Override
+    protected void beforeValue() {
+        if (depth > 0) {
+            counts[depth - 1]++;
+        }
+    }
+
+    private void startContainer(int marker) {
+        if (depth == sizeOffsets.length) {
+            sizeOffsets = Arrays.copyOf(sizeOffsets, depth * 2);
+            counts = Arrays.copyOf(counts, depth * 2);
+        }
+        out.write(marker);
+        sizeOffsets[depth] = out.size();
+        counts[depth] = 0;
+        depth++;
+        writeBigEndian(0, 4);
+    }
+
+    private void endContainer() {
+        if (depth == 0) {
+            throw new IllegalStateException("Nesting problem.");
+        }
+        depth--;
+        out.setInt(sizeOffsets[depth], counts[depth]);
+    }
+
+    private void writeBigEndian(long value, int size) {
+        for (int shift = (size - 1) * 8; shift >= 0; shift -= 8) {
+            out.write((int) (value >>> shift));
+        }
+    }
+
+    @Override
+    protected void writeArrayStart() {
+        startContainer(0xdd);
+    }
+
+    @Override
+    protected void writeMapStart() {
+        startContainer(0xdf);
+    }
+
+    @Override
+    protected void writeArrayEnd() {
+        endContainer();
+    }
+
+    @Override
+    protected void writeMapEnd() {
+        endContainer();
+    }
+
+    @Override
+    protected void writeText(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        int length = bytes.length;
+        if (length < 32) {
+            out.write(0xa0 | length);
+        } else if (length < 0x100) {
+            out.write(0xd9);
+            out.write(length);
+        } else if (length < 0x10000) {
+            out.write(0xda);
+            writeBigEndian(length, 2);
+        } else {
+            out.write(0xdb);
+            writeBigEndian(length, 4);
+        }
+        out.writeBytes(bytes);
+    }
+
+    @Override
+    protected void writeBytes(byte[] value) {
+        int length = value.length;
+        if (length < 0x100) {
+            out.write(0xc4);
+            out.write(length);
+        } else if (length < 0x10000) {
+            out.write(0xc5);
+            writeBigEndian(length, 2);
+        } else {
+            out.write(0xc6);
+            writeBigEndian(length, 4);
+        }
+        out.writeBytes(value);
+    }
+
+    @Override
+    protected void writeInteger(long value) {
+        if (value >= 0) {
+            if (value < 0x80) {
+                out.write((int) value);
+            } else if (value < 0x100) {
+                out.write(0xcc);
+                out.write((int) value);
+            } else if (value < 0x10000) {
+                out.write(0xcd);
+                writeBigEndian(value, 2);
+            } else if (value < 0x100000000L) {
+                out.write(0xce);
+                writeBigEndian(value, 4);
+            } else {
+                out.write(0xcf);
+                writeBigEndian(value, 8);
+            }
+        } else if (value >= -32) {
+            out.write((int) value);
+        } else if (value >= Byte.MIN_VALUE) {
+            out.write(0xd0);
+            out.write((int) value);
+        } else if (value >= Short.MIN_VALUE) {
+            out.write(0xd1);
+            writeBigEndian(value, 2);
+        } else if (value >= Integer.MIN_VALUE) {
+            out.write(0xd2);
+            writeBigEndian(value, 4);
+        } else {
+            out.write(0xd3);
+            writeBigEndian(value, 8);
+        }
+    }
+
+    @Override
+    protected void writeFloat(float value) {
+        out.write(0xca);
+        writeBigEndian(Float.floatToIntBits(value), 4);
+    }
+
+    @Override
+    protected void writeDouble(double value) {
+        float narrowed = (float) value;
+        if (narrowed == value) {
+            writeFloat(narrowed);
+        } else {
+            out.write(0xcb);
+            writeBigEndian(Double.doubleToLongBits(value), 8);
+        }
+    }
+
+    @Override
+    protected void writeBoolean(boolean value) {
+        out.write(value ? 0xc3 : 0xc2);
+    }
+
+    @Override
+    protected void writeNull() {
+        out.write(0xc0);
+    }
+}
@@ -0,0 +1,142 @@
+package io.github.hubertkuch.kona.diagnostics;
+
+import java.time.Duration;
+import java.util.Objects;
+
+/**
+ * When a {@link StallWatchdog} considers the UI thread stalled, and how often it reports it in full.
+ * <p>
+ * Example:
+ * <pre>{@code
+ * StallOptions options = new StallOptions.Builder()
+ *         .threshold(Duration.ofMillis(100))
+ *         .reportInterval(Duration.ofSeconds(10))
+ *         .build();
+ * }</pre>
+ */
+public final class StallOptions {
+
+    private final Duration threshold;
+    private final Duration heartbeatInterval;
+    private final Duration reportInterval;
+    private final int maxStackDepth;
+
+    private StallOptions(Builder builder) {
+        this.threshold = builder.threshold;
+        this.heartbeatInterval = builder.heartbeatInterval;
+        this.reportInterval = builder.reportInterval;
+        this.maxStackDepth = builder.maxStackDepth;
+    }
+
+    /**
+     * @return Options with a 200 ms threshold, a heartbeat every 100 ms and at most one full report every 30 seconds.
+     */
+    public static StallOptions defaults() {
+        return new Builder().build();
+    }
+
+    public Duration threshold() {
+        return threshold;
+    }
+
+    public Duration heartbeatInterval() {
+        return heartbeatInterval;
+    }
+
+    public Duration reportInterval() {
+        return reportInterval;
+    }
+
+    public int maxStackDepth() {
+        return maxStackDepth;
+    }
+
+    @Override
+    public String toString() {
+        return "StallOptions{" +
+                "threshold=" + threshold +
+                ", heartbeatInterval=" + heartbeatInterval +
+                ", reportInterval=" + reportInterval +
+                ", maxStackDepth=" + maxStackDepth +
+                '}';
+    }
+
+    /**
+     * A builder for {@link StallOptions}.
+     */
+    public static class Builder {
+        private Duration threshold = Duration.ofMillis(200);
+        private Duration heartbeatInterval = Duration.ofMillis(100);
+        private Duration reportInterval = Duration.ofSeconds(30);
+        private int maxStackDepth = 64;
+
+        /**
+         * Creates a builder with the default options.
+         */
+        public Builder() {}
+
+        /**
+         * Sets how long the main loop may be held up before it counts as a stall.
+         *
+         * @param threshold The threshold.
+         * @return This builder instance.
+         */
+        public Builder threshold(Duration threshold) {
+            if (threshold.isNegative() || threshold.isZero()) {
+                throw new IllegalArgumentException("threshold must be positive");
+            }
+            this.threshold = threshold;
+            return this;
+        }
+
+        /**
+         * Sets how often a heartbeat is scheduled on the UI thread. Shorter intervals detect stalls sooner and
+         * measure them more precisely, at the cost of waking the UI thread more often.
+         *
+         * @param heartbeatInterval The interval.
+         * @return This builder instance.
+         */
+        public Builder heartbeatInterval(Duration heartbeatInterval) {
+            if (heartbeatInterval.isNegative() || heartbeatInterval.isZero()) {
+                throw new IllegalArgumentException("heartbeatInterval must be positive");
+            }
+            this.heartbeatInterval = heartbeatInterval;
+            return this;
+        }
+
+        /**
+         * Sets the shortest time between two stalls reported with a stack and a warning. Stalls in between are
+         * still counted, logged at debug level and committed to JFR, without a stack.
+         *
+         * @param reportInterval The interval; zero reports every stall in full.
+         * @return This builder instance.
+         */
+        public Builder reportInterval(Duration reportInterval) {
+            this.reportInterval = Objects.requireNonNull(reportInterval);
+            return this;
+        }
+
+        /**
+         * Sets how many frames of the UI thread's stack are captured.
+         *
+         * @param maxStackDepth The number of frames.
+         * @return This builder instance.
+         */
+        public Builder maxStackDepth(int maxStackDepth) {
+            if (maxStackDepth < 1) {
+                throw new IllegalArgumentException("maxStackDepth must be positive");
+            }
+            this.maxStackDepth = maxStackDepth;
+            return this;
+        }
+
+        /**
+         * Builds the options.
+         *
+         * @return New {@link StallOptions}.
+         */
+        public StallOptions build() {
+            return new StallOptions(this);
+        }
+    }
+}
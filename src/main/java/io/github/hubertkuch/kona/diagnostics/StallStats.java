@@ -0,0 +1,12 @@
+package io.github.hubertkuch.kona.diagnostics;
+
+/**
+ * How often and how long the UI thread stalled since the watchdog started.
+ *
+ * @param stalls       The number of stalls.
+ * @param suppressed   The number of stalls reported without a stack because of rate limiting.
+ * @param totalNanos   The time spent in stalls.
+ * @param longestNanos The duration of the longest stall.
+ */
+public record StallStats(long stalls, long suppressed, long totalNanos, long longestNanos) {
+}
@@ -0,0 +1,303 @@
+package io.github.hubertkuch.kona.diagnostics;
+
+import io.github.hubertkuch.kona.application.AppWindow;
+import io.github.hubertkuch.kona.message.Priority;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Finds the code that freezes the UI: a handler running synchronously on the UI thread, a slow scheduled task or a
+ * large script evaluation.
+ * <p>
+ * A watchdog thread schedules a heartbeat on the UI thread every {@link StallOptions#heartbeatInterval()} and
+ * waits for it to run. When a heartbeat is still waiting after {@link StallOptions#threshold()}, the main loop is
+ * stalled: the watchdog captures the UI thread's stack and what it was running, as marked with
+ * {@link #enter(Object)}. Once the heartbeat runs, the stall is
+ * <ul>
+ *     <li>logged with its duration, activity and stack,</li>
+ *     <li>added to the {@link #stats()} and passed to every {@link #addListener(Consumer) listener}, e.g. to feed a
+ *     metrics system,</li>
+ *     <li>committed to JFR as an {@code io.github.hubertkuch.kona.UiStall} event.</li>
+ * </ul>
+ * Stacks and warnings are rate-limited to one every {@link StallOptions#reportInterval()}; stalls in between are
+ * counted, logged at debug level and committed to JFR without a stack.
+ * <p>
+ * Durations are measured from when the heartbeat was scheduled, so a stall that starts between two heartbeats is
+ * measured up to one heartbeat interval short. Kona starts a watchdog for its window unless
+ * {@code Kona.Builder.stallWatchdog(null)} is used, and registers it as a service.
+ */
+public final class StallWatchdog implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(StallWatchdog.class);
+    // Returned by enter() off the UI thread, so exit() leaves the UI thread's activity alone
+    private static final Object NOT_UI_THREAD = new Object();
+
+    private record Detected(String activity, List<StackTraceElement> stack) {}
+
+    private final AppWindow window;
+    private final long thresholdNanos;
+    private final long heartbeatNanos;
+    private final long reportIntervalNanos;
+    private final int maxStackDepth;
+    private final List<Consumer<UiStall>> listeners = new CopyOnWriteArrayList<>();
+    private final Runnable heartbeat = this::beat;
+    private final Object lock = new Object();
+
+    private volatile Thread uiThread;
+    // Written on the UI thread only
+    private volatile Object activity;
+    private volatile boolean closed;
+    private Thread watcher;
+
+    // Guarded by lock
+    private boolean beatPending;
+    private long beatScheduledAt;
+    private Detected detected;
+    private Detected finished;
+    private long finishedNanos;
+
+    // Accessed by the watchdog thread only
+    private long lastReportAt;
+    private boolean reportedBefore;
+
+    private long stalls;
+    private long suppressed;
+    private long totalNanos;
+    private long longestNanos;
+
+    /**
+     * @param window  The window whose UI thread is watched.
+     * @param options The threshold and rate limits.
+     */
+    public StallWatchdog(AppWindow window, StallOptions options) {
+        this.window = Objects.requireNonNull(window);
+        this.thresholdNanos = options.threshold().toNanos();
+        this.heartbeatNanos = options.heartbeatInterval().toNanos();
+        this.reportIntervalNanos = options.reportInterval().toNanos();
+        this.maxStackDepth = options.maxStackDepth();
+    }
+
+    /**
+     * Starts the watchdog thread. Stalls are detected once the first heartbeat ran, i.e. once the main loop runs.
+     */
+    public synchronized void start() {
+        if (watcher == null) {
+            watcher = Thread.ofPlatform().name("kona-stall-watchdog").daemon().start(this::watch);
+        }
+    }
+
+    /**
+     * Adds a listener called on the watchdog thread after every stall.
+     *
+     * @param listener The listener.
+     */
+    public void addListener(Consumer<UiStall> listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * @return The stalls detected so far.
+     */
+    public synchronized StallStats stats() {
+        return new StallStats(stalls, suppressed, totalNanos, longestNanos);
+    }
+
+    /**
+     * Marks what the UI thread starts running, so a stall can be attributed to it. Does nothing off the UI thread.
+     * Must be paired with {@link #exit(Object)}:
+     * <pre>{@code
+     * Object previous = watchdog.enter(task);
+     * try {
+     *     task.run();
+     * } finally {
+     *     watchdog.exit(previous);
+     * }
+     * }</pre>
+     * Only a reference is stored; it is described when a stall is detected. Handler {@link Method}s are shown as
+     * {@code handler Controller.action}, {@link Runnable}s as {@code task from <class>}, anything else with its
+     * {@code toString()}.
+     *
+     * @param activity The task, handler method or other description.
+     * @return The previous activity, to pass to {@link #exit(Object)}.
+     */
+    public Object enter(Object activity) {
+        if (Thread.currentThread() != uiThread) {
+            return NOT_UI_THREAD;
+        }
+        Object previous = this.activity;
+        this.activity = activity;
+        return previous;
+    }
+
+    /**
+     * Restores the activity that was running before the matching {@link #enter(Object)}.
+     *
+     * @param previous The value returned by {@link #enter(Object)}.
+     */
+    public void exit(Object previous) {
+        if (previous != NOT_UI_THREAD) {
+            this.activity = previous;
+        }
+    }
+
+    /**
+     * Stops the watchdog thread.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        Thread current = watcher;
+        if (current != null) {
+            LockSupport.unpark(current);
+        }
+    }
+
+    private void watch() {
+        while (!closed) {
+            long now = System.nanoTime();
+            boolean schedule = false;
+            Detected ended = null;
+            long endedNanos = 0;
+            long waiting = -1;
+            synchronized (lock) {
+                if (finished != null) {
+                    ended = finished;
+                    endedNanos = finishedNanos;
+                    finished = null;
+                }
+                if (!beatPending) {
+                    beatPending = true;
+                    beatScheduledAt = now;
+                    schedule = true;
+                } else if (detected == null) {
+                    waiting = now - beatScheduledAt;
+                }
+            }
+            if (ended != null) {
+                report(ended, endedNanos);
+            }
+            if (schedule) {
+                window.scheduleTask(Priority.INTERACTIVE, heartbeat);
+            } else if (waiting >= thresholdNanos) {
+                detect(waiting);
+            }
+            LockSupport.parkNanos(heartbeatNanos);
+        }
+    }
+
+    /**
+     * Runs on the UI thread and ends the stall in progress, if any.
+     */
+    private void beat() {
+        uiThread = Thread.currentThread();
+        long now = System.nanoTime();
+        synchronized (lock) {
+            if (detected != null) {
+                finished = detected;
+                finishedNanos = now - beatScheduledAt;
+                detected = null;
+            }
+            beatPending = false;
+        }
+    }
+
+    /**
+     * Captures the UI thread's stack and activity while the heartbeat is waiting.
+     */
+    private void detect(long waitingNanos) {
+        Thread ui = uiThread;
+        if (ui == null) {
+            // The main loop has not run yet; waiting for it is startup, not a stall
+            return;
+        }
+        String description = describe(activity);
+        long now = System.nanoTime();
+        boolean report = !reportedBefore || now - lastReportAt >= reportIntervalNanos;
+        List<StackTraceElement> stack = List.of();
+        if (report) {
+            StackTraceElement[] frames = ui.getStackTrace();
+            stack = List.of(Arrays.copyOf(frames, Math.min(frames.length, maxStackDepth)));
+            reportedBefore = true;
+            lastReportAt = now;
+            log.warn("[Kona] UI thread stalled for over {} ms in {}{}", TimeUnit.NANOSECONDS.toMillis(waitingNanos),
+                    description, format(stack));
+        }
+        synchronized (lock) {
+            if (beatPending) {
+                detected = new Detected(description, stack);
+                return;
+            }
+        }
+        // The heartbeat ran while the stack was captured; the stall is over already
+        report(new Detected(description, stack), waitingNanos);
+    }
+
+    private void report(Detected stall, long durationNanos) {
+        boolean captured = !stall.stack().isEmpty();
+        synchronized (this) {
+            stalls++;
+            if (!captured) {
+                suppressed++;
+            }
+            totalNanos += durationNanos;
+            longestNanos = Math.max(longestNanos, durationNanos);
+        }
+        if (captured) {
+            log.warn("[Kona] UI thread stall in {} ended after {} ms", stall.activity(), TimeUnit.NANOSECONDS.toMillis(durationNanos));
+        } else {
+            log.debug("[Kona] UI thread stalled for {} ms in {} (stack rate-limited)", TimeUnit.NANOSECONDS.toMillis(durationNanos), stall.activity());
+        }
+
+        UiStallEvent event = new UiStallEvent();
+        if (event.shouldCommit()) {
+            event.stallDuration = durationNanos;
+            event.activity = stall.activity();
+            event.stack = format(stall.stack()).strip();
+            event.commit();
+        }
+
+        UiStall uiStall = new UiStall(stall.activity(), durationNanos, stall.stack());
+        for (Consumer<UiStall> listener : listeners) {
+            try {
+                listener.accept(uiStall);
+            } catch (Exception e) {
+                log.error("[Kona] Stall listener failed", e);
+            }
+        }
+    }
+
+    static String describe(Object activity) {
+        return switch (activity) {
+            case null -> "GTK event handling";
+            case Method method -> "handler " + method.getDeclaringClass().getSimpleName() + "." + method.getName();
+            case Runnable task -> "task from " + origin(task.getClass());
+            default -> activity.toString();
+        };
+    }
+
+    /**
+     * @return The class a task was written in, without the suffix of a lambda's hidden class.
+     */
+    private static String origin(Class<?> type) {
+        String name = type.getName();
+        int lambda = name.indexOf("$$Lambda");
+        return lambda >= 0 ? name.substring(0, lambda) : name;
+    }
+
+    private static String format(List<StackTraceElement> stack) {
+        StringBuilder text = new StringBuilder();
+        for (StackTraceElement frame : stack) {
+            text.append(System.lineSeparator()).append("\tat ").append(frame);
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,21 @@
+package io.github.hubertkuch.kona.diagnostics;
+
+import java.util.List;
+
+/**
+ * A period in which the UI thread did not get back to the GTK main loop within the stall threshold.
+ *
+ * @param activity      What the UI thread was running when the stall was detected, e.g.
+ *                      {@code handler OrdersController.list} or {@code task from StateController}.
+ * @param durationNanos How long the main loop was held up, as measured by the heartbeat.
+ * @param stack         The UI thread's stack when the stall was detected; empty if the report was rate-limited.
+ */
+public record UiStall(String activity, long durationNanos, List<StackTraceElement> stack) {
+
+    /**
+     * @return Whether the stack was captured, i.e. the stall was not rate-limited.
+     */
+    public boolean reported() {
+        return !stack.isEmpty();
+    }
+}
@@ -0,0 +1,32 @@
+package io.github.hubertkuch.kona.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * The JFR event committed for every UI thread stall, so stalls line up with GC, allocation and I/O events in
+ * a recording taken on the user's machine.
+ */
+@Name("io.github.hubertkuch.kona.UiStall")
+@Label("UI Thread Stall")
+@Category("Kona")
+@Description("The GTK main loop did not run a heartbeat within the stall threshold")
+@StackTrace(false)
+final class UiStallEvent extends Event {
+
+    @Label("Stall Duration")
+    @Timespan(Timespan.NANOSECONDS)
+    long stallDuration;
+
+    @Label("Activity")
+    String activity;
+
+    @Label("UI Thread Stack")
+    @Description("Empty when the report was rate-limited")
+    String stack;
+}
@@ -0,0 +1,289 @@
+package io.github.hubertkuch.kona.events;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * An in-process publish/subscribe channel between controllers, e.g. for an import controller to tell a
+ * dashboard controller that new rows arrived:
+ * <pre>{@code
+ * bus.subscribe("orders.created", Order.class, EventBus.Delivery.VIRTUAL_THREAD, orders -> index.addAll(orders));
+ * bus.publish("orders.created", order);
+ * }</pre>
+ * Events go through a ring buffer of {@link #capacity()} preallocated slots. Publishers claim a slot with a single
+ * atomic increment, so any number of threads can publish without taking a lock, and publishing allocates nothing.
+ * Each subscription reads the ring on its own virtual thread and receives every event of its topic that was
+ * published after it subscribed, in batches: all events that arrived while the previous batch was being handled
+ * are delivered together. A subscription can have its batches delivered on the UI thread instead.
+ * <p>
+ * Slots are reused once every subscription has read them. When a subscription falls a whole ring behind,
+ * publishers wait for it rather than overwrite events it has not seen, so a slow subscriber slows down
+ * publishing instead of losing events. A {@link Delivery#VIRTUAL_THREAD} subscriber that publishes to the same bus
+ * from its consumer would then wait for itself, since it reads no further until the consumer returns; such a
+ * publish fails with an {@link IllegalStateException} instead of blocking forever.
+ * <p>
+ * Topics listed with {@link #bridge(String...)} are also available to the frontend through the built-in
+ * {@link EventController}. Kona registers an event bus as a service, so controllers can receive it through
+ * constructor injection.
+ */
+public final class EventBus implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(EventBus.class);
+
+    /**
+     * The number of slots in the ring unless another capacity is passed to the constructor.
+     */
+    public static final int DEFAULT_CAPACITY = 1 << 14;
+
+    private static final VarHandle PUBLISHED = MethodHandles.arrayElementVarHandle(long[].class);
+    static final int SPINS_BEFORE_PARK = 128;
+
+    /**
+     * Where a subscription's batches are handled.
+     */
+    public enum Delivery {
+        /**
+         * On the subscription's own virtual thread, which also reads the ring.
+         */
+        VIRTUAL_THREAD,
+        /**
+         * On the UI thread, through the executor set with {@link #setUiExecutor(Executor)}.
+         * The batch is copied, so the subscription keeps reading while the UI thread handles it.
+         */
+        UI_THREAD
+    }
+
+    private final int capacity;
+    private final int mask;
+    private final String[] topics;
+    private final Object[] payloads;
+    // The sequence last published into each slot, written and read with volatile semantics
+    private final long[] published;
+    private final AtomicLong claimed = new AtomicLong(-1);
+    private final Set<String> bridged = ConcurrentHashMap.newKeySet();
+
+    private volatile Subscription<?>[] subscriptions = new Subscription<?>[0];
+    // The lowest sequence read by every subscription when publishers last checked; may be stale, never ahead
+    private volatile long gatingSequence = -1;
+    private volatile Executor uiExecutor;
+    private volatile boolean closed;
+
+    /**
+     * Creates a bus with {@value #DEFAULT_CAPACITY} slots.
+     */
+    public EventBus() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates a bus with the given number of slots.
+     *
+     * @param capacity The capacity, a power of two.
+     */
+    public EventBus(int capacity) {
+        if (capacity < 2 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("capacity must be a power of two");
+        }
+        this.capacity = capacity;
+        this.mask = capacity - 1;
+        this.topics = new String[capacity];
+        this.payloads = new Object[capacity];
+        this.published = new long[capacity];
+        Arrays.fill(published, -1);
+    }
+
+    /**
+     * @return The number of slots in the ring.
+     */
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Sets the executor for subscriptions with {@link Delivery#UI_THREAD}. Kona sets it to the window's task queue.
+     *
+     * @param uiExecutor The executor.
+     */
+    public void setUiExecutor(Executor uiExecutor) {
+        this.uiExecutor = uiExecutor;
+    }
+
+    /**
+     * Lets the frontend subscribe to and publish on the given topics through the {@code kona.events} controller.
+     * Events published by the frontend are {@link com.google.gson.JsonElement}s; events sent to it are serialized
+     * as JSON.
+     *
+     * @param topics The topics.
+     * @return This bus.
+     */
+    public EventBus bridge(String... topics) {
+        bridged.addAll(Arrays.asList(topics));
+        return this;
+    }
+
+    /**
+     * @param topic The topic.
+     * @return Whether the frontend may use the topic.
+     */
+    public boolean isBridged(String topic) {
+        return bridged.contains(topic);
+    }
+
+    /**
+     * Publishes an event. Never blocks unless a subscription has fallen a whole ring behind.
+     *
+     * @param topic   The topic, e.g. {@code orders.created}.
+     * @param payload The event.
+     * @throws IllegalStateException If the bus is closed, or if called from the consumer of a
+     *                               {@link Delivery#VIRTUAL_THREAD} subscription that the event would have to wait for.
+     */
+    public void publish(String topic, Object payload) {
+        Objects.requireNonNull(topic);
+        Objects.requireNonNull(payload);
+        if (closed) {
+            throw new IllegalStateException("Event bus is closed");
+        }
+
+        Subscription<?> own = Thread.currentThread().isVirtual() ? subscriptionReadingOn(Thread.currentThread()) : null;
+        long sequence = own == null ? claimed.incrementAndGet() : claimWithout(own);
+        long wrapPoint = sequence - capacity;
+        if (wrapPoint > gatingSequence) {
+            long minimum;
+            while (wrapPoint > (minimum = minimumSequence(sequence - 1))) {
+                LockSupport.parkNanos(1);
+            }
+            gatingSequence = minimum;
+        }
+
+        int index = (int) (sequence & mask);
+        topics[index] = topic;
+        payloads[index] = payload;
+        PUBLISHED.setVolatile(published, index, sequence);
+
+        for (Subscription<?> subscription : subscriptions) {
+            subscription.wake();
+        }
+    }
+
+    /**
+     * Subscribes to a topic. Events whose payload is not an instance of {@code type} are skipped.
+     * <p>
+     * The list passed to the consumer is only valid during the call; with {@link Delivery#VIRTUAL_THREAD} it is
+     * reused for the next batch.
+     *
+     * @param topic    The topic.
+     * @param type     The type of the events.
+     * @param delivery Where batches are handled.
+     * @param consumer Handles a batch of events in publishing order.
+     * @param <T>      The type of the events.
+     * @return The subscription, to be closed when no longer needed.
+     */
+    public synchronized <T> Subscription<T> subscribe(String topic, Class<T> type, Delivery delivery,
+                                                      Consumer<? super List<T>> consumer) {
+        if (closed) {
+            throw new IllegalStateException("Event bus is closed");
+        }
+        Executor executor = null;
+        if (delivery == Delivery.UI_THREAD) {
+            executor = uiExecutor;
+            if (executor == null) {
+                log.warn("[Kona] No UI executor set; events of {} are delivered on a virtual thread.", topic);
+            }
+        }
+        Subscription<T> subscription = new Subscription<>(this, topic, type, executor, consumer, claimed.get());
+        Subscription<?>[] updated = Arrays.copyOf(subscriptions, subscriptions.length + 1);
+        updated[updated.length - 1] = subscription;
+        subscriptions = updated;
+        subscription.start();
+        return subscription;
+    }
+
+    synchronized void unsubscribe(Subscription<?> subscription) {
+        subscriptions = Arrays.stream(subscriptions).filter(s -> s != subscription).toArray(Subscription<?>[]::new);
+    }
+
+    /**
+     * Stops every subscription. Events published before are still delivered.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        for (Subscription<?> subscription : subscriptions) {
+            subscription.close();
+        }
+    }
+
+    private Subscription<?> subscriptionReadingOn(Thread thread) {
+        for (Subscription<?> subscription : subscriptions) {
+            if (subscription.isReadingOn(thread)) {
+                return subscription;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Claims the next sequence for a publish from a subscription's consumer. The subscription reads no further
+     * until its consumer returns, so a sequence that needs its slot would never become free; it is refused before
+     * it is claimed, since a claimed sequence must be published for subscriptions to read past it.
+     */
+    private long claimWithout(Subscription<?> own) {
+        long current;
+        long sequence;
+        do {
+            current = claimed.get();
+            sequence = current + 1;
+            if (sequence - capacity > own.sequence()) {
+                throw new IllegalStateException("Publishing on " + own.topic() + "'s subscriber thread would wait for "
+                        + "the subscriber itself: the ring is full. Deliver the subscription on another executor or "
+                        + "publish from another thread.");
+            }
+        } while (!claimed.compareAndSet(current, sequence));
+        return sequence;
+    }
+
+    /**
+     * @return The lowest sequence read by every subscription, or {@code fallback} if there are none.
+     */
+    private long minimumSequence(long fallback) {
+        long minimum = fallback;
+        for (Subscription<?> subscription : subscriptions) {
+            minimum = Math.min(minimum, subscription.sequence());
+        }
+        return minimum;
+    }
+
+    /**
+     * @return The highest sequence from {@code from} on up to which every event is published,
+     * or {@code from - 1} if {@code from} is not published yet.
+     */
+    long highestPublished(long from) {
+        long limit = claimed.get();
+        for (long sequence = from; sequence <= limit; sequence++) {
+            if ((long) PUBLISHED.getVolatile(published, (int) (sequence & mask)) != sequence) {
+                return sequence - 1;
+            }
+        }
+        return limit;
+    }
+
+    String topicAt(long sequence) {
+        return topics[(int) (sequence & mask)];
+    }
+
+    Object payloadAt(long sequence) {
+        return payloads[(int) (sequence & mask)];
+    }
+}
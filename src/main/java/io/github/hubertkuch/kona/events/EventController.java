@@ -0,0 +1,104 @@
+package io.github.hubertkuch.kona.events;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import io.github.hubertkuch.kona.application.WebView;
+import io.github.hubertkuch.kona.application.WindowManager;
+import io.github.hubertkuch.kona.message.KonaController;
+import io.github.hubertkuch.kona.message.MessageHandler;
+import io.github.hubertkuch.kona.message.Payload;
+import io.github.hubertkuch.kona.routing.HandlerContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The built-in controller that connects the frontend to the {@link EventBus} topics listed with
+ * {@link EventBus#bridge(String...)}.
+ * <p>
+ * After subscribing to a topic, a page receives its events as a {@code kona:event} DOM event whose {@code detail}
+ * is {@code {topic, events}}, with every event published since the previous push. The bus is subscribed once per
+ * topic, on the UI thread, no matter how many pages listen. Events published by the page are
+ * {@link JsonElement}s on the bus.
+ * <p>
+ * Registered automatically under the reserved name {@code kona.events}.
+ */
+@KonaController(name = "kona.events")
+public final class EventController {
+
+    private static final Logger log = LoggerFactory.getLogger(EventController.class);
+
+    /**
+     * @param topic The topic.
+     */
+    public record TopicRequest(String topic) implements Payload {}
+
+    /**
+     * @param topic   The topic.
+     * @param payload The event.
+     */
+    public record PublishRequest(String topic, JsonElement payload) implements Payload {}
+
+    private final Gson gson = new Gson();
+    private final EventBus bus;
+    private final WebView webView;
+    private final Map<String, Set<Long>> listeners = new ConcurrentHashMap<>();
+
+    public EventController(EventBus bus, WebView webView, WindowManager windows) {
+        this.bus = bus;
+        this.webView = webView;
+        windows.addCloseListener(closed -> listeners.values().forEach(handles -> handles.remove(closed.webViewHandle())));
+    }
+
+    @MessageHandler(action = "subscribe")
+    public void subscribe(TopicRequest request, HandlerContext context) {
+        String topic = bridged(request.topic());
+        listeners.computeIfAbsent(topic, t -> {
+            bus.subscribe(t, Object.class, EventBus.Delivery.UI_THREAD, events -> push(t, events));
+            return ConcurrentHashMap.newKeySet();
+        }).add(context.webViewHandle());
+        log.debug("[Kona] Web view {} subscribed to events of {}", context.webViewHandle(), topic);
+    }
+
+    @MessageHandler(action = "unsubscribe")
+    public void unsubscribe(TopicRequest request, HandlerContext context) {
+        Set<Long> handles = listeners.get(request.topic());
+        if (handles != null) {
+            handles.remove(context.webViewHandle());
+        }
+    }
+
+    @MessageHandler(action = "publish")
+    public void publish(PublishRequest request) {
+        bus.publish(bridged(request.topic()), request.payload());
+    }
+
+    private String bridged(String topic) {
+        if (topic == null || !bus.isBridged(topic)) {
+            throw new IllegalArgumentException("Topic is not bridged to the frontend: " + topic);
+        }
+        return topic;
+    }
+
+    /**
+     * Sends a batch of events to every page listening to its topic. Runs on the UI thread.
+     */
+    private void push(String topic, List<Object> events) {
+        Set<Long> handles = listeners.get(topic);
+        if (handles == null || handles.isEmpty()) {
+            return;
+        }
+        JsonObject detail = new JsonObject();
+        detail.addProperty("topic", topic);
+        detail.add("events", gson.toJsonTree(events));
+        String json = gson.toJson(detail);
+        for (long handle : handles) {
+            webView.callFunction(handle, "window.kona.dispatch", "kona:event", json);
+        }
+    }
+}
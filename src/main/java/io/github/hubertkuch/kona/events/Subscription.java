@@ -0,0 +1,146 @@
+package io.github.hubertkuch.kona.events;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * A subscription to one topic of an {@link EventBus}. Its virtual thread follows the ring and collects the events
+ * of the topic into batches; closing the subscription stops the thread after the batch in progress.
+ *
+ * @param <T> The type of the events.
+ */
+public final class Subscription<T> implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(Subscription.class);
+
+    private final EventBus bus;
+    private final String topic;
+    private final Class<T> type;
+    private final Executor executor;
+    private final Consumer<? super List<T>> consumer;
+    private final List<T> batch = new ArrayList<>();
+
+    // The last sequence this subscription has read; publishers must not overwrite slots beyond it
+    private volatile long sequence;
+    private volatile boolean parked;
+    private volatile boolean running = true;
+    private Thread thread;
+
+    Subscription(EventBus bus, String topic, Class<T> type, Executor executor, Consumer<? super List<T>> consumer, long sequence) {
+        this.bus = bus;
+        this.topic = topic;
+        this.type = type;
+        this.executor = executor;
+        this.consumer = consumer;
+        this.sequence = sequence;
+    }
+
+    void start() {
+        // Assigned before the thread runs, so a publisher that sees it parked also sees which thread to unpark
+        thread = Thread.ofVirtual().name("kona-events-" + topic).unstarted(this::run);
+        thread.start();
+    }
+
+    /**
+     * @return Whether events are read and, without an executor, handled on the calling thread.
+     */
+    boolean isReadingOn(Thread current) {
+        return thread == current && executor == null;
+    }
+
+    long sequence() {
+        return sequence;
+    }
+
+    /**
+     * Unparks the subscription's thread if it is waiting for events. Called by publishers after every event.
+     */
+    void wake() {
+        if (parked) {
+            parked = false;
+            LockSupport.unpark(thread);
+        }
+    }
+
+    /**
+     * @return The topic.
+     */
+    public String topic() {
+        return topic;
+    }
+
+    /**
+     * Stops the subscription. Publishers no longer wait for it.
+     */
+    @Override
+    public void close() {
+        running = false;
+        bus.unsubscribe(this);
+        LockSupport.unpark(thread);
+    }
+
+    private void run() {
+        int idle = 0;
+        while (running) {
+            long next = sequence + 1;
+            long available = bus.highestPublished(next);
+            if (available < next) {
+                if (++idle < EventBus.SPINS_BEFORE_PARK) {
+                    Thread.onSpinWait();
+                    continue;
+                }
+                parked = true;
+                // Checked again after announcing the park, so a publisher that missed the flag cannot be missed;
+                // every publisher that sees the flag unparks the thread, so no timeout is needed
+                if (bus.highestPublished(next) < next && running) {
+                    LockSupport.park(this);
+                }
+                parked = false;
+                continue;
+            }
+            idle = 0;
+
+            for (long s = next; s <= available; s++) {
+                if (topic.equals(bus.topicAt(s))) {
+                    Object payload = bus.payloadAt(s);
+                    if (type.isInstance(payload)) {
+                        batch.add(type.cast(payload));
+                    } else {
+                        log.warn("[Kona] Skipping event of {}: {} is not a {}", topic, payload.getClass().getName(), type.getName());
+                    }
+                }
+            }
+            // The batch holds the payloads, so the slots can be reused before it is handled
+            sequence = available;
+
+            if (!batch.isEmpty()) {
+                deliver();
+            }
+        }
+    }
+
+    private void deliver() {
+        if (executor != null) {
+            List<T> copy = List.copyOf(batch);
+            batch.clear();
+            executor.execute(() -> accept(copy));
+        } else {
+            accept(batch);
+            batch.clear();
+        }
+    }
+
+    private void accept(List<T> events) {
+        try {
+            consumer.accept(events);
+        } catch (Exception e) {
+            log.error("[Kona] Subscriber of {} failed", topic, e);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package io.github.hubertkuch.kona.files;
+
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * How the web view should answer a request for a {@link FileServer} URI: the status, and which bytes of which
+ * file make up the body. The bytes themselves are read by the web view, typically from a memory mapping.
+ *
+ * @param status        The HTTP status, e.g. {@code 200}, {@code 206} or {@code 404}.
+ * @param reason        The reason phrase.
+ * @param path          The file to read the body from, or {@code null} if there is no body.
+ * @param offset        The offset of the first byte of the body within the file.
+ * @param length        The length of the body.
+ * @param fileSize      The size of the whole file, or {@code -1} if there is no file.
+ * @param contentType   The media type of the file.
+ * @param allowedOrigin The origin that may read the response from a cross-origin request, or {@code null}.
+ */
+public record FileResponse(int status, String reason, Path path, long offset, long length, long fileSize, String contentType,
+                           String allowedOrigin) {
+
+    static FileResponse error(int status, String reason) {
+        return new FileResponse(status, reason, null, 0, 0, -1, "text/plain", null);
+    }
+
+    FileResponse withAllowedOrigin(String origin) {
+        return new FileResponse(status, reason, path, offset, length, fileSize, contentType, origin);
+    }
+
+    /**
+     * @return The response headers, apart from the content type and length.
+     */
+    public Map<String, String> headers() {
+        Map<String, String> headers = new LinkedHashMap<>();
+        headers.put("Accept-Ranges", "bytes");
+        if (allowedOrigin != null) {
+            headers.put("Access-Control-Allow-Origin", allowedOrigin);
+        }
+        headers.put("Vary", "Origin");
+        if (status == 206) {
+            headers.put("Content-Range", "bytes " + offset + "-" + (offset + length - 1) + "/" + fileSize);
+        } else if (status == 416) {
+            headers.put("Content-Range", "bytes */" + fileSize);
+        }
+        return headers;
+    }
+}
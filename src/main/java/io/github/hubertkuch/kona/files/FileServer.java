@@ -0,0 +1,292 @@
+package io.github.hubertkuch.kona.files;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Serves local files to the web view under the {@value #SCHEME} URI scheme, so that pages can load large files
+ * with {@code <video>}, {@code <img>} or {@code fetch()} instead of receiving them through a message response.
+ * <p>
+ * Only two kinds of URIs resolve:
+ * <ul>
+ *     <li>Files below a mounted directory: after {@code mount("media", videos)},
+ *     {@code kona-file://media/2024/trip.mp4} serves {@code videos/2024/trip.mp4}.</li>
+ *     <li>Single files shared by a handler: {@link #share(Path)} returns an unguessable URI for one file,
+ *     e.g. a log the user picked, until it is {@link #revoke(String) revoked}.</li>
+ * </ul>
+ * HTTP {@code Range} requests are honoured, so seeking in a 4 GB video reads only the bytes around the new
+ * position. Each response carries at most {@link #chunkSize(long) chunkSize} bytes of a range; players request
+ * the rest as they need it. The web view reads the bytes from a memory mapping of the file, so they never pass
+ * through the Java heap.
+ * <p>
+ * Kona registers a file server as a service, so controllers can receive it through constructor injection.
+ */
+public final class FileServer {
+
+    private static final Logger log = LoggerFactory.getLogger(FileServer.class);
+
+    /**
+     * The URI scheme files are served under.
+     */
+    public static final String SCHEME = "kona-file";
+
+    /**
+     * The host of URIs returned by {@link #share(Path)}; it cannot be used as a mount name.
+     */
+    public static final String SHARED = "shared";
+
+    /**
+     * The largest number of bytes of a range served in one response unless {@link #chunkSize(long)} is used.
+     */
+    public static final long DEFAULT_CHUNK_SIZE = 8L << 20;
+
+    private final Map<String, Path> mounts = new ConcurrentHashMap<>();
+    private final Map<String, Path> shared = new ConcurrentHashMap<>();
+    private final SecureRandom random = new SecureRandom();
+    private volatile long chunkSize = DEFAULT_CHUNK_SIZE;
+    private volatile String allowedOrigin;
+
+    /**
+     * Serves the files below a directory under {@code kona-file://<name>/}.
+     *
+     * @param name      The host name of the URIs, e.g. {@code media}.
+     * @param directory The directory. Files reached through symbolic links that leave it are not served.
+     * @return This file server.
+     */
+    public FileServer mount(String name, Path directory) {
+        if (SHARED.equals(name) || !name.matches("[a-z0-9][a-z0-9-]*")) {
+            throw new IllegalArgumentException("Invalid mount name: " + name);
+        }
+        try {
+            mounts.put(name, directory.toRealPath());
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Cannot mount " + directory, e);
+        }
+        return this;
+    }
+
+    /**
+     * Stops serving a mounted directory.
+     *
+     * @param name The mount name.
+     */
+    public void unmount(String name) {
+        mounts.remove(name);
+    }
+
+    /**
+     * Makes a single file available to the page, e.g. to return from a handler:
+     * <pre>{@code
+     * @MessageHandler(action = "open")
+     * public String open(OpenRequest request) {
+     *     return files.share(Path.of(request.path()));
+     * }
+     * }</pre>
+     *
+     * @param file The file.
+     * @return An unguessable {@code kona-file://shared/...} URI for the file.
+     */
+    public String share(Path file) {
+        if (!Files.isRegularFile(file)) {
+            throw new IllegalArgumentException("Not a file: " + file);
+        }
+        byte[] token = new byte[18];
+        random.nextBytes(token);
+        String id = Base64.getUrlEncoder().withoutPadding().encodeToString(token);
+        shared.put(id, file.toAbsolutePath());
+        return SCHEME + "://" + SHARED + "/" + id;
+    }
+
+    /**
+     * Stops serving a file shared with {@link #share(Path)}.
+     *
+     * @param uri The URI returned by {@link #share(Path)}.
+     */
+    public void revoke(String uri) {
+        String prefix = SCHEME + "://" + SHARED + "/";
+        if (uri.startsWith(prefix)) {
+            shared.remove(uri.substring(prefix.length()));
+        }
+    }
+
+    /**
+     * Sets the largest number of bytes served in one response to a {@code Range} request.
+     * Requests without a {@code Range} header receive the whole file.
+     *
+     * @param chunkSize The size in bytes.
+     * @return This file server.
+     */
+    public FileServer chunkSize(long chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("chunkSize must be positive");
+        }
+        this.chunkSize = chunkSize;
+        return this;
+    }
+
+    /**
+     * Lets pages of one origin read responses with cross-origin requests, e.g. {@code fetch()} from the app's
+     * pages, which are served under another scheme. Pages of every other origin can still embed the files but
+     * cannot read their bytes. Kona allows the origin of the initial URI.
+     *
+     * @param origin The origin, e.g. {@code http://localhost:5173}, or {@code null} to allow none.
+     * @return This file server.
+     */
+    public FileServer allowOrigin(String origin) {
+        this.allowedOrigin = origin;
+        return this;
+    }
+
+    /**
+     * @param uri A URI.
+     * @return The origin of the URI, or {@code null} if it has none, e.g. for {@code file:} URIs.
+     */
+    public static String originOf(String uri) {
+        try {
+            URI parsed = new URI(uri);
+            if (parsed.getScheme() == null || parsed.getHost() == null || "file".equals(parsed.getScheme())) {
+                return null;
+            }
+            return parsed.getScheme() + "://" + parsed.getHost() + (parsed.getPort() != -1 ? ":" + parsed.getPort() : "");
+        } catch (URISyntaxException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Works out the response to a request from the allowed origin or without an origin.
+     *
+     * @param uri   The requested URI.
+     * @param range The value of the {@code Range} header, or {@code null}.
+     * @return The response.
+     */
+    public FileResponse resolve(String uri, String range) {
+        return resolve(uri, range, null);
+    }
+
+    /**
+     * Works out the response to a request. Called by the web view for every {@value #SCHEME} request.
+     *
+     * @param uri    The requested URI.
+     * @param range  The value of the {@code Range} header, or {@code null}.
+     * @param origin The value of the {@code Origin} header, or {@code null}.
+     * @return The response, readable cross-origin only if the origin is the allowed one.
+     */
+    public FileResponse resolve(String uri, String range, String origin) {
+        FileResponse response = locateAndRead(uri, range);
+        String allowed = allowedOrigin;
+        return origin != null && origin.equals(allowed) ? response.withAllowedOrigin(allowed) : response;
+    }
+
+    private FileResponse locateAndRead(String uri, String range) {
+        Path file = locate(uri);
+        if (file == null) {
+            return FileResponse.error(404, "Not Found");
+        }
+
+        long size;
+        String contentType;
+        try {
+            size = Files.size(file);
+            contentType = Files.probeContentType(file);
+        } catch (IOException e) {
+            log.warn("[Kona] Cannot read {}: {}", file, e.getMessage());
+            return FileResponse.error(404, "Not Found");
+        }
+        if (contentType == null) {
+            contentType = "application/octet-stream";
+        }
+
+        if (range == null) {
+            return new FileResponse(200, "OK", file, 0, size, size, contentType, null);
+        }
+        long[] bounds = parseRange(range, size);
+        if (bounds == null) {
+            // Not a single byte range we understand; serve the whole file as if there were no header
+            return new FileResponse(200, "OK", file, 0, size, size, contentType, null);
+        }
+        if (bounds.length == 0) {
+            return new FileResponse(416, "Range Not Satisfiable", null, 0, 0, size, contentType, null);
+        }
+        long length = Math.min(bounds[1] - bounds[0] + 1, chunkSize);
+        return new FileResponse(206, "Partial Content", file, bounds[0], length, size, contentType, null);
+    }
+
+    /**
+     * @return The file a URI refers to, or {@code null} if it is not served.
+     */
+    private Path locate(String uri) {
+        URI parsed;
+        try {
+            parsed = new URI(uri);
+        } catch (URISyntaxException e) {
+            return null;
+        }
+        if (!SCHEME.equals(parsed.getScheme()) || parsed.getHost() == null || parsed.getPath() == null) {
+            return null;
+        }
+
+        String path = parsed.getPath().startsWith("/") ? parsed.getPath().substring(1) : parsed.getPath();
+        if (SHARED.equals(parsed.getHost())) {
+            return shared.get(path);
+        }
+
+        Path root = mounts.get(parsed.getHost());
+        if (root == null || path.isEmpty()) {
+            return null;
+        }
+        try {
+            Path file = root.resolve(path).normalize().toRealPath();
+            return file.startsWith(root) && Files.isRegularFile(file) ? file : null;
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Parses a single byte range: {@code bytes=first-last}, {@code bytes=first-} or {@code bytes=-suffixLength}.
+     *
+     * @return The first and last byte, an empty array if the range is unsatisfiable,
+     * or {@code null} if the header cannot be used.
+     */
+    static long[] parseRange(String header, long size) {
+        String value = header.trim();
+        if (!value.startsWith("bytes=") || value.indexOf(',') >= 0) {
+            return null;
+        }
+        String spec = value.substring("bytes=".length()).trim();
+        int dash = spec.indexOf('-');
+        if (dash < 0) {
+            return null;
+        }
+        try {
+            String first = spec.substring(0, dash).trim();
+            String last = spec.substring(dash + 1).trim();
+            if (first.isEmpty()) {
+                long suffix = Long.parseLong(last);
+                if (suffix <= 0 || size == 0) {
+                    return new long[0];
+                }
+                return new long[]{Math.max(0, size - suffix), size - 1};
+            }
+            long start = Long.parseLong(first);
+            long end = last.isEmpty() ? size - 1 : Math.min(Long.parseLong(last), size - 1);
+            if (start >= size || end < start) {
+                return new long[0];
+            }
+            return new long[]{start, end};
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -9,10 +9,18 @@ import java.lang.annotation.Target;
  * Marks a class as a message controller that can receive and handle messages from the frontend.
  * Each controller is identified by a unique name, which is used for routing incoming messages.
  * <p>
+ * Controllers are created lazily by default. Their constructor may declare parameters, which are resolved by
+ * type from the services registered with the router (for example the window manager or application services
+ * added through {@code Kona.Builder.service(...)}).
+ * <p>
  * Example:
  * <pre>{@code
- * @KonaController(name = "users")
+ * @KonaController(name = "users", lifecycle = Lifecycle.POOLED, poolSize = 4)
  * public class UserController {
+ *     public UserController(UserRepository repository) {
+ *         // ...
+ *     }
+ *
  *     // ... message handler methods
  * }
  * }</pre>
@@ -27,4 +35,39 @@ public @interface KonaController {
      * @return The name of the controller.
      */
     String name();
+
+    /**
+     * When instances of the controller are created and how they are shared.
+     *
+     * @return The lifecycle of the controller.
+     */
+    Lifecycle lifecycle() default Lifecycle.LAZY;
+
+    /**
+     * The maximum number of instances for {@link Lifecycle#POOLED} controllers.
+     * A value of {@code 0} uses the number of available processors. Ignored for other lifecycles.
+     *
+     * @return The pool size.
+     */
+    int poolSize() default 0;
+
+    /**
+     * How long a message waits for an idle instance of a {@link Lifecycle#POOLED} controller once every instance
+     * is busy. The message fails when none is released in time. Ignored for other lifecycles.
+     * <p>
+     * Only dispatch threads and the chunks of {@link Parallel} handlers wait. With the default inline dispatch,
+     * handlers run on the UI thread, which never blocks: a message finding every instance busy fails right away.
+     *
+     * @return The wait in milliseconds.
+     */
+    long poolTimeoutMillis() default 5000;
+
+    /**
+     * Whether the controller gets its own script message channel, {@code kona/<name>}. Messages on the channel
+     * name their action but not the controller, and skip the envelope parsing of the shared {@code kona} channel.
+     * Single actions can get a channel of their own with {@link MessageHandler#dedicatedChannel()}.
+     *
+     * @return {@code true} to register a dedicated channel.
+     */
+    boolean dedicatedChannel() default false;
 }
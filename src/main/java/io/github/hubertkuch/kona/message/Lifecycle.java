@@ -0,0 +1,32 @@
+package io.github.hubertkuch.kona.message;
+
+/**
+ * Controls when instances of a {@link KonaController} are created and how they are shared between messages.
+ */
+public enum Lifecycle {
+    /**
+     * A single instance, created when the first message for the controller arrives.
+     * Controllers that are never used cost nothing at startup.
+     */
+    LAZY,
+
+    /**
+     * A single instance, created when the routes are installed.
+     * Useful for controllers that must be running from the start, e.g. to subscribe to events.
+     */
+    EAGER,
+
+    /**
+     * A bounded pool of instances, each used by at most one message at a time.
+     * Intended for controllers that are not thread-safe but should still serve messages concurrently.
+     * The pool size is set with {@link KonaController#poolSize()}; a message that finds every instance busy waits
+     * at most {@link KonaController#poolTimeoutMillis()} and then fails, or fails at once on the UI thread.
+     */
+    POOLED,
+
+    /**
+     * One instance per window, created on the first message from that window and discarded when it closes.
+     * Instances implementing {@link AutoCloseable} are closed at that point.
+     */
+    PER_WINDOW
+}
@@ -32,4 +32,73 @@ public @interface MessageHandler {
      * @return The action name.
      */
     String action();
+
+    /**
+     * The wire format of this handler's responses, e.g. {@code "cbor"} or {@code "msgpack"} for
+     * numeric-heavy results. A message can still ask for another format through its {@code accept} field.
+     *
+     * @return The codec name.
+     */
+    String codec() default "json";
+
+    /**
+     * Whether this action gets its own script message channel, {@code kona/<controller>/<action>}.
+     * Messages on the channel carry only a callback id and the payload, and are delivered straight to this
+     * handler without parsing an envelope or looking up the route. Meant for hot actions, such as ones sent
+     * on every pointer move or animation frame.
+     *
+     * @return {@code true} to register a dedicated channel.
+     */
+    boolean dedicatedChannel() default false;
+
+    /**
+     * How urgently messages for this action are handled, relative to other messages waiting for a dispatch
+     * thread, and how urgently the UI work for their response is run. A message can override it with its
+     * {@code priority} field, e.g. {@code "background"} for a prefetch of an otherwise interactive action.
+     *
+     * @return The priority.
+     */
+    Priority priority() default Priority.NORMAL;
+
+    /**
+     * Whether a message for this action may be superseded by a newer one while it waits to be handled.
+     * Only the newest pending message is handled, e.g. of a stream of pointer positions; older ones are
+     * dropped without decoding their payload. Implied by {@link #debounceMillis()} and {@link #throttleMillis()}.
+     *
+     * @return {@code true} to coalesce messages.
+     */
+    boolean coalesce() default false;
+
+    /**
+     * The payload field that separates independent streams of coalesced messages, e.g. {@code "paneId"} so that
+     * the scroll position of one pane does not supersede that of another. Messages from different windows never
+     * supersede each other. By default, all messages of the action from one window form a single stream.
+     *
+     * @return The name of a top-level payload field, or an empty string.
+     */
+    String coalesceKey() default "";
+
+    /**
+     * Handles a burst of messages once it has ended: the newest message is handled after none has arrived for
+     * this many milliseconds. Suits work that only makes sense on the final value, e.g. relayout after a resize.
+     *
+     * @return The quiet period in milliseconds, or {@code 0} to not debounce.
+     */
+    long debounceMillis() default 0;
+
+    /**
+     * Handles at most one message per interval: the first message of a burst right away, then the newest one
+     * at the end of each interval. Suits continuous feedback, e.g. scroll syncing.
+     *
+     * @return The interval in milliseconds, or {@code 0} to not throttle.
+     */
+    long throttleMillis() default 0;
+
+    /**
+     * How long the frontend waits for a response, unless a message sets its own {@code timeoutMillis}.
+     * Subtasks forked through {@code HandlerContext.fanOut()} are cancelled once it has passed.
+     *
+     * @return The timeout in milliseconds, or {@code 0} for none.
+     */
+    long timeoutMillis() default 0;
 }
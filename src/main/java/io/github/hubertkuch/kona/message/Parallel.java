@@ -0,0 +1,44 @@
+package io.github.hubertkuch.kona.message;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a {@link MessageHandler} method as handling one element of a list payload. The message carries a JSON
+ * array; the router splits it into chunks, invokes the method for every element on a fork/join pool, and responds
+ * with the array of results in the order of the input.
+ * <p>
+ * Example:
+ * <pre>{@code
+ * @Parallel(chunkSize = 64, streamChunks = true)
+ * @MessageHandler(action = "thumbnail")
+ * public Thumbnail thumbnail(ImageRef image) {
+ *     return Thumbnail.render(image.path(), 256);
+ * }
+ * }</pre>
+ * The method is called concurrently, with one controller instance per chunk as its lifecycle provides them,
+ * so it must not depend on the order in which elements are processed. A failing element fails the whole message.
+ */
+@Target({ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Parallel {
+
+    /**
+     * The number of elements handled by one fork/join task. Small chunks balance uneven work better; large ones
+     * have less overhead for cheap elements.
+     *
+     * @return The chunk size, or {@code 0} to split the list into about four chunks per core.
+     */
+    int chunkSize() default 0;
+
+    /**
+     * Whether each chunk's results are sent to the page as a {@code kona:partial} event named {@code chunk} as soon
+     * as the chunk completes, with a value of {@code {"offset": <index of the first element>, "items": [...]}}.
+     * The response still carries every result.
+     *
+     * @return {@code true} to stream chunks.
+     */
+    boolean streamChunks() default false;
+}
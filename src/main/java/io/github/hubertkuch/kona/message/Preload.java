@@ -0,0 +1,42 @@
+package io.github.hubertkuch.kona.message;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a {@link MessageHandler} method whose result the first page needs, so Kona runs it while the page is still
+ * loading instead of waiting for the page to ask. The handler is invoked once, with the static payload given here,
+ * in parallel with window creation and the other preloads. Its result is injected into the main window at document
+ * start, and the page's first matching request resolves from it without a round trip.
+ * <p>
+ * Example:
+ * <pre>{@code
+ * @Preload
+ * @MessageHandler(action = "settings")
+ * public Settings settings() {
+ *     return settingsRepository.load();
+ * }
+ *
+ * @Preload(payload = "{\"limit\": 50}")
+ * @MessageHandler(action = "recent")
+ * public List<Order> recent(RecentRequest request) {
+ *     return orders.latest(request.limit());
+ * }
+ * }</pre>
+ * A preloaded result is used once; later requests go to the handler as usual. Preloads that do not finish within
+ * the startup budget are left out, and the page's request is handled normally.
+ */
+@Target({ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Preload {
+
+    /**
+     * The payload the handler is invoked with, as JSON. Only requests with an equal payload resolve from the
+     * preloaded result.
+     *
+     * @return The payload, or an empty string for handlers without one.
+     */
+    String payload() default "";
+}
@@ -0,0 +1,38 @@
+package io.github.hubertkuch.kona.message;
+
+/**
+ * How urgently a message, and the UI work it causes, should be handled.
+ * <p>
+ * Each priority has its own queue in the router and on the UI thread. When several queues have work,
+ * they take turns in proportion to their {@link #weight()}: while all three are saturated, interactive
+ * work gets 8 of every 12 turns and background work still gets 1, so it is slowed down but never starved.
+ */
+public enum Priority {
+    /**
+     * Requests the user is waiting for, e.g. ones triggered by a key press or a click.
+     */
+    INTERACTIVE(8),
+
+    /**
+     * The default for messages and UI tasks.
+     */
+    NORMAL(3),
+
+    /**
+     * Bulk work whose latency does not matter, e.g. syncing, indexing or prefetching.
+     */
+    BACKGROUND(1);
+
+    private final int weight;
+
+    Priority(int weight) {
+        this.weight = weight;
+    }
+
+    /**
+     * @return The number of consecutive turns this priority gets while every queue has work.
+     */
+    public int weight() {
+        return weight;
+    }
+}
@@ -0,0 +1,55 @@
+package io.github.hubertkuch.kona.paging;
+
+import io.github.hubertkuch.kona.message.KonaController;
+import io.github.hubertkuch.kona.message.MessageHandler;
+import io.github.hubertkuch.kona.message.Payload;
+import io.github.hubertkuch.kona.routing.HandlerContext;
+
+/**
+ * The built-in controller through which the frontend pulls further pages of a {@link PagedResult}.
+ * <p>
+ * Registered automatically under the reserved name {@code kona.cursor}. A request for a cursor that has
+ * expired, never existed or was opened by another window returns a page with {@code expired} set.
+ */
+@KonaController(name = "kona.cursor")
+public final class CursorController {
+
+    /**
+     * @param cursor The cursor id from the previous page.
+     * @param count  The number of rows to read; {@code 0} or less reads one row.
+     */
+    public record NextRequest(String cursor, int count) implements Payload {}
+
+    /**
+     * @param cursor The cursor id from a previous page.
+     * @param offset The index of the first row to read.
+     * @param count  The number of rows to read.
+     */
+    public record RangeRequest(String cursor, long offset, int count) implements Payload {}
+
+    /**
+     * @param cursor The cursor id to close.
+     */
+    public record CloseRequest(String cursor) implements Payload {}
+
+    private final CursorRegistry cursors;
+
+    public CursorController(CursorRegistry cursors) {
+        this.cursors = cursors;
+    }
+
+    @MessageHandler(action = "next")
+    public Page<?> next(NextRequest request, HandlerContext context) {
+        return cursors.next(request.cursor(), context.webViewHandle(), request.count());
+    }
+
+    @MessageHandler(action = "range")
+    public Page<?> range(RangeRequest request, HandlerContext context) {
+        return cursors.range(request.cursor(), context.webViewHandle(), request.offset(), request.count());
+    }
+
+    @MessageHandler(action = "close")
+    public void close(CloseRequest request, HandlerContext context) {
+        cursors.close(request.cursor(), context.webViewHandle());
+    }
+}
@@ -0,0 +1,250 @@
+package io.github.hubertkuch.kona.paging;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The open cursors of {@link PagedResult}s returned by handlers.
+ * <p>
+ * Each cursor belongs to the web view it was opened for; requests from other web views see it as expired.
+ * Expired cursors are swept by a timer that runs only while cursors are open, so idle sources are closed
+ * even if the frontend never asks for them again.
+ */
+public final class CursorRegistry {
+
+    private static final Logger log = LoggerFactory.getLogger(CursorRegistry.class);
+
+    private static final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("kona-cursors").daemon().factory());
+
+    /**
+     * The largest number of rows returned in one page, whatever the frontend asks for.
+     */
+    public static final int MAX_PAGE_SIZE = 10_000;
+
+    private final Map<String, Cursor<?>> cursors = new ConcurrentHashMap<>();
+    private final AtomicLong nextId = new AtomicLong();
+    private ScheduledFuture<?> sweep;
+    private long sweepAtNanos;
+
+    private static final class Cursor<T> {
+        final String id;
+        final long webViewHandle;
+        final PagedResult.Source<T> source;
+        final long idleTimeoutNanos;
+        volatile long lastAccessNanos;
+        long position;
+
+        Cursor(String id, long webViewHandle, PagedResult<T> result) {
+            this.id = id;
+            this.webViewHandle = webViewHandle;
+            this.source = result.source();
+            this.idleTimeoutNanos = result.idleTimeout().toNanos();
+            this.lastAccessNanos = System.nanoTime();
+        }
+
+        boolean expired(long now) {
+            return now - lastAccessNanos > idleTimeoutNanos;
+        }
+
+        long expiresAt() {
+            return lastAccessNanos + idleTimeoutNanos;
+        }
+    }
+
+    /**
+     * Opens a cursor over a handler's result and reads its first page. If the first page already holds all
+     * rows, no cursor is kept.
+     *
+     * @param result        The result returned by the handler.
+     * @param webViewHandle The web view the cursor belongs to.
+     * @param <T>           The row type.
+     * @return The first page.
+     */
+    public <T> Page<T> open(PagedResult<T> result, long webViewHandle) {
+        Cursor<T> cursor = new Cursor<>("c" + Long.toString(nextId.incrementAndGet(), 36), webViewHandle, result);
+        cursors.put(cursor.id, cursor);
+        Page<T> first = read(cursor, 0, result.pageSize());
+        if (first.cursor() != null) {
+            scheduleSweep(cursor.expiresAt());
+        }
+        return first;
+    }
+
+    /**
+     * Reads the rows following the last page returned for a cursor.
+     *
+     * @param cursorId      The cursor id.
+     * @param webViewHandle The web view asking for the page.
+     * @param count         The number of rows to read.
+     * @return The page, or an expired page if the cursor is unknown or belongs to another web view.
+     */
+    public Page<?> next(String cursorId, long webViewHandle, int count) {
+        Cursor<?> cursor = owned(cursorId, webViewHandle);
+        if (cursor == null) {
+            return Page.expiredPage();
+        }
+        synchronized (cursor) {
+            return read(cursor, cursor.position, count);
+        }
+    }
+
+    /**
+     * Reads the rows at a given offset. Cursors over sequential sources can only move forward.
+     *
+     * @param cursorId      The cursor id.
+     * @param webViewHandle The web view asking for the page.
+     * @param offset        The index of the first row to read.
+     * @param count         The number of rows to read.
+     * @return The page, or an expired page if the cursor is unknown or belongs to another web view.
+     */
+    public Page<?> range(String cursorId, long webViewHandle, long offset, int count) {
+        Cursor<?> cursor = owned(cursorId, webViewHandle);
+        if (cursor == null) {
+            return Page.expiredPage();
+        }
+        synchronized (cursor) {
+            return read(cursor, offset, count);
+        }
+    }
+
+    /**
+     * Closes a cursor if it belongs to the given web view.
+     *
+     * @param cursorId      The cursor id.
+     * @param webViewHandle The web view asking to close it.
+     */
+    public void close(String cursorId, long webViewHandle) {
+        if (owned(cursorId, webViewHandle) != null) {
+            close(cursorId);
+        }
+    }
+
+    /**
+     * @return The live cursor with the given id if it was opened for the web view, otherwise {@code null}.
+     */
+    private Cursor<?> owned(String cursorId, long webViewHandle) {
+        Cursor<?> cursor = cursorId != null ? cursors.get(cursorId) : null;
+        if (cursor == null) {
+            return null;
+        }
+        if (cursor.webViewHandle != webViewHandle) {
+            log.warn("[KonaRouter] Web view {} asked for cursor {} of web view {}", webViewHandle, cursorId, cursor.webViewHandle);
+            return null;
+        }
+        if (cursor.expired(System.nanoTime())) {
+            expire(cursor);
+            return null;
+        }
+        return cursor;
+    }
+
+    private <T> Page<T> read(Cursor<T> cursor, long offset, int count) {
+        int limit = Math.clamp(count, 1, MAX_PAGE_SIZE);
+        List<T> rows = cursor.source.read(offset, limit);
+        cursor.position = offset + rows.size();
+        cursor.lastAccessNanos = System.nanoTime();
+
+        long total = cursor.source.size();
+        boolean done = !cursor.source.hasRowsAt(cursor.position);
+        // Random-access cursors stay open at the end so that the frontend can scroll back,
+        // unless the page already holds every row
+        boolean keep = !(done && offset == 0) && (!done || cursor.source.randomAccess());
+        if (!keep) {
+            close(cursor.id);
+        }
+        return new Page<>(keep ? cursor.id : null, offset, rows, total, done, false);
+    }
+
+    /**
+     * Closes a cursor and its source.
+     *
+     * @param cursorId The cursor id.
+     */
+    public void close(String cursorId) {
+        Cursor<?> cursor = cursors.remove(cursorId);
+        if (cursor != null) {
+            closeSource(cursor);
+        }
+    }
+
+    /**
+     * Closes every cursor opened for a web view, e.g. when its window has been closed.
+     *
+     * @param webViewHandle The native handle of the web view.
+     */
+    public void closeAll(long webViewHandle) {
+        cursors.values().removeIf(cursor -> {
+            if (cursor.webViewHandle == webViewHandle) {
+                closeSource(cursor);
+                return true;
+            }
+            return false;
+        });
+    }
+
+    /**
+     * @return The number of open cursors.
+     */
+    public int size() {
+        return cursors.size();
+    }
+
+    /**
+     * Makes sure a sweep runs no later than the given time.
+     */
+    private synchronized void scheduleSweep(long atNanos) {
+        if (sweep != null && sweepAtNanos - atNanos <= 0) {
+            return;
+        }
+        if (sweep != null) {
+            sweep.cancel(false);
+        }
+        sweepAtNanos = atNanos;
+        sweep = timer.schedule(this::sweep, Math.max(0, atNanos - System.nanoTime()), TimeUnit.NANOSECONDS);
+    }
+
+    private void sweep() {
+        synchronized (this) {
+            sweep = null;
+        }
+        long now = System.nanoTime();
+        long next = Long.MAX_VALUE;
+        boolean pending = false;
+        for (Cursor<?> cursor : cursors.values()) {
+            if (cursor.expired(now)) {
+                expire(cursor);
+            } else if (!pending || cursor.expiresAt() - next < 0) {
+                next = cursor.expiresAt();
+                pending = true;
+            }
+        }
+        if (pending) {
+            scheduleSweep(next);
+        }
+    }
+
+    private void expire(Cursor<?> cursor) {
+        if (cursors.remove(cursor.id, cursor)) {
+            log.debug("[KonaRouter] Cursor {} expired", cursor.id);
+            closeSource(cursor);
+        }
+    }
+
+    private static void closeSource(Cursor<?> cursor) {
+        try {
+            cursor.source.close();
+        } catch (Exception e) {
+            log.error("[KonaRouter] Failed to close cursor {}", cursor.id, e);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package io.github.hubertkuch.kona.paging;
+
+import java.util.List;
+
+/**
+ * One window of rows from a {@link PagedResult}, as sent to the frontend.
+ *
+ * @param cursor  The id used to request further pages, or {@code null} if the result is exhausted or expired.
+ * @param offset  The index of the first row in this page.
+ * @param rows    The rows.
+ * @param total   The total number of rows, or {@code -1} if the source does not know it.
+ * @param done    {@code true} if there are no rows after this page.
+ * @param expired {@code true} if the requested cursor had expired or never existed; the page is then empty.
+ * @param <T>     The row type.
+ */
+public record Page<T>(String cursor, long offset, List<T> rows, long total, boolean done, boolean expired) {
+
+    static <T> Page<T> expiredPage() {
+        return new Page<>(null, 0, List.of(), -1, true, true);
+    }
+}
@@ -0,0 +1,245 @@
+package io.github.hubertkuch.kona.paging;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.LongFunction;
+import java.util.stream.Stream;
+
+/**
+ * A handler return type for result sets too large to send at once.
+ * <p>
+ * Instead of serializing the whole collection, the router keeps a server-side cursor over the source and
+ * responds with the first {@link Page}. The frontend pulls further windows on demand through the built-in
+ * {@code kona.cursor} controller, e.g. as a virtualized grid scrolls:
+ * <pre>{@code
+ * @MessageHandler(action = "orders")
+ * public PagedResult<Order> orders() {
+ *     return PagedResult.of(repository.streamAll()).pageSize(200);
+ * }
+ * }</pre>
+ * Sources backed by a {@link List} or an index function support random access, so the frontend can jump to
+ * any offset. Iterator, spliterator and stream sources are read lazily and only move forward.
+ * Cursors are closed when they are exhausted, when their window closes, or after an idle timeout.
+ *
+ * @param <T> The row type.
+ */
+public final class PagedResult<T> {
+
+    /**
+     * The number of rows per page unless {@link #pageSize(int)} is used.
+     */
+    public static final int DEFAULT_PAGE_SIZE = 100;
+
+    /**
+     * How long an unused cursor is kept unless {@link #idleTimeout(Duration)} is used.
+     */
+    public static final Duration DEFAULT_IDLE_TIMEOUT = Duration.ofMinutes(1);
+
+    private final Source<T> source;
+    private int pageSize = DEFAULT_PAGE_SIZE;
+    private Duration idleTimeout = DEFAULT_IDLE_TIMEOUT;
+
+    private PagedResult(Source<T> source) {
+        this.source = source;
+    }
+
+    /**
+     * Pages over a list, with random access.
+     *
+     * @param rows The rows.
+     * @param <T>  The row type.
+     * @return The paged result.
+     */
+    public static <T> PagedResult<T> of(List<T> rows) {
+        Objects.requireNonNull(rows);
+        return new PagedResult<>(new RangeSource<>(rows.size(), index -> rows.get((int) index)));
+    }
+
+    /**
+     * Pages over rows computed from their index, with random access.
+     *
+     * @param size  The number of rows.
+     * @param rowAt Returns the row at an index between {@code 0} and {@code size - 1}.
+     * @param <T>   The row type.
+     * @return The paged result.
+     */
+    public static <T> PagedResult<T> range(long size, LongFunction<T> rowAt) {
+        return new PagedResult<>(new RangeSource<>(size, Objects.requireNonNull(rowAt)));
+    }
+
+    /**
+     * Pages over an iterator, reading it lazily.
+     *
+     * @param rows The rows.
+     * @param <T>  The row type.
+     * @return The paged result.
+     */
+    public static <T> PagedResult<T> of(Iterator<T> rows) {
+        return new PagedResult<>(new IteratorSource<>(Objects.requireNonNull(rows), -1, null));
+    }
+
+    /**
+     * Pages over a spliterator, reading it lazily. The total is reported if the spliterator knows its exact size.
+     *
+     * @param rows The rows.
+     * @param <T>  The row type.
+     * @return The paged result.
+     */
+    public static <T> PagedResult<T> of(Spliterator<T> rows) {
+        return new PagedResult<>(new IteratorSource<>(Spliterators.iterator(rows), rows.getExactSizeIfKnown(), null));
+    }
+
+    /**
+     * Pages over a stream, reading it lazily. The stream is closed with the cursor.
+     *
+     * @param rows The rows.
+     * @param <T>  The row type.
+     * @return The paged result.
+     */
+    public static <T> PagedResult<T> of(Stream<T> rows) {
+        Spliterator<T> spliterator = rows.spliterator();
+        return new PagedResult<>(new IteratorSource<>(Spliterators.iterator(spliterator), spliterator.getExactSizeIfKnown(), rows));
+    }
+
+    /**
+     * @param pageSize The number of rows in the first page, capped at {@link CursorRegistry#MAX_PAGE_SIZE}.
+     *                 Later pages use the count the frontend asks for, clamped to between one row and the same cap.
+     * @return This result.
+     */
+    public PagedResult<T> pageSize(int pageSize) {
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("pageSize must be positive");
+        }
+        this.pageSize = pageSize;
+        return this;
+    }
+
+    /**
+     * @param idleTimeout How long the cursor is kept without page requests.
+     * @return This result.
+     */
+    public PagedResult<T> idleTimeout(Duration idleTimeout) {
+        this.idleTimeout = Objects.requireNonNull(idleTimeout);
+        return this;
+    }
+
+    Source<T> source() {
+        return source;
+    }
+
+    int pageSize() {
+        return pageSize;
+    }
+
+    Duration idleTimeout() {
+        return idleTimeout;
+    }
+
+    /**
+     * Where the rows of a cursor come from. Calls are serialized by the cursor.
+     */
+    interface Source<T> {
+        /**
+         * Reads up to {@code count} rows starting at {@code offset}.
+         */
+        List<T> read(long offset, int count);
+
+        /**
+         * @return The number of rows, or {@code -1} if unknown.
+         */
+        long size();
+
+        /**
+         * @return {@code true} if there may be rows at or after the given offset.
+         */
+        boolean hasRowsAt(long offset);
+
+        /**
+         * @return {@code true} if rows can be read at any offset, {@code false} if only forward.
+         */
+        default boolean randomAccess() {
+            return false;
+        }
+
+        default void close() {
+        }
+    }
+
+    private record RangeSource<T>(long size, LongFunction<T> rowAt) implements Source<T> {
+        @Override
+        public List<T> read(long offset, int count) {
+            long end = Math.min(size, offset + count);
+            List<T> rows = new ArrayList<>((int) Math.max(0, end - offset));
+            for (long index = offset; index < end; index++) {
+                rows.add(rowAt.apply(index));
+            }
+            return rows;
+        }
+
+        @Override
+        public boolean hasRowsAt(long offset) {
+            return offset < size;
+        }
+
+        @Override
+        public boolean randomAccess() {
+            return true;
+        }
+    }
+
+    private static final class IteratorSource<T> implements Source<T> {
+        private final Iterator<T> iterator;
+        private final long size;
+        private final AutoCloseable resource;
+        private long position;
+
+        IteratorSource(Iterator<T> iterator, long size, AutoCloseable resource) {
+            this.iterator = iterator;
+            this.size = size;
+            this.resource = resource;
+        }
+
+        @Override
+        public List<T> read(long offset, int count) {
+            if (offset < position) {
+                throw new IllegalArgumentException("Cursor over a sequential source cannot move back from " + position + " to " + offset);
+            }
+            while (position < offset && iterator.hasNext()) {
+                iterator.next();
+                position++;
+            }
+            List<T> rows = new ArrayList<>(count);
+            while (rows.size() < count && iterator.hasNext()) {
+                rows.add(iterator.next());
+                position++;
+            }
+            return rows;
+        }
+
+        @Override
+        public long size() {
+            return size;
+        }
+
+        @Override
+        public boolean hasRowsAt(long offset) {
+            return offset == position ? iterator.hasNext() : offset > position && (size < 0 || offset < size);
+        }
+
+        @Override
+        public void close() {
+            if (resource != null) {
+                try {
+                    resource.close();
+                } catch (Exception e) {
+                    throw new IllegalStateException("Failed to close paged source", e);
+                }
+            }
+        }
+    }
+}
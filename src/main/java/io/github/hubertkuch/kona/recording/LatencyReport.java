@@ -0,0 +1,133 @@
+package io.github.hubertkuch.kona.recording;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
+/**
+ * Handler latencies by route, measured while replaying a {@link Recording}, next to the latencies measured
+ * while it was recorded.
+ */
+public final class LatencyReport {
+
+    /**
+     * The latencies of one route. Recorded percentiles are {@code -1} if the recording has no responses for it.
+     *
+     * @param route            The route as {@code controller/action}.
+     * @param count            The number of handled messages.
+     * @param failed           How many of them failed or were cancelled.
+     * @param meanNanos        The mean latency.
+     * @param p50Nanos         The median latency.
+     * @param p95Nanos         The 95th percentile.
+     * @param p99Nanos         The 99th percentile.
+     * @param maxNanos         The largest latency.
+     * @param recordedP50Nanos The median latency while recording.
+     * @param recordedP95Nanos The 95th percentile while recording.
+     */
+    public record RouteLatency(String route, int count, int failed, long meanNanos, long p50Nanos, long p95Nanos,
+                               long p99Nanos, long maxNanos, long recordedP50Nanos, long recordedP95Nanos) {
+    }
+
+    private final List<RouteLatency> routes;
+    private final long elapsedNanos;
+
+    private LatencyReport(List<RouteLatency> routes, long elapsedNanos) {
+        this.routes = Collections.unmodifiableList(routes);
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * Builds a report from replayed responses.
+     *
+     * @param replayed     The responses reported while replaying.
+     * @param recorded     The responses in the recording.
+     * @param elapsedNanos How long the replay took.
+     * @return The report.
+     */
+    static LatencyReport of(List<RecordedResponse> replayed, List<RecordedResponse> recorded, long elapsedNanos) {
+        Map<String, List<RecordedResponse>> byRoute = new TreeMap<>();
+        replayed.forEach(response -> byRoute.computeIfAbsent(response.route(), route -> new ArrayList<>()).add(response));
+        Map<String, long[]> recordedByRoute = latenciesByRoute(recorded);
+
+        List<RouteLatency> routes = new ArrayList<>();
+        byRoute.forEach((route, responses) -> {
+            long[] latencies = responses.stream().mapToLong(RecordedResponse::latencyNanos).sorted().toArray();
+            int failed = (int) responses.stream().filter(RecordedResponse::failed).count();
+            long[] original = recordedByRoute.get(route);
+            routes.add(new RouteLatency(route, latencies.length, failed,
+                    (long) Arrays.stream(latencies).average().orElse(0),
+                    percentile(latencies, 50), percentile(latencies, 95), percentile(latencies, 99),
+                    latencies[latencies.length - 1],
+                    original == null ? -1 : percentile(original, 50),
+                    original == null ? -1 : percentile(original, 95)));
+        });
+        return new LatencyReport(routes, elapsedNanos);
+    }
+
+    private static Map<String, long[]> latenciesByRoute(List<RecordedResponse> responses) {
+        Map<String, List<Long>> byRoute = new TreeMap<>();
+        responses.forEach(response -> byRoute.computeIfAbsent(response.route(), route -> new ArrayList<>()).add(response.latencyNanos()));
+        Map<String, long[]> sorted = new TreeMap<>();
+        byRoute.forEach((route, latencies) -> sorted.put(route, latencies.stream().mapToLong(Long::longValue).sorted().toArray()));
+        return sorted;
+    }
+
+    /**
+     * Nearest-rank percentile of sorted values.
+     */
+    private static long percentile(long[] sorted, int percentile) {
+        int rank = (int) Math.ceil(percentile / 100.0 * sorted.length);
+        return sorted[Math.max(rank - 1, 0)];
+    }
+
+    /**
+     * @return The latencies of every replayed route, sorted by route.
+     */
+    public List<RouteLatency> routes() {
+        return routes;
+    }
+
+    /**
+     * @param route The route as {@code controller/action}.
+     * @return The latencies of the route, if it was replayed.
+     */
+    public Optional<RouteLatency> route(String route) {
+        return routes.stream().filter(latency -> latency.route().equals(route)).findFirst();
+    }
+
+    /**
+     * @return How long the replay took, from the first message to the last response.
+     */
+    public long elapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * @return The report as a table with latencies in milliseconds.
+     */
+    public String format() {
+        StringBuilder table = new StringBuilder(String.format(Locale.ROOT, "%-32s %7s %6s %9s %9s %9s %9s %9s %12s %12s%n",
+                "route", "count", "failed", "mean", "p50", "p95", "p99", "max", "recorded p50", "recorded p95"));
+        for (RouteLatency route : routes) {
+            table.append(String.format(Locale.ROOT, "%-32s %7d %6d %9s %9s %9s %9s %9s %12s %12s%n",
+                    route.route(), route.count(), route.failed(), millis(route.meanNanos()), millis(route.p50Nanos()),
+                    millis(route.p95Nanos()), millis(route.p99Nanos()), millis(route.maxNanos()),
+                    millis(route.recordedP50Nanos()), millis(route.recordedP95Nanos())));
+        }
+        return table.append(String.format(Locale.ROOT, "replayed in %s ms%n", millis(elapsedNanos))).toString();
+    }
+
+    private static String millis(long nanos) {
+        return nanos < 0 ? "-" : String.format(Locale.ROOT, "%.3f", nanos / 1_000_000.0);
+    }
+
+    @Override
+    public String toString() {
+        return format();
+    }
+}
@@ -0,0 +1,11 @@
+package io.github.hubertkuch.kona.recording;
+
+/**
+ * A message as the router received it.
+ *
+ * @param offsetNanos   The time since the start of the recording.
+ * @param webViewHandle The native handle of the web view that sent the message.
+ * @param message       The raw message.
+ */
+public record RecordedMessage(long offsetNanos, long webViewHandle, String message) {
+}
@@ -0,0 +1,23 @@
+package io.github.hubertkuch.kona.recording;
+
+/**
+ * The outcome of a message as the router reported it.
+ *
+ * @param offsetNanos   The time since the start of the recording.
+ * @param webViewHandle The native handle of the web view that sent the message.
+ * @param controller    The controller the message was addressed to.
+ * @param action        The action the message was addressed to.
+ * @param responseChars The length of the encoded response, or {@code 0} if none was sent.
+ * @param latencyNanos  The time from dispatching the message to handing over its response.
+ * @param failed        Whether the handler failed or the request was cancelled.
+ */
+public record RecordedResponse(long offsetNanos, long webViewHandle, String controller, String action,
+                               int responseChars, long latencyNanos, boolean failed) {
+
+    /**
+     * @return The route as {@code controller/action}.
+     */
+    public String route() {
+        return controller + "/" + action;
+    }
+}
@@ -0,0 +1,115 @@
+package io.github.hubertkuch.kona.recording;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A recording written by {@link TrafficRecorder}, read back from its current file and every rotated file.
+ * <p>
+ * Files are read oldest first. Each recorder session starts at the offset where the previous one ended,
+ * so the idle time between application runs is not replayed.
+ */
+public final class Recording {
+
+    private static final Logger log = LoggerFactory.getLogger(Recording.class);
+
+    private final List<RecordedMessage> messages;
+    private final List<RecordedResponse> responses;
+
+    private Recording(List<RecordedMessage> messages, List<RecordedResponse> responses) {
+        this.messages = Collections.unmodifiableList(messages);
+        this.responses = Collections.unmodifiableList(responses);
+    }
+
+    /**
+     * Reads a recording.
+     *
+     * @param file The file passed to {@link TrafficRecorder#open(Path)}.
+     * @return The recording.
+     * @throws IOException If neither the file nor any rotation of it can be read.
+     */
+    public static Recording read(Path file) throws IOException {
+        List<Path> files = new ArrayList<>();
+        for (int generation = 0; Files.exists(RecordingFormat.generation(file, generation)); generation++) {
+            files.addFirst(RecordingFormat.generation(file, generation));
+        }
+        if (files.isEmpty()) {
+            throw new IOException("No recording at " + file);
+        }
+
+        List<RecordedMessage> messages = new ArrayList<>();
+        List<RecordedResponse> responses = new ArrayList<>();
+        long session = Long.MIN_VALUE;
+        long sessionBase = 0;
+        long end = 0;
+        for (Path part : files) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(part)))) {
+                if (in.readInt() != RecordingFormat.MAGIC || in.readShort() != RecordingFormat.VERSION) {
+                    throw new IOException("Not a Kona recording: " + part);
+                }
+                long start = in.readLong();
+                if (start != session) {
+                    session = start;
+                    sessionBase = end;
+                }
+                end = Math.max(end, readRecords(in, sessionBase, messages, responses));
+            } catch (EOFException e) {
+                log.warn("[Kona] Recording {} has no header, skipping it.", part);
+            }
+        }
+        return new Recording(messages, responses);
+    }
+
+    /**
+     * Reads records until the end of the file, ignoring a partial last record.
+     *
+     * @return The offset of the last record read, or {@code base} if there was none.
+     */
+    private static long readRecords(DataInputStream in, long base, List<RecordedMessage> messages,
+                                    List<RecordedResponse> responses) throws IOException {
+        long last = base;
+        while (true) {
+            int kind = in.read();
+            if (kind < 0) {
+                return last;
+            }
+            try {
+                long offset = base + in.readLong();
+                long webViewHandle = in.readLong();
+                switch (kind) {
+                    case RecordingFormat.MESSAGE -> messages.add(new RecordedMessage(offset, webViewHandle, RecordingFormat.readString(in)));
+                    case RecordingFormat.RESPONSE -> responses.add(new RecordedResponse(offset, webViewHandle,
+                            RecordingFormat.readString(in), RecordingFormat.readString(in), in.readInt(), in.readLong(), in.readBoolean()));
+                    default -> throw new IOException("Unknown record kind " + kind);
+                }
+                last = Math.max(last, offset);
+            } catch (EOFException e) {
+                return last;
+            }
+        }
+    }
+
+    /**
+     * @return The received messages in the order they arrived.
+     */
+    public List<RecordedMessage> messages() {
+        return messages;
+    }
+
+    /**
+     * @return The responses, with the latencies measured while recording.
+     */
+    public List<RecordedResponse> responses() {
+        return responses;
+    }
+}
@@ -0,0 +1,54 @@
+package io.github.hubertkuch.kona.recording;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+/**
+ * The layout of recording files. Every file starts with a header, followed by records until the end of the file:
+ * <pre>
+ * header:   int magic "KREC", short version, long session start (epoch millis)
+ * message:  byte 1, long offset (nanos since session start), long web view handle, string message
+ * response: byte 2, long offset, long web view handle, string controller, string action,
+ *           int response chars, long latency (nanos), boolean failed
+ * string:   int length, UTF-8 bytes
+ * </pre>
+ * A file cut short by a crash ends with a partial record, which readers ignore.
+ */
+final class RecordingFormat {
+
+    static final int MAGIC = 0x4B524543;
+    static final short VERSION = 1;
+    static final int HEADER_BYTES = 4 + 2 + 8;
+
+    static final byte MESSAGE = 1;
+    static final byte RESPONSE = 2;
+
+    private RecordingFormat() {}
+
+    /**
+     * @return The file holding the {@code generation}-th rotation of a recording; {@code 0} is the current file.
+     */
+    static Path generation(Path file, int generation) {
+        return generation == 0 ? file : file.resolveSibling(file.getFileName() + "." + generation);
+    }
+
+    static int writeString(DataOutput out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+        return 4 + bytes.length;
+    }
+
+    static String readString(DataInput in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            throw new IOException("Corrupt string length " + length);
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
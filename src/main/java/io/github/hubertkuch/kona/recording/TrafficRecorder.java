@@ -0,0 +1,215 @@
+package io.github.hubertkuch.kona.recording;
+
+import io.github.hubertkuch.kona.routing.KonaRouterImpl;
+import io.github.hubertkuch.kona.routing.TrafficObserver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Records the messages a router receives, with the size and latency of their responses, so that a session
+ * can be replayed later with {@link TrafficReplayer}. Attach it with
+ * {@link KonaRouterImpl#setTrafficObserver(TrafficObserver)}, or with {@code Kona.Builder.recordTraffic(Path)}.
+ * <p>
+ * Records are appended to a compact binary file (see {@link Recording} for reading it back) by a background
+ * thread, so recording never blocks the UI thread on disk. If the writer falls behind by more than
+ * {@value #QUEUE_CAPACITY} records, further records are dropped and counted rather than buffered without bound.
+ * <p>
+ * The file is rotated once it grows past {@link #maxFileBytes(long) maxFileBytes}: {@code traffic.krec} becomes
+ * {@code traffic.krec.1}, the previous {@code .1} becomes {@code .2}, and so on, keeping at most
+ * {@link #maxFiles(int) maxFiles} rotated files. A recording therefore takes at most about
+ * {@code maxFileBytes * (maxFiles + 1)} bytes. Every recorder starts a new file, so each session begins in its own.
+ * <p>
+ * Messages carry whatever the page sent, including personal data; record only sessions you are allowed to keep.
+ */
+public final class TrafficRecorder implements TrafficObserver, AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(TrafficRecorder.class);
+
+    /**
+     * The largest size of a single file unless {@link #maxFileBytes(long)} is used.
+     */
+    public static final long DEFAULT_MAX_FILE_BYTES = 16L << 20;
+
+    /**
+     * The number of rotated files kept unless {@link #maxFiles(int)} is used.
+     */
+    public static final int DEFAULT_MAX_FILES = 4;
+
+    private static final int QUEUE_CAPACITY = 8192;
+
+    private final Path file;
+    private final long startNanos = System.nanoTime();
+    private final long startEpochMillis = System.currentTimeMillis();
+    private final LongAdder dropped = new LongAdder();
+    private final ThreadPoolExecutor writer;
+    private volatile long maxFileBytes = DEFAULT_MAX_FILE_BYTES;
+    private volatile int maxFiles = DEFAULT_MAX_FILES;
+
+    // Accessed by the writer thread only
+    private DataOutputStream out;
+    private long written;
+
+    private TrafficRecorder(Path file) {
+        this.file = file.toAbsolutePath();
+        this.writer = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(QUEUE_CAPACITY),
+                Thread.ofPlatform().name("kona-recorder").daemon().factory(),
+                (task, executor) -> dropped.increment());
+    }
+
+    /**
+     * Starts recording to a file. An existing file is rotated first.
+     *
+     * @param file The file, e.g. {@code traffic.krec}; rotated files are written next to it.
+     * @return The recorder.
+     */
+    public static TrafficRecorder open(Path file) {
+        return new TrafficRecorder(file);
+    }
+
+    /**
+     * Sets the size after which the current file is rotated.
+     *
+     * @param maxFileBytes The size in bytes.
+     * @return This recorder.
+     */
+    public TrafficRecorder maxFileBytes(long maxFileBytes) {
+        if (maxFileBytes < RecordingFormat.HEADER_BYTES) {
+            throw new IllegalArgumentException("maxFileBytes is too small");
+        }
+        this.maxFileBytes = maxFileBytes;
+        return this;
+    }
+
+    /**
+     * Sets how many rotated files are kept next to the current one.
+     *
+     * @param maxFiles The number of files; {@code 0} keeps only the current file.
+     * @return This recorder.
+     */
+    public TrafficRecorder maxFiles(int maxFiles) {
+        if (maxFiles < 0) {
+            throw new IllegalArgumentException("maxFiles must not be negative");
+        }
+        this.maxFiles = maxFiles;
+        return this;
+    }
+
+    @Override
+    public void received(long webViewHandle, String message) {
+        long offset = System.nanoTime() - startNanos;
+        writer.execute(() -> write(record -> {
+            record.writeByte(RecordingFormat.MESSAGE);
+            record.writeLong(offset);
+            record.writeLong(webViewHandle);
+            return 1 + 8 + 8 + RecordingFormat.writeString(record, message);
+        }));
+    }
+
+    @Override
+    public void completed(long webViewHandle, String controller, String action, int responseChars, long latencyNanos, boolean failed) {
+        long offset = System.nanoTime() - startNanos;
+        writer.execute(() -> write(record -> {
+            record.writeByte(RecordingFormat.RESPONSE);
+            record.writeLong(offset);
+            record.writeLong(webViewHandle);
+            int size = 1 + 8 + 8 + RecordingFormat.writeString(record, controller) + RecordingFormat.writeString(record, action);
+            record.writeInt(responseChars);
+            record.writeLong(latencyNanos);
+            record.writeBoolean(failed);
+            return size + 4 + 8 + 1;
+        }));
+    }
+
+    /**
+     * @return The number of records dropped because the writer fell behind or the file could not be written.
+     */
+    public long dropped() {
+        return dropped.sum();
+    }
+
+    /**
+     * Writes the remaining records and closes the file.
+     */
+    @Override
+    public void close() {
+        writer.shutdown();
+        try {
+            if (!writer.awaitTermination(5, TimeUnit.SECONDS)) {
+                log.warn("[Kona] Traffic recorder did not finish writing in time.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            if (out != null) {
+                out.close();
+            }
+        } catch (IOException e) {
+            log.warn("[Kona] Cannot close traffic recording {}: {}", file, e.getMessage());
+        }
+        if (dropped() > 0) {
+            log.warn("[Kona] Traffic recorder dropped {} record(s).", dropped());
+        }
+    }
+
+    @FunctionalInterface
+    private interface RecordWriter {
+        int write(DataOutputStream out) throws IOException;
+    }
+
+    private void write(RecordWriter record) {
+        try {
+            if (out == null || written >= maxFileBytes) {
+                rotate();
+            }
+            written += record.write(out);
+            if (writer.getQueue().isEmpty()) {
+                out.flush();
+            }
+        } catch (IOException e) {
+            dropped.increment();
+            log.warn("[Kona] Cannot write traffic recording {}: {}", file, e.getMessage());
+        }
+    }
+
+    /**
+     * Moves the current file and its rotations one generation up, dropping the oldest, and starts a new file.
+     */
+    private void rotate() throws IOException {
+        if (out != null) {
+            out.close();
+            out = null;
+        }
+        Files.createDirectories(file.getParent());
+        // Files left over from a run that kept more rotations
+        for (int generation = maxFiles + 1; Files.deleteIfExists(RecordingFormat.generation(file, generation)); generation++) {
+        }
+        for (int generation = maxFiles; generation >= 0; generation--) {
+            Path source = RecordingFormat.generation(file, generation);
+            if (Files.exists(source)) {
+                if (generation == maxFiles) {
+                    Files.delete(source);
+                } else {
+                    Files.move(source, RecordingFormat.generation(file, generation + 1), StandardCopyOption.REPLACE_EXISTING);
+                }
+            }
+        }
+
+        out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), 64 * 1024));
+        out.writeInt(RecordingFormat.MAGIC);
+        out.writeShort(RecordingFormat.VERSION);
+        out.writeLong(startEpochMillis);
+        written = RecordingFormat.HEADER_BYTES;
+    }
+}
@@ -0,0 +1,194 @@
+package io.github.hubertkuch.kona.recording;
+
+import io.github.hubertkuch.kona.application.HeadlessWebView;
+import io.github.hubertkuch.kona.application.HeadlessWindow;
+import io.github.hubertkuch.kona.routing.KonaRouterImpl;
+import io.github.hubertkuch.kona.routing.RequestController;
+import io.github.hubertkuch.kona.routing.RouteTable;
+import io.github.hubertkuch.kona.routing.ServiceRegistry;
+import io.github.hubertkuch.kona.routing.TrafficObserver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Feeds a {@link Recording} into a router and reports the latency of every route, turning a recorded user session
+ * into a repeatable benchmark:
+ * <pre>{@code
+ * LatencyReport report = TrafficReplayer.of(Recording.read(Path.of("traffic.krec")))
+ *         .maxSpeed()
+ *         .replay("com.example.controllers", services);
+ * System.out.print(report.format());
+ * }</pre>
+ * Messages are sent at their recorded pace, {@link #speed(double) scaled}, or back to back. The router runs
+ * against a headless window and web view, so no display or GTK installation is needed; responses are discarded.
+ * It can also be run from the command line:
+ * {@code java io.github.hubertkuch.kona.recording.TrafficReplayer traffic.krec com.example.controllers [speed|max]}.
+ */
+public final class TrafficReplayer {
+
+    private static final Logger log = LoggerFactory.getLogger(TrafficReplayer.class);
+
+    private final Recording recording;
+    private double speed = 1.0;
+    private long drainTimeoutNanos = TimeUnit.SECONDS.toNanos(10);
+
+    private TrafficReplayer(Recording recording) {
+        this.recording = recording;
+    }
+
+    /**
+     * @param recording The recording to replay.
+     * @return A replayer sending messages at their recorded pace.
+     */
+    public static TrafficReplayer of(Recording recording) {
+        return new TrafficReplayer(recording);
+    }
+
+    /**
+     * Scales the pace of the recording, e.g. {@code 2} sends messages twice as fast as they were recorded.
+     *
+     * @param speed The factor; {@link Double#POSITIVE_INFINITY} sends them back to back.
+     * @return This replayer.
+     */
+    public TrafficReplayer speed(double speed) {
+        if (!(speed > 0)) {
+            throw new IllegalArgumentException("speed must be positive");
+        }
+        this.speed = speed;
+        return this;
+    }
+
+    /**
+     * Sends messages back to back, as fast as the router accepts them.
+     *
+     * @return This replayer.
+     */
+    public TrafficReplayer maxSpeed() {
+        return speed(Double.POSITIVE_INFINITY);
+    }
+
+    /**
+     * Sets how long to wait for outstanding responses once every message was sent. Messages that never complete,
+     * e.g. those addressed to routes missing from the replayed package, are left out of the report.
+     *
+     * @param drainTimeoutMillis The time in milliseconds without any response after which the replay ends.
+     * @return This replayer.
+     */
+    public TrafficReplayer drainTimeout(long drainTimeoutMillis) {
+        this.drainTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(drainTimeoutMillis);
+        return this;
+    }
+
+    /**
+     * Replays the recording into a new router with the controllers of a package and the built-in request
+     * controller, running against a headless window and web view.
+     *
+     * @param controllerPackage The package to scan for controllers.
+     * @param services          The services available for controller constructor injection.
+     * @return The latency report.
+     */
+    public LatencyReport replay(String controllerPackage, ServiceRegistry services) {
+        try (HeadlessWindow window = new HeadlessWindow(); HeadlessWebView webView = new HeadlessWebView()) {
+            KonaRouterImpl router = new KonaRouterImpl(window, webView, 1L, services);
+            router.install(RouteTable.scan(controllerPackage, services)
+                    .with(RouteTable.of(services, RequestController.class))).join();
+            return replay(router);
+        }
+    }
+
+    /**
+     * Replays the recording into an existing router, e.g. one with custom codecs or a dispatch executor.
+     * The router's traffic observer is replaced for the duration of the replay.
+     *
+     * @param router The router, with its routes installed.
+     * @return The latency report.
+     */
+    public LatencyReport replay(KonaRouterImpl router) {
+        Collector collector = new Collector();
+        router.setTrafficObserver(collector);
+        try {
+            long start = System.nanoTime();
+            for (RecordedMessage message : recording.messages()) {
+                if (speed != Double.POSITIVE_INFINITY) {
+                    long due = start + (long) (message.offsetNanos() / speed);
+                    for (long wait = due - System.nanoTime(); wait > 0; wait = due - System.nanoTime()) {
+                        LockSupport.parkNanos(wait);
+                    }
+                }
+                router.onMessage(message.webViewHandle(), message.message());
+            }
+            List<RecordedResponse> replayed = collector.await(drainTimeoutNanos);
+            return LatencyReport.of(replayed, recording.responses(), System.nanoTime() - start);
+        } finally {
+            router.setTrafficObserver(null);
+        }
+    }
+
+    /**
+     * Replays a recording from the command line and prints the latency report.
+     *
+     * @param args The recording file, the controller package and optionally a speed factor or {@code max}.
+     * @throws IOException If the recording cannot be read.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: TrafficReplayer <recording> <controller-package> [speed|max]");
+            System.exit(2);
+        }
+        TrafficReplayer replayer = of(Recording.read(Path.of(args[0])));
+        if (args.length > 2) {
+            replayer.speed("max".equals(args[2]) ? Double.POSITIVE_INFINITY : Double.parseDouble(args[2]));
+        }
+        System.out.print(replayer.replay(args[1], new ServiceRegistry()).format());
+    }
+
+    /**
+     * Collects the responses reported while replaying and waits for the outstanding ones.
+     */
+    private static final class Collector implements TrafficObserver {
+
+        private final List<RecordedResponse> responses = new ArrayList<>();
+        private int received;
+
+        @Override
+        public synchronized void received(long webViewHandle, String message) {
+            received++;
+        }
+
+        @Override
+        public synchronized void completed(long webViewHandle, String controller, String action, int responseChars,
+                                           long latencyNanos, boolean failed) {
+            responses.add(new RecordedResponse(0, webViewHandle, controller, action, responseChars, latencyNanos, failed));
+            notifyAll();
+        }
+
+        synchronized List<RecordedResponse> await(long timeoutNanos) {
+            long quietSince = System.nanoTime();
+            int seen = responses.size();
+            try {
+                while (responses.size() < received) {
+                    long left = quietSince + timeoutNanos - System.nanoTime();
+                    if (left <= 0) {
+                        log.warn("[Kona] {} replayed message(s) did not complete.", received - responses.size());
+                        break;
+                    }
+                    TimeUnit.NANOSECONDS.timedWait(this, left);
+                    if (responses.size() > seen) {
+                        seen = responses.size();
+                        quietSince = System.nanoTime();
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return new ArrayList<>(responses);
+        }
+    }
+}
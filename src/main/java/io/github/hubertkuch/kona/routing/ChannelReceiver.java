@@ -0,0 +1,16 @@
+package io.github.hubertkuch.kona.routing;
+
+/**
+ * Receives the messages of one {@link MessageChannel}, already bound to its route.
+ */
+@FunctionalInterface
+public interface ChannelReceiver {
+
+    /**
+     * Called when a message is posted to the channel.
+     *
+     * @param webViewHandle The native handle of the web view that sent the message.
+     * @param body          The message body, in the format described by {@link MessageChannel}.
+     */
+    void onMessage(long webViewHandle, String body);
+}
@@ -0,0 +1,11 @@
+package io.github.hubertkuch.kona.routing;
+
+/**
+ * How many messages of an action with coalescing, debouncing or throttling were handled, and how many were
+ * superseded by a newer message before they were handled.
+ *
+ * @param delivered The number of messages passed to the handler.
+ * @param dropped   The number of messages discarded without being decoded.
+ */
+public record CoalescingStats(long delivered, long dropped) {
+}
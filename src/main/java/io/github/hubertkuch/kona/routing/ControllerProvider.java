@@ -0,0 +1,273 @@
+package io.github.hubertkuch.kona.routing;
+
+import io.github.hubertkuch.kona.message.KonaController;
+import io.github.hubertkuch.kona.message.Lifecycle;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Constructor;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Supplies controller instances to the router according to the controller's {@link Lifecycle}.
+ * <p>
+ * The constructor is resolved once, when the controller is registered, into a method handle; creating an
+ * instance only resolves the constructor parameters from the {@link ServiceRegistry} and invokes the handle.
+ */
+abstract class ControllerProvider {
+
+    private static final Logger log = LoggerFactory.getLogger(ControllerProvider.class);
+
+    private final Class<?> controllerClass;
+    private final Class<?>[] parameterTypes;
+    private final MethodHandle constructor;
+    private final ServiceRegistry services;
+
+    private ControllerProvider(Class<?> controllerClass, ServiceRegistry services) throws ReflectiveOperationException {
+        Constructor<?> selected = selectConstructor(controllerClass);
+        this.controllerClass = controllerClass;
+        this.parameterTypes = selected.getParameterTypes();
+        this.constructor = MethodHandles.lookup().unreflectConstructor(selected);
+        this.services = services;
+    }
+
+    /**
+     * Creates the provider matching the lifecycle declared on the controller.
+     *
+     * @param controllerClass The controller class.
+     * @param annotation      The controller's annotation.
+     * @param services        The services available for constructor injection.
+     * @return The provider.
+     * @throws ReflectiveOperationException If the class has no usable public constructor.
+     */
+    static ControllerProvider forController(Class<?> controllerClass, KonaController annotation, ServiceRegistry services)
+            throws ReflectiveOperationException {
+        return switch (annotation.lifecycle()) {
+            case LAZY -> new Lazy(controllerClass, services);
+            case EAGER -> new Eager(controllerClass, services);
+            case POOLED -> new Pooled(controllerClass, services,
+                    annotation.poolSize() > 0 ? annotation.poolSize() : Runtime.getRuntime().availableProcessors(),
+                    annotation.poolTimeoutMillis());
+            case PER_WINDOW -> new PerWindow(controllerClass, services);
+        };
+    }
+
+    /**
+     * Prefers the only public constructor; if there are several, falls back to the public no-arg constructor.
+     */
+    private static Constructor<?> selectConstructor(Class<?> controllerClass) throws NoSuchMethodException {
+        Constructor<?>[] constructors = controllerClass.getConstructors();
+        if (constructors.length == 1) {
+            return constructors[0];
+        }
+        return controllerClass.getConstructor();
+    }
+
+    /**
+     * Returns an instance to handle one message. Every call must be paired with {@link #release(long, Object)}.
+     *
+     * @param webViewHandle The web view the message came from.
+     * @param mayWait       Whether the caller may block until an instance is free; {@code false} on the UI thread.
+     * @return The controller instance.
+     */
+    abstract Object acquire(long webViewHandle, boolean mayWait) throws Exception;
+
+    /**
+     * Returns an instance obtained from {@link #acquire(long, boolean)} once the message has been handled.
+     */
+    void release(long webViewHandle, Object instance) {
+    }
+
+    /**
+     * Called when the routes go live.
+     */
+    void start() throws Exception {
+    }
+
+    /**
+     * Called after the window hosting the given web view has been closed.
+     */
+    void windowClosed(long webViewHandle) {
+    }
+
+    Lifecycle lifecycle() {
+        return Lifecycle.LAZY;
+    }
+
+    Class<?> controllerClass() {
+        return controllerClass;
+    }
+
+    Object newInstance() throws Exception {
+        Object[] arguments = new Object[parameterTypes.length];
+        for (int i = 0; i < parameterTypes.length; i++) {
+            arguments[i] = services.get(parameterTypes[i]);
+        }
+        try {
+            Object instance = constructor.invokeWithArguments(arguments);
+            log.debug("[KonaRouter] Created {} with {}", controllerClass.getName(), Arrays.toString(parameterTypes));
+            return instance;
+        } catch (Exception e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException("Failed to create controller " + controllerClass.getName(), e);
+        }
+    }
+
+    private static final class Lazy extends ControllerProvider {
+        private volatile Object instance;
+
+        Lazy(Class<?> controllerClass, ServiceRegistry services) throws ReflectiveOperationException {
+            super(controllerClass, services);
+        }
+
+        @Override
+        Object acquire(long webViewHandle, boolean mayWait) throws Exception {
+            Object current = instance;
+            if (current == null) {
+                synchronized (this) {
+                    current = instance;
+                    if (current == null) {
+                        current = newInstance();
+                        instance = current;
+                    }
+                }
+            }
+            return current;
+        }
+    }
+
+    private static final class Eager extends ControllerProvider {
+        private volatile Object instance;
+
+        Eager(Class<?> controllerClass, ServiceRegistry services) throws ReflectiveOperationException {
+            super(controllerClass, services);
+        }
+
+        @Override
+        synchronized void start() throws Exception {
+            if (instance == null) {
+                instance = newInstance();
+            }
+        }
+
+        @Override
+        Object acquire(long webViewHandle, boolean mayWait) throws Exception {
+            Object current = instance;
+            if (current == null) {
+                start();
+                current = instance;
+            }
+            return current;
+        }
+
+        @Override
+        Lifecycle lifecycle() {
+            return Lifecycle.EAGER;
+        }
+    }
+
+    private static final class Pooled extends ControllerProvider {
+        private final int maxSize;
+        private final long timeoutMillis;
+        private final BlockingQueue<Object> idle;
+        private final AtomicInteger created = new AtomicInteger();
+
+        Pooled(Class<?> controllerClass, ServiceRegistry services, int maxSize, long timeoutMillis) throws ReflectiveOperationException {
+            super(controllerClass, services);
+            this.maxSize = maxSize;
+            this.timeoutMillis = timeoutMillis;
+            this.idle = new ArrayBlockingQueue<>(maxSize);
+        }
+
+        @Override
+        Object acquire(long webViewHandle, boolean mayWait) throws Exception {
+            Object instance = idle.poll();
+            if (instance != null) {
+                return instance;
+            }
+            int count = created.get();
+            while (count < maxSize) {
+                if (created.compareAndSet(count, count + 1)) {
+                    try {
+                        return newInstance();
+                    } catch (Exception e) {
+                        created.decrementAndGet();
+                        throw e;
+                    }
+                }
+                count = created.get();
+            }
+            if (!mayWait) {
+                // Blocking here would freeze the window until another thread releases an instance
+                throw new IllegalStateException("All " + maxSize + " instances of " + controllerClass().getName()
+                        + " are busy and the UI thread cannot wait for one");
+            }
+            instance = idle.poll(timeoutMillis, TimeUnit.MILLISECONDS);
+            if (instance == null) {
+                throw new IllegalStateException("All " + maxSize + " instances of " + controllerClass().getName()
+                        + " stayed busy for " + timeoutMillis + " ms");
+            }
+            return instance;
+        }
+
+        @Override
+        void release(long webViewHandle, Object instance) {
+            idle.offer(instance);
+        }
+
+        @Override
+        Lifecycle lifecycle() {
+            return Lifecycle.POOLED;
+        }
+    }
+
+    private static final class PerWindow extends ControllerProvider {
+        private final Map<Long, Object> instances = new ConcurrentHashMap<>();
+
+        PerWindow(Class<?> controllerClass, ServiceRegistry services) throws ReflectiveOperationException {
+            super(controllerClass, services);
+        }
+
+        @Override
+        Object acquire(long webViewHandle, boolean mayWait) throws Exception {
+            Object instance = instances.get(webViewHandle);
+            if (instance != null) {
+                return instance;
+            }
+            synchronized (this) {
+                instance = instances.get(webViewHandle);
+                if (instance == null) {
+                    instance = newInstance();
+                    instances.put(webViewHandle, instance);
+                }
+                return instance;
+            }
+        }
+
+        @Override
+        void windowClosed(long webViewHandle) {
+            Object instance = instances.remove(webViewHandle);
+            if (instance instanceof AutoCloseable closeable) {
+                try {
+                    closeable.close();
+                } catch (Exception e) {
+                    log.error("[KonaRouter] Failed to close per-window controller {}", instance.getClass().getName(), e);
+                }
+            }
+        }
+
+        @Override
+        Lifecycle lifecycle() {
+            return Lifecycle.PER_WINDOW;
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package io.github.hubertkuch.kona.routing;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.StructuredTaskScope;
+import java.util.concurrent.StructuredTaskScope.Joiner;
+import java.util.concurrent.StructuredTaskScope.Subtask;
+import java.util.function.Function;
+
+/**
+ * Subtasks of a handler that run concurrently on virtual threads and must all succeed, created with
+ * {@link HandlerContext#fanOut()}.
+ * <p>
+ * A thin layer over {@link StructuredTaskScope}: the scope times out at the request's
+ * {@link HandlerContext#deadline() deadline}, is cancelled together with the request, and reports the result
+ * of each named subtask to the page as it finishes. Like the scope, it must be used and closed by the thread
+ * that created it.
+ */
+public final class FanOut implements AutoCloseable {
+
+    private final HandlerContext context;
+    private final StructuredTaskScope<Object, Void> scope;
+
+    private FanOut(HandlerContext context, StructuredTaskScope<Object, Void> scope) {
+        this.context = context;
+        this.scope = scope;
+    }
+
+    static FanOut all(HandlerContext context) {
+        return new FanOut(context, StructuredTaskScope.open(Joiner.awaitAllSuccessfulOrThrow(), configuration(context)));
+    }
+
+    static <T> T firstSuccessful(HandlerContext context, List<? extends Callable<? extends T>> tasks) {
+        try (var scope = StructuredTaskScope.open(Joiner.<T>anySuccessfulResultOrThrow(), configuration(context))) {
+            tasks.forEach(scope::fork);
+            return join(context, scope);
+        }
+    }
+
+    private static Function<StructuredTaskScope.Configuration, StructuredTaskScope.Configuration> configuration(HandlerContext context) {
+        return configuration -> {
+            configuration = configuration.withName("kona-" + context.controller() + "/" + context.action());
+            Instant deadline = context.deadline();
+            if (deadline != null) {
+                // A deadline that has already passed times the scope out right away
+                long remaining = Duration.between(Instant.now(), deadline).toNanos();
+                configuration = configuration.withTimeout(Duration.ofNanos(Math.max(remaining, 1)));
+            }
+            return configuration;
+        };
+    }
+
+    private static <R> R join(HandlerContext context, StructuredTaskScope<?, R> scope) {
+        context.beginJoin();
+        try {
+            return scope.join();
+        } catch (InterruptedException e) {
+            if (!context.isCancelled()) {
+                Thread.currentThread().interrupt();
+            }
+            throw new CancellationException("Request " + context.controller() + "/" + context.action() + " was cancelled");
+        } finally {
+            context.endJoin();
+        }
+    }
+
+    /**
+     * Starts a subtask whose result is sent to the page as a {@code kona:partial} event when it succeeds.
+     *
+     * @param name The name the page receives the result under.
+     * @param task The task.
+     * @param <T>  The result type.
+     * @return The subtask, whose {@link Subtask#get()} returns the result after {@link #join()}.
+     */
+    public <T> Subtask<T> fork(String name, Callable<? extends T> task) {
+        return scope.fork(() -> {
+            T result = task.call();
+            context.sendPartial(name, result);
+            return result;
+        });
+    }
+
+    /**
+     * Starts a subtask whose result is only used by the handler.
+     *
+     * @param task The task.
+     * @param <T>  The result type.
+     * @return The subtask, whose {@link Subtask#get()} returns the result after {@link #join()}.
+     */
+    public <T> Subtask<T> fork(Callable<? extends T> task) {
+        return scope.fork(task);
+    }
+
+    /**
+     * Waits until every subtask has succeeded, or one has failed and the others are cancelled.
+     *
+     * @throws StructuredTaskScope.FailedException  If a subtask failed; its exception is the cause.
+     * @throws StructuredTaskScope.TimeoutException If the request's deadline passed first.
+     * @throws CancellationException If the request was cancelled.
+     */
+    public void join() {
+        join(context, scope);
+    }
+
+    /**
+     * Cancels subtasks that are still running and waits for them to finish.
+     */
+    @Override
+    public void close() {
+        scope.close();
+    }
+}
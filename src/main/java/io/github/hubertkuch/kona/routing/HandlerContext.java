@@ -0,0 +1,186 @@
+package io.github.hubertkuch.kona.routing;
+
+import io.github.hubertkuch.kona.message.Priority;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.function.BiConsumer;
+
+/**
+ * Describes the message a handler is invoked for.
+ * <p>
+ * A {@code @MessageHandler} method receives it by declaring a parameter of this type, next to or instead of
+ * its payload:
+ * <pre>{@code
+ * @MessageHandler(action = "subscribe")
+ * public Snapshot subscribe(SubscribeRequest request, HandlerContext context) {
+ *     subscribers.add(context.webViewHandle());
+ *     // ...
+ * }
+ * }</pre>
+ * It also lets a handler query several sources concurrently, with the request's deadline and cancellation
+ * applied to every subtask; see {@link #fanOut()} and {@link #firstSuccessful(List)}.
+ */
+public final class HandlerContext {
+
+    private final long webViewHandle;
+    private final String controller;
+    private final String action;
+    private final String callbackId;
+    private final Priority priority;
+    private final Instant deadline;
+    private final BiConsumer<String, Object> partials;
+    private final long receivedAtNanos = System.nanoTime();
+
+    private volatile boolean cancelled;
+    // The thread waiting for a fan-out, interrupted on cancellation; guarded by this
+    private Thread joining;
+
+    HandlerContext(long webViewHandle, String controller, String action, String callbackId, Priority priority,
+                   Instant deadline, BiConsumer<String, Object> partials) {
+        this.webViewHandle = webViewHandle;
+        this.controller = controller;
+        this.action = action;
+        this.callbackId = callbackId;
+        this.priority = priority;
+        this.deadline = deadline;
+        this.partials = partials;
+    }
+
+    /**
+     * @return The native handle of the web view that sent the message.
+     */
+    public long webViewHandle() {
+        return webViewHandle;
+    }
+
+    /**
+     * @return The name of the controller the message was addressed to.
+     */
+    public String controller() {
+        return controller;
+    }
+
+    /**
+     * @return The action the message was addressed to.
+     */
+    public String action() {
+        return action;
+    }
+
+    /**
+     * @return The callback id of the message, or {@code null} if the frontend does not expect a response.
+     */
+    public String callbackId() {
+        return callbackId;
+    }
+
+    /**
+     * @return The priority the message is handled with.
+     */
+    public Priority priority() {
+        return priority;
+    }
+
+    /**
+     * @return When the frontend stops waiting for the response, or {@code null} if it waits indefinitely.
+     */
+    public Instant deadline() {
+        return deadline;
+    }
+
+    /**
+     * Whether the request was cancelled, by the frontend through {@code kona.request/cancel} or because its
+     * window closed. Long-running handlers can check it to stop early; no response is sent for a cancelled
+     * request.
+     *
+     * @return {@code true} if the request was cancelled.
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Opens a scope for subtasks that run concurrently on virtual threads and must all succeed:
+     * <pre>{@code
+     * @MessageHandler(action = "dashboard")
+     * public Dashboard dashboard(DashboardRequest request, HandlerContext context) {
+     *     try (FanOut fanOut = context.fanOut()) {
+     *         var orders = fanOut.fork("orders", () -> orderService.recent(request.user()));
+     *         var stats = fanOut.fork("stats", () -> statsService.summary(request.user()));
+     *         fanOut.join();
+     *         return new Dashboard(orders.get(), stats.get());
+     *     }
+     * }
+     * }</pre>
+     * The view loads in the time of the slowest source rather than the sum of all of them. As soon as one
+     * subtask fails, the others are cancelled. Each named subtask's result is sent to the page as a
+     * {@code kona:partial} event when it finishes, so the page can render it before the whole response arrives.
+     *
+     * @return The scope; it must be closed by the handler thread, typically with try-with-resources.
+     */
+    public FanOut fanOut() {
+        return FanOut.all(this);
+    }
+
+    /**
+     * Runs the given tasks concurrently on virtual threads and returns the result of the first one that
+     * succeeds, e.g. to query replicas or caches and use whichever answers first. The remaining tasks are
+     * cancelled.
+     *
+     * @param tasks The tasks.
+     * @param <T>   The result type.
+     * @return The first successful result.
+     * @throws java.util.concurrent.StructuredTaskScope.FailedException  If every task failed.
+     * @throws java.util.concurrent.StructuredTaskScope.TimeoutException If the request's deadline passed first.
+     * @throws CancellationException If the request was cancelled.
+     */
+    public <T> T firstSuccessful(List<? extends Callable<? extends T>> tasks) {
+        return FanOut.firstSuccessful(this, tasks);
+    }
+
+    /**
+     * @return The {@link System#nanoTime()} at which the message was dispatched, for latency measurements.
+     */
+    long receivedAtNanos() {
+        return receivedAtNanos;
+    }
+
+    /**
+     * Cancels the request, interrupting a fan-out the handler is waiting for.
+     */
+    synchronized void cancel() {
+        cancelled = true;
+        if (joining != null) {
+            joining.interrupt();
+        }
+    }
+
+    void sendPartial(String name, Object value) {
+        if (!cancelled) {
+            partials.accept(name, value);
+        }
+    }
+
+    /**
+     * Marks the calling thread as waiting for a fan-out, so that {@link #cancel()} can interrupt it.
+     */
+    synchronized void beginJoin() {
+        if (cancelled) {
+            throw new CancellationException("Request " + controller + "/" + action + " was cancelled");
+        }
+        joining = Thread.currentThread();
+    }
+
+    void endJoin() {
+        synchronized (this) {
+            joining = null;
+        }
+        if (cancelled) {
+            // Do not leave a cancellation interrupt behind on a pooled dispatch thread
+            Thread.interrupted();
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package io.github.hubertkuch.kona.routing;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import io.github.hubertkuch.kona.message.Preload;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Runs the {@link Preload} handlers of a route table in parallel and turns their results into a script that
+ * defines {@code window.__konaPreload}, for injection into the page at document start. The bridge runtime
+ * resolves the first matching request from it.
+ * <p>
+ * The script maps {@code "<controller>/<action>"} to {@code {"payload": ..., "value": ...}}.
+ */
+public final class HandlerPreloader {
+
+    private static final Logger log = LoggerFactory.getLogger(HandlerPreloader.class);
+
+    /**
+     * The global the script assigns.
+     */
+    public static final String GLOBAL = "__konaPreload";
+
+    private final Gson gson = new Gson();
+    // The JSON of each completed entry, by route
+    private final Map<String, String> results = new ConcurrentHashMap<>();
+    private final CompletableFuture<Void> done;
+    // The number of preload handlers found, or -1 while the routes are not known yet
+    private volatile int targets = -1;
+
+    private HandlerPreloader(CompletableFuture<RouteTable> routes, KonaRouterImpl router, Executor executor) {
+        this.done = routes.thenCompose(table -> run(table, router, executor));
+    }
+
+    /**
+     * Starts the preload handlers of a route table once it is available.
+     *
+     * @param routes   The routes, e.g. from a controller scan still in progress.
+     * @param router   The router whose handler instances and serialization are used.
+     * @param executor Runs the handlers.
+     * @return The preloader.
+     */
+    public static HandlerPreloader start(CompletableFuture<RouteTable> routes, KonaRouterImpl router, Executor executor) {
+        return new HandlerPreloader(routes, router, executor);
+    }
+
+    /**
+     * @return A future completed once every preload has finished or failed.
+     */
+    public CompletableFuture<Void> done() {
+        return done;
+    }
+
+    /**
+     * Waits for the preloads up to a budget and builds the script from those that completed. Returns at once
+     * when the routes are known to have no preload handlers.
+     *
+     * @param budget How long to wait at most.
+     * @return The script, or {@code null} if no preload completed in time.
+     */
+    public String script(Duration budget) {
+        if (targets == 0) {
+            return null;
+        }
+        try {
+            done.get(budget.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            log.info("[Kona] Preloads did not finish within {} ms; the page requests the rest itself.", budget.toMillis());
+        } catch (ExecutionException e) {
+            log.warn("[Kona] Cannot run preloads: {}", e.getCause().getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        Map<String, String> completed = Map.copyOf(results);
+        if (completed.isEmpty()) {
+            return null;
+        }
+        StringBuilder script = new StringBuilder("window.").append(GLOBAL).append(" = {");
+        String separator = "";
+        for (Map.Entry<String, String> entry : completed.entrySet()) {
+            script.append(separator).append(gson.toJson(entry.getKey())).append(':').append(entry.getValue());
+            separator = ",";
+        }
+        return script.append("};").toString();
+    }
+
+    private CompletableFuture<Void> run(RouteTable table, KonaRouterImpl router, Executor executor) {
+        List<CompletableFuture<?>> preloads = new ArrayList<>();
+        table.routes().forEach((controller, actions) -> actions.forEach((action, target) -> {
+            Preload preload = target.method().getAnnotation(Preload.class);
+            if (preload == null) {
+                return;
+            }
+            String payload;
+            try {
+                payload = preload.payload().isBlank() ? null : JsonParser.parseString(preload.payload()).toString();
+            } catch (JsonParseException e) {
+                log.warn("[Kona] Cannot preload {} -> {}: invalid payload {}", controller, action, preload.payload());
+                return;
+            }
+            if (target.payloadType() != null && payload == null) {
+                log.warn("[Kona] Cannot preload {} -> {}: its handler takes a payload, but @Preload has none.", controller, action);
+                return;
+            }
+            String route = controller + "/" + action;
+            preloads.add(CompletableFuture.supplyAsync(System::nanoTime, executor)
+                    .thenCompose(start -> router.invoke(controller, action, target, payload).thenApply(json -> {
+                        results.put(route, "{\"payload\":" + payload + ",\"value\":" + json + "}");
+                        log.debug("[Kona] Preloaded {} in {} ms", route, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+                        return json;
+                    }))
+                    .exceptionally(error -> {
+                        log.warn("[Kona] Preload of {} failed; the page requests it itself.", route, error);
+                        return null;
+                    }));
+        }));
+        targets = preloads.size();
+        return CompletableFuture.allOf(preloads.toArray(CompletableFuture[]::new));
+    }
+}
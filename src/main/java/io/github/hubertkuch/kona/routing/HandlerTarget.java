@@ -0,0 +1,45 @@
+package io.github.hubertkuch.kona.routing;
+
+import com.google.gson.reflect.TypeToken;
+import io.github.hubertkuch.kona.message.Parallel;
+import io.github.hubertkuch.kona.message.Priority;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Type;
+import java.util.List;
+
+/**
+ * A resolved route: the controller and the {@code @MessageHandler} method that serves one action.
+ *
+ * @param controller    Supplies the controller instance the method is invoked on.
+ * @param method        The handler method.
+ * @param payloadType   The type the JSON payload is decoded into, or {@code null} if the handler takes no payload.
+ * @param codec         The name of the codec responses are encoded with, unless the message asks for another.
+ * @param priority      The priority of messages for this action, unless the message asks for another.
+ * @param gate          Coalesces, debounces or throttles messages for this action, or {@code null}.
+ * @param timeoutMillis The deadline of requests for this action, unless the message sets another; {@code 0} for none.
+ * @param parallel      How a list payload is split for a per-element handler, or {@code null} if the handler
+ *                      takes the payload as a whole.
+ */
+record HandlerTarget(ControllerProvider controller, Method method, Class<?> payloadType, String codec, Priority priority,
+                     MessageGate gate, long timeoutMillis, Parallel parallel) {
+
+    /**
+     * @return The type a payload is decoded into: a list of elements for a {@link Parallel} handler.
+     */
+    Type decodedType() {
+        return parallel != null ? TypeToken.getParameterized(List.class, payloadType).getType() : payloadType;
+    }
+
+    /**
+     * @return The arguments for one invocation of the handler method.
+     */
+    Object[] arguments(HandlerContext context, Object payload) {
+        Class<?>[] parameterTypes = method.getParameterTypes();
+        Object[] arguments = new Object[parameterTypes.length];
+        for (int i = 0; i < parameterTypes.length; i++) {
+            arguments[i] = parameterTypes[i] == HandlerContext.class ? context : payload;
+        }
+        return arguments;
+    }
+}
@@ -0,0 +1,54 @@
+package io.github.hubertkuch.kona.routing;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The requests with a callback id that are being handled, so that they can be cancelled.
+ * Registered as a service by {@link KonaRouterImpl}.
+ */
+public final class InFlightRequests {
+
+    private record Key(long webViewHandle, String callbackId) {}
+
+    private final Map<Key, HandlerContext> requests = new ConcurrentHashMap<>();
+
+    void add(HandlerContext context) {
+        requests.put(new Key(context.webViewHandle(), context.callbackId()), context);
+    }
+
+    void remove(HandlerContext context) {
+        requests.remove(new Key(context.webViewHandle(), context.callbackId()), context);
+    }
+
+    /**
+     * Cancels a request that is being handled. Does nothing if it has already completed.
+     *
+     * @param webViewHandle The native handle of the web view that sent the request.
+     * @param callbackId    The callback id of the request.
+     * @return {@code true} if a request was cancelled.
+     */
+    public boolean cancel(long webViewHandle, String callbackId) {
+        HandlerContext context = requests.remove(new Key(webViewHandle, callbackId));
+        if (context == null) {
+            return false;
+        }
+        context.cancel();
+        return true;
+    }
+
+    /**
+     * Cancels every request of a web view, e.g. once its window is closed.
+     *
+     * @param webViewHandle The native handle of the web view.
+     */
+    public void cancelAll(long webViewHandle) {
+        requests.values().removeIf(context -> {
+            if (context.webViewHandle() != webViewHandle) {
+                return false;
+            }
+            context.cancel();
+            return true;
+        });
+    }
+}
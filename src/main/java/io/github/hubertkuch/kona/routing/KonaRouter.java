@@ -11,4 +11,32 @@ public interface KonaRouter {
      * @param message The raw message string, expected to be in JSON format.
      */
     void onMessage(String message);
+
+    /**
+     * Called when a message is received from one of several web views attached to the same router.
+     * Responses should be delivered to the web view the message came from.
+     * <p>
+     * The default implementation ignores the origin and delegates to {@link #onMessage(String)}.
+     *
+     * @param webViewHandle The native handle of the web view that sent the message.
+     * @param message       The raw message string, expected to be in JSON format.
+     */
+    default void onMessage(long webViewHandle, String message) {
+        onMessage(message);
+    }
+
+    /**
+     * Called when a message is posted with a reply, so its response resolves the page's promise directly.
+     * <p>
+     * The default implementation handles the message like any other and {@link MessageReply#detach() detaches}
+     * the reply, leaving the response to the callback path.
+     *
+     * @param webViewHandle The native handle of the web view that sent the message.
+     * @param message       The raw message string, expected to be in JSON format.
+     * @param reply         The reply to complete on the UI thread.
+     */
+    default void onMessage(long webViewHandle, String message, MessageReply reply) {
+        onMessage(webViewHandle, message);
+        reply.detach();
+    }
 }
@@ -1,24 +1,53 @@
 package io.github.hubertkuch.kona.routing;
 
 import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
+import com.google.gson.reflect.TypeToken;
 import io.github.hubertkuch.kona.application.AppWindow;
+import io.github.hubertkuch.kona.codec.CborCodec;
+import io.github.hubertkuch.kona.codec.GeneratedTypeAdapterFactory;
+import io.github.hubertkuch.kona.codec.MessageCodec;
+import io.github.hubertkuch.kona.codec.MessagePackCodec;
+import io.github.hubertkuch.kona.diagnostics.StallWatchdog;
 import io.github.hubertkuch.kona.message.KonaController;
+import io.github.hubertkuch.kona.message.Lifecycle;
 import io.github.hubertkuch.kona.message.MessageHandler;
-import io.github.hubertkuch.kona.message.Payload;
-import org.reflections.Reflections;
+import io.github.hubertkuch.kona.message.Priority;
+import io.github.hubertkuch.kona.paging.CursorRegistry;
+import io.github.hubertkuch.kona.paging.Page;
+import io.github.hubertkuch.kona.paging.PagedResult;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import io.github.hubertkuch.kona.application.GtkWindow;
 import io.github.hubertkuch.kona.application.WebView;
 
-import java.lang.reflect.Method;
-import java.util.HashMap;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.WildcardType;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
-import java.util.Set;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
 
 /**
  * The default implementation of the {@link KonaRouter} interface.
@@ -29,28 +58,135 @@ import java.util.Set;
 public class KonaRouterImpl implements KonaRouter {
 
     private static final Logger log = LoggerFactory.getLogger(KonaRouterImpl.class);
-    private final Gson gson = new Gson();
+    private static final GeneratedTypeAdapterFactory generatedCodecs = GeneratedTypeAdapterFactory.load();
+    private static final Executor INLINE = Runnable::run;
+    private final Gson gson = new GsonBuilder().registerTypeAdapterFactory(generatedCodecs).create();
     private final AppWindow window;
     private final WebView webView;
     private final long webViewHandle;
+    private final ServiceRegistry services;
+    private final Map<String, MessageCodec> codecs = new ConcurrentHashMap<>();
+    private final CursorRegistry cursors;
+    private final InFlightRequests inFlight;
+    private volatile Executor dispatchExecutor = INLINE;
+    private volatile TrafficObserver trafficObserver;
+    private volatile StallWatchdog stallWatchdog;
+    private volatile ForkJoinPool parallelPool = ForkJoinPool.commonPool();
+    private final PriorityLanes<Runnable> inbound = new PriorityLanes<>();
 
-    private record HandlerTarget(Object instance, Method method, Class<?> payloadType) {}
-    private final Map<String, Map<String, HandlerTarget>> routes = new HashMap<>();
+    private static final int MAX_PENDING_MESSAGES = 1024;
+    private static final long PENDING_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    private record PendingMessage(long webViewHandle, String message, MessageReply reply, long receivedAtNanos) {}
+    private final Map<String, Map<String, HandlerTarget>> routes = new ConcurrentHashMap<>();
+    private final Deque<PendingMessage> pending = new ArrayDeque<>();
+    private volatile boolean ready;
 
     /**
      * Constructs a new KonaRouterImpl.
      *
      * @param window        The main application window, used for scheduling tasks on the UI thread.
      * @param webView       The WebView instance, used for running JavaScript.
-     * @param webViewHandle The native handle of the WebView widget.
+     * @param webViewHandle The native handle of the WebView widget that receives responses
+     *                      to messages without a known origin.
      */
     public KonaRouterImpl(AppWindow window, WebView webView, long webViewHandle) {
+        this(window, webView, webViewHandle, new ServiceRegistry());
+    }
+
+    /**
+     * Constructs a new KonaRouterImpl whose controllers can be injected with the given services.
+     *
+     * @param window        The main application window, used for scheduling tasks on the UI thread.
+     * @param webView       The WebView instance, used for running JavaScript.
+     * @param webViewHandle The native handle of the WebView widget that receives responses
+     *                      to messages without a known origin.
+     * @param services      The services available for controller constructor injection.
+     */
+    public KonaRouterImpl(AppWindow window, WebView webView, long webViewHandle, ServiceRegistry services) {
         this.window = window;
         this.webView = webView;
         this.webViewHandle = webViewHandle;
+        this.services = services;
+        if (!services.contains(CursorRegistry.class)) {
+            services.register(CursorRegistry.class, new CursorRegistry());
+        }
+        this.cursors = services.get(CursorRegistry.class);
+        if (!services.contains(InFlightRequests.class)) {
+            services.register(InFlightRequests.class, new InFlightRequests());
+        }
+        this.inFlight = services.get(InFlightRequests.class);
+        registerCodec(new CborCodec(gson));
+        registerCodec(new MessagePackCodec(gson));
         log.info("[KonaRouter] Initialized.");
     }
 
+    /**
+     * @return The services available for controller constructor injection.
+     */
+    public ServiceRegistry services() {
+        return services;
+    }
+
+    /**
+     * Sets the executor that invokes handler methods. By default handlers run directly on the thread that
+     * delivered the message, i.e. the UI thread. With a multi-threaded executor, messages are handled
+     * concurrently; controllers that are not thread-safe should then use {@link Lifecycle#POOLED}
+     * or {@link Lifecycle#PER_WINDOW}.
+     * <p>
+     * Messages waiting for the executor are queued by {@link Priority}: whenever the executor runs a dispatch,
+     * it takes the next message in the weighted order of the priority lanes rather than the oldest one.
+     *
+     * @param dispatchExecutor The executor for handler invocations.
+     */
+    public void setDispatchExecutor(Executor dispatchExecutor) {
+        this.dispatchExecutor = Objects.requireNonNull(dispatchExecutor);
+    }
+
+    /**
+     * Sets the pool that runs the chunks of {@link io.github.hubertkuch.kona.message.Parallel} handlers.
+     * By default they run on the common fork/join pool; the thread that dispatched the message does not wait for them.
+     *
+     * @param parallelPool The pool.
+     */
+    public void setParallelPool(ForkJoinPool parallelPool) {
+        this.parallelPool = Objects.requireNonNull(parallelPool);
+    }
+
+    /**
+     * Sets an observer for incoming messages and handler latencies, e.g. a
+     * {@link io.github.hubertkuch.kona.recording.TrafficRecorder}.
+     *
+     * @param trafficObserver The observer, or {@code null} to stop observing.
+     */
+    public void setTrafficObserver(TrafficObserver trafficObserver) {
+        this.trafficObserver = trafficObserver;
+    }
+
+    /**
+     * Marks handlers that run on the UI thread as its activity, so a stall is attributed to the route that caused
+     * it rather than to the message upcall.
+     *
+     * @param stallWatchdog The watchdog, or {@code null} to stop marking handlers.
+     */
+    public void setStallWatchdog(StallWatchdog stallWatchdog) {
+        this.stallWatchdog = stallWatchdog;
+    }
+
+    /**
+     * Makes a wire format available to routes and messages, replacing any codec with the same name.
+     * CBOR ({@code "cbor"}) and MessagePack ({@code "msgpack"}) are registered by default.
+     *
+     * @param codec The codec to register.
+     */
+    public void registerCodec(MessageCodec codec) {
+        if (MessageCodec.JSON.equals(codec.name())) {
+            throw new IllegalArgumentException("The JSON codec is built in and cannot be replaced");
+        }
+        codecs.put(codec.name(), codec);
+        log.debug("[KonaRouter] Registered codec: {}", codec.name());
+    }
+
     /**
      * Scans the specified package for classes annotated with {@link KonaController}
      * and registers them as message handlers.
@@ -58,45 +194,190 @@ public class KonaRouterImpl implements KonaRouter {
      * @param packageName The name of the package to scan (e.g., "com.example.controllers").
      */
     public void registerPackage(String packageName) {
-        Reflections reflections = new Reflections(packageName);
-        Set<Class<?>> controllerClasses = reflections.getTypesAnnotatedWith(KonaController.class);
+        activate(RouteTable.scan(packageName, services));
+    }
+
+    /**
+     * Discards the per-window controller instances of a web view whose window has been closed.
+     *
+     * @param webViewHandle The native handle of the closed window's web view.
+     */
+    public void windowClosed(long webViewHandle) {
+        routes.values().stream()
+                .flatMap(actions -> actions.values().stream())
+                .map(HandlerTarget::controller)
+                .distinct()
+                .forEach(controller -> controller.windowClosed(webViewHandle));
+        cursors.closeAll(webViewHandle);
+        inFlight.cancelAll(webViewHandle);
+    }
+
+    /**
+     * Reports how many messages of each coalesced, debounced or throttled action were handled and dropped.
+     *
+     * @return The statistics by {@code controller/action}.
+     */
+    public Map<String, CoalescingStats> coalescingStats() {
+        Map<String, CoalescingStats> stats = new TreeMap<>();
+        routes.forEach((controller, actions) -> actions.forEach((action, target) -> {
+            if (target.gate() != null) {
+                stats.put(controller + "/" + action, target.gate().stats());
+            }
+        }));
+        return stats;
+    }
 
-        log.info("[KonaRouter] Scanning {}...", packageName);
-        if (controllerClasses.isEmpty()) {
-            log.warn("[KonaRouter] No @KonaController classes found in package: {}", packageName);
+    /**
+     * Warms up the JSON adapters for every payload and return type in the given table.
+     * Types with a codec generated by {@code kona-processor} use it; the rest fall back to Gson's
+     * reflective adapters, which are built lazily on first use. Doing it here moves that cost
+     * off the first message of each route. Safe to call from any thread.
+     *
+     * @param table The routes whose codecs should be prepared.
+     */
+    public void prepareCodecs(RouteTable table) {
+        int generated = 0;
+        int reflective = 0;
+        for (HandlerTarget target : table.targets()) {
+            if (target.payloadType() != null) {
+                gson.getAdapter(target.payloadType());
+                if (generatedCodecs.isGenerated(target.payloadType())) {
+                    generated++;
+                } else {
+                    reflective++;
+                }
+            }
+            Type returnType = responseType(target.method().getGenericReturnType());
+            if (returnType != void.class && returnType != Void.class) {
+                TypeToken<?> returnToken = TypeToken.get(returnType);
+                gson.getAdapter(returnToken);
+                if (generatedCodecs.isGenerated(returnToken.getRawType())) {
+                    generated++;
+                } else {
+                    reflective++;
+                }
+            }
         }
-        for (Class<?> controllerClass : controllerClasses) {
+        log.debug("[KonaRouter] Prepared codecs: {} generated, {} reflective", generated, reflective);
+    }
+
+    /**
+     * Installs routes that were scanned elsewhere, typically on a background thread during startup.
+     * The routes go live on the UI thread, after which any messages queued while the router was not
+     * ready are dispatched in their arrival order.
+     *
+     * @param table The routes to add to this router.
+     * @return A future completed once the routes are live.
+     */
+    public CompletableFuture<Void> install(RouteTable table) {
+        CompletableFuture<Void> installed = new CompletableFuture<>();
+        window.scheduleTask(() -> {
             try {
-                KonaController controllerAnnotation = controllerClass.getAnnotation(KonaController.class);
-                String controllerName = controllerAnnotation.name();
-                Object controllerInstance = controllerClass.getDeclaredConstructor().newInstance();
-
-                Map<String, HandlerTarget> actionMap = new HashMap<>();
-                for (Method method : controllerClass.getDeclaredMethods()) {
-                    if (method.isAnnotationPresent(MessageHandler.class)) {
-                        MessageHandler handlerAnnotation = method.getAnnotation(MessageHandler.class);
-                        String actionName = handlerAnnotation.action();
-
-                        Class<?> payloadType = null;
-                        if (method.getParameterCount() == 1) {
-                            payloadType = method.getParameterTypes()[0];
-                            if (! Payload.class.isAssignableFrom(payloadType)) {
-                                log.warn("Payload type {} does not implement Payload interface.", payloadType.getName());
-                            }
-                        } else if (method.getParameterCount() > 1) {
-                            log.warn("@MessageHandler {} has > 1 param. Only one (Payload object) or zero params are supported.", actionName);
-                        }
-
-                        actionMap.put(actionName, new HandlerTarget(controllerInstance, method, payloadType));
-                        log.info("  -> Registered: {} -> {}", controllerName, actionName);
-                    }
-                }
-                routes.put(controllerName, actionMap);
+                activate(table);
+                installed.complete(null);
+            } catch (Exception e) {
+                installed.completeExceptionally(e);
+            }
+        });
+        return installed;
+    }
 
+    private void activate(RouteTable table) {
+        table.targets().stream().map(HandlerTarget::controller).distinct().forEach(controller -> {
+            try {
+                controller.start();
             } catch (Exception e) {
-                log.error("Failed to register controller: {}", controllerClass.getName(), e);
+                log.error("[KonaRouter] Failed to start {} controller", controller.lifecycle(), e);
+            }
+        });
+        routes.putAll(table.routes());
+        if (!table.channels().isEmpty()) {
+            Map<MessageChannel, ChannelReceiver> receivers = new LinkedHashMap<>();
+            table.channels().forEach(channel -> receivers.put(channel, receiver(channel)));
+            window.scheduleTask(() -> webView.openChannels(receivers));
+        }
+
+        List<PendingMessage> queued;
+        synchronized (pending) {
+            ready = true;
+            queued = new ArrayList<>(pending);
+            pending.clear();
+        }
+
+        if (!queued.isEmpty()) {
+            log.info("[KonaRouter] Routes ready, dispatching {} queued message(s).", queued.size());
+        }
+        long now = System.nanoTime();
+        for (PendingMessage message : queued) {
+            if (now - message.receivedAtNanos() > PENDING_TIMEOUT_NANOS) {
+                log.warn("[KonaRouter] Dropping message queued for more than {} ms: {}", PENDING_TIMEOUT_NANOS / 1_000_000, message.message());
+                reject(message.reply(), "Timed out waiting for routes");
+                continue;
             }
+            dispatch(message.webViewHandle(), message.message(), message.reply());
+        }
+    }
+
+    /**
+     * Invokes a handler outside any message and serializes its result as JSON, e.g. a
+     * {@link io.github.hubertkuch.kona.message.Preload} handler while the page is still loading. The handler runs
+     * on the calling thread for the main web view, and may be invoked before the routes are installed.
+     * Nothing is sent to the page.
+     *
+     * @param controllerName The name of the handler's controller.
+     * @param actionName     The handler's action.
+     * @param target         The handler, possibly from a {@link RouteTable} not installed yet.
+     * @param payload        The payload as JSON, or {@code null} for handlers without one.
+     * @return A future completed with the JSON of the result once the handler, or the stage it returns, completes.
+     */
+    CompletableFuture<String> invoke(String controllerName, String actionName, HandlerTarget target, String payload) {
+        return invoke(webViewHandle, controllerName, actionName, target, payload);
+    }
+
+    /**
+     * Invokes an installed handler outside any message and serializes its result as JSON, e.g. for a request
+     * forwarded from another process. The handler runs on the calling thread; nothing is sent to the page.
+     *
+     * @param webViewHandle  The native handle of the web view the request belongs to.
+     * @param controllerName The name of the handler's controller.
+     * @param actionName     The handler's action.
+     * @param payload        The payload as JSON, or {@code null} for handlers without one.
+     * @return A future completed with the JSON of the result, or exceptionally if there is no such route or the
+     * handler fails.
+     */
+    public CompletableFuture<String> invoke(long webViewHandle, String controllerName, String actionName, String payload) {
+        HandlerTarget target = findHandler(controllerName, actionName);
+        if (target == null) {
+            return CompletableFuture.failedFuture(
+                    new IllegalArgumentException("No route " + controllerName + " -> " + actionName));
+        }
+        return invoke(webViewHandle, controllerName, actionName, target, payload);
+    }
+
+    private CompletableFuture<String> invoke(long webViewHandle, String controllerName, String actionName,
+                                             HandlerTarget target, String payload) {
+        HandlerContext context = context(webViewHandle, controllerName, actionName, null, target.priority(), target.timeoutMillis());
+        CompletableFuture<String> json = new CompletableFuture<>();
+        try {
+            Object decoded = target.payloadType() == null || payload == null ? null : gson.fromJson(payload, target.decodedType());
+            Object result = invokeHandler(context, target, decoded);
+            CompletionStage<?> stage = result instanceof CompletionStage<?> async ? async : CompletableFuture.completedFuture(result);
+            stage.whenComplete((value, error) -> {
+                if (error != null) {
+                    json.completeExceptionally(error);
+                    return;
+                }
+                try {
+                    Object response = value instanceof PagedResult<?> paged ? cursors.open(paged, webViewHandle) : value;
+                    json.complete(gson.toJson(response, responseType(target)));
+                } catch (Exception e) {
+                    json.completeExceptionally(e);
+                }
+            });
+        } catch (Exception e) {
+            json.completeExceptionally(e);
         }
+        return json;
     }
 
     /**
@@ -105,6 +386,8 @@ public class KonaRouterImpl implements KonaRouter {
      * <p>
      * It parses the JSON message, identifies the target controller and action, deserializes the payload,
      * invokes the appropriate handler method, and sends back a response if a callback ID is provided.
+     * Messages received before any routes are installed are held in a bounded queue and dispatched
+     * once the routes go live.
      *
      * @param message The raw JSON message string from the frontend.
      *                The expected format is:
@@ -119,6 +402,58 @@ public class KonaRouterImpl implements KonaRouter {
      */
     @Override
     public void onMessage(String message) {
+        onMessage(webViewHandle, message);
+    }
+
+    /**
+     * Handles a message from a specific web view; the response, if any, is sent back to that web view.
+     * A handle of {@code 0} stands for the web view this router was constructed with.
+     *
+     * @param webViewHandle The native handle of the web view that sent the message.
+     * @param message       The raw JSON message string from the frontend.
+     */
+    @Override
+    public void onMessage(long webViewHandle, String message) {
+        accept(webViewHandle, message, null);
+    }
+
+    /**
+     * Handles a message posted with a reply. The handler's result resolves the reply instead of being sent
+     * to {@code window.kona.resolveCallback}; a message that fails, is cancelled or is superseded by a coalesced
+     * one rejects it. The callback ID, if present, still identifies the request for cancellation and partial results.
+     *
+     * @param webViewHandle The native handle of the web view that sent the message.
+     * @param message       The raw JSON message string from the frontend.
+     * @param reply         The reply, completed on the UI thread.
+     */
+    @Override
+    public void onMessage(long webViewHandle, String message, MessageReply reply) {
+        accept(webViewHandle, message, Objects.requireNonNull(reply));
+    }
+
+    private void accept(long webViewHandle, String message, MessageReply reply) {
+        long origin = webViewHandle != 0L ? webViewHandle : this.webViewHandle;
+        TrafficObserver observer = trafficObserver;
+        if (observer != null) {
+            observer.received(origin, message);
+        }
+        if (!ready) {
+            synchronized (pending) {
+                if (!ready) {
+                    if (pending.size() >= MAX_PENDING_MESSAGES) {
+                        PendingMessage oldest = pending.poll();
+                        log.warn("[KonaRouter] Pending queue full, dropping oldest message: {}", oldest.message());
+                        reject(oldest.reply(), "Pending queue full");
+                    }
+                    pending.add(new PendingMessage(origin, message, reply, System.nanoTime()));
+                    return;
+                }
+            }
+        }
+        dispatch(origin, message, reply);
+    }
+
+    private void dispatch(long webViewHandle, String message, MessageReply reply) {
         try {
             JsonObject messageObject = JsonParser.parseString(message).getAsJsonObject();
 
@@ -126,23 +461,260 @@ public class KonaRouterImpl implements KonaRouter {
             String actionName = messageObject.get("action").getAsString();
             String callbackId = messageObject.has("callbackId") ? messageObject.get("callbackId").getAsString() : null;
             JsonElement payloadElement = messageObject.get("payload");
+            String payloadFormat = messageObject.has("codec") ? messageObject.get("codec").getAsString() : MessageCodec.JSON;
+            String responseFormat = messageObject.has("accept") ? messageObject.get("accept").getAsString() : null;
+            String priorityName = messageObject.has("priority") ? messageObject.get("priority").getAsString() : null;
+            long timeoutMillis = messageObject.has("timeoutMillis") ? messageObject.get("timeoutMillis").getAsLong() : -1;
 
             if (controllerName == null || actionName == null) {
                 log.error("[KonaRouter] Invalid message: 'controller' or 'action' missing.");
+                reject(webViewHandle, callbackId, reply, "Invalid message");
                 return;
             }
 
             HandlerTarget target = findHandler(controllerName, actionName);
-            if (target == null) return; // Error already logged in findHandler
+            if (target == null) {
+                // Error already logged in findHandler
+                reject(webViewHandle, callbackId, reply, "No handler for " + controllerName + " -> " + actionName);
+                return;
+            }
 
-            Object result = invokeHandler(target, payloadElement);
+            MessageCodec payloadCodec = null;
+            if (!MessageCodec.JSON.equals(payloadFormat)) {
+                payloadCodec = codecs.get(payloadFormat);
+                if (payloadCodec == null) {
+                    log.error("[KonaRouter] Unknown payload codec: {}", payloadFormat);
+                    reject(webViewHandle, callbackId, reply, "Unknown payload codec " + payloadFormat);
+                    return;
+                }
+            }
+            MessageCodec responseCodec = responseCodec(responseFormat != null ? responseFormat : target.codec());
 
-            if (callbackId != null && result != null) {
-                sendResponse(callbackId, result);
+            MessageCodec decoder = payloadCodec;
+            Priority priority = priorityName != null ? priority(priorityName, target.priority()) : target.priority();
+            HandlerContext context = context(webViewHandle, controllerName, actionName, callbackId, priority,
+                    timeoutMillis >= 0 ? timeoutMillis : target.timeoutMillis());
+            Runnable invocation = () -> handle(context, target, () -> decodePayload(target, payloadElement, decoder), responseCodec, message, reply);
+            if (target.gate() != null) {
+                target.gate().submit(webViewHandle, target.gate().key(payloadElement), invocation,
+                        () -> reject(webViewHandle, callbackId, reply, "Superseded by a newer message"), drain -> execute(priority, drain));
+            } else {
+                execute(priority, invocation);
             }
 
         } catch (Exception e) {
             log.error("[KonaRouter] Error processing message: {}", message, e);
+            reject(reply, "Invalid message");
+        }
+    }
+
+    /**
+     * Binds a dedicated channel to its route, so its messages skip envelope parsing and the controller lookup.
+     * Action channels also skip the action lookup and resolve their response codec once.
+     */
+    private ChannelReceiver receiver(MessageChannel channel) {
+        Map<String, HandlerTarget> actions = routes.get(channel.controller());
+        if (channel.action() != null) {
+            HandlerTarget target = actions.get(channel.action());
+            MessageCodec responseCodec = responseCodec(target.codec());
+            return (webViewHandle, body) -> dispatchChannel(webViewHandle, channel.controller(), channel.action(), target, responseCodec, body, 0);
+        }
+        return (webViewHandle, body) -> {
+            int end = body.indexOf('\n');
+            String action = end < 0 ? body : body.substring(0, end);
+            HandlerTarget target = actions.get(action);
+            if (target == null || end < 0) {
+                log.error("[KonaRouter] No action found on channel {}: {}", channel.name(), action);
+                return;
+            }
+            dispatchChannel(webViewHandle, channel.controller(), action, target, responseCodec(target.codec()), body, end + 1);
+        };
+    }
+
+    /**
+     * Dispatches a channel message whose {@code <callbackId>\n<payload>} part starts at {@code start}.
+     */
+    private void dispatchChannel(long webViewHandle, String controllerName, String actionName, HandlerTarget target,
+                                 MessageCodec responseCodec, String body, int start) {
+        int end = body.indexOf('\n', start);
+        if (end < 0) {
+            log.error("[KonaRouter] Invalid message on channel for {} -> {}: {}", controllerName, actionName, body);
+            return;
+        }
+        String callbackId = end > start ? body.substring(start, end) : null;
+        String payload = body.substring(end + 1);
+
+        long origin = webViewHandle != 0L ? webViewHandle : this.webViewHandle;
+        HandlerContext context = context(origin, controllerName, actionName, callbackId, target.priority(), target.timeoutMillis());
+        Runnable invocation = () -> handle(context, target,
+                () -> target.payloadType() == null || payload.isEmpty() ? null : gson.fromJson(payload, target.decodedType()),
+                responseCodec, body, null);
+        if (target.gate() != null) {
+            target.gate().submit(origin, target.gate().key(payload), invocation,
+                    () -> reject(origin, callbackId, null, "Superseded by a newer message"), drain -> execute(target.priority(), drain));
+        } else {
+            execute(target.priority(), invocation);
+        }
+    }
+
+    private static Priority priority(String name, Priority fallback) {
+        try {
+            return Priority.valueOf(name.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            log.warn("[KonaRouter] Unknown priority {}, using {}", name, fallback);
+            return fallback;
+        }
+    }
+
+    /**
+     * Queues a handler invocation in its priority lane and hands the executor one turn to run the next one.
+     * Each turn picks whatever is next in the lanes by the time it runs, not necessarily this invocation.
+     */
+    private void execute(Priority priority, Runnable invocation) {
+        inbound.offer(priority, invocation);
+        dispatchExecutor.execute(this::runNext);
+    }
+
+    private void runNext() {
+        Runnable next = inbound.poll();
+        if (next != null) {
+            next.run();
+        }
+    }
+
+    /**
+     * Holds the messages of a priority lane until it is resumed, e.g. background routes while no window can be
+     * seen. Held messages keep their place in the lane, and their timeouts keep running.
+     *
+     * @param priority  The lane.
+     * @param suspended Whether the lane is held.
+     */
+    public void setLaneSuspended(Priority priority, boolean suspended) {
+        if (suspended) {
+            inbound.suspend(priority);
+            return;
+        }
+        // The turns handed out while the lane was held found nothing to run; hand out one per held message
+        for (int held = inbound.resume(priority); held > 0; held--) {
+            dispatchExecutor.execute(this::runNext);
+        }
+    }
+
+    /**
+     * @return The codec for a response format, or {@code null} for JSON.
+     */
+    private MessageCodec responseCodec(String format) {
+        if (MessageCodec.JSON.equals(format)) {
+            return null;
+        }
+        MessageCodec codec = codecs.get(format);
+        if (codec == null) {
+            log.warn("[KonaRouter] Unknown response codec {}, falling back to JSON", format);
+        }
+        return codec;
+    }
+
+    private HandlerContext context(long webViewHandle, String controllerName, String actionName, String callbackId,
+                                   Priority priority, long timeoutMillis) {
+        Instant deadline = timeoutMillis > 0 ? Instant.now().plusMillis(timeoutMillis) : null;
+        return new HandlerContext(webViewHandle, controllerName, actionName, callbackId, priority, deadline,
+                (name, value) -> sendPartial(webViewHandle, callbackId, name, value, priority));
+    }
+
+    private void handle(HandlerContext context, HandlerTarget target, Callable<Object> payload,
+                        MessageCodec responseCodec, String message, MessageReply reply) {
+        if (context.callbackId() != null) {
+            inFlight.add(context);
+        }
+        boolean pending = false;
+        StallWatchdog watchdog = stallWatchdog;
+        Object previousActivity = watchdog != null ? watchdog.enter(target.method()) : null;
+        try {
+            Object result = invokeHandler(context, target, payload.call());
+            if (result instanceof CompletionStage<?> stage) {
+                // Respond once an asynchronous handler completes, without holding the dispatch thread
+                pending = true;
+                stage.whenComplete((value, error) -> {
+                    inFlight.remove(context);
+                    if (error != null) {
+                        failed(context, message, error, reply);
+                        return;
+                    }
+                    try {
+                        respond(context, target, value, responseCodec, reply);
+                    } catch (Exception e) {
+                        failed(context, message, e, reply);
+                    }
+                });
+                return;
+            }
+            respond(context, target, result, responseCodec, reply);
+        } catch (Exception e) {
+            failed(context, message, e, reply);
+        } finally {
+            if (watchdog != null) {
+                watchdog.exit(previousActivity);
+            }
+            if (!pending) {
+                inFlight.remove(context);
+            }
+        }
+    }
+
+    private void failed(HandlerContext context, String message, Throwable error, MessageReply reply) {
+        completed(context, 0, true);
+        if (context.isCancelled()) {
+            log.debug("[KonaRouter] Request cancelled: {}", message);
+            reject(context.webViewHandle(), context.callbackId(), reply, "Cancelled");
+        } else {
+            log.error("[KonaRouter] Error processing message: {}", message, error);
+            reject(context.webViewHandle(), context.callbackId(), reply, context.controller() + " -> " + context.action() + " failed");
+        }
+    }
+
+    private void respond(HandlerContext context, HandlerTarget target, Object result, MessageCodec responseCodec, MessageReply reply) {
+        if (context.isCancelled()) {
+            completed(context, 0, true);
+            reject(context.webViewHandle(), context.callbackId(), reply, "Cancelled");
+            return;
+        }
+        if (result instanceof PagedResult<?> paged) {
+            result = cursors.open(paged, context.webViewHandle());
+        }
+
+        int responseChars = 0;
+        if (reply != null || (context.callbackId() != null && result != null)) {
+            responseChars = sendResponse(context.webViewHandle(), context.callbackId(), result, responseType(target), responseCodec, context.priority(), reply);
+        }
+        completed(context, responseChars, responseChars < 0);
+    }
+
+    private void completed(HandlerContext context, int responseChars, boolean failed) {
+        TrafficObserver observer = trafficObserver;
+        if (observer != null) {
+            observer.completed(context.webViewHandle(), context.controller(), context.action(), Math.max(responseChars, 0),
+                    System.nanoTime() - context.receivedAtNanos(), failed);
+        }
+    }
+
+    /**
+     * Rejects a message's reply on the UI thread; does nothing for messages posted without one.
+     */
+    private void reject(MessageReply reply, String reason) {
+        if (reply != null) {
+            window.scheduleTask(() -> reply.reject(reason));
+        }
+    }
+
+    /**
+     * Rejects a message on the UI thread: through its reply if it has one, otherwise through the bridge runtime's
+     * rejectCallback, so the page's promise settles. Does nothing for messages without either.
+     */
+    private void reject(long webViewHandle, String callbackId, MessageReply reply, String reason) {
+        if (reply != null) {
+            reject(reply, reason);
+        } else if (callbackId != null) {
+            window.scheduleTask(() -> webView.callFunction(webViewHandle, "window.kona.rejectCallback", callbackId, reason));
         }
     }
 
@@ -160,31 +732,133 @@ public class KonaRouterImpl implements KonaRouter {
         return target;
     }
 
-    private Object invokeHandler(HandlerTarget target, JsonElement payloadElement) throws Exception {
-        if (target.payloadType() != null) {
-            if (payloadElement == null || payloadElement.isJsonNull()) {
-                log.error("[KonaRouter] Action {} expected a payload, but got null.", target.method().getName());
-                return null;
-            }
-            Object payloadObject = gson.fromJson(payloadElement, target.payloadType());
-            return target.method().invoke(target.instance(), payloadObject);
-        } else {
-            return target.method().invoke(target.instance());
+    private Object decodePayload(HandlerTarget target, JsonElement payloadElement, MessageCodec payloadCodec) throws Exception {
+        if (target.payloadType() == null || payloadElement == null || payloadElement.isJsonNull()) {
+            return null;
+        }
+        return payloadCodec == null
+                ? gson.fromJson(payloadElement, target.decodedType())
+                : decode(payloadCodec, payloadElement.getAsString(), target.decodedType());
+    }
+
+    private Object invokeHandler(HandlerContext context, HandlerTarget target, Object payloadObject) throws Exception {
+        if (target.payloadType() != null && payloadObject == null) {
+            log.error("[KonaRouter] Action {} expected a payload, but got null.", target.method().getName());
+            return null;
+        }
+
+        if (target.parallel() != null) {
+            return ParallelBatch.run(context, target, payloadObject, parallelPool);
+        }
+
+        // Inline dispatch runs on the UI thread, which must not wait for a busy pool
+        Object instance = target.controller().acquire(context.webViewHandle(), dispatchExecutor != INLINE);
+        try {
+            return target.method().invoke(instance, target.arguments(context, payloadObject));
+        } finally {
+            target.controller().release(context.webViewHandle(), instance);
         }
     }
 
-    private void sendResponse(String callbackId, Object result) {
+    /**
+     * The type a route's response is serialized as: the list of element results for a
+     * {@link io.github.hubertkuch.kona.message.Parallel} handler, otherwise the handler's result.
+     */
+    private static Type responseType(HandlerTarget target) {
+        Type type = responseType(target.method().getGenericReturnType());
+        if (target.parallel() == null) {
+            return type;
+        }
+        return TypeToken.getParameterized(List.class, type instanceof Class<?> raw && raw.isPrimitive()
+                ? MethodType.methodType(raw).wrap().returnType()
+                : type).getType();
+    }
+
+    /**
+     * The type a handler's result is serialized as: a {@link CompletionStage} is sent as its value,
+     * and a {@link PagedResult} as its first {@link Page}.
+     */
+    private static Type responseType(Type returnType) {
+        if (returnType instanceof ParameterizedType parameterized && parameterized.getRawType() instanceof Class<?> raw
+                && CompletionStage.class.isAssignableFrom(raw)) {
+            Type value = parameterized.getActualTypeArguments()[0];
+            return responseType(value instanceof WildcardType wildcard ? wildcard.getUpperBounds()[0] : value);
+        }
+        if (returnType instanceof Class<?> raw && CompletionStage.class.isAssignableFrom(raw)) {
+            return Object.class;
+        }
+        if (returnType instanceof ParameterizedType parameterized && parameterized.getRawType() == PagedResult.class) {
+            return TypeToken.getParameterized(Page.class, parameterized.getActualTypeArguments()).getType();
+        }
+        return returnType == PagedResult.class ? Page.class : returnType;
+    }
+
+    /**
+     * Decodes a payload sent in a non-JSON format: base64 text for binary codecs, plain text otherwise.
+     */
+    private static Object decode(MessageCodec codec, String payload, Type type) throws Exception {
+        byte[] data = codec.binary() ? Base64.getDecoder().decode(payload) : payload.getBytes(StandardCharsets.UTF_8);
+        return codec.decode(data, type);
+    }
+
+    /**
+     * Sends the result of a named fan-out subtask to the page as a {@code kona:partial} event,
+     * ahead of the response to the whole request.
+     */
+    private void sendPartial(long webViewHandle, String callbackId, String name, Object value, Priority priority) {
+        if (callbackId == null || name == null) {
+            return;
+        }
         try {
-            String jsonResult = gson.toJson(result);
-            String escapedJson = jsonResult.replace("\\", "\\\\").replace("'", "\\'");
+            JsonObject partial = new JsonObject();
+            partial.addProperty("callbackId", callbackId);
+            partial.addProperty("name", name);
+            partial.add("value", gson.toJsonTree(value));
+            String detail = gson.toJson(partial);
+            window.scheduleTask(priority, () -> webView.callFunction(webViewHandle, "window.kona.dispatch", "kona:partial", detail));
+        } catch (Exception e) {
+            log.error("[KonaRouter] Failed to send partial result {} for callbackId: {}", name, callbackId, e);
+        }
+    }
 
-            String js = String.format("window.kona.resolveCallback('%s', '%s');", callbackId, escapedJson);
+    /**
+     * @return The length of the encoded response, or {@code -1} if it could not be encoded.
+     */
+    private int sendResponse(long webViewHandle, String callbackId, Object result, Type type, MessageCodec codec, Priority priority,
+                             MessageReply reply) {
+        try {
+            String body;
+            if (codec == null) {
+                body = gson.toJson(result);
+            } else {
+                byte[] encoded = codec.encode(result, type);
+                body = codec.binary()
+                        ? Base64.getEncoder().encodeToString(encoded)
+                        : new String(encoded, StandardCharsets.UTF_8);
+            }
 
-            window.scheduleTask(() -> {
-                webView.runJavaScript(webViewHandle, js);
-            });
+            if (reply != null) {
+                // Resolves the page's promise directly, without a second script or a callback lookup in the page
+                window.scheduleTask(priority, () -> {
+                    if (codec == null) {
+                        reply.resolve(body);
+                    } else {
+                        reply.resolveEncoded(body, codec.name());
+                    }
+                });
+                return body.length();
+            }
+
+            String[] arguments = codec == null
+                    ? new String[]{callbackId, body}
+                    : new String[]{callbackId, body, codec.name()};
+            // The result travels as an argument of the bridge runtime's resolveCallback, not as script source
+            window.scheduleTask(priority, () -> webView.callFunction(webViewHandle, "window.kona.resolveCallback", arguments));
+            return body.length();
         } catch (Exception e) {
             log.error("[KonaRouter] Failed to send response for callbackId: {}", callbackId, e);
+            reject(webViewHandle, callbackId, reply, "Failed to encode the response");
+            return -1;
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,27 @@
+package io.github.hubertkuch.kona.routing;
+
+/**
+ * A script message handler registered next to the shared {@code kona} one, bound to a single controller or action.
+ * <p>
+ * The frontend posts to it with {@code window.webkit.messageHandlers[name].postMessage(body)}. Since the channel
+ * already identifies the route, the body is plain text rather than a JSON envelope:
+ * <ul>
+ *     <li>Action channels ({@code kona/<controller>/<action>}): {@code <callbackId>\n<payload>}</li>
+ *     <li>Controller channels ({@code kona/<controller>}): {@code <action>\n<callbackId>\n<payload>}</li>
+ * </ul>
+ * The callback id is empty if no response is wanted, and the payload is JSON, or empty for handlers without one.
+ *
+ * @param name       The name of the script message handler.
+ * @param controller The controller the channel delivers to.
+ * @param action     The action the channel delivers to, or {@code null} for a controller channel.
+ */
+public record MessageChannel(String name, String controller, String action) {
+
+    static MessageChannel forController(String controller) {
+        return new MessageChannel("kona/" + controller, controller, null);
+    }
+
+    static MessageChannel forAction(String controller, String action) {
+        return new MessageChannel("kona/" + controller + "/" + action, controller, action);
+    }
+}
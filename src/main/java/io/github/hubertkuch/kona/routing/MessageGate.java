@@ -0,0 +1,210 @@
+package io.github.hubertkuch.kona.routing;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+import io.github.hubertkuch.kona.message.MessageHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Holds back the messages of an action with {@link MessageHandler#coalesce()}, {@link MessageHandler#debounceMillis()}
+ * or {@link MessageHandler#throttleMillis()}, so that only the newest one of a burst reaches the handler.
+ * <p>
+ * Messages are grouped into slots by web view and coalescing key. A slot holds at most one pending invocation;
+ * a newer message replaces it, and the replaced one is counted as dropped. Since invocations decode their
+ * payload when they run, a dropped message is never decoded. A slot hands its pending invocation to the
+ * dispatcher once per burst: right away when only coalescing, after the stream has been quiet for the debounce
+ * interval, or at most once per throttle interval.
+ */
+final class MessageGate {
+
+    private static final Logger log = LoggerFactory.getLogger(MessageGate.class);
+
+    private static final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("kona-gate").daemon().factory());
+
+    private record SlotKey(long webViewHandle, String key) {}
+
+    private static final class Slot {
+        Runnable pending;
+        Runnable pendingDropped;
+        boolean scheduled;
+        boolean retired;
+        long lastArrival;
+        long lastDelivery;
+    }
+
+    private final String keyField;
+    private final long debounceNanos;
+    private final long throttleNanos;
+    private final Map<SlotKey, Slot> slots = new ConcurrentHashMap<>();
+    private final LongAdder delivered = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+
+    private MessageGate(String keyField, long debounceNanos, long throttleNanos) {
+        this.keyField = keyField;
+        this.debounceNanos = debounceNanos;
+        this.throttleNanos = throttleNanos;
+    }
+
+    /**
+     * @return The gate for a handler, or {@code null} if it handles every message.
+     */
+    static MessageGate forHandler(MessageHandler annotation) {
+        if (!annotation.coalesce() && annotation.debounceMillis() <= 0 && annotation.throttleMillis() <= 0) {
+            return null;
+        }
+        long debounce = TimeUnit.MILLISECONDS.toNanos(Math.max(annotation.debounceMillis(), 0));
+        long throttle = TimeUnit.MILLISECONDS.toNanos(Math.max(annotation.throttleMillis(), 0));
+        if (debounce > 0 && throttle > 0) {
+            log.warn("[KonaRouter] Action {} sets both debounceMillis and throttleMillis; only debouncing applies.", annotation.action());
+            throttle = 0;
+        }
+        String keyField = annotation.coalesceKey().isEmpty() ? null : annotation.coalesceKey();
+        return new MessageGate(keyField, debounce, throttle);
+    }
+
+    /**
+     * Extracts the coalescing key from a payload that is already parsed, e.g. as part of an envelope.
+     */
+    String key(JsonElement payload) {
+        if (keyField == null || payload == null || !payload.isJsonObject()) {
+            return "";
+        }
+        JsonElement value = payload.getAsJsonObject().get(keyField);
+        return value == null ? "" : value.toString();
+    }
+
+    /**
+     * Extracts the coalescing key from a JSON payload, reading only up to the key field.
+     */
+    String key(String payload) {
+        if (keyField == null || payload.isEmpty()) {
+            return "";
+        }
+        try (JsonReader reader = new JsonReader(new StringReader(payload))) {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if (reader.nextName().equals(keyField)) {
+                    return JsonParser.parseReader(reader).toString();
+                }
+                reader.skipValue();
+            }
+        } catch (IOException | RuntimeException e) {
+            // Not an object; the handler reports the payload when it is decoded
+        }
+        return "";
+    }
+
+    /**
+     * Makes an invocation the pending one of its slot.
+     *
+     * @param dropped    Runs if a newer message replaces the invocation, e.g. to reject the message's reply.
+     * @param dispatcher Runs the slot's drain, typically by queueing it in the priority lanes.
+     */
+    void submit(long webViewHandle, String key, Runnable invocation, Runnable dropped, Consumer<Runnable> dispatcher) {
+        SlotKey slotKey = new SlotKey(webViewHandle, key);
+        while (true) {
+            long now = System.nanoTime();
+            Slot slot = slots.computeIfAbsent(slotKey, k -> {
+                Slot created = new Slot();
+                created.lastDelivery = now - throttleNanos;
+                return created;
+            });
+            long delay;
+            Runnable superseded = null;
+            synchronized (slot) {
+                if (slot.retired) {
+                    continue;
+                }
+                if (slot.pending != null) {
+                    this.dropped.increment();
+                    superseded = slot.pendingDropped;
+                }
+                slot.pending = invocation;
+                slot.pendingDropped = dropped;
+                slot.lastArrival = now;
+                delay = slot.scheduled ? -1 : debounceNanos > 0 ? debounceNanos : Math.max(0, slot.lastDelivery + throttleNanos - now);
+                slot.scheduled = true;
+            }
+            if (superseded != null) {
+                superseded.run();
+            }
+            if (delay >= 0) {
+                schedule(slotKey, slot, dispatcher, delay);
+            }
+            return;
+        }
+    }
+
+    private void schedule(SlotKey slotKey, Slot slot, Consumer<Runnable> dispatcher, long delayNanos) {
+        if (delayNanos <= 0) {
+            dispatcher.accept(() -> drain(slotKey, slot));
+            return;
+        }
+        timer.schedule(() -> {
+            if (debounceNanos > 0) {
+                long quietFor;
+                synchronized (slot) {
+                    quietFor = System.nanoTime() - slot.lastArrival;
+                }
+                if (quietFor < debounceNanos) {
+                    // Messages kept arriving; wait until the stream has been quiet for the whole interval
+                    schedule(slotKey, slot, dispatcher, debounceNanos - quietFor);
+                    return;
+                }
+            }
+            dispatcher.accept(() -> drain(slotKey, slot));
+        }, delayNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private void drain(SlotKey slotKey, Slot slot) {
+        Runnable invocation;
+        synchronized (slot) {
+            invocation = slot.pending;
+            slot.pending = null;
+            slot.pendingDropped = null;
+            slot.scheduled = false;
+            slot.lastDelivery = System.nanoTime();
+            if (throttleNanos == 0) {
+                retire(slotKey, slot);
+            }
+        }
+        if (throttleNanos > 0) {
+            // Keep the slot for one interval, so the next message is throttled against this delivery
+            timer.schedule(() -> retireIfIdle(slotKey, slot), throttleNanos, TimeUnit.NANOSECONDS);
+        }
+        if (invocation != null) {
+            delivered.increment();
+            invocation.run();
+        }
+    }
+
+    private void retireIfIdle(SlotKey slotKey, Slot slot) {
+        synchronized (slot) {
+            if (!slot.scheduled && slot.pending == null && System.nanoTime() - slot.lastDelivery >= throttleNanos) {
+                retire(slotKey, slot);
+            }
+        }
+    }
+
+    private void retire(SlotKey slotKey, Slot slot) {
+        slot.retired = true;
+        slots.remove(slotKey, slot);
+    }
+
+    CoalescingStats stats() {
+        return new CoalescingStats(delivered.sum(), dropped.sum());
+    }
+}
@@ -0,0 +1,39 @@
+package io.github.hubertkuch.kona.routing;
+
+/**
+ * Answers a message that was posted with a reply, resolving the page's promise for it directly instead of
+ * calling back into the page with a second script. A reply is completed at most once; later calls are ignored.
+ * <p>
+ * Implementations are backed by native objects of the web view, so every method must be called on the UI thread.
+ */
+public interface MessageReply {
+
+    /**
+     * Resolves the page's promise with a JSON value, parsed by the page's JavaScript engine.
+     *
+     * @param json The response as JSON, e.g. {@code {"text":"HELLO"}} or {@code null}.
+     */
+    void resolve(String json);
+
+    /**
+     * Resolves the page's promise with a body encoded by a codec, e.g. base64 CBOR, together with the codec's name
+     * so the page can decode it.
+     *
+     * @param body  The encoded response.
+     * @param codec The name of the codec, e.g. {@code cbor}.
+     */
+    void resolveEncoded(String body, String codec);
+
+    /**
+     * Rejects the page's promise.
+     *
+     * @param message The error message.
+     */
+    void reject(String message);
+
+    /**
+     * Completes the reply without a value. The page then waits for the response through
+     * {@code window.kona.resolveCallback}, as for messages posted without a reply.
+     */
+    void detach();
+}
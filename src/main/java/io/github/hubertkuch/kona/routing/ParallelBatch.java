@@ -0,0 +1,108 @@
+package io.github.hubertkuch.kona.routing;
+
+import io.github.hubertkuch.kona.message.Parallel;
+
+import java.lang.reflect.InvocationTargetException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs a {@link Parallel} handler over the elements of a list payload. The list is split into chunks that run on a
+ * fork/join pool, and the results are written into the slot of their element, so they come back in input order
+ * without merging.
+ */
+final class ParallelBatch {
+
+    /**
+     * The results of one chunk, sent as a {@code kona:partial} event when {@link Parallel#streamChunks()} is set.
+     *
+     * @param offset The index of the chunk's first element.
+     * @param items  The results of the chunk's elements.
+     */
+    record Chunk(int offset, List<Object> items) {}
+
+    private static final int CHUNKS_PER_CORE = 4;
+
+    private ParallelBatch() {}
+
+    /**
+     * Starts the chunks of a batch on the pool and returns without waiting for them, so the dispatching thread
+     * (usually the UI thread) is never held by the batch.
+     *
+     * @return The results in input order, or the first chunk failure.
+     */
+    static CompletableFuture<List<Object>> run(HandlerContext context, HandlerTarget target, Object payload, ForkJoinPool pool) {
+        if (!(payload instanceof List<?> elements)) {
+            return CompletableFuture.failedFuture(new IllegalArgumentException("Parallel action " + context.controller()
+                    + "/" + context.action() + " expects a list payload"));
+        }
+        int size = elements.size();
+        if (size == 0) {
+            return CompletableFuture.completedFuture(List.of());
+        }
+        int chunkSize = chunkSize(target.parallel(), size, pool.getParallelism());
+        Object[] results = new Object[size];
+        CompletableFuture<List<Object>> batch = new CompletableFuture<>();
+        AtomicInteger remaining = new AtomicInteger((size + chunkSize - 1) / chunkSize);
+
+        for (int from = 0; from < size; from += chunkSize) {
+            int start = from;
+            pool.execute(() -> {
+                // Chunks still queued after another one failed are skipped
+                if (batch.isDone()) {
+                    return;
+                }
+                try {
+                    runChunk(context, target, elements, results, start, Math.min(size, start + chunkSize));
+                } catch (Throwable e) {
+                    batch.completeExceptionally(e);
+                    return;
+                }
+                if (remaining.decrementAndGet() == 0) {
+                    batch.complete(Arrays.asList(results));
+                }
+            });
+        }
+        return batch;
+    }
+
+    static int chunkSize(Parallel parallel, int size, int parallelism) {
+        if (parallel.chunkSize() > 0) {
+            return parallel.chunkSize();
+        }
+        int chunks = Math.max(1, parallelism) * CHUNKS_PER_CORE;
+        return Math.max(1, (size + chunks - 1) / chunks);
+    }
+
+    private static void runChunk(HandlerContext context, HandlerTarget target, List<?> elements, Object[] results,
+                                 int from, int to) throws Exception {
+        if (context.isCancelled()) {
+            throw new CancellationException("Request " + context.controller() + "/" + context.action() + " was cancelled");
+        }
+        if (context.deadline() != null && Instant.now().isAfter(context.deadline())) {
+            throw new TimeoutException("Request " + context.controller() + "/" + context.action() + " passed its deadline");
+        }
+
+        Object instance = target.controller().acquire(context.webViewHandle(), true);
+        try {
+            for (int i = from; i < to && !context.isCancelled(); i++) {
+                results[i] = target.method().invoke(instance, target.arguments(context, elements.get(i)));
+            }
+        } catch (InvocationTargetException e) {
+            throw e.getCause() instanceof Exception cause ? cause : e;
+        } finally {
+            target.controller().release(context.webViewHandle(), instance);
+        }
+
+        if (target.parallel().streamChunks()) {
+            context.sendPartial("chunk", new Chunk(from, new ArrayList<>(Arrays.asList(results).subList(from, to))));
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package io.github.hubertkuch.kona.routing;
+
+import io.github.hubertkuch.kona.message.Priority;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * One FIFO queue per {@link Priority}, drained by weighted round robin.
+ * <p>
+ * Each lane may take as many consecutive turns as its weight before lanes of lower priority get theirs;
+ * once every lane with work has used its turns, all turns are granted again. Within a lane, order is kept.
+ * Lanes without work do not hold up the others, and neither do {@link #suspend(Priority) suspended} lanes,
+ * whose items stay queued until the lane is resumed. Thread-safe.
+ *
+ * @param <T> The type of the queued items, e.g. {@link Runnable}.
+ */
+public final class PriorityLanes<T> {
+
+    private static final Priority[] PRIORITIES = Priority.values();
+
+    private final Deque<T>[] lanes;
+    private final int[] turns = new int[PRIORITIES.length];
+    private final boolean[] suspended = new boolean[PRIORITIES.length];
+    private int size;
+
+    @SuppressWarnings("unchecked")
+    public PriorityLanes() {
+        lanes = new Deque[PRIORITIES.length];
+        for (Priority priority : PRIORITIES) {
+            lanes[priority.ordinal()] = new ArrayDeque<>();
+            turns[priority.ordinal()] = priority.weight();
+        }
+    }
+
+    /**
+     * Adds an item to the end of its lane.
+     *
+     * @param priority The lane.
+     * @param item     The item.
+     */
+    public synchronized void offer(Priority priority, T item) {
+        lanes[priority.ordinal()].addLast(item);
+        size++;
+    }
+
+    /**
+     * Removes the next item: the oldest one of the highest-priority lane that has work and turns left.
+     *
+     * @return The item, or {@code null} if all lanes that are not suspended are empty.
+     */
+    public synchronized T poll() {
+        if (size == 0 || !hasRunnableWork()) {
+            return null;
+        }
+        while (true) {
+            for (Priority priority : PRIORITIES) {
+                int lane = priority.ordinal();
+                if (turns[lane] > 0 && !suspended[lane] && !lanes[lane].isEmpty()) {
+                    turns[lane]--;
+                    size--;
+                    return lanes[lane].pollFirst();
+                }
+            }
+            for (Priority priority : PRIORITIES) {
+                turns[priority.ordinal()] = priority.weight();
+            }
+        }
+    }
+
+    /**
+     * Stops {@link #poll()} from taking items of a lane. Items can still be offered to it.
+     *
+     * @param priority The lane.
+     */
+    public synchronized void suspend(Priority priority) {
+        suspended[priority.ordinal()] = true;
+    }
+
+    /**
+     * Lets {@link #poll()} take items of a suspended lane again.
+     *
+     * @param priority The lane.
+     * @return The number of items that were held in the lane, or {@code 0} if it was not suspended.
+     */
+    public synchronized int resume(Priority priority) {
+        int lane = priority.ordinal();
+        if (!suspended[lane]) {
+            return 0;
+        }
+        suspended[lane] = false;
+        return lanes[lane].size();
+    }
+
+    private boolean hasRunnableWork() {
+        for (int lane = 0; lane < lanes.length; lane++) {
+            if (!suspended[lane] && !lanes[lane].isEmpty()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return The number of queued items across all lanes, including suspended ones.
+     */
+    public synchronized int size() {
+        return size;
+    }
+}
@@ -0,0 +1,32 @@
+package io.github.hubertkuch.kona.routing;
+
+import io.github.hubertkuch.kona.message.KonaController;
+import io.github.hubertkuch.kona.message.MessageHandler;
+import io.github.hubertkuch.kona.message.Payload;
+import io.github.hubertkuch.kona.message.Priority;
+
+/**
+ * The built-in controller through which the frontend cancels requests it no longer waits for.
+ * <p>
+ * Registered automatically under the reserved name {@code kona.request}. Cancelling interrupts any fan-out
+ * the handler is waiting for and suppresses the response.
+ */
+@KonaController(name = "kona.request")
+public final class RequestController {
+
+    /**
+     * @param callbackId The callback id of the request to cancel.
+     */
+    public record CancelRequest(String callbackId) implements Payload {}
+
+    private final InFlightRequests requests;
+
+    public RequestController(InFlightRequests requests) {
+        this.requests = requests;
+    }
+
+    @MessageHandler(action = "cancel", priority = Priority.INTERACTIVE)
+    public void cancel(CancelRequest request, HandlerContext context) {
+        requests.cancel(context.webViewHandle(), request.callbackId());
+    }
+}
@@ -0,0 +1,184 @@
+package io.github.hubertkuch.kona.routing;
+
+import io.github.hubertkuch.kona.message.KonaController;
+import io.github.hubertkuch.kona.message.MessageHandler;
+import io.github.hubertkuch.kona.message.Parallel;
+import io.github.hubertkuch.kona.message.Payload;
+import org.reflections.Reflections;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The result of scanning a package for {@link KonaController} classes.
+ * <p>
+ * Scanning is independent of the window and the web view, so a table can be built on a background thread
+ * while the native UI is still initializing, and handed to {@link KonaRouterImpl#install(RouteTable)} later.
+ */
+public final class RouteTable {
+
+    private static final Logger log = LoggerFactory.getLogger(RouteTable.class);
+
+    private final Map<String, Map<String, HandlerTarget>> routes;
+    private final List<MessageChannel> channels;
+
+    private RouteTable(Map<String, Map<String, HandlerTarget>> routes, List<MessageChannel> channels) {
+        this.routes = routes;
+        this.channels = channels;
+    }
+
+    /**
+     * Creates a table without any routes.
+     *
+     * @return An empty route table.
+     */
+    public static RouteTable empty() {
+        return new RouteTable(Map.of(), List.of());
+    }
+
+    /**
+     * Scans the specified package for classes annotated with {@link KonaController}
+     * and resolves their {@link MessageHandler} methods.
+     *
+     * @param packageName The name of the package to scan (e.g., "com.example.controllers").
+     * @return The routes found in the package.
+     */
+    public static RouteTable scan(String packageName) {
+        return scan(packageName, new ServiceRegistry());
+    }
+
+    /**
+     * Scans the specified package for classes annotated with {@link KonaController}
+     * and resolves their {@link MessageHandler} methods. No controller is instantiated here;
+     * instances are created according to each controller's lifecycle.
+     *
+     * @param packageName The name of the package to scan (e.g., "com.example.controllers").
+     * @param services    The services available for constructor injection.
+     * @return The routes found in the package.
+     */
+    public static RouteTable scan(String packageName, ServiceRegistry services) {
+        Reflections reflections = new Reflections(packageName);
+        Set<Class<?>> controllerClasses = reflections.getTypesAnnotatedWith(KonaController.class);
+
+        log.info("[KonaRouter] Scanning {}...", packageName);
+        if (controllerClasses.isEmpty()) {
+            log.warn("[KonaRouter] No @KonaController classes found in package: {}", packageName);
+        }
+        return of(services, controllerClasses.toArray(Class<?>[]::new));
+    }
+
+    /**
+     * Resolves the routes of explicitly listed controller classes, e.g. built-in controllers.
+     *
+     * @param services          The services available for constructor injection.
+     * @param controllerClasses Classes annotated with {@link KonaController}.
+     * @return The routes of the given controllers.
+     */
+    public static RouteTable of(ServiceRegistry services, Class<?>... controllerClasses) {
+        Map<String, Map<String, HandlerTarget>> routes = new HashMap<>();
+        List<MessageChannel> channels = new ArrayList<>();
+        for (Class<?> controllerClass : controllerClasses) {
+            try {
+                KonaController controllerAnnotation = controllerClass.getAnnotation(KonaController.class);
+                if (controllerAnnotation == null) {
+                    log.warn("[KonaRouter] {} is not annotated with @KonaController.", controllerClass.getName());
+                    continue;
+                }
+                String controllerName = controllerAnnotation.name();
+                ControllerProvider controller = ControllerProvider.forController(controllerClass, controllerAnnotation, services);
+
+                Map<String, HandlerTarget> actionMap = new HashMap<>();
+                for (Method method : controllerClass.getDeclaredMethods()) {
+                    if (method.isAnnotationPresent(MessageHandler.class)) {
+                        MessageHandler handlerAnnotation = method.getAnnotation(MessageHandler.class);
+                        String actionName = handlerAnnotation.action();
+
+                        Class<?> payloadType = null;
+                        int payloadCount = 0;
+                        for (Class<?> parameterType : method.getParameterTypes()) {
+                            if (parameterType == HandlerContext.class) {
+                                continue;
+                            }
+                            payloadCount++;
+                            payloadType = parameterType;
+                            if (! Payload.class.isAssignableFrom(payloadType)) {
+                                log.warn("Payload type {} does not implement Payload interface.", payloadType.getName());
+                            }
+                        }
+                        if (payloadCount > 1) {
+                            log.warn("@MessageHandler {} has > 1 payload param. Only one (Payload object) or zero params are supported.", actionName);
+                        }
+                        if (method.isAnnotationPresent(Parallel.class) && payloadType == null) {
+                            log.warn("@Parallel handler {} has no element parameter; messages are handled as a whole.", actionName);
+                        }
+
+                        actionMap.put(actionName, new HandlerTarget(controller, method, payloadType, handlerAnnotation.codec(), handlerAnnotation.priority(),
+                                MessageGate.forHandler(handlerAnnotation), handlerAnnotation.timeoutMillis(),
+                                payloadType != null ? method.getAnnotation(Parallel.class) : null));
+                        if (handlerAnnotation.dedicatedChannel()) {
+                            channels.add(MessageChannel.forAction(controllerName, actionName));
+                        }
+                        log.info("  -> Registered: {} -> {} ({})", controllerName, actionName, controllerAnnotation.lifecycle());
+                    }
+                }
+                routes.put(controllerName, actionMap);
+                if (controllerAnnotation.dedicatedChannel()) {
+                    channels.add(MessageChannel.forController(controllerName));
+                }
+
+            } catch (Exception e) {
+                log.error("Failed to register controller: {}", controllerClass.getName(), e);
+            }
+        }
+        return new RouteTable(routes, channels);
+    }
+
+    /**
+     * Combines this table with another one, e.g. application routes with built-in controllers.
+     * If both tables declare a controller with the same name, the one from {@code other} wins.
+     *
+     * @param other The routes to add.
+     * @return A table holding the routes of both tables.
+     */
+    public RouteTable with(RouteTable other) {
+        Map<String, Map<String, HandlerTarget>> combined = new HashMap<>(routes);
+        combined.putAll(other.routes);
+        List<MessageChannel> combinedChannels = new ArrayList<>();
+        for (MessageChannel channel : channels) {
+            if (!other.routes.containsKey(channel.controller())) {
+                combinedChannels.add(channel);
+            }
+        }
+        combinedChannels.addAll(other.channels);
+        return new RouteTable(combined, combinedChannels);
+    }
+
+    /**
+     * @return The number of registered actions across all controllers.
+     */
+    public int size() {
+        return routes.values().stream().mapToInt(Map::size).sum();
+    }
+
+    Map<String, Map<String, HandlerTarget>> routes() {
+        return routes;
+    }
+
+    /**
+     * @return The dedicated message channels declared by the controllers in this table.
+     */
+    public List<MessageChannel> channels() {
+        return channels;
+    }
+
+    Collection<HandlerTarget> targets() {
+        return routes.values().stream().flatMap(actions -> actions.values().stream()).toList();
+    }
+}
@@ -0,0 +1,66 @@
+package io.github.hubertkuch.kona.routing;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The objects available for constructor injection into {@code @KonaController} classes.
+ * <p>
+ * Services are looked up by the declared type of a constructor parameter: first by exact type, then by any
+ * registered service assignable to it.
+ */
+public final class ServiceRegistry {
+
+    private final Map<Class<?>, Object> services = new ConcurrentHashMap<>();
+
+    /**
+     * Registers a service under the given type, replacing any previous registration for that type.
+     *
+     * @param type    The type controllers declare in their constructors.
+     * @param service The service instance.
+     * @param <T>     The service type.
+     * @return This registry.
+     */
+    public <T> ServiceRegistry register(Class<T> type, T service) {
+        services.put(Objects.requireNonNull(type), Objects.requireNonNull(service));
+        return this;
+    }
+
+    /**
+     * @return A new registry with the same registrations. Services registered on either one afterwards are not
+     * visible to the other.
+     */
+    public ServiceRegistry copy() {
+        ServiceRegistry copy = new ServiceRegistry();
+        copy.services.putAll(services);
+        return copy;
+    }
+
+    /**
+     * Looks up a service.
+     *
+     * @param type The requested type.
+     * @param <T>  The service type.
+     * @return The service.
+     * @throws IllegalStateException If no registered service matches the type.
+     */
+    public <T> T get(Class<T> type) {
+        Object service = services.get(type);
+        if (service == null) {
+            service = services.values().stream()
+                    .filter(type::isInstance)
+                    .findFirst()
+                    .orElseThrow(() -> new IllegalStateException("No service registered for " + type.getName()));
+        }
+        return type.cast(service);
+    }
+
+    /**
+     * @param type The requested type.
+     * @return {@code true} if a service matching the type is registered.
+     */
+    public boolean contains(Class<?> type) {
+        return services.containsKey(type) || services.values().stream().anyMatch(type::isInstance);
+    }
+}
@@ -0,0 +1,33 @@
+package io.github.hubertkuch.kona.routing;
+
+/**
+ * Observes the messages a {@link KonaRouterImpl} receives and how long their handlers take, e.g. to record
+ * a session for later replay. Set with {@link KonaRouterImpl#setTrafficObserver(TrafficObserver)}.
+ * <p>
+ * Methods are called on whichever thread received or handled the message, including the UI thread,
+ * so implementations must be thread-safe and must not block.
+ */
+public interface TrafficObserver {
+
+    /**
+     * Called for every message passed to {@link KonaRouter#onMessage(long, String)}, before it is parsed.
+     *
+     * @param webViewHandle The native handle of the web view that sent the message.
+     * @param message       The raw message.
+     */
+    void received(long webViewHandle, String message);
+
+    /**
+     * Called when a handler has returned, or its asynchronous result has completed, and the response was handed
+     * to the UI thread. Messages delivered on dedicated channels are reported here too, although they are not
+     * passed to {@link #received(long, String)}.
+     *
+     * @param webViewHandle The native handle of the web view that sent the message.
+     * @param controller    The controller the message was addressed to.
+     * @param action        The action the message was addressed to.
+     * @param responseChars The length of the encoded response, or {@code 0} if none was sent.
+     * @param latencyNanos  The time from dispatching the message to handing over its response.
+     * @param failed        Whether the handler failed or the request was cancelled.
+     */
+    void completed(long webViewHandle, String controller, String action, int responseChars, long latencyNanos, boolean failed);
+}
@@ -0,0 +1,82 @@
+package io.github.hubertkuch.kona.startup;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Reads the frontend assets next to a {@code file:} start page once, so the operating system has them
+ * in its page cache by the time the web process requests them.
+ * <p>
+ * The files are streamed through a single reusable direct buffer; nothing is kept on the Java heap.
+ * Remote URIs (e.g. the Vite dev server) are skipped.
+ */
+public final class AssetPreloader {
+
+    private static final Logger log = LoggerFactory.getLogger(AssetPreloader.class);
+    private static final int MAX_DEPTH = 8;
+    private static final long MAX_TOTAL_BYTES = 64L * 1024 * 1024;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private AssetPreloader() {}
+
+    /**
+     * Preloads the assets in the directory of the given start page.
+     *
+     * @param initialUri The URI the web view will load.
+     * @return The number of bytes read, or {@code 0} if the URI is not a local file.
+     */
+    public static long preload(String initialUri) {
+        if (initialUri == null || !initialUri.startsWith("file:")) {
+            return 0;
+        }
+
+        Path root;
+        try {
+            root = Path.of(URI.create(initialUri)).getParent();
+        } catch (IllegalArgumentException e) {
+            log.debug("Cannot preload assets for {}", initialUri, e);
+            return 0;
+        }
+        if (root == null || !Files.isDirectory(root)) {
+            return 0;
+        }
+
+        List<Path> files;
+        try (Stream<Path> walk = Files.walk(root, MAX_DEPTH)) {
+            files = walk.filter(Files::isRegularFile).toList();
+        } catch (IOException e) {
+            log.warn("Failed to list assets in {}", root, e);
+            return 0;
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        long total = 0;
+        for (Path file : files) {
+            if (total >= MAX_TOTAL_BYTES) {
+                log.debug("Asset preload budget of {} bytes reached", MAX_TOTAL_BYTES);
+                break;
+            }
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                int read;
+                while (total < MAX_TOTAL_BYTES && (read = channel.read(buffer.clear())) > 0) {
+                    total += read;
+                }
+            } catch (IOException e) {
+                log.debug("Failed to preload {}", file, e);
+            }
+        }
+
+        log.info("[Kona] Preloaded {} asset(s), {} KiB from {}", files.size(), total / 1024, root);
+        return total;
+    }
+}
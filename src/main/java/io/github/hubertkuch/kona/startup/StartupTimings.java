@@ -0,0 +1,75 @@
+package io.github.hubertkuch.kona.startup;
+
+import java.util.Comparator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Records how long each startup phase took and on which thread it ran.
+ * Phases may be timed concurrently from several threads; the report orders them by start time,
+ * so overlapping background work is easy to spot.
+ */
+public final class StartupTimings {
+
+    private record Phase(String name, String thread, long startNanos, long durationNanos) {}
+
+    private final long originNanos = System.nanoTime();
+    private final Queue<Phase> phases = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Runs a step and records its duration under the given phase name.
+     *
+     * @param name The phase name shown in the report.
+     * @param step The work to time.
+     * @param <T>  The result type of the step.
+     * @return The result of the step.
+     */
+    public <T> T time(String name, Supplier<T> step) {
+        long start = System.nanoTime();
+        try {
+            return step.get();
+        } finally {
+            phases.add(new Phase(name, Thread.currentThread().getName(), start, System.nanoTime() - start));
+        }
+    }
+
+    /**
+     * Runs a step and records its duration under the given phase name.
+     *
+     * @param name The phase name shown in the report.
+     * @param step The work to time.
+     */
+    public void time(String name, Runnable step) {
+        time(name, () -> {
+            step.run();
+            return null;
+        });
+    }
+
+    /**
+     * Builds a human-readable report of all recorded phases.
+     *
+     * @return A multi-line report, one phase per line, with its offset from startup and its duration.
+     */
+    public String report() {
+        StringBuilder report = new StringBuilder("Startup finished in ")
+                .append(millis(System.nanoTime() - originNanos))
+                .append(" ms");
+
+        phases.stream()
+                .sorted(Comparator.comparingLong(Phase::startNanos))
+                .forEach(phase -> report.append(System.lineSeparator())
+                        .append(String.format("  %-16s +%5d ms  %5d ms  [%s]",
+                                phase.name(),
+                                millis(phase.startNanos() - originNanos),
+                                millis(phase.durationNanos()),
+                                phase.thread())));
+        return report.toString();
+    }
+
+    private static long millis(long nanos) {
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+}
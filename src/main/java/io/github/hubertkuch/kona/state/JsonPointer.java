@@ -0,0 +1,31 @@
+package io.github.hubertkuch.kona.state;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Parsing and formatting of RFC 6901 JSON Pointers, e.g. {@code /dashboard/widgets/0/title}.
+ */
+final class JsonPointer {
+
+    private JsonPointer() {
+    }
+
+    static List<String> parse(String pointer) {
+        if (pointer.isEmpty()) {
+            return List.of();
+        }
+        if (pointer.charAt(0) != '/') {
+            throw new IllegalArgumentException("JSON pointer must be empty or start with '/': " + pointer);
+        }
+        List<String> tokens = new ArrayList<>();
+        for (String token : pointer.substring(1).split("/", -1)) {
+            tokens.add(token.replace("~1", "/").replace("~0", "~"));
+        }
+        return tokens;
+    }
+
+    static String append(String pointer, String token) {
+        return pointer + "/" + token.replace("~", "~0").replace("/", "~1");
+    }
+}
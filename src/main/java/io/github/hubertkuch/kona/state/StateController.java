@@ -0,0 +1,92 @@
+package io.github.hubertkuch.kona.state;
+
+import com.google.gson.Gson;
+import io.github.hubertkuch.kona.application.AppWindow;
+import io.github.hubertkuch.kona.application.PushThrottle;
+import io.github.hubertkuch.kona.application.WebView;
+import io.github.hubertkuch.kona.application.WindowManager;
+import io.github.hubertkuch.kona.message.KonaController;
+import io.github.hubertkuch.kona.message.MessageHandler;
+import io.github.hubertkuch.kona.message.Payload;
+import io.github.hubertkuch.kona.routing.HandlerContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * The built-in controller that mirrors the {@link StateStore} into the frontend.
+ * <p>
+ * A page subscribes with the version it already has ({@code 0} initially) and receives a {@link StateSync}.
+ * After that, changes are pushed to it as a {@code kona:state} DOM event whose {@code detail} is a
+ * {@link StateSync} with the deltas since the last version sent to that page. Bursts of changes are coalesced
+ * into a single push per UI-loop iteration. Pushes to hidden or unfocused windows follow the {@link PushThrottle};
+ * a page whose push was held receives the deltas up to the latest version once it may be updated again.
+ * A page that detects a gap, e.g. after a reload, subscribes again with its current version.
+ * <p>
+ * Registered automatically under the reserved name {@code kona.state}.
+ */
+@KonaController(name = "kona.state")
+public final class StateController {
+
+    private static final Logger log = LoggerFactory.getLogger(StateController.class);
+
+    /**
+     * @param since The state version the page has applied.
+     */
+    public record SubscribeRequest(long since) implements Payload {}
+
+    private final Gson gson = new Gson();
+    private final StateStore store;
+    private final AppWindow window;
+    private final WebView webView;
+    private final PushThrottle throttle;
+    private final Map<Long, Long> subscribers = new ConcurrentHashMap<>();
+    private final AtomicBoolean pushScheduled = new AtomicBoolean();
+
+    public StateController(StateStore store, AppWindow window, WebView webView, WindowManager windows, PushThrottle throttle) {
+        this.store = store;
+        this.window = window;
+        this.webView = webView;
+        this.throttle = throttle;
+        store.addListener(delta -> schedulePush());
+        windows.addCloseListener(closed -> subscribers.remove(closed.webViewHandle()));
+    }
+
+    @MessageHandler(action = "subscribe")
+    public StateSync subscribe(SubscribeRequest request, HandlerContext context) {
+        StateSync sync = store.since(request.since());
+        subscribers.put(context.webViewHandle(), sync.version());
+        log.debug("[Kona] Web view {} subscribed to state at version {}", context.webViewHandle(), sync.version());
+        return sync;
+    }
+
+    @MessageHandler(action = "unsubscribe")
+    public void unsubscribe(HandlerContext context) {
+        subscribers.remove(context.webViewHandle());
+    }
+
+    private void schedulePush() {
+        if (pushScheduled.compareAndSet(false, true)) {
+            window.scheduleTask(this::push);
+        }
+    }
+
+    /**
+     * Sends every subscriber the deltas since the version it was last sent. Runs on the UI thread.
+     */
+    private void push() {
+        pushScheduled.set(false);
+        for (Map.Entry<Long, Long> subscriber : subscribers.entrySet()) {
+            StateSync sync = store.since(subscriber.getValue());
+            if (sync.version() == subscriber.getValue() || !throttle.tryPush(subscriber.getKey(), this::schedulePush)) {
+                continue;
+            }
+            if (subscribers.replace(subscriber.getKey(), subscriber.getValue(), sync.version())) {
+                webView.callFunction(subscriber.getKey(), "window.kona.dispatch", "kona:state", gson.toJson(sync));
+            }
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package io.github.hubertkuch.kona.state;
+
+import com.google.gson.JsonArray;
+
+/**
+ * The changes that produced one version of a {@link StateStore}.
+ *
+ * @param version The version reached by applying the operations.
+ * @param ops     RFC 6902 JSON Patch operations ({@code add}, {@code remove}, {@code replace}), in order.
+ */
+public record StateDelta(long version, JsonArray ops) {
+}
@@ -0,0 +1,396 @@
+package io.github.hubertkuch.kona.state;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import io.github.hubertkuch.kona.codec.GeneratedTypeAdapterFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * A versioned JSON tree owned by the Java side and mirrored by the frontend.
+ * <p>
+ * Controllers mutate the state with {@link #set(String, Object)}, {@link #remove(String)} or, for several
+ * changes that should form one version, {@link #update(Consumer)}. Paths are RFC 6901 JSON Pointers.
+ * A value set at a path is compared with the value already there, and only the differences are recorded as
+ * RFC 6902 JSON Patch operations, so replacing a large object in which one field changed yields a single
+ * {@code replace} operation.
+ * <p>
+ * The store remembers the deltas of its most recent versions. {@link #since(long)} returns the deltas a
+ * client at a given version is missing, or a snapshot if that version is too old. The built-in
+ * {@link StateController} uses this to push changes to subscribed web views.
+ * <p>
+ * All methods are thread-safe.
+ */
+public final class StateStore {
+
+    private static final Logger log = LoggerFactory.getLogger(StateStore.class);
+
+    /**
+     * The number of versions whose deltas are kept by default.
+     */
+    public static final int DEFAULT_HISTORY_SIZE = 256;
+
+    private final Gson gson = new GsonBuilder().registerTypeAdapterFactory(GeneratedTypeAdapterFactory.load()).create();
+    private final int historySize;
+    private final Deque<StateDelta> history = new ArrayDeque<>();
+    private final List<Consumer<StateDelta>> listeners = new CopyOnWriteArrayList<>();
+    private final JsonObject root = new JsonObject();
+    private long version;
+
+    /**
+     * Creates an empty store that keeps the deltas of the last {@value #DEFAULT_HISTORY_SIZE} versions.
+     */
+    public StateStore() {
+        this(DEFAULT_HISTORY_SIZE);
+    }
+
+    /**
+     * Creates an empty store.
+     *
+     * @param historySize The number of versions whose deltas are kept; clients further behind get a snapshot.
+     */
+    public StateStore(int historySize) {
+        if (historySize < 1) {
+            throw new IllegalArgumentException("historySize must be positive");
+        }
+        this.historySize = historySize;
+    }
+
+    /**
+     * @return The current version. It starts at {@code 0} and increases by one with every change.
+     */
+    public synchronized long version() {
+        return version;
+    }
+
+    /**
+     * Returns a copy of the value at the given path.
+     *
+     * @param pointer A JSON Pointer, e.g. {@code "/dashboard/title"}; {@code ""} is the whole state.
+     * @return The value, or {@code null} if there is none.
+     */
+    public synchronized JsonElement get(String pointer) {
+        JsonElement element = root;
+        for (String token : JsonPointer.parse(pointer)) {
+            element = child(element, token);
+            if (element == null) {
+                return null;
+            }
+        }
+        return element.deepCopy();
+    }
+
+    /**
+     * Returns the value at the given path, converted to the given type.
+     *
+     * @param pointer A JSON Pointer.
+     * @param type    The type to convert to.
+     * @param <T>     The value type.
+     * @return The value, or {@code null} if there is none.
+     */
+    public <T> T get(String pointer, Class<T> type) {
+        JsonElement element = get(pointer);
+        return element != null ? gson.fromJson(element, type) : null;
+    }
+
+    /**
+     * Sets the value at the given path, creating missing parent objects.
+     *
+     * @param pointer A JSON Pointer.
+     * @param value   The new value; converted to JSON with Gson.
+     * @return The version after the change.
+     */
+    public long set(String pointer, Object value) {
+        return update(transaction -> transaction.set(pointer, value));
+    }
+
+    /**
+     * Removes the value at the given path. Removing a path that does not exist changes nothing.
+     *
+     * @param pointer A JSON Pointer.
+     * @return The version after the change.
+     */
+    public long remove(String pointer) {
+        return update(transaction -> transaction.remove(pointer));
+    }
+
+    /**
+     * Applies several changes as one version. If {@code changes} throws, none of them is applied.
+     *
+     * @param changes Receives the transaction to apply changes through.
+     * @return The version after the changes; unchanged if they did not modify the state.
+     */
+    public long update(Consumer<Transaction> changes) {
+        StateDelta delta;
+        synchronized (this) {
+            Transaction transaction = new Transaction();
+            try {
+                changes.accept(transaction);
+            } catch (RuntimeException e) {
+                transaction.rollback();
+                throw e;
+            }
+            if (transaction.ops.isEmpty()) {
+                return version;
+            }
+
+            version++;
+            delta = new StateDelta(version, transaction.ops);
+            history.addLast(delta);
+            if (history.size() > historySize) {
+                history.removeFirst();
+            }
+        }
+
+        for (Consumer<StateDelta> listener : listeners) {
+            try {
+                listener.accept(delta);
+            } catch (Exception e) {
+                log.error("[Kona] State listener failed", e);
+            }
+        }
+        return delta.version();
+    }
+
+    /**
+     * Returns what a client at the given version needs to catch up.
+     *
+     * @param clientVersion The version the client has applied; {@code 0} for a client without state.
+     * @return The missing deltas, or a snapshot if they are no longer known.
+     */
+    public synchronized StateSync since(long clientVersion) {
+        if (clientVersion == version) {
+            return new StateSync(version, null, List.of());
+        }
+        StateDelta oldest = history.peekFirst();
+        if (oldest == null || clientVersion > version || clientVersion < oldest.version() - 1) {
+            return new StateSync(version, root.deepCopy(), List.of());
+        }
+        return new StateSync(version, null, history.stream().filter(delta -> delta.version() > clientVersion).toList());
+    }
+
+    /**
+     * Registers a listener called after every change, outside the store's lock.
+     *
+     * @param listener Receives the delta of each new version.
+     */
+    public void addListener(Consumer<StateDelta> listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * @param listener A listener registered with {@link #addListener(Consumer)}.
+     */
+    public void removeListener(Consumer<StateDelta> listener) {
+        listeners.remove(listener);
+    }
+
+    private static JsonElement child(JsonElement container, String token) {
+        if (container.isJsonObject()) {
+            return container.getAsJsonObject().get(token);
+        }
+        if (container.isJsonArray()) {
+            JsonArray array = container.getAsJsonArray();
+            if (token.equals("-")) {
+                return null;
+            }
+            int index = Integer.parseInt(token);
+            return index >= 0 && index < array.size() ? array.get(index) : null;
+        }
+        throw new IllegalArgumentException("Cannot descend into a primitive value at '" + token + "'");
+    }
+
+    /**
+     * A set of changes applied as one version. Obtained through {@link StateStore#update(Consumer)}.
+     */
+    public final class Transaction {
+
+        private final JsonArray ops = new JsonArray();
+        private final List<Runnable> undo = new ArrayList<>();
+
+        private Transaction() {
+        }
+
+        /**
+         * Sets the value at the given path, creating missing parent objects.
+         *
+         * @param pointer A JSON Pointer.
+         * @param value   The new value; converted to JSON with Gson.
+         * @return This transaction.
+         */
+        public Transaction set(String pointer, Object value) {
+            JsonElement tree = value instanceof JsonElement element ? element.deepCopy() : gson.toJsonTree(value);
+            List<String> tokens = JsonPointer.parse(pointer);
+            if (tokens.isEmpty()) {
+                if (!tree.isJsonObject()) {
+                    throw new IllegalArgumentException("The state root must be an object");
+                }
+                diffObject("", root, tree.getAsJsonObject());
+                return this;
+            }
+
+            JsonElement parent = root;
+            String path = "";
+            for (int i = 0; i < tokens.size() - 1; i++) {
+                JsonElement next = child(parent, tokens.get(i));
+                if (next == null) {
+                    // Add the whole missing branch in one operation
+                    JsonElement branch = tree;
+                    for (int j = tokens.size() - 1; j > i; j--) {
+                        JsonObject object = new JsonObject();
+                        object.add(tokens.get(j), branch);
+                        branch = object;
+                    }
+                    apply("add", parent, tokens.get(i), JsonPointer.append(path, tokens.get(i)), branch);
+                    return this;
+                }
+                parent = next;
+                path = JsonPointer.append(path, tokens.get(i));
+            }
+
+            String last = tokens.getLast();
+            JsonElement previous = child(parent, last);
+            if (previous == null) {
+                apply("add", parent, last, JsonPointer.append(path, last), tree);
+            } else {
+                diff(parent, last, JsonPointer.append(path, last), previous, tree);
+            }
+            return this;
+        }
+
+        /**
+         * Removes the value at the given path. Removing a path that does not exist changes nothing.
+         *
+         * @param pointer A JSON Pointer.
+         * @return This transaction.
+         */
+        public Transaction remove(String pointer) {
+            List<String> tokens = JsonPointer.parse(pointer);
+            if (tokens.isEmpty()) {
+                for (String key : List.copyOf(root.keySet())) {
+                    apply("remove", root, key, JsonPointer.append("", key), null);
+                }
+                return this;
+            }
+
+            JsonElement parent = root;
+            for (int i = 0; i < tokens.size() - 1; i++) {
+                parent = child(parent, tokens.get(i));
+                if (parent == null) {
+                    return this;
+                }
+            }
+            if (child(parent, tokens.getLast()) != null) {
+                apply("remove", parent, tokens.getLast(), pointer, null);
+            }
+            return this;
+        }
+
+        private void diff(JsonElement container, String token, String path, JsonElement previous, JsonElement value) {
+            if (previous.isJsonObject() && value.isJsonObject()) {
+                diffObject(path, previous.getAsJsonObject(), value.getAsJsonObject());
+            } else if (previous.isJsonArray() && value.isJsonArray() && previous.getAsJsonArray().size() == value.getAsJsonArray().size()) {
+                JsonArray previousArray = previous.getAsJsonArray();
+                JsonArray array = value.getAsJsonArray();
+                for (int i = 0; i < array.size(); i++) {
+                    String index = Integer.toString(i);
+                    diff(previousArray, index, JsonPointer.append(path, index), previousArray.get(i), array.get(i));
+                }
+            } else if (!previous.equals(value)) {
+                apply("replace", container, token, path, value);
+            }
+        }
+
+        private void diffObject(String path, JsonObject previous, JsonObject value) {
+            for (String key : List.copyOf(previous.keySet())) {
+                if (!value.has(key)) {
+                    apply("remove", previous, key, JsonPointer.append(path, key), null);
+                }
+            }
+            for (Map.Entry<String, JsonElement> entry : value.entrySet()) {
+                String key = entry.getKey();
+                JsonElement existing = previous.get(key);
+                if (existing == null) {
+                    apply("add", previous, key, JsonPointer.append(path, key), entry.getValue());
+                } else {
+                    diff(previous, key, JsonPointer.append(path, key), existing, entry.getValue());
+                }
+            }
+        }
+
+        /**
+         * Records one patch operation and applies it to the tree. The tree gets its own copy of the value,
+         * so that later changes to the tree cannot alter recorded deltas.
+         */
+        private void apply(String op, JsonElement container, String token, String path, JsonElement value) {
+            JsonObject operation = new JsonObject();
+            operation.addProperty("op", op);
+            operation.addProperty("path", path);
+            if (value != null) {
+                operation.add("value", value);
+            }
+            JsonElement stored = value != null ? value.deepCopy() : null;
+
+            if (container.isJsonObject()) {
+                JsonObject object = container.getAsJsonObject();
+                JsonElement previous = op.equals("remove") ? object.remove(token) : object.get(token);
+                if (stored != null) {
+                    object.add(token, stored);
+                }
+                undo.add(() -> {
+                    if (previous == null) {
+                        object.remove(token);
+                    } else {
+                        object.add(token, previous);
+                    }
+                });
+            } else {
+                JsonArray array = container.getAsJsonArray();
+                int index = token.equals("-") ? array.size() : Integer.parseInt(token);
+                switch (op) {
+                    case "add" -> {
+                        if (index != array.size()) {
+                            throw new IllegalArgumentException("Array elements can only be added at the end: " + path);
+                        }
+                        array.add(stored);
+                        undo.add(() -> array.remove(index));
+                    }
+                    case "replace" -> {
+                        JsonElement previous = array.set(index, stored);
+                        undo.add(() -> array.set(index, previous));
+                    }
+                    default -> {
+                        JsonElement previous = array.remove(index);
+                        undo.add(() -> insert(array, index, previous));
+                    }
+                }
+            }
+            ops.add(operation);
+        }
+
+        private static void insert(JsonArray array, int index, JsonElement element) {
+            array.add(element);
+            for (int i = array.size() - 1; i > index; i--) {
+                array.set(i, array.get(i - 1));
+            }
+            array.set(index, element);
+        }
+
+        private void rollback() {
+            for (int i = undo.size() - 1; i >= 0; i--) {
+                undo.get(i).run();
+            }
+        }
+    }
+}
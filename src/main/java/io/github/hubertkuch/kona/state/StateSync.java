@@ -0,0 +1,16 @@
+package io.github.hubertkuch.kona.state;
+
+import com.google.gson.JsonElement;
+
+import java.util.List;
+
+/**
+ * What a client needs to catch up with a {@link StateStore}: either the deltas since its version, or,
+ * if the store no longer remembers that version, a full snapshot.
+ *
+ * @param version  The version the client reaches.
+ * @param snapshot The whole state, or {@code null} if the deltas suffice.
+ * @param deltas   The deltas to apply in order, empty if a snapshot is sent or the client is up to date.
+ */
+public record StateSync(long version, JsonElement snapshot, List<StateDelta> deltas) {
+}
@@ -0,0 +1,9 @@
+package io.github.hubertkuch.kona.store;
+
+/**
+ * A key and its value, as returned by {@link KeyValueStore#scan(String, String, int)}.
+ *
+ * @param key   The key.
+ * @param value The value.
+ */
+public record KeyValue(String key, byte[] value) {}
@@ -0,0 +1,574 @@
+package io.github.hubertkuch.kona.store;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * A small embedded key-value store for application data, persisted as an append-only log.
+ * <p>
+ * Writes are appended to the active segment file by a single writer thread. Every write that arrives
+ * while the previous ones are being flushed joins the next flush, so concurrent writers share one
+ * {@code fsync} (group commit). The futures returned by {@link #put(String, byte[])} and friends complete
+ * once the write is durable, and the write is visible to {@link #get(String)} from then on.
+ * <p>
+ * An in-memory hash index maps each key to the location of its current value, so reads are a single
+ * lookup and copy. Full segments are sealed and memory-mapped. Overwritten and deleted values are
+ * garbage until background compaction moves the live entries of mostly-dead segments to the end of the
+ * log and deletes those segments.
+ * <pre>{@code
+ * KeyValueStore store = KeyValueStore.at(dataDir.resolve("store")).open();
+ * store.put("settings/theme", "dark".getBytes(UTF_8)).join();
+ * }</pre>
+ * Registering the store as a service enables the built-in {@code kona.store} controller.
+ */
+public final class KeyValueStore implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(KeyValueStore.class);
+
+    // Compaction rewrites live entries in frames of about this size
+    private static final int COMPACTION_FRAME_BYTES = 1 << 20;
+
+    /**
+     * The size at which the active segment is sealed unless {@link Builder#maxSegmentSize(long)} is used.
+     */
+    public static final long DEFAULT_MAX_SEGMENT_SIZE = 64L << 20;
+
+    /**
+     * The share of live data below which a sealed segment is compacted,
+     * unless {@link Builder#compactionThreshold(double)} is used.
+     */
+    public static final double DEFAULT_COMPACTION_THRESHOLD = 0.5;
+
+    private record PendingWrite(List<LogEntry> entries, CompletableFuture<Void> done, boolean relocation) {}
+
+    private static final PendingWrite CLOSE = new PendingWrite(List.of(), new CompletableFuture<>(), false);
+
+    private final Path directory;
+    private final long maxSegmentSize;
+    private final double compactionThreshold;
+
+    private final Map<String, Location> index = new ConcurrentHashMap<>();
+    // The current tombstone of each deleted key, until compaction of the oldest segment drops it
+    private final Map<String, Location> tombstones = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListMap<Long, Segment> segments = new ConcurrentSkipListMap<>();
+    // Held for reading while a value is read, and for writing while a segment is sealed or deleted
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final BlockingQueue<PendingWrite> queue = new LinkedBlockingQueue<>();
+    private final AtomicBoolean closed = new AtomicBoolean();
+    private final AtomicBoolean compactionScheduled = new AtomicBoolean();
+    private final ExecutorService compactor = Executors.newSingleThreadExecutor(Thread.ofVirtual().name("kona-store-compactor").factory());
+    private final Thread writer;
+
+    private Segment active;
+
+    private KeyValueStore(Builder builder) throws IOException {
+        this.directory = builder.directory;
+        this.maxSegmentSize = builder.maxSegmentSize;
+        this.compactionThreshold = builder.compactionThreshold;
+        recover();
+        this.writer = Thread.ofPlatform().name("kona-store-writer").daemon().start(this::writeLoop);
+    }
+
+    /**
+     * @param directory The directory holding the segment files; created if it does not exist.
+     * @return A builder for a store in that directory.
+     */
+    public static Builder at(Path directory) {
+        return new Builder(directory);
+    }
+
+    /**
+     * Rebuilds the index by replaying every segment in order. A torn frame at the end of the newest
+     * segment, left by a crash during a write, is truncated.
+     */
+    private void recover() throws IOException {
+        Files.createDirectories(directory);
+        List<Path> files;
+        try (Stream<Path> listing = Files.list(directory)) {
+            files = listing.filter(path -> path.getFileName().toString().matches("[0-9a-f]{16}\\.log")).sorted().toList();
+        }
+
+        for (int i = 0; i < files.size(); i++) {
+            Path path = files.get(i);
+            long id = Long.parseUnsignedLong(path.getFileName().toString().substring(0, 16), 16);
+            Segment segment = Segment.open(path, id);
+            segments.put(id, segment);
+
+            long intact = segment.scan((op, key, valueOffset, valueLength, entrySize) ->
+                    apply(op, key, new Location(segment, valueOffset, valueLength, entrySize)));
+            if (intact < segment.size()) {
+                log.warn("[Kona] Dropping {} bytes of a torn write at the end of {}", segment.size() - intact, path);
+                segment.truncate(intact);
+            }
+            if (i < files.size() - 1) {
+                segment.seal();
+            }
+        }
+
+        active = segments.isEmpty() ? null : segments.lastEntry().getValue();
+        if (active == null) {
+            active = Segment.create(directory, 1);
+            segments.put(active.id, active);
+        }
+        log.info("[Kona] Opened store {} with {} keys in {} segments", directory, index.size(), segments.size());
+    }
+
+    /**
+     * Updates the index and the live bytes of the affected segments. A tombstone stays live until its key is
+     * written again, since older segments may still hold the values it hides.
+     */
+    private void apply(byte op, String key, Location location) {
+        Location previous = op == LogEntry.PUT ? index.put(key, location) : index.remove(key);
+        if (previous != null) {
+            previous.segment().liveBytes.addAndGet(-previous.entrySize());
+        }
+        Location previousTombstone = op == LogEntry.PUT ? tombstones.remove(key) : tombstones.put(key, location);
+        if (previousTombstone != null) {
+            previousTombstone.segment().liveBytes.addAndGet(-previousTombstone.entrySize());
+            previousTombstone.segment().tombstoneBytes.addAndGet(-previousTombstone.entrySize());
+        }
+        location.segment().liveBytes.addAndGet(location.entrySize());
+        if (op == LogEntry.DELETE) {
+            location.segment().tombstoneBytes.addAndGet(location.entrySize());
+        }
+    }
+
+    /**
+     * @param key The key.
+     * @return A copy of the current value, or {@code null} if the key is not in the store.
+     */
+    public byte[] get(String key) {
+        lock.readLock().lock();
+        try {
+            Location location = index.get(key);
+            if (location == null) {
+                return null;
+            }
+            byte[] value = new byte[location.valueLength()];
+            location.segment().read(location.valueOffset(), value);
+            return value;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @param key The key.
+     * @return Whether the key is in the store.
+     */
+    public boolean contains(String key) {
+        return index.containsKey(key);
+    }
+
+    /**
+     * @return The number of keys.
+     */
+    public int size() {
+        return index.size();
+    }
+
+    /**
+     * Returns entries in key order. The keys are matched against the in-memory index, which is not sorted,
+     * so every scan looks at every key; values are only read for the returned entries.
+     *
+     * @param prefix The prefix of the keys to return, or {@code null} for all keys.
+     * @param after  Only keys after this one are returned, for paging through a scan; may be {@code null}.
+     * @param limit  The largest number of entries to return.
+     * @return The entries.
+     */
+    public List<KeyValue> scan(String prefix, String after, int limit) {
+        List<String> keys = index.keySet().stream()
+                .filter(key -> prefix == null || key.startsWith(prefix))
+                .filter(key -> after == null || key.compareTo(after) > 0)
+                .sorted()
+                .limit(Math.max(limit, 0))
+                .toList();
+        List<KeyValue> entries = new ArrayList<>(keys.size());
+        for (String key : keys) {
+            byte[] value = get(key);
+            if (value != null) {
+                entries.add(new KeyValue(key, value));
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * @param key   The key.
+     * @param value The value; copied, so the array may be reused afterwards.
+     * @return A future completing once the value is durable.
+     */
+    public CompletableFuture<Void> put(String key, byte[] value) {
+        return write(new WriteBatch().put(key, value));
+    }
+
+    /**
+     * @param key The key.
+     * @return A future completing once the deletion is durable.
+     */
+    public CompletableFuture<Void> delete(String key) {
+        return write(new WriteBatch().delete(key));
+    }
+
+    /**
+     * Applies the puts and deletes of a batch atomically.
+     *
+     * @param batch The batch.
+     * @return A future completing once the batch is durable.
+     */
+    public CompletableFuture<Void> write(WriteBatch batch) {
+        if (batch.entries.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return enqueue(new PendingWrite(List.copyOf(batch.entries), new CompletableFuture<>(), false));
+    }
+
+    private CompletableFuture<Void> enqueue(PendingWrite write) {
+        if (closed.get()) {
+            return CompletableFuture.failedFuture(new IllegalStateException("The store is closed"));
+        }
+        queue.add(write);
+        return write.done();
+    }
+
+    private void writeLoop() {
+        List<PendingWrite> batch = new ArrayList<>();
+        boolean running = true;
+        while (running) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                break;
+            }
+            queue.drainTo(batch);
+            int end = batch.indexOf(CLOSE);
+            if (end >= 0) {
+                running = false;
+                batch.subList(end, batch.size()).clear();
+            }
+            commit(batch);
+            batch.clear();
+        }
+    }
+
+    /**
+     * Writes a group of pending writes with a single {@code fsync}, then makes them visible. Runs on the
+     * writer thread, which is the only one that changes the index, so compaction's check that a key has
+     * not moved on cannot race with a user write.
+     */
+    private void commit(List<PendingWrite> batch) {
+        Segment target = active;
+        long start = target.size();
+        long position = start;
+        List<ByteBuffer> frames = new ArrayList<>();
+        List<PendingWrite> inFlight = new ArrayList<>();
+        List<LogEntry> placed = new ArrayList<>();
+        List<Location> locations = new ArrayList<>();
+        Set<String> written = new HashSet<>();
+        try {
+            for (PendingWrite write : batch) {
+                List<LogEntry> entries = write.relocation() ? stillLive(write.entries(), written) : write.entries();
+                if (!entries.isEmpty()) {
+                    ByteBuffer frame = LogEntry.encode(entries);
+                    if (position > 0 && position + frame.remaining() > maxSegmentSize) {
+                        // Publish what fits in the full segment before moving on to a new one
+                        target.append(frames);
+                        target.force();
+                        publish(inFlight, placed, locations);
+                        frames.clear();
+                        target = roll();
+                        start = 0;
+                        position = 0;
+                    }
+
+                    long entryPosition = position + LogEntry.FRAME_HEADER;
+                    for (LogEntry entry : entries) {
+                        int valueLength = entry.value() == null ? -1 : entry.value().length;
+                        placed.add(entry);
+                        locations.add(new Location(target, entryPosition + LogEntry.ENTRY_HEADER + entry.keyBytes().length, valueLength, entry.size()));
+                        written.add(entry.key());
+                        entryPosition += entry.size();
+                    }
+                    frames.add(frame);
+                    position += frame.remaining();
+                }
+                inFlight.add(write);
+            }
+            if (!frames.isEmpty()) {
+                target.append(frames);
+                target.force();
+            }
+        } catch (IOException e) {
+            log.error("[Kona] Failed to write to store {}", directory, e);
+            try {
+                target.truncate(start);
+            } catch (IOException truncateError) {
+                e.addSuppressed(truncateError);
+            }
+            batch.forEach(write -> write.done().completeExceptionally(e));
+            return;
+        }
+        publish(inFlight, placed, locations);
+    }
+
+    /**
+     * Makes durable writes visible and completes their futures.
+     */
+    private void publish(List<PendingWrite> writes, List<LogEntry> placed, List<Location> locations) {
+        for (int i = 0; i < placed.size(); i++) {
+            LogEntry entry = placed.get(i);
+            apply(entry.op(), entry.key(), locations.get(i));
+        }
+        writes.forEach(write -> write.done().complete(null));
+        writes.clear();
+        placed.clear();
+        locations.clear();
+    }
+
+    /**
+     * Filters entries rewritten by compaction down to those whose key has not changed since they were read,
+     * neither in the index nor earlier in the group being committed.
+     */
+    private List<LogEntry> stillLive(List<LogEntry> entries, Set<String> written) {
+        List<LogEntry> live = new ArrayList<>(entries.size());
+        for (LogEntry entry : entries) {
+            if (written.contains(entry.key())) {
+                continue;
+            }
+            boolean unchanged = entry.op() == LogEntry.PUT
+                    ? index.get(entry.key()) == entry.expected()
+                    : tombstones.get(entry.key()) == entry.expected();
+            if (unchanged) {
+                live.add(entry);
+            }
+        }
+        return live;
+    }
+
+    /**
+     * Seals the active segment and starts a new one.
+     */
+    private Segment roll() throws IOException {
+        Segment next = Segment.create(directory, active.id + 1);
+        lock.writeLock().lock();
+        try {
+            active.seal();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        segments.put(next.id, next);
+        active = next;
+        scheduleCompaction();
+        return next;
+    }
+
+    private void scheduleCompaction() {
+        if (compactionScheduled.compareAndSet(false, true)) {
+            compactor.execute(() -> {
+                compactionScheduled.set(false);
+                compactNow();
+            });
+        }
+    }
+
+    /**
+     * Compacts every sealed segment whose share of live data is below the threshold.
+     * Compaction also runs in the background whenever a segment is sealed.
+     *
+     * @return A future completing once compaction has finished.
+     */
+    public CompletableFuture<Void> compact() {
+        return CompletableFuture.runAsync(this::compactNow, compactor);
+    }
+
+    private void compactNow() {
+        for (Segment segment : segments.values()) {
+            if (segment == active || closed.get()) {
+                continue;
+            }
+            // Nothing is older than the oldest segment, so its tombstones hide no values and count as dead
+            long live = segment.liveBytes.get() - (segments.firstKey() == segment.id ? segment.tombstoneBytes.get() : 0);
+            if (live >= segment.size() * compactionThreshold) {
+                continue;
+            }
+            try {
+                compact(segment);
+            } catch (Exception e) {
+                log.error("[Kona] Failed to compact segment {}", segment.path, e);
+            }
+        }
+    }
+
+    /**
+     * Appends the live entries of a segment to the log and deletes the segment. Tombstones are kept
+     * for deleted keys, since older segments may still hold their values, unless this is the oldest segment,
+     * in which case they are dropped for good.
+     */
+    private void compact(Segment segment) throws IOException {
+        boolean oldest = segments.firstKey() == segment.id;
+        List<LogEntry> frame = new ArrayList<>();
+        List<CompletableFuture<Void>> rewrites = new ArrayList<>();
+        int[] frameBytes = {0};
+
+        segment.scan((op, key, valueOffset, valueLength, entrySize) -> {
+            LogEntry entry = null;
+            if (op == LogEntry.PUT) {
+                Location location = index.get(key);
+                if (location != null && location.segment() == segment && location.valueOffset() == valueOffset) {
+                    byte[] value = new byte[valueLength];
+                    try {
+                        segment.read(valueOffset, value);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    entry = new LogEntry(LogEntry.PUT, key, key.getBytes(StandardCharsets.UTF_8), value, location);
+                }
+            } else {
+                Location tombstone = tombstones.get(key);
+                if (tombstone != null && tombstone.segment() == segment && tombstone.valueOffset() == valueOffset) {
+                    if (oldest) {
+                        tombstones.remove(key, tombstone);
+                    } else {
+                        entry = new LogEntry(LogEntry.DELETE, key, key.getBytes(StandardCharsets.UTF_8), null, tombstone);
+                    }
+                }
+            }
+            if (entry != null) {
+                frame.add(entry);
+                frameBytes[0] += entry.size();
+                if (frameBytes[0] >= COMPACTION_FRAME_BYTES) {
+                    rewrites.add(enqueue(new PendingWrite(List.copyOf(frame), new CompletableFuture<>(), true)));
+                    frame.clear();
+                    frameBytes[0] = 0;
+                }
+            }
+        });
+        if (!frame.isEmpty()) {
+            rewrites.add(enqueue(new PendingWrite(List.copyOf(frame), new CompletableFuture<>(), true)));
+        }
+        CompletableFuture.allOf(rewrites.toArray(CompletableFuture[]::new)).join();
+
+        lock.writeLock().lock();
+        try {
+            segments.remove(segment.id);
+            segment.delete();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.debug("[Kona] Compacted segment {} of {} bytes", segment.path, segment.size());
+    }
+
+    /**
+     * Waits for pending writes, stops the background threads and closes the segment files.
+     */
+    @Override
+    public void close() {
+        if (!closed.compareAndSet(false, true)) {
+            return;
+        }
+        compactor.shutdown();
+        queue.add(CLOSE);
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        queue.forEach(write -> write.done().completeExceptionally(new IllegalStateException("The store is closed")));
+        try {
+            // A running compaction fails its remaining rewrites and stops
+            compactor.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        lock.writeLock().lock();
+        try {
+            for (Segment segment : segments.values()) {
+                segment.close();
+            }
+        } catch (IOException e) {
+            log.error("[Kona] Failed to close store {}", directory, e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Configures a {@link KeyValueStore} before it is opened.
+     */
+    public static final class Builder {
+        private final Path directory;
+        private long maxSegmentSize = DEFAULT_MAX_SEGMENT_SIZE;
+        private double compactionThreshold = DEFAULT_COMPACTION_THRESHOLD;
+
+        private Builder(Path directory) {
+            this.directory = Objects.requireNonNull(directory);
+        }
+
+        /**
+         * Sets the size at which the active segment is sealed and a new one started.
+         * Smaller segments are compacted sooner, at the cost of more files.
+         *
+         * @param maxSegmentSize The size in bytes, at most 1 GiB.
+         * @return This builder instance.
+         */
+        public Builder maxSegmentSize(long maxSegmentSize) {
+            if (maxSegmentSize < 1024 || maxSegmentSize > (1L << 30)) {
+                throw new IllegalArgumentException("maxSegmentSize must be between 1 KiB and 1 GiB");
+            }
+            this.maxSegmentSize = maxSegmentSize;
+            return this;
+        }
+
+        /**
+         * Sets the share of live data below which a sealed segment is compacted.
+         *
+         * @param compactionThreshold A value between {@code 0} (never compact) and {@code 1}.
+         * @return This builder instance.
+         */
+        public Builder compactionThreshold(double compactionThreshold) {
+            if (compactionThreshold < 0 || compactionThreshold > 1) {
+                throw new IllegalArgumentException("compactionThreshold must be between 0 and 1");
+            }
+            this.compactionThreshold = compactionThreshold;
+            return this;
+        }
+
+        /**
+         * Opens the store, replaying its log.
+         *
+         * @return The store.
+         * @throws IOException If the directory cannot be created or a segment cannot be read.
+         */
+        public KeyValueStore open() throws IOException {
+            return new KeyValueStore(this);
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package io.github.hubertkuch.kona.store;
+
+/**
+ * Where the current value, or the tombstone, of a key is stored. Compared by identity, so that compaction can
+ * tell whether a key still refers to the entry it is moving.
+ *
+ * @param segment     The segment holding the entry.
+ * @param valueOffset The offset of the value within the segment.
+ * @param valueLength The length of the value, or {@code -1} for a tombstone.
+ * @param entrySize   The size of the whole entry, which stops being live once the key is overwritten or deleted.
+ */
+record Location(Segment segment, long valueOffset, int valueLength, int entrySize) {
+
+    @Override
+    public boolean equals(Object other) {
+        return this == other;
+    }
+
+    @Override
+    public int hashCode() {
+        return System.identityHashCode(this);
+    }
+}
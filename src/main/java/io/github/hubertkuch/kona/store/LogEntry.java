@@ -0,0 +1,116 @@
+package io.github.hubertkuch.kona.store;
+
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.zip.CRC32C;
+
+/**
+ * One put or delete in the log, and the on-disk format of the frames that hold them.
+ * <p>
+ * A frame is {@code [int bodyLength][int crc32c(body)][body]} and its body a sequence of entries
+ * {@code [byte op][int keyLength][int valueLength][key][value]}. All entries of a frame are applied
+ * together, which makes a {@link WriteBatch} atomic: a torn frame fails its checksum and is dropped whole.
+ *
+ * @param op       {@link #PUT} or {@link #DELETE}.
+ * @param key      The key.
+ * @param keyBytes The key in UTF-8.
+ * @param value    The value, or {@code null} for a delete.
+ * @param expected For entries rewritten by compaction, the location the key, or for a delete its tombstone,
+ *                 must still have for the entry to be written; {@code null} otherwise.
+ */
+record LogEntry(byte op, String key, byte[] keyBytes, byte[] value, Location expected) {
+
+    static final byte PUT = 1;
+    static final byte DELETE = 2;
+
+    private static final ValueLayout.OfInt INT = ValueLayout.JAVA_INT_UNALIGNED.withOrder(ByteOrder.BIG_ENDIAN);
+
+    static final int FRAME_HEADER = 8;
+    static final int ENTRY_HEADER = 9;
+
+    /**
+     * Reports the entries of a segment while it is scanned.
+     */
+    @FunctionalInterface
+    interface Visitor {
+        void visit(byte op, String key, long valueOffset, int valueLength, int entrySize);
+    }
+
+    static LogEntry put(String key, byte[] value) {
+        return new LogEntry(PUT, key, key.getBytes(StandardCharsets.UTF_8), value.clone(), null);
+    }
+
+    static LogEntry delete(String key) {
+        return new LogEntry(DELETE, key, key.getBytes(StandardCharsets.UTF_8), null, null);
+    }
+
+    int size() {
+        return ENTRY_HEADER + keyBytes.length + (value == null ? 0 : value.length);
+    }
+
+    static ByteBuffer encode(List<LogEntry> entries) {
+        int bodyLength = 0;
+        for (LogEntry entry : entries) {
+            bodyLength += entry.size();
+        }
+        ByteBuffer frame = ByteBuffer.allocate(FRAME_HEADER + bodyLength);
+        frame.putInt(bodyLength).putInt(0);
+        for (LogEntry entry : entries) {
+            frame.put(entry.op)
+                    .putInt(entry.keyBytes.length)
+                    .putInt(entry.value == null ? -1 : entry.value.length)
+                    .put(entry.keyBytes);
+            if (entry.value != null) {
+                frame.put(entry.value);
+            }
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(frame.array(), FRAME_HEADER, bodyLength);
+        frame.putInt(4, (int) crc.getValue());
+        return frame.flip();
+    }
+
+    /**
+     * Visits the entries of every intact frame.
+     *
+     * @param data The segment contents.
+     * @return The length of the intact prefix; anything after it is a torn or corrupt frame.
+     */
+    static long scan(MemorySegment data, Visitor visitor) {
+        long position = 0;
+        CRC32C crc = new CRC32C();
+        while (data.byteSize() - position >= FRAME_HEADER) {
+            int bodyLength = data.get(INT, position);
+            int checksum = data.get(INT, position + 4);
+            long bodyStart = position + FRAME_HEADER;
+            if (bodyLength < 0 || bodyLength > data.byteSize() - bodyStart) {
+                break;
+            }
+            // Copied to the heap, as buffers of shared mappings cannot be checksummed in place
+            ByteBuffer body = ByteBuffer.wrap(data.asSlice(bodyStart, bodyLength).toArray(ValueLayout.JAVA_BYTE));
+            crc.reset();
+            crc.update(body.array());
+            if ((int) crc.getValue() != checksum) {
+                break;
+            }
+
+            while (body.hasRemaining()) {
+                int entry = body.position();
+                byte op = body.get();
+                int keyLength = body.getInt();
+                int valueLength = body.getInt();
+                byte[] key = new byte[keyLength];
+                body.get(key);
+                body.position(body.position() + Math.max(valueLength, 0));
+                visitor.visit(op, new String(key, StandardCharsets.UTF_8), bodyStart + entry + ENTRY_HEADER + keyLength,
+                        valueLength, body.position() - entry);
+            }
+            position = bodyStart + bodyLength;
+        }
+        return position;
+    }
+}
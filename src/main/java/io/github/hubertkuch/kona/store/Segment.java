@@ -0,0 +1,154 @@
+package io.github.hubertkuch.kona.store;
+
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * One file of the log. The newest segment is active: it is appended to through a {@link FileChannel} and
+ * read with positional reads. Once it is full it is sealed, i.e. mapped read-only, and read from memory.
+ * The mapping belongs to a shared {@link Arena}, so it is released as soon as compaction deletes the file
+ * rather than whenever the garbage collector gets to it.
+ * <p>
+ * Not thread-safe on its own: the store appends from its writer thread only, and holds its lock
+ * while sealing or deleting a segment that readers may be using.
+ */
+final class Segment {
+
+    final long id;
+    final Path path;
+    // The bytes of entries that are still the current value of their key
+    final AtomicLong liveBytes = new AtomicLong();
+    // The part of the live bytes held by tombstones of keys that are still deleted
+    final AtomicLong tombstoneBytes = new AtomicLong();
+
+    private FileChannel channel;
+    private Arena arena;
+    private volatile MemorySegment mapped;
+    private volatile long size;
+
+    private Segment(long id, Path path, FileChannel channel, long size) {
+        this.id = id;
+        this.path = path;
+        this.channel = channel;
+        this.size = size;
+    }
+
+    static Path pathOf(Path directory, long id) {
+        return directory.resolve(String.format("%016x.log", id));
+    }
+
+    static Segment create(Path directory, long id) throws IOException {
+        Path path = pathOf(directory, id);
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        return new Segment(id, path, channel, 0);
+    }
+
+    static Segment open(Path path, long id) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        return new Segment(id, path, channel, channel.size());
+    }
+
+    long size() {
+        return size;
+    }
+
+    /**
+     * Visits the entries of the intact prefix of this segment.
+     *
+     * @return The length of the intact prefix.
+     */
+    long scan(LogEntry.Visitor visitor) throws IOException {
+        if (mapped != null) {
+            return LogEntry.scan(mapped, visitor);
+        }
+        if (size == 0) {
+            return 0;
+        }
+        try (Arena scanArena = Arena.ofConfined()) {
+            return LogEntry.scan(channel.map(FileChannel.MapMode.READ_ONLY, 0, size, scanArena), visitor);
+        }
+    }
+
+    /**
+     * Appends frames and returns once they are written, but not necessarily durable.
+     */
+    void append(List<ByteBuffer> frames) throws IOException {
+        ByteBuffer[] buffers = frames.toArray(ByteBuffer[]::new);
+        long written = 0;
+        long expected = 0;
+        for (ByteBuffer buffer : buffers) {
+            expected += buffer.remaining();
+        }
+        channel.position(size);
+        while (written < expected) {
+            written += channel.write(buffers);
+        }
+        size += written;
+    }
+
+    void force() throws IOException {
+        channel.force(false);
+    }
+
+    /**
+     * Drops everything after the given length, e.g. a frame torn by a crash or a failed write.
+     */
+    void truncate(long length) throws IOException {
+        channel.truncate(length);
+        size = length;
+    }
+
+    /**
+     * Maps the segment read-only and closes its channel. Later reads come from memory.
+     */
+    void seal() throws IOException {
+        if (size == 0) {
+            // Nothing to map; keep reading through the channel, which no reader will reach anyway
+            return;
+        }
+        Arena sealArena = Arena.ofShared();
+        mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size, sealArena);
+        arena = sealArena;
+        channel.close();
+        channel = null;
+    }
+
+    void read(long offset, byte[] into) throws IOException {
+        MemorySegment memory = mapped;
+        if (memory != null) {
+            MemorySegment.copy(memory, ValueLayout.JAVA_BYTE, offset, into, 0, into.length);
+            return;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(into);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, offset + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of segment " + path);
+            }
+        }
+    }
+
+    void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+        }
+        if (arena != null) {
+            arena.close();
+            arena = null;
+            mapped = null;
+        }
+    }
+
+    void delete() throws IOException {
+        close();
+        Files.deleteIfExists(path);
+    }
+}
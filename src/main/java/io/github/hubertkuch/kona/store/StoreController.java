@@ -0,0 +1,129 @@
+package io.github.hubertkuch.kona.store;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+import com.google.gson.annotations.SerializedName;
+import io.github.hubertkuch.kona.message.KonaController;
+import io.github.hubertkuch.kona.message.MessageHandler;
+import io.github.hubertkuch.kona.message.Payload;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * The built-in controller through which the frontend reads and writes a {@link KeyValueStore}.
+ * <p>
+ * Values are JSON, stored as UTF-8 text, so they can be shared with Java code that writes JSON as well.
+ * Writes respond once they are durable; writes sent in quick succession are flushed together.
+ * <p>
+ * Registered automatically under the reserved name {@code kona.store} when the application provides a
+ * {@link KeyValueStore} service.
+ */
+@KonaController(name = "kona.store")
+public final class StoreController {
+
+    /**
+     * The largest number of entries returned by one scan.
+     */
+    public static final int MAX_SCAN_LIMIT = 1_000;
+
+    /**
+     * @param key The key.
+     */
+    public record KeyRequest(String key) implements Payload {}
+
+    /**
+     * @param key   The key.
+     * @param value The JSON value.
+     */
+    public record PutRequest(String key, JsonElement value) implements Payload {}
+
+    /**
+     * @param prefix The prefix of the keys to return, or {@code null} for all keys.
+     * @param after  Only keys after this one are returned; pass the last key of the previous scan to continue.
+     * @param limit  The largest number of entries to return; {@code 0} or less returns {@link #MAX_SCAN_LIMIT}.
+     */
+    public record ScanRequest(String prefix, String after, int limit) implements Payload {}
+
+    /**
+     * @param ops The puts and deletes, applied atomically.
+     */
+    public record BatchRequest(List<BatchOp> ops) implements Payload {}
+
+    /**
+     * @param op    {@code put} or {@code delete}.
+     * @param key   The key.
+     * @param value The JSON value of a put.
+     */
+    public record BatchOp(Op op, String key, JsonElement value) {}
+
+    public enum Op {
+        @SerializedName("put") PUT,
+        @SerializedName("delete") DELETE
+    }
+
+    /**
+     * @param key   The key.
+     * @param value The value, or {@code null} if the key is not in the store.
+     */
+    public record Entry(String key, JsonElement value) {}
+
+    /**
+     * @param written The number of puts and deletes that are now durable.
+     */
+    public record WriteResult(int written) {}
+
+    private final KeyValueStore store;
+
+    public StoreController(KeyValueStore store) {
+        this.store = store;
+    }
+
+    @MessageHandler(action = "get")
+    public Entry get(KeyRequest request) {
+        return new Entry(request.key(), parse(store.get(request.key())));
+    }
+
+    @MessageHandler(action = "put")
+    public CompletableFuture<WriteResult> put(PutRequest request) {
+        return store.put(request.key(), encode(request.value())).thenApply(ignored -> new WriteResult(1));
+    }
+
+    @MessageHandler(action = "delete")
+    public CompletableFuture<WriteResult> delete(KeyRequest request) {
+        return store.delete(request.key()).thenApply(ignored -> new WriteResult(1));
+    }
+
+    @MessageHandler(action = "scan")
+    public List<Entry> scan(ScanRequest request) {
+        int limit = request.limit() <= 0 ? MAX_SCAN_LIMIT : Math.min(request.limit(), MAX_SCAN_LIMIT);
+        return store.scan(request.prefix(), request.after(), limit).stream()
+                .map(entry -> new Entry(entry.key(), parse(entry.value())))
+                .toList();
+    }
+
+    @MessageHandler(action = "batch")
+    public CompletableFuture<WriteResult> batch(BatchRequest request) {
+        WriteBatch batch = new WriteBatch();
+        for (BatchOp op : request.ops()) {
+            switch (op.op()) {
+                case PUT -> batch.put(op.key(), encode(op.value()));
+                case DELETE -> batch.delete(op.key());
+                case null -> throw new IllegalArgumentException("Batch entry for " + op.key() + " has no op");
+            }
+        }
+        return store.write(batch).thenApply(ignored -> new WriteResult(batch.size()));
+    }
+
+    private static byte[] encode(JsonElement value) {
+        if (value == null) {
+            throw new IllegalArgumentException("A put needs a value");
+        }
+        return value.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static JsonElement parse(byte[] value) {
+        return value == null ? null : JsonParser.parseString(new String(value, StandardCharsets.UTF_8));
+    }
+}
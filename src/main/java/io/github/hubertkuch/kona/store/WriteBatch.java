@@ -0,0 +1,40 @@
+package io.github.hubertkuch.kona.store;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Puts and deletes applied atomically by {@link KeyValueStore#write(WriteBatch)}: after a crash, either all
+ * of them or none of them are in the store.
+ */
+public final class WriteBatch {
+
+    final List<LogEntry> entries = new ArrayList<>();
+
+    /**
+     * @param key   The key.
+     * @param value The value; copied, so the array may be reused afterwards.
+     * @return This batch.
+     */
+    public WriteBatch put(String key, byte[] value) {
+        entries.add(LogEntry.put(Objects.requireNonNull(key), Objects.requireNonNull(value)));
+        return this;
+    }
+
+    /**
+     * @param key The key.
+     * @return This batch.
+     */
+    public WriteBatch delete(String key) {
+        entries.add(LogEntry.delete(Objects.requireNonNull(key)));
+        return this;
+    }
+
+    /**
+     * @return The number of puts and deletes.
+     */
+    public int size() {
+        return entries.size();
+    }
+}
@@ -0,0 +1,342 @@
+package io.github.hubertkuch.kona.table;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.IntPredicate;
+import java.util.function.IntToDoubleFunction;
+
+/**
+ * The storage of one {@link Table} column. Every operation works on row indexes, so queries never box
+ * the stored values until the visible rows are materialized.
+ */
+abstract sealed class Column permits Column.IntColumn, Column.LongColumn, Column.DoubleColumn, Column.StringColumn {
+
+    /**
+     * Compares two rows by the value of a column.
+     */
+    @FunctionalInterface
+    interface RowOrder {
+        int compare(int a, int b);
+    }
+
+    abstract ColumnType type();
+
+    /**
+     * @return The value of a row, boxed for serialization.
+     */
+    abstract Object value(int row);
+
+    abstract boolean isNull(int row);
+
+    /**
+     * @return The value of a row as a number, for aggregates.
+     */
+    abstract double number(int row);
+
+    /**
+     * @return A key identifying the value of a row, equal for equal values.
+     */
+    abstract long groupKey(int row);
+
+    abstract RowOrder order();
+
+    abstract IntPredicate predicate(TableQuery.Op op, Object value);
+
+    boolean numeric() {
+        return type() != ColumnType.STRING;
+    }
+
+    private static double toDouble(Object value) {
+        return switch (value) {
+            case Number number -> number.doubleValue();
+            case Boolean bool -> bool ? 1 : 0;
+            case String string -> Double.parseDouble(string);
+            case null -> throw new IllegalArgumentException("A numeric filter needs a value");
+            default -> throw new IllegalArgumentException("Not a number: " + value);
+        };
+    }
+
+    /**
+     * Builds the predicate of a numeric column by comparing each row's value as a double.
+     */
+    static IntPredicate numericPredicate(TableQuery.Op op, Object value, IntToDoubleFunction valueAt) {
+        if (op == TableQuery.Op.IN) {
+            if (!(value instanceof Collection<?> values)) {
+                throw new IllegalArgumentException("'in' needs an array");
+            }
+            Set<Double> set = new HashSet<>();
+            values.forEach(element -> set.add(toDouble(element)));
+            if (set.size() == 1) {
+                double single = set.iterator().next();
+                return row -> valueAt.applyAsDouble(row) == single;
+            }
+            return row -> set.contains(valueAt.applyAsDouble(row));
+        }
+        double bound = toDouble(value);
+        return switch (op) {
+            case EQ -> row -> valueAt.applyAsDouble(row) == bound;
+            case NE -> row -> valueAt.applyAsDouble(row) != bound;
+            case LT -> row -> valueAt.applyAsDouble(row) < bound;
+            case LE -> row -> valueAt.applyAsDouble(row) <= bound;
+            case GT -> row -> valueAt.applyAsDouble(row) > bound;
+            case GE -> row -> valueAt.applyAsDouble(row) >= bound;
+            default -> throw new IllegalArgumentException("'" + op + "' only applies to string columns");
+        };
+    }
+
+    static final class IntColumn extends Column {
+        private final int[] values;
+        private final boolean bool;
+
+        IntColumn(int[] values, boolean bool) {
+            this.values = values;
+            this.bool = bool;
+        }
+
+        @Override
+        ColumnType type() {
+            return bool ? ColumnType.BOOLEAN : ColumnType.INT;
+        }
+
+        @Override
+        Object value(int row) {
+            return bool ? (Object) (values[row] != 0) : (Object) values[row];
+        }
+
+        @Override
+        boolean isNull(int row) {
+            return false;
+        }
+
+        @Override
+        double number(int row) {
+            return values[row];
+        }
+
+        @Override
+        long groupKey(int row) {
+            return values[row];
+        }
+
+        @Override
+        RowOrder order() {
+            return (a, b) -> Integer.compare(values[a], values[b]);
+        }
+
+        @Override
+        IntPredicate predicate(TableQuery.Op op, Object value) {
+            return numericPredicate(op, value, row -> values[row]);
+        }
+    }
+
+    static final class LongColumn extends Column {
+        private final long[] values;
+
+        LongColumn(long[] values) {
+            this.values = values;
+        }
+
+        @Override
+        ColumnType type() {
+            return ColumnType.LONG;
+        }
+
+        @Override
+        Object value(int row) {
+            return values[row];
+        }
+
+        @Override
+        boolean isNull(int row) {
+            return false;
+        }
+
+        @Override
+        double number(int row) {
+            return values[row];
+        }
+
+        @Override
+        long groupKey(int row) {
+            return values[row];
+        }
+
+        @Override
+        RowOrder order() {
+            return (a, b) -> Long.compare(values[a], values[b]);
+        }
+
+        @Override
+        IntPredicate predicate(TableQuery.Op op, Object value) {
+            return numericPredicate(op, value, row -> values[row]);
+        }
+    }
+
+    static final class DoubleColumn extends Column {
+        private final double[] values;
+
+        DoubleColumn(double[] values) {
+            this.values = values;
+        }
+
+        @Override
+        ColumnType type() {
+            return ColumnType.DOUBLE;
+        }
+
+        @Override
+        Object value(int row) {
+            return values[row];
+        }
+
+        @Override
+        boolean isNull(int row) {
+            return false;
+        }
+
+        @Override
+        double number(int row) {
+            return values[row];
+        }
+
+        @Override
+        long groupKey(int row) {
+            return Double.doubleToLongBits(values[row]);
+        }
+
+        @Override
+        RowOrder order() {
+            return (a, b) -> Double.compare(values[a], values[b]);
+        }
+
+        @Override
+        IntPredicate predicate(TableQuery.Op op, Object value) {
+            return numericPredicate(op, value, row -> values[row]);
+        }
+    }
+
+    /**
+     * A dictionary-encoded string column. Filters are evaluated once per distinct value rather than once
+     * per row, and sorting compares precomputed ranks of the distinct values.
+     */
+    static final class StringColumn extends Column {
+        // The dictionary code of each row, or -1 for null
+        private final int[] codes;
+        private final List<String> dictionary;
+        private final Map<String, Integer> codesByValue;
+        // The position of each dictionary entry in sorted order, computed on first sort
+        private volatile int[] ranks;
+
+        StringColumn(int[] codes, List<String> dictionary, Map<String, Integer> codesByValue) {
+            this.codes = codes;
+            this.dictionary = dictionary;
+            this.codesByValue = codesByValue;
+        }
+
+        @Override
+        ColumnType type() {
+            return ColumnType.STRING;
+        }
+
+        @Override
+        Object value(int row) {
+            int code = codes[row];
+            return code < 0 ? null : dictionary.get(code);
+        }
+
+        @Override
+        boolean isNull(int row) {
+            return codes[row] < 0;
+        }
+
+        @Override
+        double number(int row) {
+            throw new IllegalArgumentException("String columns cannot be aggregated");
+        }
+
+        @Override
+        long groupKey(int row) {
+            return codes[row];
+        }
+
+        @Override
+        RowOrder order() {
+            int[] ranks = ranks();
+            // Nulls sort first
+            return (a, b) -> Integer.compare(codes[a] < 0 ? -1 : ranks[codes[a]], codes[b] < 0 ? -1 : ranks[codes[b]]);
+        }
+
+        private int[] ranks() {
+            int[] ranks = this.ranks;
+            if (ranks == null) {
+                Integer[] sorted = new Integer[dictionary.size()];
+                for (int i = 0; i < sorted.length; i++) {
+                    sorted[i] = i;
+                }
+                Arrays.sort(sorted, (a, b) -> dictionary.get(a).compareTo(dictionary.get(b)));
+                ranks = new int[sorted.length];
+                for (int rank = 0; rank < sorted.length; rank++) {
+                    ranks[sorted[rank]] = rank;
+                }
+                this.ranks = ranks;
+            }
+            return ranks;
+        }
+
+        @Override
+        IntPredicate predicate(TableQuery.Op op, Object value) {
+            if (op == TableQuery.Op.NE) {
+                IntPredicate equal = predicate(TableQuery.Op.EQ, value);
+                return row -> !equal.test(row);
+            }
+
+            boolean[] matches = new boolean[dictionary.size()];
+            boolean matchesNull = false;
+            if (op == TableQuery.Op.IN) {
+                if (!(value instanceof Collection<?> values)) {
+                    throw new IllegalArgumentException("'in' needs an array");
+                }
+                for (Object element : values) {
+                    if (element == null) {
+                        matchesNull = true;
+                    } else {
+                        Integer code = codesByValue.get(element.toString());
+                        if (code != null) {
+                            matches[code] = true;
+                        }
+                    }
+                }
+            } else if (value == null) {
+                if (op != TableQuery.Op.EQ) {
+                    throw new IllegalArgumentException("'" + op + "' needs a value");
+                }
+                matchesNull = true;
+            } else {
+                String operand = value.toString();
+                if (op == TableQuery.Op.EQ) {
+                    Integer code = codesByValue.get(operand);
+                    return code == null ? row -> false : row -> codes[row] == code;
+                }
+                for (int code = 0; code < matches.length; code++) {
+                    String entry = dictionary.get(code);
+                    matches[code] = switch (op) {
+                        case LT -> entry.compareTo(operand) < 0;
+                        case LE -> entry.compareTo(operand) <= 0;
+                        case GT -> entry.compareTo(operand) > 0;
+                        case GE -> entry.compareTo(operand) >= 0;
+                        case CONTAINS -> entry.contains(operand);
+                        case STARTS_WITH -> entry.startsWith(operand);
+                        default -> throw new IllegalStateException();
+                    };
+                }
+            }
+
+            boolean nullMatches = matchesNull;
+            return row -> codes[row] < 0 ? nullMatches : matches[codes[row]];
+        }
+    }
+}
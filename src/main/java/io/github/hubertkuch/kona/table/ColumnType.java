@@ -0,0 +1,29 @@
+package io.github.hubertkuch.kona.table;
+
+import com.google.gson.annotations.SerializedName;
+
+/**
+ * The storage type of a {@link Table} column.
+ */
+public enum ColumnType {
+    /**
+     * 32-bit integers, stored in an {@code int[]}.
+     */
+    @SerializedName("int") INT,
+    /**
+     * 64-bit integers, stored in a {@code long[]}.
+     */
+    @SerializedName("long") LONG,
+    /**
+     * Floating point numbers, stored in a {@code double[]}.
+     */
+    @SerializedName("double") DOUBLE,
+    /**
+     * Booleans, stored in an {@code int[]} of zeros and ones.
+     */
+    @SerializedName("boolean") BOOLEAN,
+    /**
+     * Strings, dictionary-encoded: each distinct value is stored once and rows hold its code in an {@code int[]}.
+     */
+    @SerializedName("string") STRING
+}
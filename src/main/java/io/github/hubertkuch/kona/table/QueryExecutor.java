@@ -0,0 +1,423 @@
+package io.github.hubertkuch.kona.table;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.IntPredicate;
+
+/**
+ * Runs a {@link TableQuery} against a {@link Table}: filters into a selection of row indexes, then either
+ * sorts the selection or groups it, and finally materializes only the requested slice.
+ * Filtering, sorting and grouping split the rows into chunks processed as fork/join tasks.
+ */
+final class QueryExecutor {
+
+    // Ranges of at most this many rows are processed by a single task
+    private static final int CHUNK = 16_384;
+
+    private final Table table;
+    private final ForkJoinPool pool;
+
+    QueryExecutor(Table table, ForkJoinPool pool) {
+        this.table = table;
+        this.pool = pool;
+    }
+
+    TableResult execute(TableQuery query) {
+        int[] selection = filter(query.filter());
+        boolean grouped = !isEmpty(query.groupBy()) || !isEmpty(query.aggregate());
+        return grouped ? group(query, selection) : select(query, selection);
+    }
+
+    private static boolean isEmpty(List<?> list) {
+        return list == null || list.isEmpty();
+    }
+
+    private int[] filter(List<TableQuery.Filter> filters) {
+        int rowCount = table.rowCount();
+        if (isEmpty(filters)) {
+            int[] all = new int[rowCount];
+            Arrays.setAll(all, row -> row);
+            return all;
+        }
+
+        IntPredicate predicate = null;
+        for (TableQuery.Filter filter : filters) {
+            if (filter.op() == null) {
+                throw new IllegalArgumentException("Filter on " + filter.column() + " has no op");
+            }
+            IntPredicate next = table.column(filter.column()).predicate(filter.op(), filter.value());
+            predicate = predicate == null ? next : predicate.and(next);
+        }
+        return pool.invoke(new FilterTask(predicate, 0, rowCount));
+    }
+
+    private TableResult select(TableQuery query, int[] selection) {
+        if (!isEmpty(query.sort())) {
+            Column.RowOrder order = rowOrder(query.sort());
+            pool.invoke(new SortTask(selection, new int[selection.length], 0, selection.length, order));
+        }
+
+        List<String> names = isEmpty(query.columns()) ? List.copyOf(table.columns().keySet()) : query.columns();
+        Column[] columns = new Column[names.size()];
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = table.column(names.get(i));
+        }
+
+        int from = Math.clamp(query.offset(), 0, selection.length);
+        int to = Math.min(selection.length, from + limit(query));
+        List<List<Object>> rows = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            Object[] row = new Object[columns.length];
+            for (int c = 0; c < columns.length; c++) {
+                row[c] = columns[c].value(selection[i]);
+            }
+            rows.add(Arrays.asList(row));
+        }
+        return new TableResult(names, rows, from, selection.length);
+    }
+
+    private static int limit(TableQuery query) {
+        return query.limit() <= 0 ? TableQuery.DEFAULT_LIMIT : Math.min(query.limit(), TableQuery.MAX_LIMIT);
+    }
+
+    private Column.RowOrder rowOrder(List<TableQuery.Sort> sort) {
+        Column.RowOrder order = null;
+        for (TableQuery.Sort key : sort) {
+            Column.RowOrder ascending = table.column(key.column()).order();
+            Column.RowOrder next = key.descending() ? (a, b) -> ascending.compare(b, a) : ascending;
+            Column.RowOrder previous = order;
+            order = previous == null ? next : (a, b) -> {
+                int result = previous.compare(a, b);
+                return result != 0 ? result : next.compare(a, b);
+            };
+        }
+        return order;
+    }
+
+    private TableResult group(TableQuery query, int[] selection) {
+        List<String> groupBy = isEmpty(query.groupBy()) ? List.of() : query.groupBy();
+        List<TableQuery.Aggregate> aggregates = isEmpty(query.aggregate()) ? List.of() : query.aggregate();
+
+        Column[] keyColumns = new Column[groupBy.size()];
+        for (int i = 0; i < keyColumns.length; i++) {
+            keyColumns[i] = table.column(groupBy.get(i));
+        }
+        Column[] valueColumns = new Column[aggregates.size()];
+        for (int i = 0; i < valueColumns.length; i++) {
+            TableQuery.Aggregate aggregate = aggregates.get(i);
+            if (aggregate.function() == null) {
+                throw new IllegalArgumentException("Aggregate has no function");
+            }
+            if (aggregate.column() != null) {
+                valueColumns[i] = table.column(aggregate.column());
+                if (aggregate.function() != TableQuery.Function.COUNT && !valueColumns[i].numeric()) {
+                    throw new IllegalArgumentException(aggregate.function() + " needs a numeric column, but " + aggregate.column() + " is a string column");
+                }
+            } else if (aggregate.function() != TableQuery.Function.COUNT) {
+                throw new IllegalArgumentException(aggregate.function() + " needs a column");
+            }
+        }
+
+        Map<GroupKey, Accumulator[]> groups = pool.invoke(new GroupTask(selection, 0, selection.length, keyColumns, valueColumns));
+        if (groups.isEmpty() && keyColumns.length == 0) {
+            // Aggregates over no rows still yield a row
+            groups.put(new GroupKey(new long[0], -1), Accumulator.forColumns(valueColumns.length));
+        }
+
+        List<String> names = new ArrayList<>(groupBy);
+        aggregates.forEach(aggregate -> names.add(aggregate.name()));
+        // Unsorted groups appear in the order of their first row
+        List<Map.Entry<GroupKey, Accumulator[]>> entries = new ArrayList<>(groups.entrySet());
+        entries.sort(Comparator.comparingInt(entry -> entry.getKey().row));
+        List<List<Object>> rows = new ArrayList<>(entries.size());
+        for (Map.Entry<GroupKey, Accumulator[]> entry : entries) {
+            Object[] row = new Object[names.size()];
+            for (int i = 0; i < keyColumns.length; i++) {
+                row[i] = keyColumns[i].value(entry.getKey().row);
+            }
+            Accumulator[] accumulators = entry.getValue();
+            for (int i = 0; i < accumulators.length; i++) {
+                row[keyColumns.length + i] = accumulators[i].result(aggregates.get(i).function());
+            }
+            rows.add(Arrays.asList(row));
+        }
+
+        if (!isEmpty(query.sort())) {
+            rows.sort(resultOrder(query.sort(), names));
+        }
+        int from = Math.clamp(query.offset(), 0, rows.size());
+        int to = Math.min(rows.size(), from + limit(query));
+        return new TableResult(names, new ArrayList<>(rows.subList(from, to)), from, rows.size());
+    }
+
+    private static Comparator<List<Object>> resultOrder(List<TableQuery.Sort> sort, List<String> names) {
+        Comparator<List<Object>> order = null;
+        for (TableQuery.Sort key : sort) {
+            int index = names.indexOf(key.column());
+            if (index < 0) {
+                throw new IllegalArgumentException("Unknown result column: " + key.column());
+            }
+            Comparator<List<Object>> next = (a, b) -> compareValues(a.get(index), b.get(index));
+            if (key.descending()) {
+                next = next.reversed();
+            }
+            order = order == null ? next : order.thenComparing(next);
+        }
+        return order;
+    }
+
+    private static int compareValues(Object a, Object b) {
+        if (a == null || b == null) {
+            return a == null ? (b == null ? 0 : -1) : 1;
+        }
+        if (a instanceof Number x && b instanceof Number y) {
+            return Double.compare(x.doubleValue(), y.doubleValue());
+        }
+        if (a instanceof Boolean x && b instanceof Boolean y) {
+            return Boolean.compare(x, y);
+        }
+        return a.toString().compareTo(b.toString());
+    }
+
+    /**
+     * Collects the indexes of the rows in a range that match a predicate.
+     */
+    private static final class FilterTask extends RecursiveTask<int[]> {
+        private final IntPredicate predicate;
+        private final int from;
+        private final int to;
+
+        FilterTask(IntPredicate predicate, int from, int to) {
+            this.predicate = predicate;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected int[] compute() {
+            if (to - from <= CHUNK) {
+                int[] matches = new int[to - from];
+                int count = 0;
+                for (int row = from; row < to; row++) {
+                    if (predicate.test(row)) {
+                        matches[count++] = row;
+                    }
+                }
+                return Arrays.copyOf(matches, count);
+            }
+
+            int middle = (from + to) >>> 1;
+            FilterTask left = new FilterTask(predicate, from, middle);
+            left.fork();
+            int[] right = new FilterTask(predicate, middle, to).compute();
+            int[] leftMatches = left.join();
+            int[] matches = Arrays.copyOf(leftMatches, leftMatches.length + right.length);
+            System.arraycopy(right, 0, matches, leftMatches.length, right.length);
+            return matches;
+        }
+    }
+
+    /**
+     * A stable merge sort of row indexes, sorting the halves of large ranges in parallel.
+     */
+    private static final class SortTask extends RecursiveAction {
+        private static final int INSERTION_THRESHOLD = 32;
+
+        private final int[] rows;
+        private final int[] buffer;
+        private final int from;
+        private final int to;
+        private final Column.RowOrder order;
+
+        SortTask(int[] rows, int[] buffer, int from, int to, Column.RowOrder order) {
+            this.rows = rows;
+            this.buffer = buffer;
+            this.from = from;
+            this.to = to;
+            this.order = order;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= CHUNK) {
+                sort(from, to);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new SortTask(rows, buffer, from, middle, order), new SortTask(rows, buffer, middle, to, order));
+            merge(from, middle, to);
+        }
+
+        private void sort(int from, int to) {
+            if (to - from <= INSERTION_THRESHOLD) {
+                for (int i = from + 1; i < to; i++) {
+                    int row = rows[i];
+                    int j = i - 1;
+                    while (j >= from && order.compare(rows[j], row) > 0) {
+                        rows[j + 1] = rows[j];
+                        j--;
+                    }
+                    rows[j + 1] = row;
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            sort(from, middle);
+            sort(middle, to);
+            merge(from, middle, to);
+        }
+
+        private void merge(int from, int middle, int to) {
+            if (order.compare(rows[middle - 1], rows[middle]) <= 0) {
+                return;
+            }
+            System.arraycopy(rows, from, buffer, from, to - from);
+            int left = from;
+            int right = middle;
+            for (int i = from; i < to; i++) {
+                if (right >= to || (left < middle && order.compare(buffer[left], buffer[right]) <= 0)) {
+                    rows[i] = buffer[left++];
+                } else {
+                    rows[i] = buffer[right++];
+                }
+            }
+        }
+    }
+
+    /**
+     * The values of the group columns for one group, with the first row of the group to read them back from.
+     */
+    private static final class GroupKey {
+        private final long[] parts;
+        private final int row;
+        private final int hash;
+
+        GroupKey(long[] parts, int row) {
+            this.parts = parts;
+            this.row = row;
+            this.hash = Arrays.hashCode(parts);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof GroupKey key && Arrays.equals(parts, key.parts);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    /**
+     * The running count, sum, minimum and maximum of one aggregate within one group.
+     */
+    private static final class Accumulator {
+        long count;
+        double sum;
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+
+        static Accumulator[] forColumns(int count) {
+            Accumulator[] accumulators = new Accumulator[count];
+            Arrays.setAll(accumulators, i -> new Accumulator());
+            return accumulators;
+        }
+
+        void add(double value) {
+            count++;
+            sum += value;
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+        }
+
+        void merge(Accumulator other) {
+            count += other.count;
+            sum += other.sum;
+            min = Math.min(min, other.min);
+            max = Math.max(max, other.max);
+        }
+
+        Object result(TableQuery.Function function) {
+            return switch (function) {
+                case COUNT -> count;
+                case SUM -> sum;
+                case MIN -> count == 0 ? null : min;
+                case MAX -> count == 0 ? null : max;
+                case AVG -> count == 0 ? null : sum / count;
+            };
+        }
+    }
+
+    /**
+     * Groups the selected rows in a range, merging the partial groups of both halves of large ranges.
+     */
+    private static final class GroupTask extends RecursiveTask<Map<GroupKey, Accumulator[]>> {
+        private final int[] selection;
+        private final int from;
+        private final int to;
+        private final Column[] keyColumns;
+        private final Column[] valueColumns;
+
+        GroupTask(int[] selection, int from, int to, Column[] keyColumns, Column[] valueColumns) {
+            this.selection = selection;
+            this.from = from;
+            this.to = to;
+            this.keyColumns = keyColumns;
+            this.valueColumns = valueColumns;
+        }
+
+        @Override
+        protected Map<GroupKey, Accumulator[]> compute() {
+            if (to - from > CHUNK) {
+                int middle = (from + to) >>> 1;
+                GroupTask left = new GroupTask(selection, from, middle, keyColumns, valueColumns);
+                left.fork();
+                Map<GroupKey, Accumulator[]> groups = new GroupTask(selection, middle, to, keyColumns, valueColumns).compute();
+                Map<GroupKey, Accumulator[]> leftGroups = left.join();
+                // Keep the left key on collisions so that groups keep their first row
+                rightIntoLeft(groups, leftGroups);
+                return leftGroups;
+            }
+
+            Map<GroupKey, Accumulator[]> groups = new HashMap<>();
+            for (int i = from; i < to; i++) {
+                int row = selection[i];
+                long[] parts = new long[keyColumns.length];
+                for (int c = 0; c < parts.length; c++) {
+                    parts[c] = keyColumns[c].groupKey(row);
+                }
+                Accumulator[] accumulators = groups.computeIfAbsent(new GroupKey(parts, row), key -> Accumulator.forColumns(valueColumns.length));
+                for (int a = 0; a < accumulators.length; a++) {
+                    Column column = valueColumns[a];
+                    if (column == null) {
+                        accumulators[a].count++;
+                    } else if (!column.isNull(row)) {
+                        if (column.numeric()) {
+                            accumulators[a].add(column.number(row));
+                        } else {
+                            accumulators[a].count++;
+                        }
+                    }
+                }
+            }
+            return groups;
+        }
+
+        private static void rightIntoLeft(Map<GroupKey, Accumulator[]> right, Map<GroupKey, Accumulator[]> left) {
+            right.forEach((key, accumulators) -> left.merge(key, accumulators, (existing, added) -> {
+                for (int a = 0; a < existing.length; a++) {
+                    existing[a].merge(added[a]);
+                }
+                return existing;
+            }));
+        }
+    }
+}
@@ -0,0 +1,272 @@
+package io.github.hubertkuch.kona.table;
+
+import java.lang.reflect.RecordComponent;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * An immutable in-memory table stored column by column, which the frontend queries through the built-in
+ * {@code kona.table} controller instead of holding the whole dataset itself.
+ * <p>
+ * Numbers are stored in primitive arrays and strings are dictionary-encoded, so a million-row table with a
+ * handful of columns takes tens of megabytes and filtering, sorting and grouping never box a value.
+ * Queries run in parallel on a {@link ForkJoinPool}; only the rows the frontend asks for are materialized.
+ * <p>
+ * Tables are built row by row with a {@link Builder}, or from records:
+ * <pre>{@code
+ * Table orders = Table.fromRecords(Order.class, repository.findAll());
+ * }</pre>
+ * To change the data, build a new table and register it under the same name.
+ */
+public final class Table {
+
+    private final Map<String, Column> columns;
+    private final int rowCount;
+
+    private Table(Map<String, Column> columns, int rowCount) {
+        this.columns = Collections.unmodifiableMap(columns);
+        this.rowCount = rowCount;
+    }
+
+    /**
+     * @return A builder for a table with no columns.
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Builds a table with one column per record component. {@code int}, {@code short} and {@code byte}
+     * components become {@link ColumnType#INT} columns, {@code long} ones {@link ColumnType#LONG},
+     * {@code float} and {@code double} ones {@link ColumnType#DOUBLE}, {@code boolean} ones
+     * {@link ColumnType#BOOLEAN}, and every other component a {@link ColumnType#STRING} column
+     * of its {@code toString()}.
+     *
+     * @param type The record class.
+     * @param rows The rows.
+     * @param <R>  The record type.
+     * @return The table.
+     */
+    public static <R extends Record> Table fromRecords(Class<R> type, Collection<? extends R> rows) {
+        RecordComponent[] components = type.getRecordComponents();
+        Builder builder = new Builder();
+        for (RecordComponent component : components) {
+            builder.column(component.getName(), typeOf(component.getType()));
+        }
+
+        Object[] values = new Object[components.length];
+        for (R row : rows) {
+            for (int i = 0; i < components.length; i++) {
+                try {
+                    values[i] = components[i].getAccessor().invoke(row);
+                } catch (ReflectiveOperationException e) {
+                    throw new IllegalArgumentException("Cannot read " + type.getSimpleName() + "." + components[i].getName(), e);
+                }
+            }
+            builder.addRow(values);
+        }
+        return builder.build();
+    }
+
+    private static ColumnType typeOf(Class<?> type) {
+        if (type == int.class || type == short.class || type == byte.class) {
+            return ColumnType.INT;
+        }
+        if (type == long.class) {
+            return ColumnType.LONG;
+        }
+        if (type == double.class || type == float.class) {
+            return ColumnType.DOUBLE;
+        }
+        if (type == boolean.class) {
+            return ColumnType.BOOLEAN;
+        }
+        return ColumnType.STRING;
+    }
+
+    /**
+     * @return The number of rows.
+     */
+    public int rowCount() {
+        return rowCount;
+    }
+
+    /**
+     * @return The type of each column, in column order.
+     */
+    public Map<String, ColumnType> schema() {
+        Map<String, ColumnType> schema = new LinkedHashMap<>();
+        columns.forEach((name, column) -> schema.put(name, column.type()));
+        return schema;
+    }
+
+    Map<String, Column> columns() {
+        return columns;
+    }
+
+    Column column(String name) {
+        Column column = columns.get(name);
+        if (column == null) {
+            throw new IllegalArgumentException("Unknown column: " + name);
+        }
+        return column;
+    }
+
+    /**
+     * Runs a query on the common fork/join pool.
+     *
+     * @param query The query.
+     * @return The requested slice of the result.
+     */
+    public TableResult query(TableQuery query) {
+        return query(query, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Runs a query.
+     *
+     * @param query The query.
+     * @param pool  The pool that filters, sorts and groups in parallel.
+     * @return The requested slice of the result.
+     */
+    public TableResult query(TableQuery query, ForkJoinPool pool) {
+        return new QueryExecutor(this, pool).execute(query);
+    }
+
+    /**
+     * Collects the rows of a {@link Table}. Columns are declared first, then rows are added with one value
+     * per column in declaration order.
+     */
+    public static final class Builder {
+        private final Map<String, ColumnType> types = new LinkedHashMap<>();
+        private final List<ColumnBuffer> buffers = new ArrayList<>();
+        private int rowCount;
+
+        private Builder() {}
+
+        /**
+         * Declares the next column.
+         *
+         * @param name The column name.
+         * @param type The storage type.
+         * @return This builder instance.
+         */
+        public Builder column(String name, ColumnType type) {
+            Objects.requireNonNull(type);
+            if (rowCount > 0) {
+                throw new IllegalStateException("Columns must be declared before rows are added");
+            }
+            if (types.putIfAbsent(name, type) != null) {
+                throw new IllegalArgumentException("Duplicate column: " + name);
+            }
+            buffers.add(new ColumnBuffer(type));
+            return this;
+        }
+
+        /**
+         * Adds a row. Numeric columns take any {@link Number}, boolean columns a {@link Boolean}, and string
+         * columns any value, which is stored as its {@code toString()}. Only string columns may hold {@code null}.
+         *
+         * @param values One value per column.
+         * @return This builder instance.
+         */
+        public Builder addRow(Object... values) {
+            if (values.length != buffers.size()) {
+                throw new IllegalArgumentException("Expected " + buffers.size() + " values but got " + values.length);
+            }
+            for (int i = 0; i < values.length; i++) {
+                buffers.get(i).add(rowCount, values[i]);
+            }
+            rowCount++;
+            return this;
+        }
+
+        /**
+         * @return The table.
+         */
+        public Table build() {
+            Map<String, Column> columns = new LinkedHashMap<>();
+            int index = 0;
+            for (String name : types.keySet()) {
+                columns.put(name, buffers.get(index++).build(rowCount));
+            }
+            return new Table(columns, rowCount);
+        }
+    }
+
+    /**
+     * The growing storage of one column while a table is built.
+     */
+    private static final class ColumnBuffer {
+        private final ColumnType type;
+        private int[] ints = new int[0];
+        private long[] longs = new long[0];
+        private double[] doubles = new double[0];
+        private List<String> dictionary;
+        private Map<String, Integer> codesByValue;
+
+        ColumnBuffer(ColumnType type) {
+            this.type = type;
+            if (type == ColumnType.STRING) {
+                dictionary = new ArrayList<>();
+                codesByValue = new HashMap<>();
+            }
+        }
+
+        void add(int row, Object value) {
+            if (value == null && type != ColumnType.STRING) {
+                throw new IllegalArgumentException("Only string columns may hold null");
+            }
+            switch (type) {
+                case INT -> {
+                    ints = grow(ints, row);
+                    ints[row] = ((Number) value).intValue();
+                }
+                case BOOLEAN -> {
+                    ints = grow(ints, row);
+                    ints[row] = (Boolean) value ? 1 : 0;
+                }
+                case LONG -> {
+                    if (row == longs.length) {
+                        longs = Arrays.copyOf(longs, Math.max(16, row * 2));
+                    }
+                    longs[row] = ((Number) value).longValue();
+                }
+                case DOUBLE -> {
+                    if (row == doubles.length) {
+                        doubles = Arrays.copyOf(doubles, Math.max(16, row * 2));
+                    }
+                    doubles[row] = ((Number) value).doubleValue();
+                }
+                case STRING -> {
+                    ints = grow(ints, row);
+                    ints[row] = value == null ? -1 : codesByValue.computeIfAbsent(value.toString(), string -> {
+                        dictionary.add(string);
+                        return dictionary.size() - 1;
+                    });
+                }
+            }
+        }
+
+        private static int[] grow(int[] values, int row) {
+            return row == values.length ? Arrays.copyOf(values, Math.max(16, row * 2)) : values;
+        }
+
+        Column build(int rowCount) {
+            return switch (type) {
+                case INT, BOOLEAN -> new Column.IntColumn(Arrays.copyOf(ints, rowCount), type == ColumnType.BOOLEAN);
+                case LONG -> new Column.LongColumn(Arrays.copyOf(longs, rowCount));
+                case DOUBLE -> new Column.DoubleColumn(Arrays.copyOf(doubles, rowCount));
+                case STRING -> new Column.StringColumn(Arrays.copyOf(ints, rowCount), List.copyOf(dictionary), Map.copyOf(codesByValue));
+            };
+        }
+    }
+}
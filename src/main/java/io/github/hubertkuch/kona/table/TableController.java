@@ -0,0 +1,45 @@
+package io.github.hubertkuch.kona.table;
+
+import io.github.hubertkuch.kona.message.KonaController;
+import io.github.hubertkuch.kona.message.MessageHandler;
+import io.github.hubertkuch.kona.message.Payload;
+
+import java.util.Map;
+
+/**
+ * The built-in controller through which the frontend queries the tables of a {@link TableRegistry}.
+ * <p>
+ * Registered automatically under the reserved name {@code kona.table} when the application provides a
+ * {@link TableRegistry} service.
+ */
+@KonaController(name = "kona.table")
+public final class TableController {
+
+    /**
+     * @param table The table name.
+     */
+    public record DescribeRequest(String table) implements Payload {}
+
+    /**
+     * @param rowCount The number of rows.
+     * @param columns  The type of each column, in column order.
+     */
+    public record TableSchema(int rowCount, Map<String, ColumnType> columns) {}
+
+    private final TableRegistry tables;
+
+    public TableController(TableRegistry tables) {
+        this.tables = tables;
+    }
+
+    @MessageHandler(action = "query")
+    public TableResult query(TableQuery query) {
+        return tables.query(query);
+    }
+
+    @MessageHandler(action = "describe")
+    public TableSchema describe(DescribeRequest request) {
+        Table table = tables.get(request.table());
+        return new TableSchema(table.rowCount(), table.schema());
+    }
+}
@@ -0,0 +1,110 @@
+package io.github.hubertkuch.kona.table;
+
+import com.google.gson.annotations.SerializedName;
+import io.github.hubertkuch.kona.message.Payload;
+
+import java.util.List;
+
+/**
+ * A declarative query against a {@link Table}, as sent by the frontend:
+ * <pre>{@code
+ * {
+ *   "table": "orders",
+ *   "filter": [{"column": "status", "op": "in", "value": ["open", "held"]}, {"column": "total", "op": "ge", "value": 100}],
+ *   "sort": [{"column": "total", "descending": true}],
+ *   "offset": 0,
+ *   "limit": 50
+ * }
+ * }</pre>
+ * Filters are combined with AND. With {@code groupBy} or {@code aggregate}, the result has one row per group,
+ * and {@code sort} refers to the result columns, i.e. the group columns and the aggregate names.
+ *
+ * @param table     The name the table was registered under in the {@link TableRegistry}.
+ * @param filter    The conditions rows must meet, or {@code null} for all rows.
+ * @param sort      The sort keys, most significant first, or {@code null} to keep the table order.
+ * @param groupBy   The columns to group by, or {@code null}.
+ * @param aggregate The aggregates to compute per group, or over all matching rows if there is no {@code groupBy}.
+ * @param columns   The columns to return, or {@code null} for all. Ignored when grouping.
+ * @param offset    The index of the first row to return.
+ * @param limit     The number of rows to return; {@code 0} or less returns {@link #DEFAULT_LIMIT} rows.
+ */
+public record TableQuery(String table, List<Filter> filter, List<Sort> sort, List<String> groupBy,
+                         List<Aggregate> aggregate, List<String> columns, int offset, int limit) implements Payload {
+
+    /**
+     * The number of rows returned when the query sets no limit.
+     */
+    public static final int DEFAULT_LIMIT = 100;
+
+    /**
+     * The largest number of rows returned by one query.
+     */
+    public static final int MAX_LIMIT = 10_000;
+
+    /**
+     * A comparison operator of a {@link Filter}.
+     */
+    public enum Op {
+        @SerializedName("eq") EQ,
+        @SerializedName("ne") NE,
+        @SerializedName("lt") LT,
+        @SerializedName("le") LE,
+        @SerializedName("gt") GT,
+        @SerializedName("ge") GE,
+        /**
+         * The value is one of the elements of an array.
+         */
+        @SerializedName("in") IN,
+        /**
+         * The string value contains the given text. String columns only.
+         */
+        @SerializedName("contains") CONTAINS,
+        /**
+         * The string value starts with the given text. String columns only.
+         */
+        @SerializedName("startsWith") STARTS_WITH
+    }
+
+    /**
+     * A function computed over the rows of a group.
+     */
+    public enum Function {
+        /**
+         * The number of rows, or of non-null values if a column is given.
+         */
+        @SerializedName("count") COUNT,
+        @SerializedName("sum") SUM,
+        @SerializedName("min") MIN,
+        @SerializedName("max") MAX,
+        @SerializedName("avg") AVG
+    }
+
+    /**
+     * @param column The column to test.
+     * @param op     The comparison.
+     * @param value  A number, string or boolean, or an array of them for {@link Op#IN}.
+     */
+    public record Filter(String column, Op op, Object value) {}
+
+    /**
+     * @param column     The column to sort by.
+     * @param descending Whether larger values come first.
+     */
+    public record Sort(String column, boolean descending) {}
+
+    /**
+     * @param function The function to compute.
+     * @param column   The numeric column it is computed over; may be {@code null} for {@link Function#COUNT}.
+     * @param as       The name of the result column, or {@code null} for e.g. {@code sum(total)}.
+     */
+    public record Aggregate(Function function, String column, String as) {
+
+        String name() {
+            if (as != null) {
+                return as;
+            }
+            String function = this.function.name().toLowerCase();
+            return column == null ? function : function + "(" + column + ")";
+        }
+    }
+}
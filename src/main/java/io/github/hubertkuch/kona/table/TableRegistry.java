@@ -0,0 +1,91 @@
+package io.github.hubertkuch.kona.table;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * The tables the frontend can query through the built-in {@code kona.table} controller, which is only
+ * registered when the application provides a registry:
+ * <pre>{@code
+ * TableRegistry tables = new TableRegistry();
+ * tables.register("orders", Table.fromRecords(Order.class, repository.findAll()));
+ *
+ * new Kona.Builder()
+ *         .service(TableRegistry.class, tables)
+ *         .build()
+ *         .run();
+ * }</pre>
+ */
+public final class TableRegistry {
+
+    private final Map<String, Table> tables = new ConcurrentHashMap<>();
+    private final ForkJoinPool pool;
+
+    /**
+     * Creates a registry whose queries run on the common fork/join pool.
+     */
+    public TableRegistry() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates a registry whose queries run on the given pool, e.g. to keep them from competing with
+     * other parallel work.
+     *
+     * @param pool The pool.
+     */
+    public TableRegistry(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Registers a table, replacing any table with the same name. Queries already running keep
+     * using the previous table.
+     *
+     * @param name  The name the frontend queries it by.
+     * @param table The table.
+     */
+    public void register(String name, Table table) {
+        tables.put(name, table);
+    }
+
+    /**
+     * @param name The table name.
+     * @return Whether a table was removed.
+     */
+    public boolean remove(String name) {
+        return tables.remove(name) != null;
+    }
+
+    /**
+     * @param name The table name.
+     * @return The table.
+     * @throws IllegalArgumentException If no table is registered under the name.
+     */
+    public Table get(String name) {
+        Table table = tables.get(name);
+        if (table == null) {
+            throw new IllegalArgumentException("Unknown table: " + name);
+        }
+        return table;
+    }
+
+    /**
+     * @return The names of the registered tables.
+     */
+    public Set<String> names() {
+        return Set.copyOf(tables.keySet());
+    }
+
+    /**
+     * Runs a query against the table it names.
+     *
+     * @param query The query.
+     * @return The requested slice of the result.
+     */
+    public TableResult query(TableQuery query) {
+        return get(query.table()).query(query, pool);
+    }
+}
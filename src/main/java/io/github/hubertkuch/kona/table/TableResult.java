@@ -0,0 +1,13 @@
+package io.github.hubertkuch.kona.table;
+
+import java.util.List;
+
+/**
+ * The visible slice of a {@link TableQuery} result, sent row by row to keep the payload compact.
+ *
+ * @param columns The names of the returned columns.
+ * @param rows    The rows of the slice, each holding one value per column.
+ * @param offset  The index of the first returned row within the whole result.
+ * @param total   The number of rows in the whole result, i.e. after filtering or grouping.
+ */
+public record TableResult(List<String> columns, List<List<Object>> rows, int offset, int total) {}
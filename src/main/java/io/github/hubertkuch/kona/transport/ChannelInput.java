@@ -0,0 +1,81 @@
+package io.github.hubertkuch.kona.transport;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Buffered reads of HTTP lines and WebSocket frames from a channel. Not thread-safe; each connection has a single
+ * reader.
+ */
+final class ChannelInput {
+
+    private final ReadableByteChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(16 * 1024).flip();
+
+    ChannelInput(ReadableByteChannel channel) {
+        this.channel = channel;
+    }
+
+    /**
+     * Reads a line terminated by CRLF or LF.
+     *
+     * @param maxLength The longest line accepted.
+     * @return The line without its terminator, or {@code null} if the channel ends before the line starts.
+     * @throws IOException If the channel fails, ends within the line, or the line is too long.
+     */
+    String readLine(int maxLength) throws IOException {
+        StringBuilder line = new StringBuilder();
+        while (true) {
+            if (!buffer.hasRemaining() && !fill()) {
+                if (line.isEmpty()) {
+                    return null;
+                }
+                throw new EOFException();
+            }
+            char c = (char) (buffer.get() & 0xFF);
+            if (c == '\n') {
+                int end = line.length();
+                return end > 0 && line.charAt(end - 1) == '\r' ? line.substring(0, end - 1) : line.toString();
+            }
+            if (line.length() >= maxLength) {
+                throw new IOException("Line too long");
+            }
+            line.append(c);
+        }
+    }
+
+    int readByte() throws IOException {
+        if (!buffer.hasRemaining() && !fill()) {
+            throw new EOFException();
+        }
+        return buffer.get() & 0xFF;
+    }
+
+    void readFully(byte[] target) throws IOException {
+        int offset = 0;
+        while (offset < target.length) {
+            if (!buffer.hasRemaining() && !fill()) {
+                throw new EOFException();
+            }
+            int count = Math.min(buffer.remaining(), target.length - offset);
+            buffer.get(target, offset, count);
+            offset += count;
+        }
+    }
+
+    String readString(int length) throws IOException {
+        byte[] bytes = new byte[length];
+        readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private boolean fill() throws IOException {
+        buffer.clear();
+        int read = channel.read(buffer);
+        buffer.flip();
+        return read > 0;
+    }
+}
@@ -0,0 +1,301 @@
+package io.github.hubertkuch.kona.transport;
+
+import com.google.gson.JsonPrimitive;
+import io.github.hubertkuch.kona.routing.MessageReply;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+/**
+ * One client connection of a {@link LoopbackTransport}, served on its own virtual thread. Handles HTTP/1.1 requests
+ * with keep-alive until the connection is upgraded to a WebSocket or closed. The connection is one remote client
+ * with its own handle, so cursors and other per-window state live as long as the connection.
+ * <p>
+ * The reading thread does not wait for the router: every response is written once it is settled, in the order of
+ * the requests, by a virtual thread of its own.
+ */
+final class LoopbackConnection {
+
+    private static final Logger log = LoggerFactory.getLogger(LoopbackConnection.class);
+    private static final int MAX_LINE = 8192;
+    private static final int MAX_HEADERS = 100;
+    private static final String WEBSOCKET_GUID = "258EAFA5-E914-47DA-95CA-C5AB0DC85B11";
+    // Names the codec of an encoded response body, e.g. cbor
+    private static final String CODEC_HEADER = "X-Kona-Codec";
+    private static final Executor WRITER = task -> Thread.ofVirtual().name("kona-remote-response").start(task);
+
+    private record Response(int status, String contentType, String body, String codec) {
+        Response(int status, String contentType, String body) {
+            this(status, contentType, body, null);
+        }
+    }
+
+    private final LoopbackTransport transport;
+    private final SocketChannel channel;
+    private final long webViewHandle;
+    // Completes once every response sent so far is written; only replaced by the reading thread
+    private CompletableFuture<Void> responses = CompletableFuture.completedFuture(null);
+
+    LoopbackConnection(LoopbackTransport transport, SocketChannel channel, long webViewHandle) {
+        this.transport = transport;
+        this.channel = channel;
+        this.webViewHandle = webViewHandle;
+    }
+
+    void run() {
+        try (channel) {
+            try {
+                serve();
+            } finally {
+                // Responses still being settled are written before the connection closes
+                awaitResponses();
+            }
+        } catch (IOException e) {
+            log.debug("[Kona] Remote client {} disconnected: {}", webViewHandle, e.toString());
+        } finally {
+            transport.disconnected(webViewHandle);
+        }
+    }
+
+    private void serve() throws IOException {
+        ChannelInput input = new ChannelInput(channel);
+        String requestLine;
+        while ((requestLine = input.readLine(MAX_LINE)) != null) {
+            String[] parts = requestLine.split(" ");
+            Map<String, String> headers = readHeaders(input);
+            if (parts.length != 3 || headers == null) {
+                send(null, new Response(400, "text/plain", "Malformed request"), false);
+                return;
+            }
+            String method = parts[0];
+            int query = parts[1].indexOf('?');
+            String path = query < 0 ? parts[1] : parts[1].substring(0, query);
+            String origin = headers.get("origin");
+            if (!transport.isLoopbackHost(headers.get("host")) || !transport.isAllowedOrigin(origin)) {
+                send(null, new Response(403, "text/plain", "Forbidden"), false);
+                return;
+            }
+            boolean keepAlive = !"close".equalsIgnoreCase(headers.get("connection"));
+
+            switch (path) {
+                case "/kona" -> {
+                    if ("OPTIONS".equals(method)) {
+                        send(origin, new Response(204, null, ""), keepAlive);
+                    } else if ("POST".equals(method)) {
+                        Response refused = refusal(headers);
+                        if (refused != null) {
+                            // The unread body of a refused request cannot be told apart from the next request
+                            keepAlive = false;
+                            send(origin, refused, false);
+                        } else {
+                            send(origin, post(input.readString(Integer.parseInt(headers.get("content-length")))), keepAlive);
+                        }
+                    } else {
+                        send(origin, new Response(405, "text/plain", "Method not allowed"), keepAlive);
+                    }
+                }
+                case "/kona/ws" -> {
+                    awaitResponses();
+                    if (upgrade(input, headers)) {
+                        return;
+                    }
+                    send(origin, new Response(400, "text/plain", "Not a WebSocket handshake"), false);
+                    return;
+                }
+                case "/kona-bridge.js" -> send(origin, new Response(200, "text/javascript",
+                        bridge(headers.get("host"))), keepAlive);
+                default -> send(origin, new Response(404, "text/plain", "Not found"), keepAlive);
+            }
+            if (!keepAlive) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return The headers with lower-case names, or {@code null} if there are too many or the client stopped
+     * sending before the blank line that ends them.
+     */
+    private static Map<String, String> readHeaders(ChannelInput input) throws IOException {
+        Map<String, String> headers = new HashMap<>();
+        String line;
+        while ((line = input.readLine(MAX_LINE)) != null && !line.isEmpty()) {
+            int colon = line.indexOf(':');
+            if (colon <= 0 || headers.size() >= MAX_HEADERS) {
+                return null;
+            }
+            headers.put(line.substring(0, colon).trim().toLowerCase(Locale.ROOT), line.substring(colon + 1).trim());
+        }
+        return line != null ? headers : null;
+    }
+
+    /**
+     * @return The response refusing a POST whose body cannot be read, or {@code null} if it can.
+     */
+    private Response refusal(Map<String, String> headers) {
+        String contentLength = headers.get("content-length");
+        if (contentLength == null) {
+            return new Response(411, "text/plain", "Content-Length required");
+        }
+        int length;
+        try {
+            length = Integer.parseInt(contentLength);
+        } catch (NumberFormatException e) {
+            return new Response(411, "text/plain", "Invalid Content-Length");
+        }
+        if (length < 0 || length > transport.maxMessageBytes()) {
+            return new Response(413, "text/plain", "Message too large");
+        }
+        return null;
+    }
+
+    /**
+     * Routes the body of a POST like a message posted with a reply.
+     *
+     * @return The response, completed by the reply on the UI thread.
+     */
+    private CompletableFuture<Response> post(String body) {
+        CompletableFuture<Response> answer = new CompletableFuture<>();
+        transport.route(webViewHandle, body, new MessageReply() {
+            @Override
+            public void resolve(String json) {
+                answer.complete(new Response(200, "application/json", json));
+            }
+
+            @Override
+            public void resolveEncoded(String body, String codec) {
+                answer.complete(new Response(200, "text/plain", body, codec));
+            }
+
+            @Override
+            public void reject(String message) {
+                answer.complete(new Response(500, "text/plain", message));
+            }
+
+            @Override
+            public void detach() {
+                // The router answers through callbacks, which only WebSocket clients receive
+                answer.complete(new Response(202, null, ""));
+            }
+        });
+        return answer;
+    }
+
+    private void send(String origin, Response response, boolean keepAlive) {
+        send(origin, CompletableFuture.completedFuture(response), keepAlive);
+    }
+
+    /**
+     * Writes a response once it is settled and every earlier response is written, without holding the caller.
+     */
+    private void send(String origin, CompletableFuture<Response> response, boolean keepAlive) {
+        responses = responses
+                .thenCompose(ignored -> response)
+                .thenAcceptAsync(settled -> {
+                    try {
+                        respond(origin, settled, keepAlive);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }, WRITER);
+    }
+
+    private void awaitResponses() {
+        try {
+            responses.join();
+        } catch (CompletionException e) {
+            log.debug("[Kona] Cannot answer remote client {}: {}", webViewHandle, e.getCause().toString());
+        }
+    }
+
+    /**
+     * Completes a WebSocket handshake and serves the WebSocket until it closes.
+     *
+     * @return Whether the request was a valid handshake.
+     */
+    private boolean upgrade(ChannelInput input, Map<String, String> headers) throws IOException {
+        String key = headers.get("sec-websocket-key");
+        if (key == null || !"websocket".equalsIgnoreCase(headers.get("upgrade")) || !"13".equals(headers.get("sec-websocket-version"))) {
+            return false;
+        }
+        String accept;
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest((key + WEBSOCKET_GUID).getBytes(StandardCharsets.US_ASCII));
+            accept = Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        write("HTTP/1.1 101 Switching Protocols\r\nUpgrade: websocket\r\nConnection: Upgrade\r\nSec-WebSocket-Accept: "
+                + accept + "\r\n\r\n", new byte[0]);
+
+        WebSocketSession session = new WebSocketSession(channel, input, webViewHandle,
+                transport, transport.maxMessageBytes());
+        transport.attach(webViewHandle, session);
+        session.run();
+        return true;
+    }
+
+    private String bridge(String host) {
+        return "window.__konaTransport = " + new JsonPrimitive("ws://" + host + "/kona/ws") + ";\n"
+                + transport.bridgeRuntime();
+    }
+
+    private void respond(String origin, Response response, boolean keepAlive) throws IOException {
+        byte[] body = response.body() == null ? new byte[0] : response.body().getBytes(StandardCharsets.UTF_8);
+        StringBuilder head = new StringBuilder(256)
+                .append("HTTP/1.1 ").append(response.status()).append(' ').append(reason(response.status())).append("\r\n")
+                .append("Content-Length: ").append(body.length).append("\r\n")
+                .append("Connection: ").append(keepAlive ? "keep-alive" : "close").append("\r\n")
+                .append("Cache-Control: no-store\r\n");
+        if (response.contentType() != null) {
+            head.append("Content-Type: ").append(response.contentType()).append("; charset=utf-8\r\n");
+        }
+        if (response.codec() != null) {
+            head.append(CODEC_HEADER).append(": ").append(response.codec()).append("\r\n");
+        }
+        if (origin != null) {
+            head.append("Access-Control-Allow-Origin: ").append(origin).append("\r\n")
+                    .append("Access-Control-Allow-Methods: POST, OPTIONS\r\n")
+                    .append("Access-Control-Allow-Headers: Content-Type\r\n")
+                    .append("Access-Control-Expose-Headers: ").append(CODEC_HEADER).append("\r\n")
+                    .append("Vary: Origin\r\n");
+        }
+        write(head.append("\r\n").toString(), body);
+    }
+
+    private void write(String head, byte[] body) throws IOException {
+        ByteBuffer[] buffers = {ByteBuffer.wrap(head.getBytes(StandardCharsets.US_ASCII)), ByteBuffer.wrap(body)};
+        while (buffers[0].hasRemaining() || buffers[1].hasRemaining()) {
+            channel.write(buffers);
+        }
+    }
+
+    private static String reason(int status) {
+        return switch (status) {
+            case 200 -> "OK";
+            case 202 -> "Accepted";
+            case 204 -> "No Content";
+            case 400 -> "Bad Request";
+            case 403 -> "Forbidden";
+            case 404 -> "Not Found";
+            case 405 -> "Method Not Allowed";
+            case 411 -> "Length Required";
+            case 413 -> "Content Too Large";
+            default -> "Internal Server Error";
+        };
+    }
+}
@@ -0,0 +1,330 @@
+package io.github.hubertkuch.kona.transport;
+
+import io.github.hubertkuch.kona.application.AppWindow;
+import io.github.hubertkuch.kona.application.WebView;
+import io.github.hubertkuch.kona.routing.KonaRouter;
+import io.github.hubertkuch.kona.routing.MessageReply;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongConsumer;
+
+/**
+ * Exposes a router over HTTP and WebSocket on the loopback interface, so that the frontend can run in any browser
+ * against the real backend during development, and controllers can be load-tested with ordinary HTTP tools.
+ * <p>
+ * Three endpoints are served:
+ * <ul>
+ *     <li>{@code POST /kona} routes the body, a message envelope, like a message posted with a reply; the response
+ *     body is the handler's result as JSON. Rejected messages are answered with status 500 and the reason.</li>
+ *     <li>{@code /kona/ws} is a WebSocket whose text messages are routed like script messages. Responses, partial
+ *     results and pushes come back as batches of function calls for the bridge runtime.</li>
+ *     <li>{@code GET /kona-bridge.js} is the bridge runtime set up to use the WebSocket. A page that loads it
+ *     outside Kona's web view talks to the backend through {@code window.kona} unchanged.</li>
+ * </ul>
+ * Every connection is a remote client with its own negative web view handle, served on a virtual thread; its
+ * per-window state, e.g. open cursors, is released when it disconnects. Only loopback connections are accepted,
+ * requests must name a loopback host, and browsers may only connect from loopback origins and those listed with
+ * {@link Builder#allowOrigins(String...)}.
+ * <p>
+ * Usage:
+ * <pre>{@code
+ * new Kona.Builder()
+ *         .loopbackTransport(new LoopbackTransport.Builder().port(8765).allowOrigins("http://dev.example.test").build())
+ *         .build()
+ *         .run();
+ * }</pre>
+ */
+public final class LoopbackTransport implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(LoopbackTransport.class);
+    private static final Set<String> LOOPBACK_HOSTS = Set.of("localhost", "127.0.0.1", "[::1]");
+
+    /**
+     * The largest message accepted unless {@link Builder#maxMessageBytes(int)} is used.
+     */
+    public static final int DEFAULT_MAX_MESSAGE_BYTES = 16 << 20;
+
+    private final int requestedPort;
+    private final Set<String> allowedOrigins;
+    private final int maxMessageBytes;
+    private final AtomicLong handles = new AtomicLong();
+    private final List<LongConsumer> disconnectListeners = new CopyOnWriteArrayList<>();
+    private final Set<SocketChannel> connections = ConcurrentHashMap.newKeySet();
+    private volatile RemoteWebView webView;
+    private volatile KonaRouter router;
+    private volatile AppWindow window;
+    private volatile ServerSocketChannel server;
+    private volatile String bridgeRuntime;
+    private volatile boolean closed;
+
+    private LoopbackTransport(Builder builder) {
+        this.requestedPort = builder.port;
+        this.allowedOrigins = Set.copyOf(builder.allowedOrigins);
+        this.maxMessageBytes = builder.maxMessageBytes;
+    }
+
+    /**
+     * Wraps the web view the router sends responses to, so that responses for remote clients reach their WebSocket.
+     * Must be called before {@link #start(KonaRouter, AppWindow)}, with the router created on the returned web view.
+     *
+     * @param webView The real web view.
+     * @return The web view to give the router and the services.
+     */
+    public WebView wrap(WebView webView) {
+        RemoteWebView remote = new RemoteWebView(webView);
+        this.webView = remote;
+        return remote;
+    }
+
+    /**
+     * Starts accepting connections.
+     *
+     * @param router The router, created on the web view returned by {@link #wrap(WebView)}.
+     * @param window The window whose UI thread hands messages to the router, as for messages of the web view.
+     * @throws IOException If the port cannot be bound.
+     */
+    public void start(KonaRouter router, AppWindow window) throws IOException {
+        if (webView == null) {
+            throw new IllegalStateException("wrap(WebView) must be called before start");
+        }
+        this.router = router;
+        this.window = window;
+        ServerSocketChannel channel = ServerSocketChannel.open();
+        try {
+            channel.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), requestedPort));
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        this.server = channel;
+        Thread.ofVirtual().name("kona-remote-accept").start(this::accept);
+        log.info("[Kona] Loopback transport listening on http://localhost:{}/kona", port());
+    }
+
+    /**
+     * @return The port, useful when the transport was built with port {@code 0}.
+     */
+    public int port() {
+        try {
+            return ((InetSocketAddress) server.getLocalAddress()).getPort();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Adds a listener called with the handle of every remote client that disconnects, e.g. to release its state
+     * with {@code KonaRouterImpl.windowClosed}.
+     *
+     * @param listener The listener.
+     */
+    public void addDisconnectListener(LongConsumer listener) {
+        disconnectListeners.add(listener);
+    }
+
+    /**
+     * Stops accepting connections and closes the open ones.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            if (server != null) {
+                server.close();
+            }
+            for (SocketChannel connection : connections) {
+                connection.close();
+            }
+        } catch (IOException e) {
+            log.debug("[Kona] Cannot close loopback transport", e);
+        }
+    }
+
+    private void accept() {
+        while (!closed) {
+            try {
+                SocketChannel connection = server.accept();
+                connections.add(connection);
+                // Negative, so remote handles never collide with native ones
+                LoopbackConnection client = new LoopbackConnection(this, connection, handles.decrementAndGet());
+                Thread.ofVirtual().name("kona-remote-client").start(() -> {
+                    try {
+                        client.run();
+                    } finally {
+                        connections.remove(connection);
+                    }
+                });
+            } catch (IOException e) {
+                if (!closed) {
+                    log.error("[Kona] Loopback transport stopped accepting connections", e);
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * Hands a message to the router on the UI thread, where the web view delivers its script messages too, so
+     * handlers see remote and local messages on the same thread.
+     *
+     * @param reply The reply for the response, or {@code null} to answer through callbacks.
+     */
+    void route(long webViewHandle, String message, MessageReply reply) {
+        KonaRouter target = router;
+        if (reply == null) {
+            window.scheduleTask(() -> target.onMessage(webViewHandle, message));
+        } else {
+            window.scheduleTask(() -> target.onMessage(webViewHandle, message, reply));
+        }
+    }
+
+    int maxMessageBytes() {
+        return maxMessageBytes;
+    }
+
+    void attach(long webViewHandle, WebSocketSession session) {
+        webView.attach(webViewHandle, session);
+    }
+
+    void disconnected(long webViewHandle) {
+        webView.detach(webViewHandle);
+        for (LongConsumer listener : disconnectListeners) {
+            try {
+                listener.accept(webViewHandle);
+            } catch (Exception e) {
+                log.error("[Kona] Disconnect listener failed", e);
+            }
+        }
+    }
+
+    /**
+     * @return Whether a Host header names the loopback interface, which rules out DNS rebinding.
+     */
+    boolean isLoopbackHost(String host) {
+        if (host == null) {
+            return false;
+        }
+        int colon = host.lastIndexOf(':');
+        String name = colon > host.lastIndexOf(']') ? host.substring(0, colon) : host;
+        return LOOPBACK_HOSTS.contains(name.toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * @return Whether a browser may connect from an origin. Requests without one do not come from a page.
+     */
+    boolean isAllowedOrigin(String origin) {
+        if (origin == null || allowedOrigins.contains(origin)) {
+            return true;
+        }
+        try {
+            URI uri = new URI(origin);
+            String host = uri.getHost();
+            return ("http".equals(uri.getScheme()) || "https".equals(uri.getScheme()))
+                    && host != null && LOOPBACK_HOSTS.contains(host.toLowerCase(Locale.ROOT));
+        } catch (URISyntaxException e) {
+            return false;
+        }
+    }
+
+    /**
+     * @return The source of the bridge runtime, read once.
+     */
+    String bridgeRuntime() {
+        String source = bridgeRuntime;
+        if (source == null) {
+            try (InputStream runtime = WebView.class.getResourceAsStream("kona-bridge.js")) {
+                if (runtime == null) {
+                    throw new IllegalStateException("Missing bridge runtime kona-bridge.js");
+                }
+                source = new String(runtime.readAllBytes(), StandardCharsets.UTF_8);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            bridgeRuntime = source;
+        }
+        return source;
+    }
+
+    /**
+     * A builder for a {@link LoopbackTransport}.
+     */
+    public static class Builder {
+        private int port;
+        private final Set<String> allowedOrigins = new LinkedHashSet<>();
+        private int maxMessageBytes = DEFAULT_MAX_MESSAGE_BYTES;
+
+        /**
+         * Creates a builder for a transport on any free port.
+         */
+        public Builder() {}
+
+        /**
+         * Sets the port to listen on.
+         *
+         * @param port The port, or {@code 0} for any free port.
+         * @return This builder instance.
+         */
+        public Builder port(int port) {
+            if (port < 0 || port > 0xFFFF) {
+                throw new IllegalArgumentException("port must be between 0 and 65535");
+            }
+            this.port = port;
+            return this;
+        }
+
+        /**
+         * Lets pages served from other origins than the loopback interface connect, e.g. a dev server reached
+         * through a host name.
+         *
+         * @param origins The origins, e.g. {@code http://dev.example.test:5173}.
+         * @return This builder instance.
+         */
+        public Builder allowOrigins(String... origins) {
+            allowedOrigins.addAll(Arrays.asList(origins));
+            return this;
+        }
+
+        /**
+         * Sets the size of the largest message accepted. Larger HTTP bodies are refused with status 413, and
+         * WebSockets sending larger messages are closed.
+         *
+         * @param maxMessageBytes The size in bytes.
+         * @return This builder instance.
+         */
+        public Builder maxMessageBytes(int maxMessageBytes) {
+            if (maxMessageBytes <= 0) {
+                throw new IllegalArgumentException("maxMessageBytes must be positive");
+            }
+            this.maxMessageBytes = maxMessageBytes;
+            return this;
+        }
+
+        /**
+         * Builds the transport. It listens once started.
+         *
+         * @return A new {@link LoopbackTransport}.
+         */
+        public LoopbackTransport build() {
+            return new LoopbackTransport(this);
+        }
+    }
+}
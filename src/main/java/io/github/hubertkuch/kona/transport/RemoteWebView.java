@@ -0,0 +1,79 @@
+package io.github.hubertkuch.kona.transport;
+
+import io.github.hubertkuch.kona.application.PerformanceProfile;
+import io.github.hubertkuch.kona.application.WebView;
+import io.github.hubertkuch.kona.files.FileServer;
+import io.github.hubertkuch.kona.routing.ChannelReceiver;
+import io.github.hubertkuch.kona.routing.KonaRouter;
+import io.github.hubertkuch.kona.routing.MessageChannel;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A {@link WebView} that sends scripts and function calls for remote clients to their WebSocket and passes
+ * everything else to the real web view. Remote clients have negative handles, which never collide with native ones;
+ * calls for a remote client without a WebSocket, e.g. an HTTP client, are dropped.
+ */
+final class RemoteWebView implements WebView {
+
+    private final WebView webView;
+    private final Map<Long, WebSocketSession> sessions = new ConcurrentHashMap<>();
+
+    RemoteWebView(WebView webView) {
+        this.webView = webView;
+    }
+
+    void attach(long webViewHandle, WebSocketSession session) {
+        sessions.put(webViewHandle, session);
+    }
+
+    void detach(long webViewHandle) {
+        sessions.remove(webViewHandle);
+    }
+
+    @Override
+    public void runJavaScript(long webViewHandle, String script) {
+        if (webViewHandle >= 0) {
+            webView.runJavaScript(webViewHandle, script);
+            return;
+        }
+        WebSocketSession session = sessions.get(webViewHandle);
+        if (session != null) {
+            session.runScript(script);
+        }
+    }
+
+    @Override
+    public void callFunction(long webViewHandle, String function, String... arguments) {
+        if (webViewHandle >= 0) {
+            webView.callFunction(webViewHandle, function, arguments);
+            return;
+        }
+        WebSocketSession session = sessions.get(webViewHandle);
+        if (session != null) {
+            session.callFunction(function, arguments);
+        }
+    }
+
+    @Override
+    public void addUserScript(long webViewHandle, String source) {
+        if (webViewHandle >= 0) {
+            webView.addUserScript(webViewHandle, source);
+        }
+    }
+
+    @Override public boolean initialize() { return webView.initialize(); }
+    @Override public void setPerformanceProfile(PerformanceProfile profile) { webView.setPerformanceProfile(profile); }
+    @Override public void setFileServer(FileServer fileServer) { webView.setFileServer(fileServer); }
+    @Override public long createWebViewWidget() { return webView.createWebViewWidget(); }
+    @Override public void destroyWebViewWidget(long webViewHandle) { webView.destroyWebViewWidget(webViewHandle); }
+    @Override public void loadUri(long webViewHandle, String uri) { webView.loadUri(webViewHandle, uri); }
+    @Override public void setScriptMessageHandler(KonaRouter handler) { webView.setScriptMessageHandler(handler); }
+    @Override public void openChannels(Map<MessageChannel, ChannelReceiver> channels) { webView.openChannels(channels); }
+
+    @Override
+    public void close() {
+        // The real web view is closed by its owner
+    }
+}
@@ -0,0 +1,222 @@
+package io.github.hubertkuch.kona.transport;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A WebSocket connection of a remote client. Every text message is an envelope for the router, like a script
+ * message of the web view; responses, partial results and pushes come back as function calls.
+ * <p>
+ * Outgoing calls are queued and written by a virtual thread of their own, so the UI thread never waits for the
+ * socket. All calls queued while the previous write was in progress are sent together as one JSON array in a single
+ * frame, e.g. {@code [{"f":"resolveCallback","a":["kona-1","{...}"]},{"s":"..."}]}.
+ */
+final class WebSocketSession {
+
+    private static final Logger log = LoggerFactory.getLogger(WebSocketSession.class);
+    private static final String KONA_PREFIX = "window.kona.";
+    private static final int MAX_QUEUED_CALLS = 10_000;
+
+    private static final int CONTINUATION = 0x0;
+    private static final int TEXT = 0x1;
+    private static final int BINARY = 0x2;
+    private static final int CLOSE = 0x8;
+    private static final int PING = 0x9;
+    private static final int PONG = 0xA;
+
+    private final SocketChannel channel;
+    private final ChannelInput input;
+    private final long webViewHandle;
+    private final LoopbackTransport transport;
+    private final int maxMessageBytes;
+    private final BlockingQueue<String> outgoing = new LinkedBlockingQueue<>(MAX_QUEUED_CALLS);
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private volatile boolean closed;
+
+    WebSocketSession(SocketChannel channel, ChannelInput input, long webViewHandle, LoopbackTransport transport, int maxMessageBytes) {
+        this.channel = channel;
+        this.input = input;
+        this.webViewHandle = webViewHandle;
+        this.transport = transport;
+        this.maxMessageBytes = maxMessageBytes;
+    }
+
+    void callFunction(String function, String[] arguments) {
+        JsonObject call = new JsonObject();
+        call.addProperty("f", function.startsWith(KONA_PREFIX) ? function.substring(KONA_PREFIX.length()) : function);
+        JsonArray values = new JsonArray(arguments.length);
+        for (String argument : arguments) {
+            values.add(argument);
+        }
+        call.add("a", values);
+        enqueue(call.toString());
+    }
+
+    void runScript(String script) {
+        JsonObject call = new JsonObject();
+        call.addProperty("s", script);
+        enqueue(call.toString());
+    }
+
+    private void enqueue(String call) {
+        if (!closed && !outgoing.offer(call)) {
+            log.warn("[Kona] Remote client {} is not reading its messages, closing it.", webViewHandle);
+            close();
+        }
+    }
+
+    /**
+     * Reads messages until the client closes the connection. Runs on the connection's thread.
+     */
+    void run() {
+        Thread writer = Thread.ofVirtual().name("kona-remote-writer").start(this::writeBatches);
+        try {
+            ByteArrayOutputStream message = new ByteArrayOutputStream();
+            while (!closed) {
+                int first = input.readByte();
+                int second = input.readByte();
+                boolean fin = (first & 0x80) != 0;
+                int opcode = first & 0x0F;
+                long length = second & 0x7F;
+                if (length == 126) {
+                    length = (input.readByte() << 8) | input.readByte();
+                } else if (length == 127) {
+                    length = 0;
+                    for (int i = 0; i < 8; i++) {
+                        length = (length << 8) | input.readByte();
+                    }
+                    // The most significant bit must be 0; a set one reads as a negative length
+                    if (length < 0) {
+                        sendClose(1002);
+                        return;
+                    }
+                }
+                if ((second & 0x80) == 0) {
+                    sendClose(1002);
+                    return;
+                }
+                if (length + message.size() > maxMessageBytes) {
+                    sendClose(1009);
+                    return;
+                }
+                byte[] mask = new byte[4];
+                input.readFully(mask);
+                byte[] payload = new byte[(int) length];
+                input.readFully(payload);
+                for (int i = 0; i < payload.length; i++) {
+                    payload[i] ^= mask[i & 3];
+                }
+
+                switch (opcode) {
+                    case TEXT, CONTINUATION -> {
+                        message.write(payload);
+                        if (fin) {
+                            transport.route(webViewHandle, message.toString(StandardCharsets.UTF_8), null);
+                            message.reset();
+                        }
+                    }
+                    case PING -> writeFrame(PONG, payload);
+                    case PONG -> {
+                    }
+                    case CLOSE -> {
+                        sendClose(1000);
+                        return;
+                    }
+                    case BINARY -> {
+                        sendClose(1003);
+                        return;
+                    }
+                    default -> {
+                        sendClose(1002);
+                        return;
+                    }
+                }
+            }
+        } catch (IOException e) {
+            if (!closed) {
+                log.debug("[Kona] Remote client {} disconnected: {}", webViewHandle, e.toString());
+            }
+        } finally {
+            close();
+            writer.interrupt();
+        }
+    }
+
+    private void writeBatches() {
+        List<String> batch = new ArrayList<>();
+        try {
+            while (!closed) {
+                batch.add(outgoing.take());
+                outgoing.drainTo(batch);
+                StringBuilder frame = new StringBuilder(batch.size() * 64).append('[');
+                for (int i = 0; i < batch.size(); i++) {
+                    if (i > 0) {
+                        frame.append(',');
+                    }
+                    frame.append(batch.get(i));
+                }
+                writeFrame(TEXT, frame.append(']').toString().getBytes(StandardCharsets.UTF_8));
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            // Closed
+        } catch (IOException e) {
+            if (!closed) {
+                log.debug("[Kona] Cannot write to remote client {}: {}", webViewHandle, e.toString());
+            }
+            close();
+        }
+    }
+
+    private void sendClose(int status) throws IOException {
+        writeFrame(CLOSE, new byte[]{(byte) (status >> 8), (byte) status});
+    }
+
+    private void writeFrame(int opcode, byte[] payload) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(10);
+        header.put((byte) (0x80 | opcode));
+        if (payload.length < 126) {
+            header.put((byte) payload.length);
+        } else if (payload.length <= 0xFFFF) {
+            header.put((byte) 126).putShort((short) payload.length);
+        } else {
+            header.put((byte) 127).putLong(payload.length);
+        }
+        ByteBuffer[] frame = {header.flip(), ByteBuffer.wrap(payload)};
+        writeLock.lock();
+        try {
+            // One gathering write for the header and the payload
+            while (frame[0].hasRemaining() || frame[1].hasRemaining()) {
+                channel.write(frame);
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        outgoing.clear();
+        try {
+            channel.close();
+        } catch (IOException e) {
+            log.debug("[Kona] Cannot close remote client {}", webViewHandle, e);
+        }
+    }
+}
@@ -0,0 +1,324 @@
+package io.github.hubertkuch.kona.worker;
+
+import io.github.hubertkuch.kona.worker.WorkerProtocol.Frame;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * One worker JVM and the pool of connections to it. Requests issued while the worker starts or restarts wait
+ * for it, including the delay before another attempt after a failed start; a worker that exits, drops a connection
+ * or stops answering pings is restarted, with a growing delay after consecutive failures. Waiting requests only
+ * fail when the worker is closed.
+ * <p>
+ * A started worker binds its socket in a directory only this user can enter, and accepts only connections that
+ * present the random token of its launch, which it receives through its environment.
+ */
+final class Worker implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(Worker.class);
+    private static final long MAX_BACKOFF_NANOS = TimeUnit.SECONDS.toNanos(30);
+    private static final int TOKEN_BYTES = 16;
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    /**
+     * Starts the process of a worker.
+     */
+    @FunctionalInterface
+    interface Launcher {
+        /**
+         * @param socket The socket the worker binds.
+         * @param token  The token the worker requires from connections.
+         * @return The worker process.
+         */
+        Process launch(Path socket, byte[] token) throws IOException;
+    }
+
+    private final int index;
+    private final WorkerOptions options;
+    private final boolean external;
+    private final Launcher launcher;
+    private final AtomicBoolean checking = new AtomicBoolean();
+
+    private volatile Path socket;
+    private volatile byte[] token = new byte[0];
+    private volatile Process process;
+    private volatile List<WorkerConnection> connections = List.of();
+    private volatile CompletableFuture<Void> ready = new CompletableFuture<>();
+    private volatile boolean closed;
+    // Accessed by the thread holding `checking`, or by the starting thread before checks begin
+    private int failures;
+    private long nextStartNanos;
+
+    Worker(int index, WorkerOptions options) {
+        this(index, options, null);
+    }
+
+    /**
+     * @param launcher Starts the worker process, or {@code null} for a JVM running {@link WorkerServer#main}.
+     */
+    Worker(int index, WorkerOptions options, Launcher launcher) {
+        this.index = index;
+        this.options = options;
+        this.external = !options.sockets().isEmpty();
+        this.launcher = launcher != null ? launcher : this::launchJvm;
+        this.socket = external ? options.sockets().get(index) : null;
+        this.nextStartNanos = System.nanoTime();
+    }
+
+    /**
+     * Starts the worker on a virtual thread. Requests wait until it accepts connections.
+     */
+    void start() {
+        Thread.ofVirtual().name("kona-worker-start-" + index).start(() -> {
+            if (checking.compareAndSet(false, true)) {
+                try {
+                    startNow(ready);
+                } finally {
+                    checking.set(false);
+                }
+            }
+        });
+    }
+
+    /**
+     * Sends a request over the least busy connection, once the worker is ready.
+     */
+    CompletableFuture<String> request(long webViewHandle, String controller, String action, String payload) {
+        return ready.thenCompose(ignored -> {
+            WorkerConnection connection = leastBusy();
+            if (connection == null) {
+                return CompletableFuture.failedFuture(new IOException("Worker " + index + " has no open connection"));
+            }
+            return connection.request(webViewHandle, controller, action, payload);
+        });
+    }
+
+    /**
+     * @return The number of requests waiting for this worker.
+     */
+    int outstanding() {
+        int outstanding = 0;
+        for (WorkerConnection connection : connections) {
+            outstanding += connection.outstanding();
+        }
+        return outstanding;
+    }
+
+    /**
+     * Tells the worker that a window was closed.
+     */
+    void windowClosed(long webViewHandle) {
+        WorkerConnection connection = leastBusy();
+        if (connection != null) {
+            connection.notify(Frame.windowClosed(webViewHandle));
+        }
+    }
+
+    /**
+     * Pings the worker and restarts it if it is unhealthy. Skipped while the worker is starting or being checked;
+     * a worker whose last start failed is started again once its backoff delay has passed.
+     */
+    void checkHealth() {
+        if (closed || !checking.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            if (!healthy()) {
+                restart();
+            }
+        } finally {
+            checking.set(false);
+        }
+    }
+
+    private boolean healthy() {
+        // Not starting, as the caller holds `checking`, so an incomplete future means the last start failed
+        if (!ready.isDone() || (process != null && !process.isAlive())) {
+            return false;
+        }
+        List<WorkerConnection> current = connections;
+        if (current.isEmpty() || !current.stream().allMatch(WorkerConnection::isOpen)) {
+            return false;
+        }
+        try {
+            current.getFirst().ping().get(options.healthCheckTimeout().toNanos(), TimeUnit.NANOSECONDS);
+            return true;
+        } catch (Exception e) {
+            log.warn("[Kona] Worker {} did not answer a ping: {}", index, e.toString());
+            return false;
+        }
+    }
+
+    private void restart() {
+        long now = System.nanoTime();
+        if (now - nextStartNanos < 0) {
+            return;
+        }
+        log.warn("[Kona] Worker {} is unhealthy, {}.", index, external ? "reconnecting" : "restarting");
+        // After a failed start the future is still incomplete and its waiting requests carry over to this attempt
+        CompletableFuture<Void> next = ready;
+        if (next.isDone()) {
+            next = new CompletableFuture<>();
+            ready = next;
+        }
+        if (closed) {
+            // close() may have completed the previous future only
+            next.completeExceptionally(new IOException("Worker " + index + " is closed"));
+            return;
+        }
+        stop();
+        startNow(next);
+    }
+
+    /**
+     * Starts the worker and completes the future once it accepts connections. After a failure the future stays
+     * incomplete, so requests keep waiting for the next attempt.
+     */
+    private void startNow(CompletableFuture<Void> ready) {
+        try {
+            if (!external) {
+                spawn();
+            }
+            connect();
+            failures = 0;
+            ready.complete(null);
+            log.info("[Kona] Worker {} ready on {}", index, socket);
+        } catch (Exception e) {
+            failures++;
+            long backoff = Math.min(MAX_BACKOFF_NANOS, TimeUnit.MILLISECONDS.toNanos(500) << Math.min(failures, 16));
+            nextStartNanos = System.nanoTime() + backoff;
+            log.error("[Kona] Worker {} failed to start, retrying in {} ms", index, TimeUnit.NANOSECONDS.toMillis(backoff), e);
+            stop();
+        }
+    }
+
+    private void spawn() throws IOException {
+        if (socket == null) {
+            socket = privateDirectory(options.socketDirectory()).resolve("worker-" + index + ".sock");
+        }
+        Files.deleteIfExists(socket);
+        byte[] launchToken = new byte[TOKEN_BYTES];
+        RANDOM.nextBytes(launchToken);
+        token = launchToken;
+        process = launcher.launch(socket, launchToken);
+    }
+
+    private Process launchJvm(Path socket, byte[] token) throws IOException {
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.add("--enable-preview");
+        command.addAll(options.jvmOptions());
+        String modulePath = System.getProperty("jdk.module.path");
+        if (modulePath != null && !modulePath.isEmpty()) {
+            command.addAll(List.of("--module-path", modulePath, "--add-modules", "ALL-MODULE-PATH"));
+        }
+        command.addAll(List.of("-cp", System.getProperty("java.class.path"), WorkerServer.class.getName(),
+                socket.toString(), options.controllerPackage()));
+        ProcessBuilder builder = new ProcessBuilder(command).inheritIO();
+        // Passed through the environment rather than the command line, which other users can read
+        builder.environment().put(WorkerServer.TOKEN_VARIABLE, HexFormat.of().formatHex(token));
+        return builder.start();
+    }
+
+    /**
+     * Creates a new directory for the worker's socket that only the current user can enter.
+     */
+    private static Path privateDirectory(Path parent) throws IOException {
+        Files.createDirectories(parent);
+        try {
+            return Files.createTempDirectory(parent, "kona-worker-",
+                    PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rwx------")));
+        } catch (UnsupportedOperationException e) {
+            // Not a POSIX file system; the directory gets the file system's default access rights
+            return Files.createTempDirectory(parent, "kona-worker-");
+        }
+    }
+
+    /**
+     * Opens the connection pool, waiting for the worker to bind its socket.
+     */
+    private void connect() throws IOException, InterruptedException {
+        long deadline = System.nanoTime() + options.startTimeout().toNanos();
+        List<WorkerConnection> opened = new ArrayList<>();
+        try {
+            while (opened.size() < options.connectionsPerWorker()) {
+                try {
+                    opened.add(WorkerConnection.open(socket, token, "kona-worker-" + index + "-" + opened.size()));
+                } catch (IOException e) {
+                    if (process != null && !process.isAlive()) {
+                        throw new IOException("Worker " + index + " exited with code " + process.exitValue(), e);
+                    }
+                    if (System.nanoTime() - deadline > 0) {
+                        throw new IOException("Worker " + index + " did not accept connections in time", e);
+                    }
+                    Thread.sleep(50);
+                }
+            }
+        } catch (IOException | InterruptedException e) {
+            opened.forEach(WorkerConnection::close);
+            throw e;
+        }
+        connections = List.copyOf(opened);
+    }
+
+    private WorkerConnection leastBusy() {
+        WorkerConnection best = null;
+        for (WorkerConnection connection : connections) {
+            if (connection.isOpen() && (best == null || connection.outstanding() < best.outstanding())) {
+                best = connection;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Closes the connections, failing their outstanding requests, and ends the worker process.
+     */
+    private void stop() {
+        List<WorkerConnection> current = connections;
+        connections = List.of();
+        current.forEach(WorkerConnection::close);
+
+        Process running = process;
+        process = null;
+        if (running != null) {
+            running.destroy();
+            try {
+                if (!running.waitFor(2, TimeUnit.SECONDS)) {
+                    running.destroyForcibly();
+                }
+            } catch (InterruptedException e) {
+                running.destroyForcibly();
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        ready.completeExceptionally(new IOException("Worker " + index + " is closed"));
+        stop();
+        Path current = socket;
+        if (!external && current != null) {
+            try {
+                Files.deleteIfExists(current);
+                Files.deleteIfExists(current.getParent());
+            } catch (IOException e) {
+                log.debug("[Kona] Cannot delete worker socket {}", current, e);
+            }
+        }
+    }
+}
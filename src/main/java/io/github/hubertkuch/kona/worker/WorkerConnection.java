@@ -0,0 +1,170 @@
+package io.github.hubertkuch.kona.worker;
+
+import io.github.hubertkuch.kona.worker.WorkerProtocol.Frame;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * One pipelined connection to a worker. Any number of requests can be outstanding; a virtual thread reads the
+ * responses and completes them by id. When the connection fails, every outstanding request fails with it.
+ */
+final class WorkerConnection implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(WorkerConnection.class);
+
+    private final SocketChannel channel;
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final Map<Long, CompletableFuture<String>> outstanding = new ConcurrentHashMap<>();
+    private final AtomicLong ids = new AtomicLong();
+    private volatile boolean closed;
+
+    private WorkerConnection(SocketChannel channel, String name) {
+        this.channel = channel;
+        Thread.ofVirtual().name(name).start(this::readResponses);
+    }
+
+    /**
+     * Connects to a worker's socket.
+     *
+     * @param socket The socket file.
+     * @param token  The token of the worker launch, empty for workers started by someone else.
+     * @param name   The name of the reader thread.
+     * @return The connection.
+     * @throws IOException If the worker does not accept the connection.
+     */
+    static WorkerConnection open(Path socket, byte[] token, String name) throws IOException {
+        SocketChannel channel = SocketChannel.open(StandardProtocolFamily.UNIX);
+        try {
+            channel.connect(UnixDomainSocketAddress.of(socket));
+            WorkerProtocol.write(channel, WorkerProtocol.handshake(token));
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        return new WorkerConnection(channel, name);
+    }
+
+    /**
+     * Sends a handler invocation.
+     *
+     * @return A future completed with the JSON of the result, or exceptionally if the handler or the connection fails.
+     */
+    CompletableFuture<String> request(long webViewHandle, String controller, String action, String payload) {
+        long id = ids.incrementAndGet();
+        return send(id, Frame.request(id, webViewHandle, controller, action, payload));
+    }
+
+    /**
+     * @return A future completed once the worker answers.
+     */
+    CompletableFuture<String> ping() {
+        long id = ids.incrementAndGet();
+        return send(id, Frame.ping(id));
+    }
+
+    /**
+     * Sends a frame that expects no answer.
+     */
+    void notify(Frame frame) {
+        try {
+            write(WorkerProtocol.encode(frame));
+        } catch (IOException e) {
+            close();
+        }
+    }
+
+    /**
+     * @return The number of requests waiting for an answer.
+     */
+    int outstanding() {
+        return outstanding.size();
+    }
+
+    boolean isOpen() {
+        return !closed;
+    }
+
+    private CompletableFuture<String> send(long id, Frame frame) {
+        CompletableFuture<String> answer = new CompletableFuture<>();
+        if (closed) {
+            return CompletableFuture.failedFuture(new IOException("Worker connection is closed"));
+        }
+        outstanding.put(id, answer);
+        if (closed && outstanding.remove(id) != null) {
+            // Closed after the check above; close() may not have seen this request
+            return CompletableFuture.failedFuture(new IOException("Worker connection is closed"));
+        }
+        try {
+            write(WorkerProtocol.encode(frame));
+        } catch (IOException e) {
+            outstanding.remove(id);
+            answer.completeExceptionally(e);
+            close();
+        }
+        return answer;
+    }
+
+    private void write(ByteBuffer frame) throws IOException {
+        writeLock.lock();
+        try {
+            WorkerProtocol.write(channel, frame);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void readResponses() {
+        WorkerProtocol.Reader reader = new WorkerProtocol.Reader(channel);
+        try {
+            Frame frame;
+            while ((frame = reader.read()) != null) {
+                CompletableFuture<String> answer = outstanding.remove(frame.id());
+                if (answer == null) {
+                    continue;
+                }
+                switch (frame.type()) {
+                    case WorkerProtocol.RESPONSE, WorkerProtocol.PONG -> answer.complete(frame.body());
+                    case WorkerProtocol.ERROR -> answer.completeExceptionally(new IllegalStateException(frame.body()));
+                    default -> answer.completeExceptionally(new IOException("Unexpected frame type " + frame.type()));
+                }
+            }
+        } catch (IOException e) {
+            if (!closed) {
+                log.warn("[Kona] Worker connection failed: {}", e.toString());
+            }
+        }
+        close();
+    }
+
+    /**
+     * Closes the connection, failing the requests still waiting for an answer.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            channel.close();
+        } catch (IOException e) {
+            log.debug("[Kona] Cannot close worker connection", e);
+        }
+        IOException failure = new IOException("Worker connection closed");
+        for (Long id : outstanding.keySet()) {
+            CompletableFuture<String> answer = outstanding.remove(id);
+            if (answer != null) {
+                answer.completeExceptionally(failure);
+            }
+        }
+    }
+}
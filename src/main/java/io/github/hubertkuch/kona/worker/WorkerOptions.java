@@ -0,0 +1,257 @@
+package io.github.hubertkuch.kona.worker;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Which controllers a {@link WorkerRouter} forwards to worker JVMs, and how those workers are run.
+ * <p>
+ * Example:
+ * <pre>{@code
+ * WorkerOptions workers = new WorkerOptions.Builder("reports", "import")
+ *         .controllerPackage("com.example.heavy")
+ *         .workers(2)
+ *         .jvmOptions("-Xmx8g", "-XX:+UseZGC")
+ *         .build();
+ * }</pre>
+ */
+public final class WorkerOptions {
+
+    private final Set<String> controllers;
+    private final String controllerPackage;
+    private final int workers;
+    private final int connectionsPerWorker;
+    private final List<String> jvmOptions;
+    private final List<Path> sockets;
+    private final Path socketDirectory;
+    private final Duration healthCheckInterval;
+    private final Duration healthCheckTimeout;
+    private final Duration startTimeout;
+
+    private WorkerOptions(Builder builder) {
+        this.controllers = Set.copyOf(builder.controllers);
+        this.controllerPackage = builder.controllerPackage;
+        this.workers = builder.sockets.isEmpty() ? builder.workers : builder.sockets.size();
+        this.connectionsPerWorker = builder.connectionsPerWorker;
+        this.jvmOptions = List.copyOf(builder.jvmOptions);
+        this.sockets = List.copyOf(builder.sockets);
+        this.socketDirectory = builder.socketDirectory;
+        this.healthCheckInterval = builder.healthCheckInterval;
+        this.healthCheckTimeout = builder.healthCheckTimeout;
+        this.startTimeout = builder.startTimeout;
+    }
+
+    /**
+     * @return The names of the forwarded controllers.
+     */
+    public Set<String> controllers() {
+        return controllers;
+    }
+
+    /**
+     * @return The package the workers scan for controllers.
+     */
+    public String controllerPackage() {
+        return controllerPackage;
+    }
+
+    public int workers() {
+        return workers;
+    }
+
+    public int connectionsPerWorker() {
+        return connectionsPerWorker;
+    }
+
+    public List<String> jvmOptions() {
+        return jvmOptions;
+    }
+
+    /**
+     * @return The sockets of workers started by someone else, or an empty list if the router starts its own.
+     */
+    public List<Path> sockets() {
+        return sockets;
+    }
+
+    public Path socketDirectory() {
+        return socketDirectory;
+    }
+
+    public Duration healthCheckInterval() {
+        return healthCheckInterval;
+    }
+
+    public Duration healthCheckTimeout() {
+        return healthCheckTimeout;
+    }
+
+    public Duration startTimeout() {
+        return startTimeout;
+    }
+
+    @Override
+    public String toString() {
+        return "WorkerOptions[controllers=" + controllers
+                + ", controllerPackage=" + controllerPackage
+                + ", workers=" + workers
+                + ", connectionsPerWorker=" + connectionsPerWorker
+                + ", jvmOptions=" + jvmOptions
+                + ", sockets=" + sockets + "]";
+    }
+
+    /**
+     * A builder for creating {@link WorkerOptions}.
+     */
+    public static class Builder {
+        private final Set<String> controllers = new LinkedHashSet<>();
+        private String controllerPackage;
+        private int workers = 1;
+        private int connectionsPerWorker = 2;
+        private List<String> jvmOptions = List.of();
+        private List<Path> sockets = List.of();
+        private Path socketDirectory = Path.of(System.getProperty("java.io.tmpdir"));
+        private Duration healthCheckInterval = Duration.ofSeconds(2);
+        private Duration healthCheckTimeout = Duration.ofSeconds(5);
+        private Duration startTimeout = Duration.ofSeconds(15);
+
+        /**
+         * Creates a builder forwarding the given controllers.
+         *
+         * @param controllers The {@link io.github.hubertkuch.kona.message.KonaController} names to forward.
+         */
+        public Builder(String... controllers) {
+            if (controllers.length == 0) {
+                throw new IllegalArgumentException("At least one controller must be forwarded");
+            }
+            this.controllers.addAll(Arrays.asList(controllers));
+        }
+
+        /**
+         * Sets the package the workers scan for controllers. Required unless {@link #sockets(Path...)} is used.
+         *
+         * @param controllerPackage The package name.
+         * @return This builder instance.
+         */
+        public Builder controllerPackage(String controllerPackage) {
+            this.controllerPackage = Objects.requireNonNull(controllerPackage);
+            return this;
+        }
+
+        /**
+         * Sets how many worker JVMs are started. Requests go to the worker with the fewest outstanding ones.
+         *
+         * @param workers The number of workers.
+         * @return This builder instance.
+         */
+        public Builder workers(int workers) {
+            if (workers < 1) {
+                throw new IllegalArgumentException("workers must be positive");
+            }
+            this.workers = workers;
+            return this;
+        }
+
+        /**
+         * Sets how many connections are kept open to each worker. Every connection pipelines any number of
+         * requests; more connections spread the framing work of large payloads.
+         *
+         * @param connectionsPerWorker The number of connections.
+         * @return This builder instance.
+         */
+        public Builder connectionsPerWorker(int connectionsPerWorker) {
+            if (connectionsPerWorker < 1) {
+                throw new IllegalArgumentException("connectionsPerWorker must be positive");
+            }
+            this.connectionsPerWorker = connectionsPerWorker;
+            return this;
+        }
+
+        /**
+         * Sets options for the worker JVMs, e.g. their heap size or garbage collector.
+         * {@code --enable-preview} and the class path of this JVM are always passed.
+         *
+         * @param jvmOptions The options.
+         * @return This builder instance.
+         */
+        public Builder jvmOptions(String... jvmOptions) {
+            this.jvmOptions = List.of(jvmOptions);
+            return this;
+        }
+
+        /**
+         * Connects to workers that are already running, e.g. started by a service manager with
+         * {@link WorkerServer#main(String[])}, instead of starting them. Workers that fail are reconnected
+         * but not restarted.
+         *
+         * @param sockets The sockets of the workers, one per worker.
+         * @return This builder instance.
+         */
+        public Builder sockets(Path... sockets) {
+            this.sockets = List.of(sockets);
+            return this;
+        }
+
+        /**
+         * Sets the directory for the sockets of started workers. Defaults to the temporary directory. Each worker
+         * creates a private subdirectory in it for its socket.
+         *
+         * @param socketDirectory The directory.
+         * @return This builder instance.
+         */
+        public Builder socketDirectory(Path socketDirectory) {
+            this.socketDirectory = Objects.requireNonNull(socketDirectory);
+            return this;
+        }
+
+        /**
+         * Sets how often each worker is pinged.
+         *
+         * @param healthCheckInterval The interval.
+         * @return This builder instance.
+         */
+        public Builder healthCheckInterval(Duration healthCheckInterval) {
+            this.healthCheckInterval = Objects.requireNonNull(healthCheckInterval);
+            return this;
+        }
+
+        /**
+         * Sets how long a worker may take to answer a ping before it is restarted.
+         *
+         * @param healthCheckTimeout The timeout.
+         * @return This builder instance.
+         */
+        public Builder healthCheckTimeout(Duration healthCheckTimeout) {
+            this.healthCheckTimeout = Objects.requireNonNull(healthCheckTimeout);
+            return this;
+        }
+
+        /**
+         * Sets how long a worker may take to start accepting connections.
+         *
+         * @param startTimeout The timeout.
+         * @return This builder instance.
+         */
+        public Builder startTimeout(Duration startTimeout) {
+            this.startTimeout = Objects.requireNonNull(startTimeout);
+            return this;
+        }
+
+        /**
+         * Builds the options.
+         *
+         * @return New {@link WorkerOptions}.
+         */
+        public WorkerOptions build() {
+            if (sockets.isEmpty() && controllerPackage == null) {
+                throw new IllegalStateException("controllerPackage is required when the workers are started by Kona");
+            }
+            return new WorkerOptions(this);
+        }
+    }
+}
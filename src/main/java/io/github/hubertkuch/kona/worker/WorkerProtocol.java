@@ -0,0 +1,201 @@
+package io.github.hubertkuch.kona.worker;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+/**
+ * The framing spoken between a {@link WorkerRouter} and a {@link WorkerServer}.
+ * <p>
+ * A connection starts with the client sending {@link #MAGIC}, {@link #VERSION} and the token of the worker launch,
+ * a {@code short} length followed by its bytes; a worker that was given a token closes connections that do not
+ * present it. After that, both sides exchange
+ * frames: a big-endian {@code int} length of the rest of the frame, a type byte, a request id, the origin web view
+ * and three strings (controller, action, body), each an {@code int} byte length, {@code -1} for {@code null},
+ * followed by its UTF-8 bytes. Requests are pipelined: a connection carries any number of them at once, and
+ * responses come back in completion order with the id of their request.
+ */
+final class WorkerProtocol {
+
+    static final int MAGIC = 0x4B574B52; // "KWKR"
+    static final short VERSION = 2;
+    static final int MAX_TOKEN_BYTES = 64;
+
+    /** A handler invocation; the body is the payload as JSON. */
+    static final byte REQUEST = 1;
+    /** A handler's result; the body is JSON. */
+    static final byte RESPONSE = 2;
+    /** A failed request; the body is the error message. */
+    static final byte ERROR = 3;
+    static final byte PING = 4;
+    static final byte PONG = 5;
+    /** A window was closed; per-window controllers of its web view are released. */
+    static final byte WINDOW_CLOSED = 6;
+
+    static final int MAX_FRAME_BYTES = 256 << 20;
+
+    private WorkerProtocol() {}
+
+    record Frame(byte type, long id, long webViewHandle, String controller, String action, String body) {
+
+        static Frame request(long id, long webViewHandle, String controller, String action, String payload) {
+            return new Frame(REQUEST, id, webViewHandle, controller, action, payload);
+        }
+
+        static Frame response(long id, String json) {
+            return new Frame(RESPONSE, id, 0, null, null, json);
+        }
+
+        static Frame error(long id, String message) {
+            return new Frame(ERROR, id, 0, null, null, message);
+        }
+
+        static Frame ping(long id) {
+            return new Frame(PING, id, 0, null, null, null);
+        }
+
+        static Frame pong(long id) {
+            return new Frame(PONG, id, 0, null, null, null);
+        }
+
+        static Frame windowClosed(long webViewHandle) {
+            return new Frame(WINDOW_CLOSED, 0, webViewHandle, null, null, null);
+        }
+    }
+
+    static ByteBuffer handshake(byte[] token) {
+        return ByteBuffer.allocate(8 + token.length)
+                .putInt(MAGIC)
+                .putShort(VERSION)
+                .putShort((short) token.length)
+                .put(token)
+                .flip();
+    }
+
+    /**
+     * Reads a client's handshake.
+     *
+     * @param token The token clients must present, or {@code null} to accept any.
+     * @throws StreamCorruptedException If the client is not a Kona worker client or presents another token.
+     */
+    static void readHandshake(ReadableByteChannel channel, byte[] token) throws IOException {
+        ByteBuffer handshake = ByteBuffer.allocate(8);
+        readFully(channel, handshake);
+        if (handshake.flip().getInt() != MAGIC || handshake.getShort() != VERSION) {
+            throw new StreamCorruptedException("Not a Kona worker connection");
+        }
+        int length = handshake.getShort();
+        if (length < 0 || length > MAX_TOKEN_BYTES) {
+            throw new StreamCorruptedException("Invalid token length " + length);
+        }
+        ByteBuffer presented = ByteBuffer.allocate(length);
+        readFully(channel, presented);
+        if (token != null && !MessageDigest.isEqual(token, presented.array())) {
+            throw new StreamCorruptedException("Connection presented a wrong worker token");
+        }
+    }
+
+    static ByteBuffer encode(Frame frame) {
+        byte[] controller = bytes(frame.controller());
+        byte[] action = bytes(frame.action());
+        byte[] body = bytes(frame.body());
+        int length = 1 + 8 + 8 + size(controller) + size(action) + size(body);
+        ByteBuffer buffer = ByteBuffer.allocate(4 + length)
+                .putInt(length)
+                .put(frame.type())
+                .putLong(frame.id())
+                .putLong(frame.webViewHandle());
+        put(buffer, controller);
+        put(buffer, action);
+        put(buffer, body);
+        return buffer.flip();
+    }
+
+    static void write(WritableByteChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static byte[] bytes(String text) {
+        return text == null ? null : text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int size(byte[] bytes) {
+        return 4 + (bytes == null ? 0 : bytes.length);
+    }
+
+    private static void put(ByteBuffer buffer, byte[] bytes) {
+        if (bytes == null) {
+            buffer.putInt(-1);
+        } else {
+            buffer.putInt(bytes.length).put(bytes);
+        }
+    }
+
+    private static void readFully(ReadableByteChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                throw new EOFException();
+            }
+        }
+    }
+
+    /**
+     * Reads frames from one connection, reusing its buffer. Not thread-safe; each connection has a single reader.
+     */
+    static final class Reader {
+
+        private final ReadableByteChannel channel;
+        private final ByteBuffer header = ByteBuffer.allocate(4);
+        private ByteBuffer buffer = ByteBuffer.allocate(8 * 1024);
+
+        Reader(ReadableByteChannel channel) {
+            this.channel = channel;
+        }
+
+        /**
+         * @return The next frame, or {@code null} if the connection was closed between frames.
+         */
+        Frame read() throws IOException {
+            header.clear();
+            try {
+                readFully(channel, header);
+            } catch (EOFException e) {
+                if (header.position() == 0) {
+                    return null;
+                }
+                throw e;
+            }
+            int length = header.flip().getInt();
+            if (length < 1 + 8 + 8 + 3 * 4 || length > MAX_FRAME_BYTES) {
+                throw new StreamCorruptedException("Invalid frame length " + length);
+            }
+            if (buffer.capacity() < length) {
+                buffer = ByteBuffer.allocate(Math.max(length, buffer.capacity() * 2));
+            }
+            buffer.clear().limit(length);
+            readFully(channel, buffer);
+            buffer.flip();
+            return new Frame(buffer.get(), buffer.getLong(), buffer.getLong(), string(), string(), string());
+        }
+
+        private String string() throws StreamCorruptedException {
+            int length = buffer.getInt();
+            if (length < 0) {
+                return null;
+            }
+            if (length > buffer.remaining()) {
+                throw new StreamCorruptedException("Invalid string length " + length);
+            }
+            String text = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+            buffer.position(buffer.position() + length);
+            return text;
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package io.github.hubertkuch.kona.worker;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import io.github.hubertkuch.kona.application.AppWindow;
+import io.github.hubertkuch.kona.application.WebView;
+import io.github.hubertkuch.kona.codec.MessageCodec;
+import io.github.hubertkuch.kona.routing.KonaRouter;
+import io.github.hubertkuch.kona.routing.MessageReply;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A router that forwards the messages of some controllers to worker JVMs over Unix domain sockets and hands every
+ * other message to the local router. Heavy or crash-prone controllers run in their own processes, with their own
+ * heap and JVM options, so a long garbage collection or a crash there does not stall the UI.
+ * <p>
+ * Each worker is reached over a small pool of connections. Requests are pipelined: any number can be outstanding
+ * on one connection, and each goes to the worker and connection with the fewest outstanding requests. Workers
+ * are pinged periodically and restarted when they exit or stop answering; requests outstanding on a failed worker
+ * are rejected.
+ * <p>
+ * Forwarded messages are plain request/response calls with JSON payloads. Partial results, cancellation, binary
+ * codecs and dedicated channels are not forwarded; messages using a codec other than JSON are rejected.
+ * Enable it with {@code Kona.Builder.workers(WorkerOptions)}.
+ */
+public final class WorkerRouter implements KonaRouter, AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(WorkerRouter.class);
+
+    private final KonaRouter local;
+    private final AppWindow window;
+    private final WebView webView;
+    private final long webViewHandle;
+    private final WorkerOptions options;
+    private final Worker[] workers;
+    private final ScheduledExecutorService health;
+
+    /**
+     * @param local         The router for messages to every other controller.
+     * @param window        The window whose UI thread delivers responses.
+     * @param webView       The web view that receives responses.
+     * @param webViewHandle The native handle of the main web view.
+     * @param options       The forwarded controllers and the workers.
+     */
+    public WorkerRouter(KonaRouter local, AppWindow window, WebView webView, long webViewHandle, WorkerOptions options) {
+        this.local = local;
+        this.window = window;
+        this.webView = webView;
+        this.webViewHandle = webViewHandle;
+        this.options = options;
+        int count = options.sockets().isEmpty() ? options.workers() : options.sockets().size();
+        this.workers = new Worker[count];
+        for (int i = 0; i < count; i++) {
+            workers[i] = new Worker(i, options);
+        }
+        this.health = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("kona-worker-health").daemon().factory());
+    }
+
+    /**
+     * Starts the workers and their health checks. Messages for forwarded controllers wait until a worker is ready.
+     */
+    public void start() {
+        for (Worker worker : workers) {
+            worker.start();
+        }
+        long interval = options.healthCheckInterval().toMillis();
+        health.scheduleWithFixedDelay(() -> {
+            for (Worker worker : workers) {
+                Thread.ofVirtual().name("kona-worker-check").start(worker::checkHealth);
+            }
+        }, interval, interval, TimeUnit.MILLISECONDS);
+        log.info("[Kona] Forwarding {} to {} worker(s)", options.controllers(), workers.length);
+    }
+
+    @Override
+    public void onMessage(String message) {
+        onMessage(webViewHandle, message);
+    }
+
+    @Override
+    public void onMessage(long webViewHandle, String message) {
+        if (!forward(webViewHandle, message, null)) {
+            local.onMessage(webViewHandle, message);
+        }
+    }
+
+    @Override
+    public void onMessage(long webViewHandle, String message, MessageReply reply) {
+        if (!forward(webViewHandle, message, reply)) {
+            local.onMessage(webViewHandle, message, reply);
+        }
+    }
+
+    /**
+     * Tells every worker that a window was closed, so they release its cursors and other per-window state.
+     *
+     * @param webViewHandle The native handle of the closed window's web view.
+     */
+    public void windowClosed(long webViewHandle) {
+        for (Worker worker : workers) {
+            worker.windowClosed(webViewHandle);
+        }
+    }
+
+    /**
+     * Stops the health checks and the workers, rejecting outstanding requests.
+     */
+    @Override
+    public void close() {
+        health.shutdownNow();
+        for (Worker worker : workers) {
+            worker.close();
+        }
+    }
+
+    /**
+     * Forwards a message if it addresses a forwarded controller.
+     *
+     * @return Whether the message was forwarded or rejected, i.e. must not reach the local router.
+     */
+    private boolean forward(long webViewHandle, String message, MessageReply reply) {
+        // Most messages stay local, so only the controller name is read before the local router parses them
+        String controllerName = peekController(message);
+        if (controllerName == null || !options.controllers().contains(controllerName)) {
+            return false;
+        }
+        JsonObject envelope;
+        try {
+            envelope = JsonParser.parseString(message).getAsJsonObject();
+        } catch (RuntimeException e) {
+            return false;
+        }
+        JsonElement action = envelope.get("action");
+        if (action == null) {
+            return false;
+        }
+
+        long origin = webViewHandle != 0L ? webViewHandle : this.webViewHandle;
+        String callbackId = envelope.has("callbackId") ? envelope.get("callbackId").getAsString() : null;
+        String codec = envelope.has("codec") ? envelope.get("codec").getAsString() : MessageCodec.JSON;
+        String accept = envelope.has("accept") ? envelope.get("accept").getAsString() : MessageCodec.JSON;
+        if (!MessageCodec.JSON.equals(codec) || !MessageCodec.JSON.equals(accept)) {
+            log.error("[Kona] Only JSON messages are forwarded to workers: {} -> {}", controllerName, action.getAsString());
+            reject(origin, callbackId, reply, "Only JSON messages are forwarded to workers");
+            return true;
+        }
+        JsonElement payload = envelope.get("payload");
+        String body = payload == null || payload.isJsonNull() ? null : payload.toString();
+
+        leastBusy().request(origin, controllerName, action.getAsString(), body)
+                .whenComplete((json, error) -> {
+                    if (error != null) {
+                        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                        log.error("[Kona] Worker failed to handle {} -> {}: {}", controllerName, action.getAsString(), cause.getMessage());
+                        reject(origin, callbackId, reply, String.valueOf(cause.getMessage()));
+                    } else if (reply != null) {
+                        window.scheduleTask(() -> reply.resolve(json));
+                    } else if (callbackId != null) {
+                        window.scheduleTask(() -> webView.callFunction(origin, "window.kona.resolveCallback", callbackId, json));
+                    }
+                });
+        return true;
+    }
+
+    /**
+     * Reads the top-level {@code controller} of a message without parsing the rest of it.
+     *
+     * @return The controller name, or {@code null} if the message is not a JSON object naming one.
+     */
+    static String peekController(String message) {
+        try (JsonReader reader = new JsonReader(new StringReader(message))) {
+            if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+                return null;
+            }
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if (reader.nextName().equals("controller")) {
+                    return reader.peek() == JsonToken.STRING ? reader.nextString() : null;
+                }
+                reader.skipValue();
+            }
+            return null;
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    private Worker leastBusy() {
+        Worker best = workers[0];
+        for (int i = 1; i < workers.length; i++) {
+            if (workers[i].outstanding() < best.outstanding()) {
+                best = workers[i];
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Rejects a forwarded message on the UI thread: through its reply if it has one, otherwise through the bridge
+     * runtime's rejectCallback, so the page's promise settles.
+     */
+    private void reject(long origin, String callbackId, MessageReply reply, String reason) {
+        if (reply != null) {
+            window.scheduleTask(() -> reply.reject(reason));
+        } else if (callbackId != null) {
+            window.scheduleTask(() -> webView.callFunction(origin, "window.kona.rejectCallback", callbackId, reason));
+        }
+    }
+}
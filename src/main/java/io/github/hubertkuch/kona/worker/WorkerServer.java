@@ -0,0 +1,207 @@
+package io.github.hubertkuch.kona.worker;
+
+import io.github.hubertkuch.kona.application.HeadlessWebView;
+import io.github.hubertkuch.kona.application.HeadlessWindow;
+import io.github.hubertkuch.kona.routing.KonaRouterImpl;
+import io.github.hubertkuch.kona.routing.RouteTable;
+import io.github.hubertkuch.kona.routing.ServiceRegistry;
+import io.github.hubertkuch.kona.worker.WorkerProtocol.Frame;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HexFormat;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The worker side of {@link WorkerRouter}: accepts connections on a Unix domain socket and invokes handlers of
+ * a router for the requests it receives. Every request runs on its own virtual thread, so a slow handler does not
+ * hold up the others on the same connection.
+ * <p>
+ * {@link WorkerRouter} starts workers with {@link #main(String[])}, which runs the controllers of a package
+ * against a headless window and web view. A worker can also be started by hand, e.g. to give it services, and
+ * be reached with {@link WorkerOptions.Builder#sockets(Path...)}:
+ * <pre>{@code
+ * ServiceRegistry services = new ServiceRegistry().register(Database.class, database);
+ * KonaRouterImpl router = new KonaRouterImpl(new HeadlessWindow(), new HeadlessWebView(), 1L, services);
+ * router.install(RouteTable.scan("com.example.reports", services)).join();
+ * WorkerServer.start(Path.of("/run/example/reports.sock"), router);
+ * }</pre>
+ */
+public final class WorkerServer implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(WorkerServer.class);
+
+    /**
+     * The environment variable through which {@link WorkerRouter} passes the token of a launch, in hex.
+     */
+    static final String TOKEN_VARIABLE = "KONA_WORKER_TOKEN";
+
+    private final ServerSocketChannel server;
+    private final Path socket;
+    private final KonaRouterImpl router;
+    private final byte[] token;
+    private final Set<SocketChannel> connections = ConcurrentHashMap.newKeySet();
+    private volatile boolean closed;
+
+    private WorkerServer(ServerSocketChannel server, Path socket, KonaRouterImpl router, byte[] token) {
+        this.server = server;
+        this.socket = socket;
+        this.router = router;
+        this.token = token;
+    }
+
+    /**
+     * Binds a socket and starts accepting connections on a virtual thread.
+     *
+     * @param socket The socket file; an existing file is replaced.
+     * @param router The router whose handlers are invoked, with its routes installed.
+     * @return The server, to be closed when no longer needed.
+     * @throws IOException If the socket cannot be bound.
+     */
+    public static WorkerServer start(Path socket, KonaRouterImpl router) throws IOException {
+        return start(socket, router, null);
+    }
+
+    /**
+     * Binds a socket that only accepts connections presenting the token of this worker's launch.
+     *
+     * @param token The token, or {@code null} to accept any connection to the socket.
+     */
+    static WorkerServer start(Path socket, KonaRouterImpl router, byte[] token) throws IOException {
+        Files.deleteIfExists(socket);
+        ServerSocketChannel server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+        try {
+            server.bind(UnixDomainSocketAddress.of(socket));
+        } catch (IOException e) {
+            server.close();
+            throw e;
+        }
+        WorkerServer worker = new WorkerServer(server, socket, router, token);
+        Thread.ofVirtual().name("kona-worker-accept").start(worker::accept);
+        return worker;
+    }
+
+    private void accept() {
+        while (!closed) {
+            try {
+                SocketChannel connection = server.accept();
+                connections.add(connection);
+                Thread.ofVirtual().name("kona-worker-connection").start(() -> serve(connection));
+            } catch (IOException e) {
+                if (!closed) {
+                    log.error("[Kona] Worker stopped accepting connections on {}", socket, e);
+                }
+                return;
+            }
+        }
+    }
+
+    private void serve(SocketChannel connection) {
+        ReentrantLock writeLock = new ReentrantLock();
+        try (connection) {
+            WorkerProtocol.readHandshake(connection, token);
+            WorkerProtocol.Reader reader = new WorkerProtocol.Reader(connection);
+            Frame frame;
+            while ((frame = reader.read()) != null) {
+                switch (frame.type()) {
+                    case WorkerProtocol.REQUEST -> {
+                        Frame request = frame;
+                        Thread.ofVirtual().start(() -> handle(connection, writeLock, request));
+                    }
+                    case WorkerProtocol.PING -> send(connection, writeLock, Frame.pong(frame.id()));
+                    case WorkerProtocol.WINDOW_CLOSED -> router.windowClosed(frame.webViewHandle());
+                    default -> log.warn("[Kona] Worker ignored a frame of type {}", frame.type());
+                }
+            }
+        } catch (IOException e) {
+            if (!closed) {
+                log.warn("[Kona] Worker connection failed: {}", e.toString());
+            }
+        } finally {
+            connections.remove(connection);
+        }
+    }
+
+    private void handle(SocketChannel connection, ReentrantLock writeLock, Frame request) {
+        Frame reply;
+        try {
+            String json = router.invoke(request.webViewHandle(), request.controller(), request.action(), request.body()).join();
+            reply = Frame.response(request.id(), json);
+        } catch (CompletionException e) {
+            Throwable cause = e;
+            while ((cause instanceof CompletionException || cause instanceof InvocationTargetException) && cause.getCause() != null) {
+                cause = cause.getCause();
+            }
+            reply = Frame.error(request.id(), cause.getMessage() != null ? cause.getMessage() : cause.toString());
+        }
+        send(connection, writeLock, reply);
+    }
+
+    private void send(SocketChannel connection, ReentrantLock writeLock, Frame frame) {
+        writeLock.lock();
+        try {
+            WorkerProtocol.write(connection, WorkerProtocol.encode(frame));
+        } catch (IOException e) {
+            log.warn("[Kona] Cannot answer request {}: {}", frame.id(), e.toString());
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Stops accepting connections, closes the open ones and deletes the socket file.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            server.close();
+            for (SocketChannel connection : connections) {
+                connection.close();
+            }
+            Files.deleteIfExists(socket);
+        } catch (IOException e) {
+            log.debug("[Kona] Cannot close worker socket {}", socket, e);
+        }
+    }
+
+    /**
+     * Runs a worker until the process that started it exits.
+     *
+     * @param args The socket file and the package to scan for controllers.
+     * @throws IOException If the socket cannot be bound.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: WorkerServer <socket> <controller-package>");
+            System.exit(2);
+        }
+        ServiceRegistry services = new ServiceRegistry();
+        KonaRouterImpl router = new KonaRouterImpl(new HeadlessWindow(), new HeadlessWebView(), 1L, services);
+        router.install(RouteTable.scan(args[1], services)).join();
+        String token = System.getenv(TOKEN_VARIABLE);
+        WorkerServer server = start(Path.of(args[0]), router, token != null ? HexFormat.of().parseHex(token) : null);
+        log.info("[Kona] Worker {} serving {} on {}", ProcessHandle.current().pid(), args[1], args[0]);
+
+        Runtime.getRuntime().addShutdownHook(new Thread(server::close));
+
+        // The accepting threads are daemons, so the main thread keeps the worker alive
+        ProcessHandle.current().parent()
+                .map(ProcessHandle::onExit)
+                .orElseGet(CompletableFuture::new)
+                .join();
+        System.exit(0);
+    }
+}
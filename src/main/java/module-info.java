@@ -5,10 +5,24 @@
  */
 module kona.main {
     requires org.slf4j;
-    requires com.google.gson;
+    requires transitive com.google.gson;
     requires org.reflections;
+    requires jdk.jfr;
 
     exports io.github.hubertkuch.kona.application;
+    exports io.github.hubertkuch.kona.codec;
+    exports io.github.hubertkuch.kona.diagnostics;
+    exports io.github.hubertkuch.kona.events;
+    exports io.github.hubertkuch.kona.files;
     exports io.github.hubertkuch.kona.message;
+    exports io.github.hubertkuch.kona.paging;
+    exports io.github.hubertkuch.kona.recording;
     exports io.github.hubertkuch.kona.routing;
+    exports io.github.hubertkuch.kona.state;
+    exports io.github.hubertkuch.kona.store;
+    exports io.github.hubertkuch.kona.table;
+    exports io.github.hubertkuch.kona.transport;
+    exports io.github.hubertkuch.kona.worker;
+
+    uses io.github.hubertkuch.kona.codec.GeneratedCodecFactory;
 }
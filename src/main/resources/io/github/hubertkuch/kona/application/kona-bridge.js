@@ -0,0 +1,178 @@
+// The bridge runtime Kona injects into every page at document start.
+// Responses and events arrive as calls to resolveCallback and dispatch, with their data passed as
+// arguments rather than spliced into script source.
+(() => {
+    if (window.kona && window.kona.runtime) {
+        return;
+    }
+
+    const callbacks = new Map();
+    const failures = new Map();
+    const decoders = new Map();
+    const handlers = () => (window.webkit && window.webkit.messageHandlers) || {};
+    let nextCallbackId = 0;
+
+    // Takes the result of a @Preload handler that Kona injected as window.__konaPreload, if one matches.
+    // Each result is used once, so later requests see fresh data
+    const takePreload = (controller, action, payload) => {
+        const preloads = window.__konaPreload;
+        const route = `${controller}/${action}`;
+        const entry = preloads && preloads[route];
+        if (!entry || JSON.stringify(entry.payload) !== JSON.stringify(payload === undefined ? null : payload)) {
+            return undefined;
+        }
+        delete preloads[route];
+        return entry;
+    };
+
+    // Turns the body of a response encoded by a codec into a value with the decoder registered for the codec,
+    // or leaves it as the encoded string if there is none
+    const decode = (body, codec) => decoders.has(codec) ? decoders.get(codec)(body, codec) : body;
+
+    // Waits for the response to a request through resolveCallback or rejectCallback
+    const awaitCallback = callbackId => new Promise((resolve, reject) => {
+        callbacks.set(callbackId, (value, codec) => resolve(codec ? decode(value, codec) : value));
+        failures.set(callbackId, reject);
+    });
+
+    // Finds a function such as window.app.refresh that Kona calls by name, bound to its owner
+    const lookup = name => {
+        const keys = name.replace(/^window\./, '').split('.');
+        const last = keys.pop();
+        const owner = keys.reduce((object, key) => object && object[key], window);
+        return owner && typeof owner[last] === 'function' ? owner[last].bind(owner) : undefined;
+    };
+
+    // Outside Kona's web view, e.g. in a browser during development, messages go over the WebSocket of the
+    // loopback transport, which sets window.__konaTransport. Calls come back over it in batches; calls to kona
+    // itself are sent without the window.kona prefix
+    const connect = url => {
+        const queued = [];
+        const socket = new WebSocket(url);
+        socket.onopen = () => queued.splice(0).forEach(message => socket.send(message));
+        socket.onmessage = event => {
+            for (const call of JSON.parse(event.data)) {
+                if (call.s !== undefined) {
+                    (0, eval)(call.s);
+                    continue;
+                }
+                const fn = typeof kona[call.f] === 'function' ? kona[call.f] : lookup(call.f);
+                if (fn) {
+                    fn(...call.a);
+                }
+            }
+        };
+        return {
+            send: message => socket.readyState === WebSocket.OPEN ? socket.send(message) : queued.push(message),
+        };
+    };
+    const transport = !(window.webkit && window.webkit.messageHandlers) && window.__konaTransport
+        ? connect(window.__konaTransport)
+        : null;
+
+    const kona = {
+        runtime: 1,
+
+        // Posts an envelope {controller, action, payload, callbackId, ...} to the shared channel
+        sendMessage(message) {
+            if (transport) {
+                transport.send(JSON.stringify(message));
+            } else {
+                handlers().kona.postMessage(JSON.stringify(message));
+            }
+        },
+
+        addCallback(callbackId, callback) {
+            callbacks.set(callbackId, callback);
+        },
+
+        removeCallback(callbackId) {
+            callbacks.delete(callbackId);
+            failures.delete(callbackId);
+        },
+
+        // Sends a request and resolves with its response. Where WebKit supports replies, the response resolves
+        // the promise of postMessage itself; otherwise it arrives through resolveCallback, over a dedicated
+        // channel when the route has one
+        call(controller, action, payload, options = {}) {
+            const preloaded = Object.keys(options).length === 0 ? takePreload(controller, action, payload) : undefined;
+            if (preloaded) {
+                return Promise.resolve(preloaded.value);
+            }
+            const callbackId = `kona-${++nextCallbackId}`;
+            const replies = handlers().konaReply;
+            if (replies) {
+                // The callback ID still identifies the request for cancel() and kona:partial events.
+                // A router that cannot reply resolves with undefined and answers through resolveCallback instead.
+                // Codec responses arrive as {'kona:codec': name, body}
+                return replies.postMessage(JSON.stringify({ controller, action, payload, callbackId, ...options }))
+                    .then(value => {
+                        if (value === undefined) {
+                            return awaitCallback(callbackId);
+                        }
+                        return value !== null && typeof value === 'object' && value['kona:codec'] !== undefined
+                            ? decode(value.body, value['kona:codec'])
+                            : value;
+                    });
+            }
+            const response = awaitCallback(callbackId);
+            const body = payload === undefined || payload === null ? '' : JSON.stringify(payload);
+            const channels = handlers();
+            if (Object.keys(options).length === 0 && channels[`kona/${controller}/${action}`]) {
+                channels[`kona/${controller}/${action}`].postMessage(`${callbackId}\n${body}`);
+            } else if (Object.keys(options).length === 0 && channels[`kona/${controller}`]) {
+                channels[`kona/${controller}`].postMessage(`${action}\n${callbackId}\n${body}`);
+            } else {
+                kona.sendMessage({ controller, action, payload, callbackId, ...options });
+            }
+            return response;
+        },
+
+        // Registers a function that turns response bodies of a codec, e.g. base64 CBOR, into values.
+        // Without one, requests for the codec resolve with the encoded body
+        registerDecoder(codec, decoder) {
+            decoders.set(codec, decoder);
+        },
+
+        // Returns the preloaded response to a request synchronously, e.g. for the first render, or undefined if
+        // there is none. Like call, it consumes the preloaded result
+        preloaded(controller, action, payload) {
+            const entry = takePreload(controller, action, payload);
+            return entry ? entry.value : undefined;
+        },
+
+        cancel(callbackId) {
+            callbacks.delete(callbackId);
+            failures.delete(callbackId);
+            kona.sendMessage({ controller: 'kona.request', action: 'cancel', payload: { callbackId } });
+        },
+
+        // Called by Kona with a JSON response, or with a base64 or text body and the name of its codec
+        resolveCallback(callbackId, body, codec) {
+            const callback = callbacks.get(callbackId);
+            if (!callback) {
+                return;
+            }
+            callbacks.delete(callbackId);
+            failures.delete(callbackId);
+            callback(codec ? body : JSON.parse(body), codec);
+        },
+
+        // Called by Kona when a request without a reply fails or is superseded by a newer message
+        rejectCallback(callbackId, reason) {
+            const failure = failures.get(callbackId);
+            callbacks.delete(callbackId);
+            failures.delete(callbackId);
+            if (failure) {
+                failure(new Error(reason));
+            }
+        },
+
+        // Called by Kona to raise a DOM event such as kona:state or kona:partial
+        dispatch(type, detail) {
+            window.dispatchEvent(new CustomEvent(type, { detail: JSON.parse(detail) }));
+        },
+    };
+
+    window.kona = kona;
+})();
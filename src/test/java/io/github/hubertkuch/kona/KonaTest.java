@@ -0,0 +1,40 @@
+package io.github.hubertkuch.kona;
+
+import io.github.hubertkuch.kona.application.HeadlessWindow;
+import io.github.hubertkuch.kona.application.WebView;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for how {@link Kona#start()} reports the outcome of the startup pipeline through its handle.
+ */
+class KonaTest {
+
+    @Test
+    @DisplayName("A startup failure completes both the ready and the terminated future with its cause")
+    void start_WhenStartupFails_ShouldSurfaceCauseThroughBothFutures() throws Exception {
+        IllegalStateException cause = new IllegalStateException("No display");
+        Kona kona = new Kona.Builder()
+                .controllerPackage("io.github.hubertkuch.kona.none")
+                .initialUri("file:///kona/index.html")
+                .platform(HeadlessWindow::new, () -> brokenWebView(cause))
+                .build();
+
+        KonaHandle handle = kona.start();
+
+        ExecutionException notReady = assertThrows(ExecutionException.class, () -> handle.ready().get(5, TimeUnit.SECONDS));
+        assertSame(cause, notReady.getCause());
+        RuntimeException crashed = assertThrows(RuntimeException.class, handle::awaitTermination);
+        assertSame(cause, crashed.getCause());
+        assertFalse(handle.isRunning());
+    }
+
+    private static WebView brokenWebView(RuntimeException cause) {
+        throw cause;
+    }
+}
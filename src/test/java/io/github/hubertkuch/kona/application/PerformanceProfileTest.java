@@ -0,0 +1,46 @@
+package io.github.hubertkuch.kona.application;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the engine tuning presets and the options they pass to the JavaScript engine.
+ */
+class PerformanceProfileTest {
+
+    @Test
+    @DisplayName("Presets keep every JIT tier, so no engine options are set")
+    void presets_ShouldNotSetEngineOptions() {
+        assertEquals(Map.of(), PerformanceProfile.development().engineEnvironment());
+        assertEquals(Map.of(), PerformanceProfile.production().engineEnvironment());
+        assertTrue(PerformanceProfile.development().developerExtras());
+        assertFalse(PerformanceProfile.production().developerExtras());
+        assertEquals(PerformanceProfile.CacheModel.WEB_BROWSER, PerformanceProfile.production().cacheModel());
+    }
+
+    @Test
+    @DisplayName("Disabling the JIT turns off every tier; disabling the optimizing JIT keeps the baseline tier")
+    void engineEnvironment_ShouldMapJitSwitches() {
+        PerformanceProfile interpreted = new PerformanceProfile.Builder(PerformanceProfile.production())
+                .javascriptJit(false)
+                .optimizingJit(false)
+                .build();
+        assertEquals(Map.of("JSC_useJIT", "false"), interpreted.engineEnvironment());
+
+        PerformanceProfile baseline = new PerformanceProfile.Builder().optimizingJit(false).build();
+        assertEquals(Map.of("JSC_useDFGJIT", "false", "JSC_useFTLJIT", "false"), baseline.engineEnvironment());
+    }
+
+    @Test
+    @DisplayName("Windows without native engine options accept a profile before initializing")
+    void headlessWindow_ShouldAcceptProfile() {
+        try (HeadlessWindow window = new HeadlessWindow()) {
+            assertDoesNotThrow(() -> window.setPerformanceProfile(PerformanceProfile.production()));
+            assertTrue(window.initialize());
+        }
+    }
+}
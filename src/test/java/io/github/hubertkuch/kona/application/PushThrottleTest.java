@@ -0,0 +1,135 @@
+package io.github.hubertkuch.kona.application;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for throttling pushes to pages by the state of their window.
+ */
+class PushThrottleTest {
+
+    private static final long WEB_VIEW = 1L;
+    private static final WindowState MINIMIZED = new WindowState(true, true, false);
+    private static final WindowState UNFOCUSED = new WindowState(true, false, false);
+
+    private StateWindow window;
+    private WindowManager windows;
+
+    @BeforeEach
+    void setUp() {
+        window = new StateWindow();
+        windows = new WindowManager(window, new HeadlessWebView(), "kona://app/index.html", 0);
+        windows.attach(WEB_VIEW, new WindowOptions("Main", 800, 600, null));
+    }
+
+    @Test
+    @DisplayName("Pushes to a focused window are always allowed")
+    void tryPush_FocusedWindow_ShouldAlwaysAllow() {
+        PushThrottle throttle = new PushThrottle(window, windows, VisibilityPolicy.defaults());
+
+        for (int i = 0; i < 3; i++) {
+            assertTrue(throttle.tryPush(WEB_VIEW, () -> fail("No retry expected")));
+        }
+        assertTrue(window.tasks.isEmpty(), "No timer should be set");
+    }
+
+    @Test
+    @DisplayName("Refused pushes within an interval are coalesced into one retry of the latest push")
+    void tryPush_WithinInterval_ShouldCoalesceRetries() throws InterruptedException {
+        PushThrottle throttle = new PushThrottle(window, windows, new VisibilityPolicy.Builder()
+                .unfocusedPushInterval(Duration.ofMillis(50))
+                .build());
+        window.changeState(UNFOCUSED);
+        List<String> retried = new ArrayList<>();
+
+        assertTrue(throttle.tryPush(WEB_VIEW, () -> retried.add("first")), "The first push should be allowed");
+        assertFalse(throttle.tryPush(WEB_VIEW, () -> retried.add("second")));
+        assertFalse(throttle.tryPush(WEB_VIEW, () -> retried.add("third")));
+
+        Runnable timer = window.tasks.poll(5, TimeUnit.SECONDS);
+        assertNotNull(timer, "The retry should be scheduled on the UI thread after the interval");
+        timer.run();
+        assertEquals(List.of("third"), retried, "Only the latest refused push should be retried");
+        assertNull(window.tasks.poll(200, TimeUnit.MILLISECONDS), "Refused pushes should share one timer");
+    }
+
+    @Test
+    @DisplayName("Pushes to a hidden window are held without a timer and retried once when it is visible again")
+    void tryPush_HiddenWindow_ShouldResumeWhenVisible() {
+        PushThrottle throttle = new PushThrottle(window, windows, VisibilityPolicy.defaults());
+        window.changeState(MINIMIZED);
+        List<String> retried = new ArrayList<>();
+
+        assertFalse(throttle.tryPush(WEB_VIEW, () -> retried.add("first")));
+        assertFalse(throttle.tryPush(WEB_VIEW, () -> retried.add("latest")));
+        assertTrue(window.tasks.isEmpty(), "Held pushes should not set a timer");
+
+        window.changeState(WindowState.UNMAPPED);
+        assertTrue(retried.isEmpty(), "Changing to another hidden state should keep holding");
+
+        window.changeState(WindowState.ACTIVE);
+        assertEquals(List.of("latest"), retried);
+        window.changeState(UNFOCUSED);
+        assertEquals(List.of("latest"), retried, "A retry should only run once");
+        assertTrue(throttle.tryPush(WEB_VIEW, () -> fail("No retry expected")));
+    }
+
+    @Test
+    @DisplayName("A window becoming visible retries at once, without waiting for the hidden interval")
+    void stateChanged_ShouldDropHiddenRateLimit() {
+        PushThrottle throttle = new PushThrottle(window, windows, new VisibilityPolicy.Builder()
+                .hiddenPushInterval(Duration.ofMinutes(1))
+                .unfocusedPushInterval(Duration.ofMinutes(1))
+                .build());
+        window.changeState(MINIMIZED);
+        List<String> retried = new ArrayList<>();
+
+        assertTrue(throttle.tryPush(WEB_VIEW, () -> retried.add("first")));
+        assertFalse(throttle.tryPush(WEB_VIEW, () -> retried.add("second")));
+
+        window.changeState(UNFOCUSED);
+        assertEquals(List.of("second"), retried);
+        assertTrue(throttle.tryPush(WEB_VIEW, () -> retried.add("third")),
+                "The rate limit of the hidden state should not apply to the new state");
+    }
+
+    /**
+     * A window system with a single window whose state changes on demand. Tasks are queued rather than run, so
+     * the test decides when retries scheduled from timer threads reach the UI thread.
+     */
+    private static final class StateWindow implements AppWindow {
+        private final BlockingQueue<Runnable> tasks = new LinkedBlockingQueue<>();
+        private Consumer<WindowState> stateCallback;
+
+        void changeState(WindowState state) {
+            stateCallback.accept(state);
+        }
+
+        @Override public boolean initialize() { return true; }
+        @Override public long createWindow(String title, int width, int height) { return 10L; }
+        @Override public void showWindow(long handle) {}
+        @Override public void runEventLoop() {}
+        @Override public void quit() {}
+        @Override public void addWidget(long windowHandle, long widgetHandle) {}
+        @Override public void destroyWindow(long windowHandle) {}
+        @Override public void onDestroy(long windowHandle, Runnable callback) {}
+        @Override public void onStateChanged(long windowHandle, Consumer<WindowState> callback) { stateCallback = callback; }
+        @Override public void fullscreen(long windowHandle, boolean fullscreen) {}
+        @Override public void resizable(long windowHandle, boolean fullscreen) {}
+        @Override public void title(long windowHandle, String title) {}
+        @Override public void modal(long windowHandle, boolean modal) {}
+        @Override public void scheduleTask(Runnable task) { tasks.add(task); }
+        @Override public void close() {}
+    }
+}
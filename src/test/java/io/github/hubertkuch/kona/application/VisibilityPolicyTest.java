@@ -0,0 +1,69 @@
+package io.github.hubertkuch.kona.application;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the visibility policy presets, its builder and the push interval it picks for each window state.
+ */
+class VisibilityPolicyTest {
+
+    private static final WindowState MINIMIZED = new WindowState(true, true, false);
+    private static final WindowState UNFOCUSED = new WindowState(true, false, false);
+
+    @Test
+    @DisplayName("The defaults hold pushes to hidden windows, update unfocused ones at full rate and hold background work")
+    void defaults_ShouldHoldHiddenWork() {
+        VisibilityPolicy policy = VisibilityPolicy.defaults();
+
+        assertNull(policy.hiddenPushInterval());
+        assertEquals(Duration.ZERO, policy.unfocusedPushInterval());
+        assertTrue(policy.suspendBackgroundTasks());
+        assertTrue(policy.deferBackgroundRoutes());
+        assertNull(policy.pushInterval(MINIMIZED));
+        assertNull(policy.pushInterval(WindowState.UNMAPPED));
+        assertEquals(Duration.ZERO, policy.pushInterval(UNFOCUSED));
+        assertEquals(Duration.ZERO, policy.pushInterval(WindowState.ACTIVE));
+    }
+
+    @Test
+    @DisplayName("The full rate preset never throttles nor holds background work")
+    void fullRate_ShouldNeverThrottle() {
+        VisibilityPolicy policy = VisibilityPolicy.fullRate();
+
+        assertEquals(Duration.ZERO, policy.pushInterval(MINIMIZED));
+        assertEquals(Duration.ZERO, policy.pushInterval(UNFOCUSED));
+        assertFalse(policy.suspendBackgroundTasks());
+        assertFalse(policy.deferBackgroundRoutes());
+    }
+
+    @Test
+    @DisplayName("A builder started from a policy keeps its settings and applies the intervals by window state")
+    void builder_ShouldStartFromBaseAndPickIntervalByState() {
+        VisibilityPolicy policy = new VisibilityPolicy.Builder(VisibilityPolicy.fullRate())
+                .hiddenPushInterval(Duration.ofSeconds(1))
+                .unfocusedPushInterval(Duration.ofMillis(250))
+                .build();
+
+        assertEquals(Duration.ofSeconds(1), policy.pushInterval(MINIMIZED));
+        assertEquals(Duration.ofMillis(250), policy.pushInterval(UNFOCUSED));
+        assertEquals(Duration.ZERO, policy.pushInterval(WindowState.ACTIVE), "Focused windows are always updated at full rate");
+        assertFalse(policy.suspendBackgroundTasks(), "Settings not changed should come from the base policy");
+        assertFalse(policy.deferBackgroundRoutes());
+    }
+
+    @Test
+    @DisplayName("Negative intervals are rejected; only the hidden interval may be null")
+    void builder_ShouldValidateIntervals() {
+        VisibilityPolicy.Builder builder = new VisibilityPolicy.Builder();
+
+        assertThrows(IllegalArgumentException.class, () -> builder.hiddenPushInterval(Duration.ofMillis(-1)));
+        assertThrows(IllegalArgumentException.class, () -> builder.unfocusedPushInterval(Duration.ofMillis(-1)));
+        assertThrows(NullPointerException.class, () -> builder.unfocusedPushInterval(null));
+        assertNull(builder.hiddenPushInterval(null).build().hiddenPushInterval());
+    }
+}
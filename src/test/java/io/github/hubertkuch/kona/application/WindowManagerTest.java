@@ -0,0 +1,229 @@
+package io.github.hubertkuch.kona.application;
+
+import io.github.hubertkuch.kona.files.FileServer;
+import io.github.hubertkuch.kona.routing.ChannelReceiver;
+import io.github.hubertkuch.kona.routing.KonaRouter;
+import io.github.hubertkuch.kona.routing.MessageChannel;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for opening, closing and prewarming windows.
+ */
+class WindowManagerTest {
+
+    private static final String DEFAULT_URI = "kona://app/index.html";
+
+    private FakeWindow window;
+    private FakeWebView webView;
+
+    @BeforeEach
+    void setUp() {
+        window = new FakeWindow();
+        webView = new FakeWebView();
+    }
+
+    @Test
+    @DisplayName("Opening a window creates, fills and shows it on the UI thread; closing it notifies listeners")
+    void openAndClose_ShouldTrackWindows() {
+        WindowManager windows = new WindowManager(window, webView, DEFAULT_URI, 0);
+        List<KonaWindow> closed = new ArrayList<>();
+        windows.addCloseListener(closed::add);
+
+        CompletableFuture<KonaWindow> opened = windows.open(new WindowOptions("Second", 640, 480, null));
+        assertFalse(opened.isDone(), "Windows should only be created on the UI thread");
+        window.runPending();
+
+        KonaWindow second = opened.join();
+        assertEquals(List.of(second), List.copyOf(windows.windows()));
+        assertEquals(Set.of(second.windowHandle()), window.shown);
+        assertEquals(second.webViewHandle(), window.widgets.get(second.windowHandle()));
+        assertEquals(List.of(DEFAULT_URI), webView.loads.get(second.webViewHandle()));
+
+        windows.closeWindow(second);
+        assertTrue(closed.isEmpty(), "Windows should only be destroyed on the UI thread");
+        window.runPending();
+
+        assertEquals(List.of(second), closed);
+        assertTrue(windows.windows().isEmpty());
+        assertEquals(WindowState.ACTIVE, windows.state(second.webViewHandle()), "The closed window's state should be forgotten");
+    }
+
+    @Test
+    @DisplayName("Closing the last window ends the event loop; closing one of several does not")
+    void closeWindow_ShouldQuitAfterLastWindow() {
+        WindowManager windows = new WindowManager(window, webView, DEFAULT_URI, 0);
+        KonaWindow main = windows.attach(webView.createWebViewWidget(), new WindowOptions("Main", 800, 600, null));
+        KonaWindow other = windows.openNow(new WindowOptions("Other", 400, 300, "kona://app/other.html"));
+        assertNull(webView.loads.get(main.webViewHandle()), "Attaching without a URI should keep the loaded page");
+        assertEquals(List.of("kona://app/other.html"), webView.loads.get(other.webViewHandle()));
+
+        windows.closeWindow(main);
+        window.runPending();
+        assertEquals(0, window.quits);
+        assertEquals(List.of(other), List.copyOf(windows.windows()));
+
+        windows.closeWindow(other);
+        window.runPending();
+        assertEquals(1, window.quits, "Closing the last window should end the event loop");
+        assertTrue(windows.windows().isEmpty());
+        assertFalse(windows.allHidden(), "No open windows are not hidden windows");
+    }
+
+    @Test
+    @DisplayName("Visibility is tracked per window and allHidden only holds when no window can be seen")
+    void stateChanges_ShouldTrackVisibility() {
+        WindowManager windows = new WindowManager(window, webView, DEFAULT_URI, 0);
+        List<WindowState> reported = new ArrayList<>();
+        windows.addStateListener((changed, state) -> reported.add(state));
+        KonaWindow first = windows.openNow(new WindowOptions("First", 400, 300, null));
+        KonaWindow second = windows.openNow(new WindowOptions("Second", 400, 300, null));
+
+        window.changeState(first.windowHandle(), WindowState.UNMAPPED);
+        assertFalse(windows.allHidden());
+        window.changeState(second.windowHandle(), new WindowState(true, true, false));
+        assertTrue(windows.allHidden());
+        assertEquals(WindowState.UNMAPPED, windows.state(first.webViewHandle()));
+
+        window.changeState(second.windowHandle(), WindowState.ACTIVE);
+        assertFalse(windows.allHidden());
+        assertEquals(3, reported.size());
+    }
+
+    @Test
+    @DisplayName("Prewarmed web views are used before creating new ones, and the pool is topped up again")
+    void prewarm_ShouldReuseAndRefillPool() {
+        WindowManager windows = new WindowManager(window, webView, DEFAULT_URI, 2);
+        windows.prewarm();
+        assertEquals(2, webView.created);
+        Set<Long> prewarmed = Set.copyOf(webView.loads.keySet());
+
+        KonaWindow opened = windows.openNow(new WindowOptions("Prewarmed", 400, 300, null));
+        assertTrue(prewarmed.contains(opened.webViewHandle()), "The window should host a prewarmed web view");
+        assertEquals(List.of(DEFAULT_URI), webView.loads.get(opened.webViewHandle()), "The default page should not be loaded twice");
+        assertEquals(2, webView.created, "Opening from the pool should not create a web view");
+
+        KonaWindow navigated = windows.openNow(new WindowOptions("Other", 400, 300, "kona://app/other.html"));
+        assertEquals(List.of(DEFAULT_URI, "kona://app/other.html"), webView.loads.get(navigated.webViewHandle()));
+
+        window.runPending();
+        assertEquals(4, webView.created, "The pool should be refilled after windows took from it");
+
+        windows.close();
+        assertEquals(2, webView.destroyed.size(), "Unused prewarmed views should be destroyed on close");
+        assertFalse(webView.destroyed.contains(opened.webViewHandle()));
+    }
+
+    @Test
+    @DisplayName("A failed web view is reported through the future and leaves no window behind")
+    void open_ShouldFailWhenWebViewCannotBeCreated() {
+        webView.failCreation = true;
+        WindowManager windows = new WindowManager(window, webView, DEFAULT_URI, 1);
+        windows.prewarm();
+        CompletableFuture<KonaWindow> opened = windows.open(new WindowOptions("Broken", 400, 300, null));
+        window.runPending();
+
+        assertTrue(opened.isCompletedExceptionally());
+        assertTrue(windows.windows().isEmpty());
+        assertTrue(window.shown.isEmpty());
+    }
+
+    /**
+     * A window system that queues tasks until {@link #runPending()} and ends the event loop when its last window
+     * is destroyed, like GTK.
+     */
+    private static final class FakeWindow implements AppWindow {
+        private final Queue<Runnable> tasks = new ArrayDeque<>();
+        private final Map<Long, Runnable> destroyCallbacks = new HashMap<>();
+        private final Map<Long, Consumer<WindowState>> stateCallbacks = new HashMap<>();
+        private final Map<Long, Long> widgets = new HashMap<>();
+        private final Set<Long> shown = new LinkedHashSet<>();
+        private long nextHandle = 100;
+        private int quits;
+
+        void runPending() {
+            Runnable task;
+            while ((task = tasks.poll()) != null) {
+                task.run();
+            }
+        }
+
+        void changeState(long windowHandle, WindowState state) {
+            stateCallbacks.get(windowHandle).accept(state);
+        }
+
+        @Override public boolean initialize() { return true; }
+        @Override public long createWindow(String title, int width, int height) { return nextHandle++; }
+        @Override public void showWindow(long handle) { shown.add(handle); }
+        @Override public void runEventLoop() {}
+        @Override public void quit() { quits++; }
+        @Override public void addWidget(long windowHandle, long widgetHandle) { widgets.put(windowHandle, widgetHandle); }
+        @Override public void onDestroy(long windowHandle, Runnable callback) { destroyCallbacks.put(windowHandle, callback); }
+        @Override public void onStateChanged(long windowHandle, Consumer<WindowState> callback) { stateCallbacks.put(windowHandle, callback); }
+        @Override public void fullscreen(long windowHandle, boolean fullscreen) {}
+        @Override public void resizable(long windowHandle, boolean fullscreen) {}
+        @Override public void title(long windowHandle, String title) {}
+        @Override public void modal(long windowHandle, boolean modal) {}
+        @Override public void scheduleTask(Runnable task) { tasks.add(task); }
+        @Override public void close() {}
+
+        @Override
+        public void destroyWindow(long windowHandle) {
+            shown.remove(windowHandle);
+            widgets.remove(windowHandle);
+            stateCallbacks.remove(windowHandle);
+            Runnable callback = destroyCallbacks.remove(windowHandle);
+            if (callback != null) {
+                callback.run();
+            }
+            if (shown.isEmpty()) {
+                quit();
+            }
+        }
+    }
+
+    private static final class FakeWebView implements WebView {
+        private final Map<Long, List<String>> loads = new HashMap<>();
+        private final List<Long> destroyed = new ArrayList<>();
+        private long nextHandle = 1;
+        private int created;
+        private boolean failCreation;
+
+        @Override
+        public long createWebViewWidget() {
+            if (failCreation) {
+                return 0L;
+            }
+            created++;
+            return nextHandle++;
+        }
+
+        @Override
+        public void loadUri(long webViewHandle, String uri) {
+            loads.computeIfAbsent(webViewHandle, handle -> new ArrayList<>()).add(uri);
+        }
+
+        @Override public boolean initialize() { return true; }
+        @Override public void setPerformanceProfile(PerformanceProfile profile) {}
+        @Override public void setFileServer(FileServer fileServer) {}
+        @Override public void destroyWebViewWidget(long webViewHandle) { destroyed.add(webViewHandle); }
+        @Override public void runJavaScript(long webViewHandle, String script) {}
+        @Override public void setScriptMessageHandler(KonaRouter handler) {}
+        @Override public void openChannels(Map<MessageChannel, ChannelReceiver> channels) {}
+        @Override public void close() {}
+    }
+}
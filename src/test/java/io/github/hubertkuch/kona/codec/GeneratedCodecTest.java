@@ -0,0 +1,98 @@
+package io.github.hubertkuch.kona.codec;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.annotations.SerializedName;
+import io.github.hubertkuch.kona.message.KonaController;
+import io.github.hubertkuch.kona.message.MessageHandler;
+import io.github.hubertkuch.kona.message.Payload;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the codecs generated by {@code kona-processor} for the test controller below.
+ */
+class GeneratedCodecTest {
+
+    record Point(int x, int y) {}
+
+    record Shape(@SerializedName("shape_name") String name, double area, boolean filled, List<Point> points) implements Payload {}
+
+    public static class Rename implements Payload {
+        private String name;
+        private boolean visible;
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public boolean isVisible() {
+            return visible;
+        }
+
+        public void setVisible(boolean visible) {
+            this.visible = visible;
+        }
+    }
+
+    @KonaController(name = "shapes")
+    static class ShapeController {
+        @MessageHandler(action = "shape")
+        public Shape shape(Shape shape) {
+            return shape;
+        }
+
+        @MessageHandler(action = "rename")
+        public void rename(Rename rename) {
+        }
+    }
+
+    private final GeneratedTypeAdapterFactory factory = GeneratedTypeAdapterFactory.load();
+    private final Gson gson = new GsonBuilder().registerTypeAdapterFactory(factory).create();
+
+    @Test
+    @DisplayName("Codecs are generated for handler payloads and the types they reference")
+    void load_ShouldFindGeneratedCodecs() {
+        assertTrue(factory.isGenerated(Shape.class));
+        assertTrue(factory.isGenerated(Point.class));
+        assertTrue(factory.isGenerated(Rename.class));
+        assertFalse(factory.isGenerated(String.class));
+    }
+
+    @Test
+    @DisplayName("Generated codecs round-trip and honour @SerializedName")
+    void generatedCodec_ShouldRoundTrip() {
+        Shape shape = new Shape("triangle", 6.0, true, List.of(new Point(0, 0), new Point(3, 0), new Point(0, 4)));
+
+        String json = gson.toJson(shape);
+
+        assertTrue(json.contains("\"shape_name\":\"triangle\""));
+        assertEquals(shape, gson.fromJson(json, Shape.class));
+    }
+
+    @Test
+    @DisplayName("Missing and unknown fields are handled like Gson's reflective adapters")
+    void generatedCodec_ShouldDefaultMissingFields() {
+        Shape shape = gson.fromJson("{\"area\":2.5,\"unknown\":{\"a\":[1,2]}}", Shape.class);
+
+        assertEquals(new Shape(null, 2.5, false, null), shape);
+    }
+
+    @Test
+    @DisplayName("Classes with private fields are read and written through their accessors")
+    void generatedCodec_ShouldUseAccessors() {
+        Rename rename = gson.fromJson("{\"name\":\"circle\",\"visible\":true}", Rename.class);
+
+        assertEquals("circle", rename.getName());
+        assertTrue(rename.isVisible());
+        assertEquals("{\"name\":\"circle\",\"visible\":true}", gson.toJson(rename));
+    }
+}
@@ -0,0 +1,117 @@
+package io.github.hubertkuch.kona.codec;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+import com.google.gson.TypeAdapter;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the built-in binary {@link MessageCodec}s.
+ */
+class MessageCodecTest {
+
+    record Series(String label, double[] values, int[] counts, byte[] flags, List<String> tags, Map<String, Long> totals, Series next) {
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Series series
+                    && Objects.equals(label, series.label)
+                    && Arrays.equals(values, series.values)
+                    && Arrays.equals(counts, series.counts)
+                    && Arrays.equals(flags, series.flags)
+                    && Objects.equals(tags, series.tags)
+                    && Objects.equals(totals, series.totals)
+                    && Objects.equals(next, series.next);
+        }
+    }
+
+    private final Gson gson = new Gson();
+
+    private static Series sample() {
+        Series inner = new Series("inner", new double[]{-1.5}, new int[0], null, List.of(), Map.of(), null);
+        return new Series("prices", new double[]{1.0, 2.25, Math.PI, 1e300}, new int[]{1, -70000, Integer.MAX_VALUE},
+                new byte[]{0, 1, -1}, List.of("a", "é", "x".repeat(300)), Map.of("sum", -5_000_000_000L, "zero", 0L), inner);
+    }
+
+    @Test
+    @DisplayName("CBOR round-trips nested records, arrays, maps and byte strings")
+    void cbor_ShouldRoundTrip() throws Exception {
+        MessageCodec codec = new CborCodec(gson);
+        Series series = sample();
+
+        assertEquals(series, codec.decode(codec.encode(series, Series.class), Series.class));
+    }
+
+    @Test
+    @DisplayName("MessagePack round-trips nested records, arrays, maps and binary items")
+    void messagePack_ShouldRoundTrip() throws Exception {
+        MessageCodec codec = new MessagePackCodec(gson);
+        Series series = sample();
+
+        assertEquals(series, codec.decode(codec.encode(series, Series.class), Series.class));
+    }
+
+    @Test
+    @DisplayName("Raw JSON written by a type adapter is encoded as binary data items")
+    void rawJson_ShouldBeEncodedAsDataItems() throws Exception {
+        String raw = "{\"ids\":[1,-2,3.5],\"ok\":true,\"missing\":null,\"name\":\"é\",\"nested\":{\"empty\":[]}}";
+        Gson raws = new GsonBuilder().registerTypeAdapter(RawJson.class, new TypeAdapter<RawJson>() {
+            @Override
+            public void write(JsonWriter out, RawJson value) throws IOException {
+                out.jsonValue(value.json());
+            }
+
+            @Override
+            public RawJson read(JsonReader in) {
+                throw new UnsupportedOperationException();
+            }
+        }).serializeNulls().create();
+
+        for (MessageCodec codec : List.of(new CborCodec(raws), new MessagePackCodec(raws))) {
+            JsonElement decoded = (JsonElement) codec.decode(codec.encode(new RawJson(raw), RawJson.class), JsonElement.class);
+            assertEquals(JsonParser.parseString(raw), decoded, codec.name());
+        }
+    }
+
+    record RawJson(String json) {}
+
+    @Test
+    @DisplayName("CBOR writes double arrays as little-endian float64 typed arrays")
+    void cbor_ShouldWriteTypedArrays() throws Exception {
+        byte[] encoded = new CborCodec(gson).encode(new double[]{1.0, 2.0}, double[].class);
+
+        // tag 86, byte string of 16 bytes, then 1.0 in little-endian IEEE 754
+        assertEquals((byte) 0xd8, encoded[0]);
+        assertEquals(86, encoded[1]);
+        assertEquals(0x50, encoded[2]);
+        assertEquals(19, encoded.length);
+        assertEquals((byte) 0x3f, encoded[10]);
+        assertEquals((byte) 0xf0, encoded[9]);
+    }
+
+    @Test
+    @DisplayName("Typed arrays can be read element by element into other collection types")
+    void cbor_ShouldReadTypedArraysAsLists() throws Exception {
+        MessageCodec codec = new CborCodec(gson);
+        Type listOfDoubles = new TypeToken<List<Double>>() {}.getType();
+
+        Object decoded = codec.decode(codec.encode(new double[]{0.5, -3.0}, double[].class), listOfDoubles);
+
+        assertEquals(List.of(0.5, -3.0), decoded);
+    }
+}
@@ -0,0 +1,83 @@
+package io.github.hubertkuch.kona.diagnostics;
+
+import io.github.hubertkuch.kona.application.HeadlessWindow;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for detecting and attributing UI thread stalls.
+ */
+class StallWatchdogTest {
+
+    @Test
+    @DisplayName("A slow UI task is reported with its origin and stack; later stalls are rate-limited")
+    void watchdog_ShouldAttributeStallsAndLimitReports() throws InterruptedException {
+        StallOptions options = new StallOptions.Builder()
+                .threshold(Duration.ofMillis(50))
+                .heartbeatInterval(Duration.ofMillis(5))
+                .reportInterval(Duration.ofMinutes(1))
+                .build();
+        BlockingQueue<UiStall> stalls = new LinkedBlockingQueue<>();
+
+        try (HeadlessWindow window = new HeadlessWindow(); StallWatchdog watchdog = new StallWatchdog(window, options)) {
+            window.setStallWatchdog(watchdog);
+            watchdog.addListener(stalls::add);
+            watchdog.start();
+            awaitHeartbeat(window);
+
+            window.scheduleTask(() -> pause(300));
+            UiStall first = stalls.poll(10, TimeUnit.SECONDS);
+            assertNotNull(first, "The stall should be reported");
+            assertEquals("task from " + StallWatchdogTest.class.getName(), first.activity());
+            assertTrue(first.durationNanos() >= TimeUnit.MILLISECONDS.toNanos(200), "Duration: " + first.durationNanos());
+            assertTrue(first.reported());
+            assertTrue(first.stack().stream().anyMatch(frame -> frame.getMethodName().equals("pause")),
+                    "The stack should show the blocking code: " + first.stack());
+
+            window.scheduleTask(() -> pause(200));
+            UiStall second = stalls.poll(10, TimeUnit.SECONDS);
+            assertNotNull(second);
+            assertFalse(second.reported(), "A second stall within the report interval should not capture a stack");
+
+            StallStats stats = watchdog.stats();
+            assertEquals(2, stats.stalls());
+            assertEquals(1, stats.suppressed());
+            assertTrue(stats.longestNanos() >= first.durationNanos());
+        }
+    }
+
+    @Test
+    @DisplayName("Activities are described by handler, task origin or text")
+    void describe_ShouldNameActivities() throws NoSuchMethodException {
+        assertEquals("handler StallWatchdogTest.pause",
+                StallWatchdog.describe(StallWatchdogTest.class.getDeclaredMethod("pause", long.class)));
+        assertEquals("GTK event handling", StallWatchdog.describe(null));
+        assertEquals("script evaluation", StallWatchdog.describe("script evaluation"));
+    }
+
+    /**
+     * Waits until the watchdog has seen the UI thread, so the next stall is attributed.
+     */
+    private static void awaitHeartbeat(HeadlessWindow window) throws InterruptedException {
+        Thread.sleep(50);
+        CountDownLatch ran = new CountDownLatch(1);
+        window.scheduleTask(ran::countDown);
+        assertTrue(ran.await(5, TimeUnit.SECONDS));
+    }
+
+    private static void pause(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
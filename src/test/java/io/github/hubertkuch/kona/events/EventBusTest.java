@@ -0,0 +1,202 @@
+package io.github.hubertkuch.kona.events;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the ring-buffer event bus.
+ */
+class EventBusTest {
+
+    @Test
+    @DisplayName("Events from concurrent publishers all arrive, in each publisher's order, even when the ring wraps")
+    void publish_ShouldDeliverEveryEventInPublisherOrder() throws InterruptedException {
+        int publishers = 4;
+        int perPublisher = 10_000;
+        List<long[]> received = new ArrayList<>();
+        CountDownLatch done = new CountDownLatch(publishers * perPublisher);
+
+        try (EventBus bus = new EventBus(1024)) {
+            bus.subscribe("ticks", long[].class, EventBus.Delivery.VIRTUAL_THREAD, batch -> {
+                received.addAll(batch);
+                batch.forEach(tick -> done.countDown());
+            });
+
+            List<Thread> threads = new ArrayList<>();
+            for (int p = 0; p < publishers; p++) {
+                long publisher = p;
+                threads.add(Thread.ofPlatform().start(() -> {
+                    for (long i = 0; i < perPublisher; i++) {
+                        bus.publish("ticks", new long[]{publisher, i});
+                    }
+                }));
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            assertTrue(done.await(10, TimeUnit.SECONDS), "Every event should be delivered");
+        }
+
+        long[] next = new long[publishers];
+        for (long[] tick : received) {
+            assertEquals(next[(int) tick[0]]++, tick[1], "Events of one publisher should arrive in order");
+        }
+    }
+
+    @Test
+    @DisplayName("A subscription only receives events of its topic and type")
+    void subscribe_ShouldFilterByTopicAndType() throws InterruptedException {
+        List<String> received = new ArrayList<>();
+        CountDownLatch done = new CountDownLatch(2);
+
+        try (EventBus bus = new EventBus(16)) {
+            bus.subscribe("orders", String.class, EventBus.Delivery.VIRTUAL_THREAD, batch -> {
+                received.addAll(batch);
+                batch.forEach(order -> done.countDown());
+            });
+            bus.publish("orders", "first");
+            bus.publish("invoices", "ignored");
+            bus.publish("orders", 42);
+            bus.publish("orders", "second");
+            assertTrue(done.await(5, TimeUnit.SECONDS));
+        }
+
+        assertEquals(List.of("first", "second"), received);
+    }
+
+    @Test
+    @DisplayName("A single publisher's events arrive in order while the ring wraps many times")
+    void publish_ShouldReuseSlotsInOrder() throws InterruptedException {
+        List<Integer> received = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(100);
+
+        try (EventBus bus = new EventBus(4)) {
+            bus.subscribe("counts", Integer.class, EventBus.Delivery.VIRTUAL_THREAD, batch -> {
+                received.addAll(batch);
+                batch.forEach(count -> done.countDown());
+            });
+            for (int i = 0; i < 100; i++) {
+                bus.publish("counts", i);
+            }
+            assertTrue(done.await(5, TimeUnit.SECONDS));
+        }
+
+        assertEquals(IntStream.range(0, 100).boxed().toList(), received);
+    }
+
+    @Test
+    @DisplayName("A slow subscriber holds publishers back instead of losing events, and receives them in batches")
+    void publish_ShouldWaitForSlowSubscriber() throws InterruptedException {
+        List<Integer> received = new CopyOnWriteArrayList<>();
+        List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(40);
+
+        try (EventBus bus = new EventBus(8)) {
+            bus.subscribe("slow", Integer.class, EventBus.Delivery.VIRTUAL_THREAD, batch -> {
+                batchSizes.add(batch.size());
+                received.addAll(batch);
+                batch.forEach(count -> done.countDown());
+                pause(5);
+            });
+            for (int i = 0; i < 40; i++) {
+                bus.publish("slow", i);
+            }
+            assertTrue(done.await(5, TimeUnit.SECONDS));
+        }
+
+        assertEquals(IntStream.range(0, 40).boxed().toList(), received, "No event should be overwritten before it is read");
+        assertTrue(batchSizes.size() < 40, "Events arriving during a slow batch should be delivered together: " + batchSizes);
+        assertTrue(batchSizes.stream().allMatch(size -> size <= 8), "A batch never spans more than the ring: " + batchSizes);
+    }
+
+    @Test
+    @DisplayName("A closed subscription receives no further events and no longer holds publishers back")
+    void close_ShouldStopDeliveryAndReleasePublishers() throws InterruptedException {
+        List<String> received = new CopyOnWriteArrayList<>();
+        CountDownLatch first = new CountDownLatch(1);
+        CountDownLatch blocked = new CountDownLatch(1);
+
+        try (EventBus bus = new EventBus(2)) {
+            Subscription<String> subscription = bus.subscribe("news", String.class, EventBus.Delivery.VIRTUAL_THREAD, batch -> {
+                received.addAll(batch);
+                first.countDown();
+                // Never returns on its own, so it would hold publishers back if it stayed subscribed
+                await(blocked);
+            });
+            bus.publish("news", "before");
+            assertTrue(first.await(5, TimeUnit.SECONDS));
+
+            subscription.close();
+            assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+                for (int i = 0; i < 100; i++) {
+                    bus.publish("news", "after " + i);
+                }
+            }, "Publishers should not wait for a closed subscription");
+            blocked.countDown();
+        }
+
+        assertEquals(List.of("before"), received);
+    }
+
+    @Test
+    @DisplayName("Publishing from a subscriber's own thread fails instead of deadlocking when the ring is full")
+    void publish_FromOwnSubscriberThread_ShouldFailWhenRingIsFull() throws InterruptedException {
+        List<String> published = new CopyOnWriteArrayList<>();
+        AtomicReference<IllegalStateException> failure = new AtomicReference<>();
+        CountDownLatch handled = new CountDownLatch(1);
+        CountDownLatch after = new CountDownLatch(1);
+
+        try (EventBus bus = new EventBus(4)) {
+            bus.subscribe("in", String.class, EventBus.Delivery.VIRTUAL_THREAD, batch -> {
+                if (batch.contains("after")) {
+                    after.countDown();
+                    return;
+                }
+                try {
+                    for (int i = 0; i < 10; i++) {
+                        bus.publish("out", "echo " + i);
+                        published.add("echo " + i);
+                    }
+                } catch (IllegalStateException e) {
+                    failure.set(e);
+                }
+                handled.countDown();
+            });
+            bus.publish("in", "trigger");
+            assertTrue(handled.await(5, TimeUnit.SECONDS), "The subscriber should not block on itself");
+
+            bus.publish("in", "after");
+            assertTrue(after.await(5, TimeUnit.SECONDS), "The bus should keep working after the refused publish");
+        }
+
+        assertNotNull(failure.get());
+        assertEquals(4, published.size(), "Publishing should only fail once the ring has no free slot");
+    }
+
+    private static void pause(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
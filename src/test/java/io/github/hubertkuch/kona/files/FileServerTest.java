@@ -0,0 +1,99 @@
+package io.github.hubertkuch.kona.files;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link FileServer}.
+ */
+class FileServerTest {
+
+    @TempDir
+    Path directory;
+
+    private FileServer server;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        Files.createDirectories(directory.resolve("media"));
+        Files.write(directory.resolve("media/clip.bin"), new byte[100]);
+        Files.writeString(directory.resolve("secret.txt"), "secret");
+        server = new FileServer().mount("media", directory.resolve("media")).chunkSize(40);
+    }
+
+    @Test
+    @DisplayName("Ranges are answered with partial content, clamped to the chunk size")
+    void resolve_ShouldServeRanges() {
+        FileResponse whole = server.resolve("kona-file://media/clip.bin", null);
+        assertEquals(200, whole.status());
+        assertEquals(100, whole.length());
+
+        FileResponse closed = server.resolve("kona-file://media/clip.bin", "bytes=10-19");
+        assertEquals(206, closed.status());
+        assertEquals(10, closed.offset());
+        assertEquals(10, closed.length());
+        assertEquals("bytes 10-19/100", closed.headers().get("Content-Range"));
+
+        FileResponse open = server.resolve("kona-file://media/clip.bin", "bytes=50-");
+        assertEquals(40, open.length());
+        assertEquals("bytes 50-89/100", open.headers().get("Content-Range"));
+
+        FileResponse suffix = server.resolve("kona-file://media/clip.bin", "bytes=-5");
+        assertEquals(95, suffix.offset());
+        assertEquals(5, suffix.length());
+
+        FileResponse beyond = server.resolve("kona-file://media/clip.bin", "bytes=100-");
+        assertEquals(416, beyond.status());
+        assertEquals("bytes */100", beyond.headers().get("Content-Range"));
+    }
+
+    @Test
+    @DisplayName("Files outside mounted directories are not served")
+    void resolve_ShouldRejectTraversal() {
+        assertEquals(404, server.resolve("kona-file://media/../secret.txt", null).status());
+        assertEquals(404, server.resolve("kona-file://media/%2e%2e/secret.txt", null).status());
+        assertEquals(404, server.resolve("kona-file://other/clip.bin", null).status());
+    }
+
+    @Test
+    @DisplayName("Shared files are served until they are revoked")
+    void share_ShouldServeUntilRevoked() {
+        String uri = server.share(directory.resolve("secret.txt"));
+        assertEquals(200, server.resolve(uri, null).status());
+
+        server.revoke(uri);
+        assertEquals(404, server.resolve(uri, null).status());
+    }
+
+    @Test
+    @DisplayName("Only the allowed origin may read responses cross-origin")
+    void resolve_ShouldAllowOnlyTheAppOrigin() {
+        server.allowOrigin(FileServer.originOf("http://localhost:5173/index.html"));
+
+        FileResponse app = server.resolve("kona-file://media/clip.bin", null, "http://localhost:5173");
+        assertEquals("http://localhost:5173", app.headers().get("Access-Control-Allow-Origin"));
+
+        FileResponse other = server.resolve("kona-file://media/clip.bin", null, "https://attacker.example");
+        assertEquals(200, other.status());
+        assertNull(other.headers().get("Access-Control-Allow-Origin"));
+        assertNull(server.resolve("kona-file://media/clip.bin", null).headers().get("Access-Control-Allow-Origin"));
+        assertEquals("Origin", other.headers().get("Vary"));
+    }
+
+    @Test
+    @DisplayName("Origins are derived from URIs; file URIs have none")
+    void originOf_ShouldKeepSchemeHostAndPort() {
+        assertEquals("http://localhost:5173", FileServer.originOf("http://localhost:5173/app/index.html?x=1"));
+        assertEquals("https://app.example", FileServer.originOf("https://app.example/"));
+        assertNull(FileServer.originOf("file:///opt/app/index.html"));
+        assertNull(FileServer.originOf("not a uri"));
+    }
+}
@@ -0,0 +1,121 @@
+package io.github.hubertkuch.kona.paging;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link CursorRegistry} and the sources of {@link PagedResult}.
+ */
+class CursorRegistryTest {
+
+    private final CursorRegistry cursors = new CursorRegistry();
+
+    @Test
+    @DisplayName("Opening a million-row range only computes the first page")
+    void open_ShouldReadOnlyFirstPage() {
+        AtomicInteger computed = new AtomicInteger();
+        PagedResult<Long> result = PagedResult.range(1_000_000, index -> {
+            computed.incrementAndGet();
+            return index;
+        }).pageSize(50);
+
+        Page<Long> first = cursors.open(result, 1L);
+        Page<?> jump = cursors.range(first.cursor(), 1L, 999_990, 50);
+
+        assertEquals(60, computed.get());
+        assertEquals(1_000_000, first.total());
+        assertFalse(first.done());
+        assertEquals(10, jump.rows().size());
+        assertTrue(jump.done());
+        assertNotNull(jump.cursor(), "Random-access cursors stay open to scroll back");
+    }
+
+    @Test
+    @DisplayName("Stream cursors read forward and are closed once exhausted")
+    void next_OverStream_ShouldCloseWhenDone() {
+        AtomicInteger closed = new AtomicInteger();
+        PagedResult<Integer> result = PagedResult.of(IntStream.range(0, 5).boxed().onClose(closed::incrementAndGet)).pageSize(2);
+
+        Page<Integer> first = cursors.open(result, 1L);
+        Page<?> second = cursors.next(first.cursor(), 1L, 2);
+        Page<?> last = cursors.next(first.cursor(), 1L, 2);
+
+        assertEquals(List.of(0, 1), first.rows());
+        assertEquals(List.of(2, 3), second.rows());
+        assertEquals(List.of(4), last.rows());
+        assertTrue(last.done());
+        assertNull(last.cursor());
+        assertEquals(0, cursors.size());
+        assertEquals(1, closed.get());
+    }
+
+    @Test
+    @DisplayName("Results that fit in one page do not keep a cursor")
+    void open_SmallResult_ShouldNotKeepCursor() {
+        Page<String> page = cursors.open(PagedResult.of(List.of("a", "b")), 1L);
+
+        assertNull(page.cursor());
+        assertTrue(page.done());
+        assertEquals(0, cursors.size());
+    }
+
+    @Test
+    @DisplayName("Idle cursors expire")
+    void next_AfterIdleTimeout_ShouldReturnExpiredPage() throws InterruptedException {
+        Page<Integer> first = cursors.open(PagedResult.of(List.of(1, 2, 3)).pageSize(1).idleTimeout(Duration.ofMillis(1)), 1L);
+        Thread.sleep(5);
+
+        Page<?> next = cursors.next(first.cursor(), 1L, 1);
+
+        assertTrue(next.expired());
+        assertEquals(0, cursors.size());
+    }
+
+    @Test
+    @DisplayName("Idle cursors are closed by the timer without further requests")
+    void sweep_ShouldCloseIdleCursorsOnSchedule() throws InterruptedException {
+        CountDownLatch closed = new CountDownLatch(1);
+        PagedResult<Integer> result = PagedResult.of(IntStream.range(0, 5).boxed().onClose(closed::countDown))
+                .pageSize(1)
+                .idleTimeout(Duration.ofMillis(20));
+
+        assertNotNull(cursors.open(result, 1L).cursor());
+
+        assertTrue(closed.await(5, TimeUnit.SECONDS), "The idle source should be closed by the sweep");
+        assertEquals(0, cursors.size());
+    }
+
+    @Test
+    @DisplayName("Cursors can only be read or closed by the web view that opened them")
+    void cursors_ShouldBeBoundToTheirWebView() {
+        Page<Integer> first = cursors.open(PagedResult.of(List.of(1, 2, 3)).pageSize(1), 1L);
+
+        assertTrue(cursors.next(first.cursor(), 2L, 1).expired());
+        assertTrue(cursors.range(first.cursor(), 2L, 0, 3).expired());
+        cursors.close(first.cursor(), 2L);
+        assertEquals(1, cursors.size(), "Another web view should not close the cursor");
+
+        assertEquals(List.of(2), cursors.next(first.cursor(), 1L, 1).rows());
+        cursors.close(first.cursor(), 1L);
+        assertEquals(0, cursors.size());
+    }
+
+    @Test
+    @DisplayName("Page sizes are clamped to the registry's limit")
+    void open_ShouldClampPageSize() {
+        Page<Long> first = cursors.open(PagedResult.range(CursorRegistry.MAX_PAGE_SIZE * 2L, index -> index)
+                .pageSize(CursorRegistry.MAX_PAGE_SIZE + 1), 1L);
+
+        assertEquals(CursorRegistry.MAX_PAGE_SIZE, first.rows().size());
+        assertEquals(1, cursors.next(first.cursor(), 1L, 0).rows().size(), "A count below one should read one row");
+    }
+}
@@ -0,0 +1,90 @@
+package io.github.hubertkuch.kona.recording;
+
+import io.github.hubertkuch.kona.message.KonaController;
+import io.github.hubertkuch.kona.message.MessageHandler;
+import io.github.hubertkuch.kona.message.Payload;
+import io.github.hubertkuch.kona.routing.ServiceRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for recording message traffic and replaying it against a headless router.
+ */
+class TrafficRecordingTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    @DisplayName("Rotated files are read back oldest first, and the oldest ones beyond maxFiles are deleted")
+    void recording_ShouldRotateAndReadBackInOrder() throws IOException {
+        Path file = directory.resolve("traffic.krec");
+        try (TrafficRecorder recorder = TrafficRecorder.open(file).maxFileBytes(256).maxFiles(20)) {
+            for (int i = 0; i < 20; i++) {
+                recorder.received(1L, message("message " + i));
+                recorder.completed(1L, "replay", "echo", 10, 1_000 + i, false);
+            }
+        }
+
+        assertTrue(Files.exists(directory.resolve("traffic.krec.1")), "The recording should have been rotated");
+        Recording recording = Recording.read(file);
+        assertEquals(20, recording.messages().size());
+        assertEquals(20, recording.responses().size());
+        for (int i = 0; i < 20; i++) {
+            assertEquals(message("message " + i), recording.messages().get(i).message());
+        }
+
+        try (TrafficRecorder recorder = TrafficRecorder.open(file).maxFileBytes(256).maxFiles(1)) {
+            recorder.received(1L, message("next session"));
+        }
+        assertTrue(Files.exists(directory.resolve("traffic.krec.1")));
+        assertFalse(Files.exists(directory.resolve("traffic.krec.2")), "Only one rotated file should be kept");
+        assertFalse(Files.exists(directory.resolve("traffic.krec.3")), "Only one rotated file should be kept");
+    }
+
+    @Test
+    @DisplayName("Replaying a recording reports the latency of every route")
+    void replay_ShouldReportLatencyByRoute() throws IOException {
+        Path file = directory.resolve("traffic.krec");
+        try (TrafficRecorder recorder = TrafficRecorder.open(file)) {
+            recorder.received(1L, message("a"));
+            recorder.received(1L, message("b"));
+            recorder.received(2L, message("c"));
+            recorder.completed(1L, "replay", "echo", 12, 2_000_000, false);
+        }
+
+        LatencyReport report = TrafficReplayer.of(Recording.read(file))
+                .maxSpeed()
+                .replay("io.github.hubertkuch.kona.recording", new ServiceRegistry());
+
+        LatencyReport.RouteLatency echo = report.route("replay/echo").orElseThrow();
+        assertEquals(3, echo.count());
+        assertEquals(0, echo.failed());
+        assertEquals(2_000_000, echo.recordedP50Nanos());
+        assertTrue(report.format().contains("replay/echo"));
+    }
+
+    private static String message(String text) {
+        return """
+                {"controller": "replay", "action": "echo", "callbackId": "1", "payload": {"text": "%s"}}
+                """.formatted(text);
+    }
+
+    @KonaController(name = "replay")
+    public static class ReplayController {
+
+        public record Text(String text) implements Payload {}
+
+        @MessageHandler(action = "echo")
+        public Text echo(Text payload) {
+            return payload;
+        }
+    }
+}
@@ -0,0 +1,661 @@
+package io.github.hubertkuch.kona.routing;
+
+import io.github.hubertkuch.kona.application.AppWindow;
+import io.github.hubertkuch.kona.application.PerformanceProfile;
+import io.github.hubertkuch.kona.application.WebView;
+import io.github.hubertkuch.kona.files.FileServer;
+import io.github.hubertkuch.kona.message.KonaController;
+import io.github.hubertkuch.kona.message.Lifecycle;
+import io.github.hubertkuch.kona.message.MessageHandler;
+import io.github.hubertkuch.kona.message.Parallel;
+import io.github.hubertkuch.kona.message.Payload;
+import io.github.hubertkuch.kona.message.Preload;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the routing logic of {@link KonaRouterImpl}, using in-memory window and web view fakes.
+ */
+class KonaRouterImplTest {
+
+    private RecordingWebView webView;
+    private KonaRouterImpl router;
+
+    @BeforeEach
+    void setUp() {
+        webView = new RecordingWebView();
+        router = new KonaRouterImpl(new ImmediateWindow(), webView, 1L);
+    }
+
+    @Test
+    @DisplayName("Messages received before routes are installed are dispatched once they go live")
+    void onMessage_BeforeInstall_ShouldQueueAndDispatchInOrder() {
+        router.onMessage(message("first", "1"));
+        router.onMessage(message("second", "2"));
+        assertTrue(webView.scripts.isEmpty(), "No response should be sent before routes are installed");
+
+        router.install(RouteTable.scan("io.github.hubertkuch.kona.routing")).join();
+
+        assertEquals(2, webView.scripts.size());
+        assertTrue(webView.scripts.get(0).contains("'1'") && webView.scripts.get(0).contains("FIRST"));
+        assertTrue(webView.scripts.get(1).contains("'2'") && webView.scripts.get(1).contains("SECOND"));
+    }
+
+    @Test
+    @DisplayName("Messages received after routes are installed are dispatched immediately")
+    void onMessage_AfterInstall_ShouldDispatchImmediately() {
+        router.registerPackage("io.github.hubertkuch.kona.routing");
+
+        router.onMessage(message("hello", "3"));
+
+        assertEquals(1, webView.scripts.size());
+        assertTrue(webView.scripts.getFirst().contains("HELLO"));
+    }
+
+    @Test
+    @DisplayName("Responses are passed to resolveCallback as string arguments")
+    void onMessage_ShouldPassResponseAsArgument() {
+        router.registerPackage("io.github.hubertkuch.kona.routing");
+
+        router.onMessage(message("it's", "5"));
+
+        assertEquals("window.kona.resolveCallback('5', '{\"text\":\"IT\\\\u0027S\"}');", webView.scripts.getFirst());
+    }
+
+    @Test
+    @DisplayName("Messages posted with a reply are answered through it instead of resolveCallback")
+    void onMessage_WithReply_ShouldResolveReply() {
+        router.registerPackage("io.github.hubertkuch.kona.routing");
+        List<String> answers = new ArrayList<>();
+        MessageReply reply = new MessageReply() {
+            public void resolve(String json) { answers.add("resolve " + json); }
+            public void resolveEncoded(String body, String codec) { answers.add(codec + " " + body); }
+            public void reject(String message) { answers.add("reject " + message); }
+            public void detach() { answers.add("detach"); }
+        };
+
+        router.onMessage(1L, message("hi", "7"), reply);
+        router.onMessage(1L, "{\"controller\":\"echo\",\"action\":\"missing\"}", reply);
+        router.onMessage(1L, "{\"controller\":\"echo\",\"action\":\"upper\",\"accept\":\"cbor\",\"payload\":{\"text\":\"bin\"}}", reply);
+
+        assertEquals(3, answers.size());
+        assertEquals(List.of("resolve {\"text\":\"HI\"}", "reject No handler for echo -> missing"), answers.subList(0, 2));
+        assertTrue(answers.get(2).startsWith("cbor "), "Encoded replies should name their codec: " + answers.get(2));
+        assertTrue(webView.scripts.isEmpty(), "No script should be run for replied messages");
+    }
+
+    @Test
+    @DisplayName("Messages can ask for a binary response codec")
+    void onMessage_WithAccept_ShouldEncodeResponse() {
+        router.registerPackage("io.github.hubertkuch.kona.routing");
+
+        router.onMessage("{\"controller\":\"echo\",\"action\":\"upper\",\"callbackId\":\"4\","
+                + "\"accept\":\"cbor\",\"payload\":{\"text\":\"bin\"}}");
+
+        assertEquals(1, webView.scripts.size());
+        assertTrue(webView.scripts.getFirst().endsWith("'cbor');"));
+        assertFalse(webView.scripts.getFirst().contains("BIN"), "The response should be base64-encoded CBOR");
+    }
+
+    @Test
+    @DisplayName("Lazy controllers are created on their first message, with constructor injection")
+    void lazyController_ShouldBeCreatedOnFirstMessage() {
+        CountingService counter = new CountingService();
+        router.services().register(CountingService.class, counter);
+        router.install(RouteTable.of(router.services(), CountedController.class)).join();
+
+        assertEquals(0, counter.created, "Lazy controller should not be created at install");
+        router.onMessage(1L, countMessage("a"));
+        router.onMessage(1L, countMessage("b"));
+
+        assertEquals(1, counter.created);
+        assertTrue(webView.scripts.get(1).contains("2"), "The same instance should serve both messages");
+    }
+
+    @Test
+    @DisplayName("Per-window controllers get one instance per web view and are discarded when the window closes")
+    void perWindowController_ShouldBeScopedToWebView() {
+        CountingService counter = new CountingService();
+        router.services().register(CountingService.class, counter);
+        router.install(RouteTable.of(router.services(), PerWindowController.class)).join();
+
+        router.onMessage(1L, countMessage("a", "window"));
+        router.onMessage(2L, countMessage("b", "window"));
+        router.onMessage(1L, countMessage("c", "window"));
+        assertEquals(2, counter.created);
+
+        router.windowClosed(1L);
+        router.onMessage(1L, countMessage("d", "window"));
+        assertEquals(3, counter.created);
+    }
+
+    @Test
+    @DisplayName("Eager controllers are created once when the routes go live")
+    void eagerController_ShouldBeCreatedAtInstall() {
+        EagerController.created.set(0);
+        router.install(RouteTable.of(router.services(), EagerController.class)).join();
+
+        assertEquals(1, EagerController.created.get(), "Eager controller should be created at install");
+        router.onMessage(1L, countMessage("a", "eager"));
+        router.onMessage(2L, countMessage("b", "eager"));
+
+        assertEquals(1, EagerController.created.get());
+        assertTrue(webView.scripts.get(1).contains("2"), "The same instance should serve every window");
+    }
+
+    @Test
+    @DisplayName("Pooled controllers reuse released instances and fail UI thread messages at once while every instance is busy")
+    void pooledController_ShouldFailWithoutWaitingOnUiThread() throws InterruptedException {
+        CountingService counter = new CountingService();
+        router.services().register(CountingService.class, counter);
+        router.install(RouteTable.of(router.services(), PooledController.class)).join();
+        List<String> answers = Collections.synchronizedList(new ArrayList<>());
+        MessageReply reply = recordingReply(answers);
+
+        CountDownLatch release = new CountDownLatch(1);
+        PooledController.gate = release;
+        Thread holder = Thread.ofVirtual().start(() -> router.onMessage(1L, countMessage("a", "pooled"), reply));
+        while (PooledController.busy.get() == 0) {
+            Thread.onSpinWait();
+        }
+
+        long start = System.nanoTime();
+        router.onMessage(1L, countMessage("b", "pooled"), reply);
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(1), "The UI thread should not wait for the pool");
+        assertEquals(1, answers.size());
+        assertEquals("reject pooled -> next failed", answers.getFirst());
+
+        release.countDown();
+        holder.join();
+        router.onMessage(1L, countMessage("c", "pooled"), reply);
+        assertEquals(List.of("resolve {\"value\":1}", "resolve {\"value\":2}"), answers.subList(1, 3));
+        assertEquals(1, counter.created, "The released instance should be reused");
+    }
+
+    @Test
+    @DisplayName("Pooled controllers make dispatch threads wait until an instance is released")
+    void pooledController_ShouldWaitOnDispatchThreads() throws InterruptedException {
+        CountingService counter = new CountingService();
+        router.services().register(CountingService.class, counter);
+        router.install(RouteTable.of(router.services(), PooledController.class)).join();
+        ExecutorService dispatch = Executors.newFixedThreadPool(2);
+        router.setDispatchExecutor(dispatch);
+        List<String> answers = Collections.synchronizedList(new ArrayList<>());
+        MessageReply reply = recordingReply(answers);
+
+        CountDownLatch release = new CountDownLatch(1);
+        PooledController.gate = release;
+        try {
+            router.onMessage(1L, countMessage("a", "pooled"), reply);
+            while (PooledController.busy.get() == 0) {
+                Thread.onSpinWait();
+            }
+            router.onMessage(1L, countMessage("b", "pooled"), reply);
+            release.countDown();
+        } finally {
+            dispatch.shutdown();
+            assertTrue(dispatch.awaitTermination(5, TimeUnit.SECONDS));
+        }
+
+        assertEquals(List.of("resolve {\"value\":1}", "resolve {\"value\":2}"), answers);
+        assertEquals(1, counter.created, "The waiting message should get the released instance");
+    }
+
+    @Test
+    @DisplayName("Dedicated channels deliver payload-only messages straight to their route")
+    void dedicatedChannel_ShouldDispatchWithoutEnvelope() {
+        router.install(RouteTable.of(router.services(), ChannelController.class)).join();
+
+        ChannelReceiver action = webView.channels.get(new MessageChannel("kona/pointer/move", "pointer", "move"));
+        ChannelReceiver controller = webView.channels.get(new MessageChannel("kona/pointer", "pointer", null));
+        assertNotNull(action);
+        assertNotNull(controller);
+
+        action.onMessage(1L, "5\n{\"text\":\"fast\"}");
+        action.onMessage(1L, "\n{\"text\":\"silent\"}");
+        controller.onMessage(1L, "move\n6\n{\"text\":\"routed\"}");
+
+        assertEquals(2, webView.scripts.size());
+        assertTrue(webView.scripts.get(0).contains("'5'") && webView.scripts.get(0).contains("FAST"));
+        assertTrue(webView.scripts.get(1).contains("'6'") && webView.scripts.get(1).contains("ROUTED"));
+    }
+
+    @Test
+    @DisplayName("Coalesced messages waiting behind a busy handler are superseded by the newest one")
+    void coalesce_ShouldDropSupersededMessages() {
+        List<Runnable> turns = new ArrayList<>();
+        router.setDispatchExecutor(turns::add);
+        router.install(RouteTable.of(router.services(), PointerController.class)).join();
+
+        for (int x = 0; x < 5; x++) {
+            router.onMessage(1L, "{\"controller\":\"cursor\",\"action\":\"move\",\"callbackId\":\"" + x
+                    + "\",\"payload\":{\"pane\":\"left\",\"text\":\"" + x + "\"}}");
+        }
+        router.onMessage(1L, "{\"controller\":\"cursor\",\"action\":\"move\",\"callbackId\":\"r\","
+                + "\"payload\":{\"pane\":\"right\",\"text\":\"r\"}}");
+        turns.forEach(Runnable::run);
+
+        assertEquals(6, webView.scripts.size());
+        for (int x = 0; x < 4; x++) {
+            assertEquals("window.kona.rejectCallback('" + x + "', 'Superseded by a newer message');", webView.scripts.get(x),
+                    "Superseded messages should settle their promise");
+        }
+        assertTrue(webView.scripts.get(4).contains("resolveCallback('4'"), "Only the newest message of a pane should be handled");
+        assertTrue(webView.scripts.get(5).contains("resolveCallback('r'"), "Other panes should not be superseded");
+        assertEquals(new CoalescingStats(2, 4), router.coalescingStats().get("cursor/move"));
+    }
+
+    @Test
+    @DisplayName("Superseded and failed channel messages are rejected through rejectCallback")
+    void coalesce_OnChannel_ShouldRejectSupersededMessages() {
+        List<Runnable> turns = new ArrayList<>();
+        router.setDispatchExecutor(turns::add);
+        router.install(RouteTable.of(router.services(), PointerController.class)).join();
+        ChannelReceiver channel = webView.channels.get(new MessageChannel("kona/cursor/move", "cursor", "move"));
+
+        channel.onMessage(1L, "a\n{\"pane\":\"left\",\"text\":\"a\"}");
+        channel.onMessage(1L, "b\n{\"pane\":\"left\",\"text\":\"b\"}");
+        channel.onMessage(1L, "c\n{\"pane\":\"left\",\"text\":\"c\"}");
+        turns.forEach(Runnable::run);
+
+        assertEquals(List.of("window.kona.rejectCallback('a', 'Superseded by a newer message');",
+                "window.kona.rejectCallback('b', 'Superseded by a newer message');"), webView.scripts.subList(0, 2));
+        assertTrue(webView.scripts.get(2).contains("resolveCallback('c'"));
+
+        router.onMessage(1L, "{\"controller\":\"cursor\",\"action\":\"fail\",\"callbackId\":\"f\"}");
+        turns.forEach(Runnable::run);
+        assertEquals("window.kona.rejectCallback('f', 'cursor -> fail failed');", webView.scripts.getLast(),
+                "A failed handler should settle the page's promise");
+    }
+
+    @Test
+    @DisplayName("Fan-out subtasks send their results as partials before the response")
+    void fanOut_ShouldSendPartialsThenRespond() {
+        router.install(RouteTable.of(router.services(), DashboardController.class)).join();
+
+        router.onMessage(1L, "{\"controller\":\"dashboard\",\"action\":\"load\",\"callbackId\":\"d\"}");
+
+        assertEquals(3, webView.scripts.size());
+        assertEquals(2, webView.scripts.subList(0, 2).stream().filter(script -> script.contains("kona:partial")).count());
+        assertTrue(webView.scripts.get(2).contains("resolveCallback('d'") && webView.scripts.get(2).contains("ORDERS:STATS"));
+    }
+
+    @Test
+    @DisplayName("Preload handlers run before the routes are installed, and only complete ones are injected")
+    void preload_ShouldBuildScriptFromCompletedHandlers() {
+        HandlerPreloader preloads = HandlerPreloader.start(
+                CompletableFuture.completedFuture(RouteTable.of(router.services(), BootController.class)), router, Runnable::run);
+
+        String script = preloads.script(Duration.ofSeconds(5));
+
+        assertNotNull(script);
+        assertTrue(script.startsWith("window.__konaPreload = {"));
+        assertTrue(script.contains("\"boot/theme\":{\"payload\":null,\"value\":{\"text\":\"dark\"}}"), script);
+        assertTrue(script.contains("\"boot/echo\":{\"payload\":{\"text\":\"hi\"},\"value\":{\"text\":\"hi\"}}"), script);
+        assertFalse(script.contains("boot/missing"), "Handlers that need a payload without one should not be preloaded");
+        assertTrue(webView.scripts.isEmpty(), "Nothing should be sent to the page");
+    }
+
+    @Test
+    @DisplayName("Without preload handlers no script is built and nothing waits; an unfinished scan is waited for up to the budget")
+    void preload_WithoutHandlers_ShouldNotWait() {
+        HandlerPreloader none = HandlerPreloader.start(
+                CompletableFuture.completedFuture(RouteTable.of(router.services(), EchoController.class)), router, Runnable::run);
+        assertTimeoutPreemptively(Duration.ofSeconds(1), () -> assertNull(none.script(Duration.ofMinutes(1))));
+
+        HandlerPreloader scanning = HandlerPreloader.start(new CompletableFuture<>(), router, Runnable::run);
+        long start = System.nanoTime();
+        assertNull(scanning.script(Duration.ofMillis(50)));
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5), "The wait should be capped by the budget");
+        assertFalse(scanning.done().isDone());
+    }
+
+    @Test
+    @DisplayName("Cancelling a request interrupts its fan-out and suppresses the response")
+    void cancel_ShouldInterruptFanOut() throws InterruptedException {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        router.setDispatchExecutor(executor);
+        router.install(RouteTable.of(router.services(), DashboardController.class)).join();
+        InFlightRequests requests = router.services().get(InFlightRequests.class);
+
+        router.onMessage(1L, "{\"controller\":\"dashboard\",\"action\":\"slow\",\"callbackId\":\"s\"}");
+        while (!requests.cancel(1L, "s")) {
+            Thread.onSpinWait();
+        }
+
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS), "The handler should stop waiting for its subtasks");
+        assertEquals(List.of("window.kona.rejectCallback('s', 'Cancelled');"), webView.scripts,
+                "Only the cancellation should reach the page, not a response");
+    }
+
+    @Test
+    @DisplayName("Parallel handlers process list elements in chunks and respond in input order")
+    void parallel_ShouldSplitListAndKeepOrder() {
+        ForkJoinPool pool = parallelPool();
+
+        router.onMessage(1L, "{\"controller\":\"batch\",\"action\":\"upper\",\"callbackId\":\"b\","
+                + "\"payload\":[{\"text\":\"a\"},{\"text\":\"b\"},{\"text\":\"c\"},{\"text\":\"d\"},{\"text\":\"e\"}]}");
+        assertTrue(pool.awaitQuiescence(5, TimeUnit.SECONDS));
+
+        assertEquals(4, webView.scripts.size());
+        List<String> partials = webView.scripts.subList(0, 3);
+        assertTrue(partials.stream().allMatch(script -> script.contains("kona:partial")), "Every chunk should be streamed before the response");
+        for (String chunk : List.of("\"offset\":0", "\"offset\":2", "\"offset\":4")) {
+            assertTrue(partials.stream().anyMatch(script -> script.contains(chunk)), "Missing the chunk at " + chunk + ": " + partials);
+        }
+        assertTrue(webView.scripts.get(3).contains("[{\"text\":\"A\"},{\"text\":\"B\"},{\"text\":\"C\"},{\"text\":\"D\"},{\"text\":\"E\"}]"));
+        pool.shutdown();
+    }
+
+    @Test
+    @DisplayName("Parallel batches run off the dispatching thread and respond when their last chunk completes")
+    void parallel_ShouldNotHoldDispatchingThread() throws InterruptedException {
+        ForkJoinPool pool = parallelPool();
+        BatchController.gate = new CountDownLatch(1);
+
+        router.onMessage(1L, "{\"controller\":\"batch\",\"action\":\"gated\",\"callbackId\":\"g\",\"payload\":[{\"text\":\"a\"},{\"text\":\"b\"}]}");
+        assertTrue(webView.scripts.isEmpty(), "onMessage should return while the chunks are still running");
+
+        BatchController.gate.countDown();
+        assertTrue(pool.awaitQuiescence(5, TimeUnit.SECONDS));
+        assertEquals(List.of("window.kona.resolveCallback('g', '[{\"text\":\"A\"},{\"text\":\"B\"}]');"), webView.scripts,
+                "Chunks without streamChunks should only send the response");
+        pool.shutdown();
+    }
+
+    @Test
+    @DisplayName("A failing chunk rejects the whole batch once, without a response")
+    void parallel_FailingChunk_ShouldRejectBatch() {
+        ForkJoinPool pool = parallelPool();
+
+        router.onMessage(1L, "{\"controller\":\"batch\",\"action\":\"fail\",\"callbackId\":\"f\","
+                + "\"payload\":[{\"text\":\"a\"},{\"text\":\"bad\"},{\"text\":\"c\"},{\"text\":\"bad\"}]}");
+        assertTrue(pool.awaitQuiescence(5, TimeUnit.SECONDS));
+
+        assertEquals(List.of("window.kona.rejectCallback('f', 'batch -> fail failed');"), webView.scripts);
+        pool.shutdown();
+    }
+
+    @Test
+    @DisplayName("Parallel handlers answer an empty list with an empty list and reject payloads that are not lists")
+    void parallel_ShouldHandleEmptyAndNonListPayloads() {
+        ForkJoinPool pool = parallelPool();
+
+        router.onMessage(1L, "{\"controller\":\"batch\",\"action\":\"upper\",\"callbackId\":\"e\",\"payload\":[]}");
+        router.onMessage(1L, "{\"controller\":\"batch\",\"action\":\"upper\",\"callbackId\":\"o\",\"payload\":{\"text\":\"a\"}}");
+        assertTrue(pool.awaitQuiescence(5, TimeUnit.SECONDS));
+
+        assertEquals(List.of("window.kona.resolveCallback('e', '[]');", "window.kona.rejectCallback('o', 'batch -> upper failed');"),
+                webView.scripts);
+        pool.shutdown();
+    }
+
+    /**
+     * Installs the batch controller with a dedicated pool, so tests can wait for its chunks to finish.
+     */
+    private ForkJoinPool parallelPool() {
+        ForkJoinPool pool = new ForkJoinPool(2);
+        router.setParallelPool(pool);
+        router.install(RouteTable.of(router.services(), BatchController.class)).join();
+        return pool;
+    }
+
+    private static MessageReply recordingReply(List<String> answers) {
+        return new MessageReply() {
+            public void resolve(String json) { answers.add("resolve " + json); }
+            public void resolveEncoded(String body, String codec) { answers.add(codec + " " + body); }
+            public void reject(String message) { answers.add("reject " + message); }
+            public void detach() {}
+        };
+    }
+
+    private static String countMessage(String callbackId) {
+        return countMessage(callbackId, "counted");
+    }
+
+    private static String countMessage(String callbackId, String controller) {
+        return """
+                {"controller": "%s", "action": "next", "callbackId": "%s"}
+                """.formatted(controller, callbackId);
+    }
+
+    private static String message(String text, String callbackId) {
+        return """
+                {"controller": "echo", "action": "upper", "payload": {"text": "%s"}, "callbackId": "%s"}
+                """.formatted(text, callbackId);
+    }
+
+    @KonaController(name = "echo")
+    public static class EchoController {
+
+        public record EchoPayload(String text) implements Payload {}
+
+        @MessageHandler(action = "upper")
+        public EchoPayload upper(EchoPayload payload) {
+            return new EchoPayload(payload.text().toUpperCase());
+        }
+    }
+
+    @KonaController(name = "batch", lifecycle = Lifecycle.POOLED)
+    public static class BatchController {
+
+        static volatile CountDownLatch gate = new CountDownLatch(0);
+
+        @Parallel(chunkSize = 2, streamChunks = true)
+        @MessageHandler(action = "upper")
+        public EchoController.EchoPayload upper(EchoController.EchoPayload payload) {
+            return new EchoController.EchoPayload(payload.text().toUpperCase());
+        }
+
+        @Parallel(chunkSize = 1)
+        @MessageHandler(action = "gated")
+        public EchoController.EchoPayload gated(EchoController.EchoPayload payload) throws InterruptedException {
+            assertTrue(gate.await(5, TimeUnit.SECONDS));
+            return new EchoController.EchoPayload(payload.text().toUpperCase());
+        }
+
+        @Parallel(chunkSize = 1)
+        @MessageHandler(action = "fail")
+        public EchoController.EchoPayload fail(EchoController.EchoPayload payload) {
+            if (payload.text().equals("bad")) {
+                throw new IllegalArgumentException("Bad element");
+            }
+            return payload;
+        }
+    }
+
+    @KonaController(name = "pointer", dedicatedChannel = true)
+    public static class ChannelController {
+
+        @MessageHandler(action = "move", dedicatedChannel = true)
+        public EchoController.EchoPayload move(EchoController.EchoPayload payload) {
+            return new EchoController.EchoPayload(payload.text().toUpperCase());
+        }
+    }
+
+    public record PointerMove(String pane, String text) implements Payload {}
+
+    @KonaController(name = "cursor")
+    public static class PointerController {
+
+        @MessageHandler(action = "move", coalesce = true, coalesceKey = "pane", dedicatedChannel = true)
+        public PointerMove move(PointerMove move) {
+            return move;
+        }
+
+        @MessageHandler(action = "fail")
+        public PointerMove fail() {
+            throw new IllegalStateException("No pointer");
+        }
+    }
+
+    @KonaController(name = "dashboard")
+    public static class DashboardController {
+
+        @MessageHandler(action = "load")
+        public EchoController.EchoPayload load(HandlerContext context) {
+            try (FanOut fanOut = context.fanOut()) {
+                var orders = fanOut.fork("orders", () -> "ORDERS");
+                var stats = fanOut.fork("stats", () -> "STATS");
+                fanOut.join();
+                return new EchoController.EchoPayload(orders.get() + ":" + stats.get());
+            }
+        }
+
+        @MessageHandler(action = "slow")
+        public EchoController.EchoPayload slow(HandlerContext context) {
+            try (FanOut fanOut = context.fanOut()) {
+                var never = fanOut.fork(() -> {
+                    Thread.sleep(60_000);
+                    return "late";
+                });
+                fanOut.join();
+                return new EchoController.EchoPayload(never.get());
+            }
+        }
+    }
+
+    @KonaController(name = "boot")
+    public static class BootController {
+
+        @Preload
+        @MessageHandler(action = "theme")
+        public EchoController.EchoPayload theme() {
+            return new EchoController.EchoPayload("dark");
+        }
+
+        @Preload(payload = "{\"text\": \"hi\"}")
+        @MessageHandler(action = "echo")
+        public EchoController.EchoPayload echo(EchoController.EchoPayload payload) {
+            return payload;
+        }
+
+        @Preload
+        @MessageHandler(action = "missing")
+        public EchoController.EchoPayload missing(EchoController.EchoPayload payload) {
+            return payload;
+        }
+    }
+
+    public static class CountingService {
+        int created;
+    }
+
+    public record Count(int value) implements Payload {}
+
+    @KonaController(name = "counted")
+    public static class CountedController {
+        private int calls;
+
+        public CountedController(CountingService counter) {
+            counter.created++;
+        }
+
+        @MessageHandler(action = "next")
+        public Count next() {
+            return new Count(++calls);
+        }
+    }
+
+    @KonaController(name = "eager", lifecycle = Lifecycle.EAGER)
+    public static class EagerController {
+        static final AtomicInteger created = new AtomicInteger();
+        private int calls;
+
+        public EagerController() {
+            created.incrementAndGet();
+        }
+
+        @MessageHandler(action = "next")
+        public Count next() {
+            return new Count(++calls);
+        }
+    }
+
+    @KonaController(name = "pooled", lifecycle = Lifecycle.POOLED, poolSize = 1)
+    public static class PooledController {
+        static final AtomicInteger busy = new AtomicInteger();
+        static volatile CountDownLatch gate = new CountDownLatch(0);
+        private int calls;
+
+        public PooledController(CountingService counter) {
+            counter.created++;
+        }
+
+        @MessageHandler(action = "next")
+        public Count next() throws InterruptedException {
+            busy.incrementAndGet();
+            try {
+                gate.await();
+                return new Count(++calls);
+            } finally {
+                busy.decrementAndGet();
+            }
+        }
+    }
+
+    @KonaController(name = "window", lifecycle = Lifecycle.PER_WINDOW)
+    public static class PerWindowController {
+        private int calls;
+
+        public PerWindowController(CountingService counter) {
+            counter.created++;
+        }
+
+        @MessageHandler(action = "next")
+        public Count next() {
+            return new Count(++calls);
+        }
+    }
+
+    static class ImmediateWindow implements AppWindow {
+        @Override public boolean initialize() { return true; }
+        @Override public long createWindow(String title, int width, int height) { return 1L; }
+        @Override public void showWindow(long handle) {}
+        @Override public void runEventLoop() {}
+        @Override public void quit() {}
+        @Override public void addWidget(long windowHandle, long widgetHandle) {}
+        @Override public void destroyWindow(long windowHandle) {}
+        @Override public void onDestroy(long windowHandle, Runnable callback) {}
+        @Override public void fullscreen(long windowHandle, boolean fullscreen) {}
+        @Override public void resizable(long windowHandle, boolean fullscreen) {}
+        @Override public void title(long windowHandle, String title) {}
+        @Override public void modal(long windowHandle, boolean modal) {}
+        @Override public void scheduleTask(Runnable task) { task.run(); }
+        @Override public void close() {}
+    }
+
+    static class RecordingWebView implements WebView {
+        final List<String> scripts = Collections.synchronizedList(new ArrayList<>());
+        final Map<MessageChannel, ChannelReceiver> channels = new LinkedHashMap<>();
+
+        @Override public boolean initialize() { return true; }
+        @Override public long createWebViewWidget() { return 1L; }
+        @Override public void destroyWebViewWidget(long webViewHandle) {}
+        @Override public void loadUri(long webViewHandle, String uri) {}
+        @Override public void runJavaScript(long webViewHandle, String script) { scripts.add(script); }
+        @Override public void setScriptMessageHandler(KonaRouter handler) {}
+        @Override public void setPerformanceProfile(PerformanceProfile profile) {}
+        @Override public void setFileServer(FileServer fileServer) {}
+        @Override public void openChannels(Map<MessageChannel, ChannelReceiver> channels) { this.channels.putAll(channels); }
+        @Override public void close() {}
+    }
+}
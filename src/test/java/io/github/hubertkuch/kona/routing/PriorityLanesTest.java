@@ -0,0 +1,73 @@
+package io.github.hubertkuch.kona.routing;
+
+import io.github.hubertkuch.kona.message.Priority;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link PriorityLanes}.
+ */
+class PriorityLanesTest {
+
+    @Test
+    @DisplayName("Saturated lanes take turns by weight, keeping order within each lane")
+    void poll_ShouldInterleaveByWeight() {
+        PriorityLanes<String> lanes = new PriorityLanes<>();
+        for (int i = 0; i < 20; i++) {
+            lanes.offer(Priority.BACKGROUND, "b" + i);
+            lanes.offer(Priority.NORMAL, "n" + i);
+            lanes.offer(Priority.INTERACTIVE, "i" + i);
+        }
+
+        List<String> cycle = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            cycle.add(lanes.poll());
+        }
+
+        assertEquals(List.of("i0", "i1", "i2", "i3", "i4", "i5", "i6", "i7", "n0", "n1", "n2", "b0"), cycle);
+        assertEquals("i8", lanes.poll(), "Turns should be granted again after a full cycle");
+        assertEquals(47, lanes.size());
+    }
+
+    @Test
+    @DisplayName("Empty lanes do not hold up the others")
+    void poll_ShouldSkipEmptyLanes() {
+        PriorityLanes<String> lanes = new PriorityLanes<>();
+        for (int i = 0; i < 5; i++) {
+            lanes.offer(Priority.BACKGROUND, "b" + i);
+        }
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals("b" + i, lanes.poll());
+        }
+        assertNull(lanes.poll());
+
+        lanes.offer(Priority.BACKGROUND, "late");
+        lanes.offer(Priority.INTERACTIVE, "urgent");
+        assertEquals("urgent", lanes.poll());
+    }
+
+    @Test
+    @DisplayName("A suspended lane keeps its items until it is resumed")
+    void poll_ShouldHoldSuspendedLane() {
+        PriorityLanes<String> lanes = new PriorityLanes<>();
+        lanes.suspend(Priority.BACKGROUND);
+        lanes.offer(Priority.BACKGROUND, "b0");
+        lanes.offer(Priority.BACKGROUND, "b1");
+        lanes.offer(Priority.NORMAL, "n0");
+
+        assertEquals("n0", lanes.poll());
+        assertNull(lanes.poll(), "Items of a suspended lane should not be taken");
+        assertEquals(2, lanes.size());
+
+        assertEquals(2, lanes.resume(Priority.BACKGROUND));
+        assertEquals(0, lanes.resume(Priority.BACKGROUND), "Resuming a running lane should hold nothing");
+        assertEquals("b0", lanes.poll());
+        assertEquals("b1", lanes.poll());
+    }
+}
@@ -0,0 +1,79 @@
+package io.github.hubertkuch.kona.state;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link StateStore}.
+ */
+class StateStoreTest {
+
+    record Widget(String title, int value, List<String> tags) {}
+
+    @Test
+    @DisplayName("Replacing an object records only the fields that changed")
+    void set_ShouldRecordMinimalPatch() {
+        StateStore store = new StateStore();
+        store.set("/dashboard/main", new Widget("CPU", 10, List.of("a", "b")));
+
+        store.set("/dashboard/main", new Widget("CPU", 11, List.of("a", "b")));
+
+        StateSync sync = store.since(1);
+        assertEquals(2, sync.version());
+        assertNull(sync.snapshot());
+        assertEquals(1, sync.deltas().size());
+        assertEquals("[{\"op\":\"replace\",\"path\":\"/dashboard/main/value\",\"value\":11}]", sync.deltas().getFirst().ops().toString());
+        assertEquals(11, store.get("/dashboard/main", Widget.class).value());
+    }
+
+    @Test
+    @DisplayName("Missing parents are created with a single add operation")
+    void set_ShouldAddMissingBranch() {
+        StateStore store = new StateStore();
+
+        store.set("/a/b~1c/d", 1);
+
+        assertEquals("[{\"op\":\"add\",\"path\":\"/a\",\"value\":{\"b/c\":{\"d\":1}}}]", store.since(0).deltas().getFirst().ops().toString());
+        assertEquals(1, store.get("/a/b~1c/d").getAsInt());
+    }
+
+    @Test
+    @DisplayName("Clients behind the remembered history receive a snapshot")
+    void since_TooOld_ShouldReturnSnapshot() {
+        StateStore store = new StateStore(2);
+        for (int i = 1; i <= 5; i++) {
+            store.set("/counter", i);
+        }
+
+        StateSync behind = store.since(1);
+        StateSync recent = store.since(3);
+
+        assertEquals("{\"counter\":5}", behind.snapshot().toString());
+        assertTrue(behind.deltas().isEmpty());
+        assertNull(recent.snapshot());
+        assertEquals(List.of(4L, 5L), recent.deltas().stream().map(StateDelta::version).toList());
+    }
+
+    @Test
+    @DisplayName("A failing transaction leaves the state and version untouched")
+    void update_WhenFailing_ShouldRollBack() {
+        StateStore store = new StateStore();
+        store.set("/items", List.of(1, 2, 3));
+        store.set("/name", "before");
+
+        assertThrows(IllegalStateException.class, () -> store.update(transaction -> {
+            transaction.remove("/items/1");
+            transaction.set("/name", "after");
+            transaction.set("/extra", Map.of("x", 1));
+            throw new IllegalStateException("abort");
+        }));
+
+        assertEquals(2, store.version());
+        assertEquals("{\"items\":[1,2,3],\"name\":\"before\"}", store.get("").toString());
+    }
+}
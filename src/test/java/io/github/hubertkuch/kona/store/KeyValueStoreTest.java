@@ -0,0 +1,165 @@
+package io.github.hubertkuch.kona.store;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link KeyValueStore}.
+ */
+class KeyValueStoreTest {
+
+    @TempDir
+    Path directory;
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(UTF_8);
+    }
+
+    private long segmentFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.count();
+        }
+    }
+
+    @Test
+    @DisplayName("Durable writes survive reopening the store")
+    void reopen_ShouldReplayLog() throws IOException {
+        try (KeyValueStore store = KeyValueStore.at(directory).open()) {
+            store.put("a", bytes("1")).join();
+            store.write(new WriteBatch().put("b", bytes("2")).put("c", bytes("3")).delete("a")).join();
+            assertEquals("2", new String(store.get("b"), UTF_8));
+            assertNull(store.get("a"));
+        }
+
+        try (KeyValueStore store = KeyValueStore.at(directory).open()) {
+            assertEquals(2, store.size());
+            assertNull(store.get("a"));
+            assertEquals("3", new String(store.get("c"), UTF_8));
+        }
+    }
+
+    @Test
+    @DisplayName("A torn write at the end of the log is dropped on recovery")
+    void reopen_AfterTornWrite_ShouldTruncate() throws IOException {
+        try (KeyValueStore store = KeyValueStore.at(directory).open()) {
+            store.put("kept", bytes("yes")).join();
+        }
+        Path segment;
+        try (Stream<Path> files = Files.list(directory)) {
+            segment = files.findFirst().orElseThrow();
+        }
+        long intact = Files.size(segment);
+        // A frame header announcing more bytes than were written
+        Files.write(segment, new byte[]{0, 0, 1, 0, 1, 2, 3, 4, 1, 0}, StandardOpenOption.APPEND);
+
+        try (KeyValueStore store = KeyValueStore.at(directory).open()) {
+            assertEquals("yes", new String(store.get("kept"), UTF_8));
+            assertEquals(intact, Files.size(segment));
+            store.put("after", bytes("ok")).join();
+        }
+        try (KeyValueStore store = KeyValueStore.at(directory).open()) {
+            assertEquals("ok", new String(store.get("after"), UTF_8));
+        }
+    }
+
+    @Test
+    @DisplayName("Concurrent writes are committed and compaction reclaims overwritten segments")
+    void compact_ShouldDeleteDeadSegments() throws IOException {
+        try (KeyValueStore store = KeyValueStore.at(directory).maxSegmentSize(1024).open()) {
+            List<CompletableFuture<Void>> writes = new ArrayList<>();
+            for (int i = 0; i < 500; i++) {
+                writes.add(store.put("key-" + (i % 5), bytes("value-" + i)));
+            }
+            CompletableFuture.allOf(writes.toArray(CompletableFuture[]::new)).join();
+            store.delete("key-0").join();
+            store.compact().join();
+
+            assertTrue(segmentFiles() <= 3, "Most segments only held overwritten values");
+            assertEquals("value-499", new String(store.get("key-4"), UTF_8));
+        }
+
+        try (KeyValueStore store = KeyValueStore.at(directory).maxSegmentSize(1024).open()) {
+            assertEquals(4, store.size());
+            assertNull(store.get("key-0"));
+            assertEquals("value-496", new String(store.get("key-1"), UTF_8));
+        }
+    }
+
+    @Test
+    @DisplayName("Compaction keeps tombstones in place while older segments exist and drops them once theirs is the oldest")
+    void compact_AfterDeletes_ShouldNotRewriteTombstones() throws IOException {
+        String value = "v".repeat(40);
+        try (KeyValueStore store = KeyValueStore.at(directory).maxSegmentSize(1024).open()) {
+            for (int i = 0; i < 16; i++) {
+                store.put("kept-" + i, bytes(value)).join();
+            }
+            for (int i = 0; i < 48; i++) {
+                store.put("gone-" + i, bytes(value)).join();
+            }
+            for (int i = 0; i < 48; i++) {
+                store.delete("gone-" + i).join();
+            }
+            for (int i = 0; i < 24; i++) {
+                store.put("filler-" + i, bytes(value)).join();
+            }
+
+            store.compact().join();
+            List<String> compacted = segments();
+            store.compact().join();
+            assertEquals(compacted, segments(), "Segments holding only needed tombstones should stay as they are");
+
+            // Once the kept values are overwritten, the tombstones hide nothing anymore
+            for (int i = 0; i < 16; i++) {
+                store.put("kept-" + i, bytes("new")).join();
+            }
+            store.compact().join();
+            assertTrue(segmentFiles() < compacted.size(), "The tombstone segments should be compacted away");
+        }
+
+        try (KeyValueStore store = KeyValueStore.at(directory).maxSegmentSize(1024).open()) {
+            assertEquals(40, store.size());
+            assertNull(store.get("gone-0"));
+            assertEquals("new", new String(store.get("kept-0"), UTF_8));
+        }
+    }
+
+    /**
+     * @return The names and sizes of the segment files.
+     */
+    private List<String> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.sorted().map(path -> path.getFileName() + ":" + path.toFile().length()).toList();
+        }
+    }
+
+    @Test
+    @DisplayName("Scans return keys in order, by prefix and after a given key")
+    void scan_ShouldPageThroughPrefix() throws IOException {
+        try (KeyValueStore store = KeyValueStore.at(directory).open()) {
+            WriteBatch batch = new WriteBatch();
+            for (String key : List.of("todo/3", "todo/1", "note/1", "todo/2")) {
+                batch.put(key, bytes(key));
+            }
+            store.write(batch).join();
+
+            List<KeyValue> first = store.scan("todo/", null, 2);
+            List<KeyValue> rest = store.scan("todo/", first.getLast().key(), 2);
+
+            assertEquals(List.of("todo/1", "todo/2"), first.stream().map(KeyValue::key).toList());
+            assertEquals(List.of("todo/3"), rest.stream().map(KeyValue::key).toList());
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package io.github.hubertkuch.kona.table;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link Table} queries.
+ */
+class TableTest {
+
+    record Order(int id, String customer, String status, double total, boolean paid) {}
+
+    private static final List<String> STATUSES = List.of("open", "held", "shipped");
+
+    // Large enough to be split into several fork/join tasks
+    private final Table orders = Table.fromRecords(Order.class, IntStream.range(0, 100_000)
+            .mapToObj(i -> new Order(i, "customer-" + (i % 1000), STATUSES.get(i % 3), i % 500, i % 2 == 0))
+            .toList());
+
+    private static TableQuery query(List<TableQuery.Filter> filter, List<TableQuery.Sort> sort, int offset, int limit) {
+        return new TableQuery("orders", filter, sort, null, null, null, offset, limit);
+    }
+
+    @Test
+    @DisplayName("Records are stored in typed columns")
+    void fromRecords_ShouldDeriveSchema() {
+        assertEquals(100_000, orders.rowCount());
+        assertEquals(List.of(ColumnType.INT, ColumnType.STRING, ColumnType.STRING, ColumnType.DOUBLE, ColumnType.BOOLEAN),
+                new ArrayList<>(orders.schema().values()));
+    }
+
+    @Test
+    @DisplayName("Filters are combined and only the requested slice is returned")
+    void query_WithFilters_ShouldReturnSlice() {
+        TableResult result = orders.query(query(List.of(
+                new TableQuery.Filter("status", TableQuery.Op.IN, List.of("open", "held")),
+                new TableQuery.Filter("total", TableQuery.Op.GE, 490.0)), null, 5, 3));
+
+        long expected = IntStream.range(0, 100_000).filter(i -> i % 3 != 2 && i % 500 >= 490).count();
+        assertEquals(expected, result.total());
+        assertEquals(5, result.offset());
+        assertEquals(3, result.rows().size());
+        assertEquals(List.of("id", "customer", "status", "total", "paid"), result.columns());
+        result.rows().forEach(row -> assertTrue((Double) row.get(3) >= 490));
+    }
+
+    @Test
+    @DisplayName("Sorting is stable across keys and directions")
+    void query_WithSort_ShouldOrderRows() {
+        TableResult result = orders.query(query(null, List.of(
+                new TableQuery.Sort("total", true),
+                new TableQuery.Sort("customer", false)), 0, 4));
+
+        assertEquals(List.of(499, 499, 499, 499), result.rows().stream().map(row -> ((Double) row.get(3)).intValue()).toList());
+        List<String> customers = result.rows().stream().map(row -> (String) row.get(1)).toList();
+        assertEquals(customers.stream().sorted().toList(), customers);
+        assertEquals("customer-499", customers.getFirst());
+    }
+
+    @Test
+    @DisplayName("Grouping aggregates each group and sorts by result columns")
+    void query_WithGroupBy_ShouldAggregate() {
+        TableResult result = orders.query(new TableQuery("orders",
+                List.of(new TableQuery.Filter("paid", TableQuery.Op.EQ, true)),
+                List.of(new TableQuery.Sort("orders", true)),
+                List.of("status"),
+                List.of(new TableQuery.Aggregate(TableQuery.Function.COUNT, null, "orders"),
+                        new TableQuery.Aggregate(TableQuery.Function.MAX, "total", null)),
+                null, 0, 0));
+
+        assertEquals(List.of("status", "orders", "max(total)"), result.columns());
+        assertEquals(3, result.total());
+        long open = IntStream.range(0, 100_000).filter(i -> i % 2 == 0 && i % 3 == 0).count();
+        List<Object> first = result.rows().stream().filter(row -> row.get(0).equals("open")).findFirst().orElseThrow();
+        assertEquals(open, first.get(1));
+        assertEquals(498.0, first.get(2));
+        assertTrue((Long) result.rows().get(0).get(1) >= (Long) result.rows().get(2).get(1));
+    }
+}
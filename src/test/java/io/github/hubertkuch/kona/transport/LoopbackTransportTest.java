@@ -0,0 +1,284 @@
+package io.github.hubertkuch.kona.transport;
+
+import io.github.hubertkuch.kona.application.HeadlessWebView;
+import io.github.hubertkuch.kona.application.HeadlessWindow;
+import io.github.hubertkuch.kona.message.KonaController;
+import io.github.hubertkuch.kona.message.MessageHandler;
+import io.github.hubertkuch.kona.message.Payload;
+import io.github.hubertkuch.kona.routing.KonaRouterImpl;
+import io.github.hubertkuch.kona.routing.RouteTable;
+import io.github.hubertkuch.kona.routing.ServiceRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for serving a router over HTTP and WebSocket on the loopback interface.
+ */
+class LoopbackTransportTest {
+
+    private HeadlessWindow window;
+    private HeadlessWebView webView;
+    private LoopbackTransport transport;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        ServiceRegistry services = new ServiceRegistry();
+        window = new HeadlessWindow();
+        webView = new HeadlessWebView();
+        transport = new LoopbackTransport.Builder().build();
+        KonaRouterImpl router = new KonaRouterImpl(window, transport.wrap(webView), 1L, services);
+        router.install(RouteTable.of(services, LoopController.class)).join();
+        transport.start(router, window);
+    }
+
+    @AfterEach
+    void tearDown() {
+        transport.close();
+        webView.close();
+        window.close();
+    }
+
+    @Test
+    @DisplayName("POST requests are answered with the handler's result on a kept-alive connection")
+    void post_ShouldAnswerWithResult() throws IOException {
+        try (Socket socket = connect()) {
+            String first = post(socket, "localhost", "{\"controller\":\"loop\",\"action\":\"upper\",\"payload\":{\"text\":\"hi\"}}");
+            assertTrue(first.startsWith("HTTP/1.1 200"), first);
+            assertTrue(first.endsWith("{\"text\":\"HI\"}"), first);
+
+            String second = post(socket, "localhost", "{\"controller\":\"loop\",\"action\":\"missing\"}");
+            assertTrue(second.startsWith("HTTP/1.1 500"), second);
+            assertTrue(second.endsWith("No handler for loop -> missing"), second);
+        }
+        try (Socket socket = connect()) {
+            String rebound = post(socket, "attacker.example", "{\"controller\":\"loop\",\"action\":\"upper\",\"payload\":{\"text\":\"hi\"}}");
+            assertTrue(rebound.startsWith("HTTP/1.1 403"), "Requests for other hosts should be refused: " + rebound);
+        }
+    }
+
+    @Test
+    @DisplayName("Pipelined POST requests are answered in request order, even when a later one settles first")
+    void post_ShouldAnswerPipelinedRequestsInOrder() throws IOException {
+        try (Socket socket = connect()) {
+            sendPost(socket, "localhost", "{\"controller\":\"loop\",\"action\":\"later\",\"payload\":{\"text\":\"first\"}}");
+            sendPost(socket, "localhost", "{\"controller\":\"loop\",\"action\":\"upper\",\"payload\":{\"text\":\"second\"}}");
+
+            String first = readResponse(socket.getInputStream());
+            String second = readResponse(socket.getInputStream());
+            assertTrue(first.endsWith("{\"text\":\"FIRST\"}"), first);
+            assertTrue(second.endsWith("{\"text\":\"SECOND\"}"), second);
+        }
+    }
+
+    @Test
+    @DisplayName("A request whose header block ends with the connection is answered with 400 and closed")
+    void request_WithTruncatedHeaders_ShouldBeRefused() throws IOException {
+        try (Socket socket = connect()) {
+            socket.getOutputStream().write("POST /kona HTTP/1.1\r\nHost: localhost\r\nContent-Length: 2\r\n"
+                    .getBytes(StandardCharsets.US_ASCII));
+            socket.shutdownOutput();
+
+            String response = readResponse(socket.getInputStream());
+            assertTrue(response.startsWith("HTTP/1.1 400"), response);
+            assertEquals(-1, socket.getInputStream().read(), "The connection should be closed");
+        }
+    }
+
+    @Test
+    @DisplayName("WebSocket messages are answered with resolveCallback calls")
+    void webSocket_ShouldResolveCallbacks() throws IOException {
+        try (Socket socket = connect()) {
+            DataInputStream in = openWebSocket(socket);
+
+            writeFrame(socket.getOutputStream(), upperMessage("7", "ws"), true, 0);
+
+            Frame frame = readFrame(in);
+            assertEquals(0x81, frame.header(), "A final text frame should arrive");
+            assertEquals("[{\"f\":\"resolveCallback\",\"a\":[\"7\",\"{\\\"text\\\":\\\"WS\\\"}\"]}]", frame.text());
+        }
+    }
+
+    @Test
+    @DisplayName("WebSocket frames with 16-bit and 64-bit extended payload lengths are read in full")
+    void webSocket_ShouldReadExtendedLengths() throws IOException {
+        try (Socket socket = connect()) {
+            DataInputStream in = openWebSocket(socket);
+
+            writeFrame(socket.getOutputStream(), upperMessage("m", "a".repeat(300)), true, 126);
+            Frame medium = readFrame(in);
+            assertTrue(medium.text().contains("\"m\"") && medium.text().contains("A".repeat(300)), medium.text());
+
+            writeFrame(socket.getOutputStream(), upperMessage("l", "b".repeat(70_000)), true, 127);
+            Frame large = readFrame(in);
+            assertTrue(large.text().contains("\"l\"") && large.text().contains("B".repeat(70_000)),
+                    "The response should arrive in a frame with a 64-bit length too");
+        }
+    }
+
+    @Test
+    @DisplayName("Unmasked frames and 64-bit lengths with the most significant bit set close the WebSocket with 1002")
+    void webSocket_ShouldRejectInvalidFrames() throws IOException {
+        try (Socket socket = connect()) {
+            DataInputStream in = openWebSocket(socket);
+            writeFrame(socket.getOutputStream(), upperMessage("u", "unmasked"), false, 0);
+            assertEquals(new Frame(0x88, new byte[]{0x03, (byte) 0xEA}), readFrame(in), "Client frames must be masked");
+        }
+        try (Socket socket = connect()) {
+            DataInputStream in = openWebSocket(socket);
+            OutputStream out = socket.getOutputStream();
+            out.write(new byte[]{(byte) 0x81, (byte) (0x80 | 127), (byte) 0x80, 0, 0, 0, 0, 0, 0, 1});
+            out.write(new byte[]{1, 2, 3, 4});
+            assertEquals(new Frame(0x88, new byte[]{0x03, (byte) 0xEA}), readFrame(in), "A negative length must be refused");
+        }
+    }
+
+    private record Frame(int header, byte[] payload) {
+        String text() {
+            return new String(payload, StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Frame frame && header == frame.header && Arrays.equals(payload, frame.payload);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * header + Arrays.hashCode(payload);
+        }
+
+        @Override
+        public String toString() {
+            return "Frame[" + Integer.toHexString(header) + ", " + Arrays.toString(payload) + "]";
+        }
+    }
+
+    private static byte[] upperMessage(String callbackId, String text) {
+        return ("{\"controller\":\"loop\",\"action\":\"upper\",\"callbackId\":\"" + callbackId
+                + "\",\"payload\":{\"text\":\"" + text + "\"}}").getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static DataInputStream openWebSocket(Socket socket) throws IOException {
+        socket.getOutputStream().write(("GET /kona/ws HTTP/1.1\r\nHost: 127.0.0.1\r\nUpgrade: websocket\r\nConnection: Upgrade\r\n"
+                + "Sec-WebSocket-Key: dGhlIHNhbXBsZSBub25jZQ==\r\nSec-WebSocket-Version: 13\r\n\r\n")
+                .getBytes(StandardCharsets.US_ASCII));
+        DataInputStream in = new DataInputStream(socket.getInputStream());
+        String head = readHead(in);
+        assertTrue(head.startsWith("HTTP/1.1 101"), head);
+        assertTrue(head.contains("Sec-WebSocket-Accept: s3pPLMBiTxaQ9kYGzzhZRbK+xOo="), head);
+        return in;
+    }
+
+    /**
+     * Writes a final text frame.
+     *
+     * @param lengthForm {@code 126} or {@code 127} for an extended length, otherwise the shortest form that fits.
+     */
+    private static void writeFrame(OutputStream out, byte[] message, boolean masked, int lengthForm) throws IOException {
+        DataOutputStream frame = new DataOutputStream(out);
+        int maskBit = masked ? 0x80 : 0;
+        frame.write(0x81);
+        if (lengthForm == 127) {
+            frame.write(maskBit | 127);
+            frame.writeLong(message.length);
+        } else if (lengthForm == 126 || message.length > 125) {
+            frame.write(maskBit | 126);
+            frame.writeShort(message.length);
+        } else {
+            frame.write(maskBit | message.length);
+        }
+        byte[] mask = masked ? new byte[]{1, 2, 3, 4} : new byte[4];
+        if (masked) {
+            frame.write(mask);
+        }
+        byte[] payload = new byte[message.length];
+        for (int i = 0; i < message.length; i++) {
+            payload[i] = (byte) (message[i] ^ mask[i & 3]);
+        }
+        frame.write(payload);
+        frame.flush();
+    }
+
+    private static Frame readFrame(DataInputStream in) throws IOException {
+        int header = in.readUnsignedByte();
+        long length = in.readUnsignedByte() & 0x7F;
+        if (length == 126) {
+            length = in.readUnsignedShort();
+        } else if (length == 127) {
+            length = in.readLong();
+        }
+        byte[] payload = new byte[(int) length];
+        in.readFully(payload);
+        return new Frame(header, payload);
+    }
+
+    private Socket connect() throws IOException {
+        Socket socket = new Socket(InetAddress.getLoopbackAddress(), transport.port());
+        socket.setSoTimeout(10_000);
+        return socket;
+    }
+
+    private static String post(Socket socket, String host, String body) throws IOException {
+        sendPost(socket, host, body);
+        return readResponse(socket.getInputStream());
+    }
+
+    private static void sendPost(Socket socket, String host, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        socket.getOutputStream().write(("POST /kona HTTP/1.1\r\nHost: " + host + "\r\nContent-Type: application/json\r\n"
+                + "Content-Length: " + bytes.length + "\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+        socket.getOutputStream().write(bytes);
+    }
+
+    private static String readResponse(InputStream in) throws IOException {
+        String head = readHead(in);
+        int start = head.indexOf("Content-Length: ") + "Content-Length: ".length();
+        byte[] response = in.readNBytes(Integer.parseInt(head.substring(start, head.indexOf('\r', start))));
+        return head + new String(response, StandardCharsets.UTF_8);
+    }
+
+    private static String readHead(InputStream in) throws IOException {
+        StringBuilder head = new StringBuilder();
+        while (!head.toString().endsWith("\r\n\r\n")) {
+            int c = in.read();
+            if (c < 0) {
+                throw new IOException("Connection closed: " + head);
+            }
+            head.append((char) c);
+        }
+        return head.toString();
+    }
+
+    @KonaController(name = "loop")
+    public static class LoopController {
+
+        public record Text(String text) implements Payload {}
+
+        @MessageHandler(action = "upper")
+        public Text upper(Text payload) {
+            return new Text(payload.text().toUpperCase());
+        }
+
+        @MessageHandler(action = "later")
+        public CompletableFuture<Text> later(Text payload) {
+            return CompletableFuture.supplyAsync(() -> new Text(payload.text().toUpperCase()),
+                    CompletableFuture.delayedExecutor(200, TimeUnit.MILLISECONDS));
+        }
+    }
+}
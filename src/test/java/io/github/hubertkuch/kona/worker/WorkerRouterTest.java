@@ -0,0 +1,161 @@
+package io.github.hubertkuch.kona.worker;
+
+import io.github.hubertkuch.kona.application.HeadlessWebView;
+import io.github.hubertkuch.kona.application.HeadlessWindow;
+import io.github.hubertkuch.kona.application.PerformanceProfile;
+import io.github.hubertkuch.kona.application.WebView;
+import io.github.hubertkuch.kona.files.FileServer;
+import io.github.hubertkuch.kona.message.KonaController;
+import io.github.hubertkuch.kona.message.MessageHandler;
+import io.github.hubertkuch.kona.message.Payload;
+import io.github.hubertkuch.kona.routing.ChannelReceiver;
+import io.github.hubertkuch.kona.routing.KonaRouter;
+import io.github.hubertkuch.kona.routing.KonaRouterImpl;
+import io.github.hubertkuch.kona.routing.MessageChannel;
+import io.github.hubertkuch.kona.routing.MessageReply;
+import io.github.hubertkuch.kona.routing.RouteTable;
+import io.github.hubertkuch.kona.routing.ServiceRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for forwarding messages to a worker over a Unix domain socket.
+ */
+class WorkerRouterTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    @DisplayName("Forwarded messages are answered by the worker; other messages reach the local router")
+    void onMessage_ShouldForwardSelectedControllers() throws Exception {
+        Path socket = directory.resolve("worker.sock");
+        ServiceRegistry services = new ServiceRegistry();
+        List<String> local = new CopyOnWriteArrayList<>();
+        BlockingQueue<String> answers = new LinkedBlockingQueue<>();
+        MessageReply reply = new MessageReply() {
+            public void resolve(String json) { answers.add("resolve " + json); }
+            public void resolveEncoded(String body, String codec) { answers.add(codec + " " + body); }
+            public void reject(String message) { answers.add("reject " + message); }
+            public void detach() { answers.add("detach"); }
+        };
+
+        try (HeadlessWindow window = new HeadlessWindow(); HeadlessWebView webView = new HeadlessWebView()) {
+            KonaRouterImpl workerSide = new KonaRouterImpl(window, webView, 1L, services);
+            workerSide.install(RouteTable.of(services, HeavyController.class)).join();
+
+            try (WorkerServer server = WorkerServer.start(socket, workerSide);
+                 WorkerRouter router = new WorkerRouter(local::add, window, webView, 1L,
+                         new WorkerOptions.Builder("heavy").sockets(socket).connectionsPerWorker(2).build())) {
+                router.start();
+
+                // Pipelined: all requests are sent before any answer is read
+                for (int i = 0; i < 20; i++) {
+                    router.onMessage(1L, "{\"controller\":\"heavy\",\"action\":\"sum\",\"payload\":{\"values\":[" + i + "," + i + "]}}", reply);
+                }
+                router.onMessage(1L, "{\"controller\":\"heavy\",\"action\":\"fail\",\"payload\":{\"values\":[]}}", reply);
+                router.onMessage(1L, "{\"controller\":\"light\",\"action\":\"ping\"}", reply);
+
+                Set<String> received = new HashSet<>();
+                for (int i = 0; i < 22; i++) {
+                    String answer = answers.poll(10, TimeUnit.SECONDS);
+                    assertNotNull(answer, "Every message should be answered");
+                    received.add(answer);
+                }
+                for (int i = 0; i < 20; i++) {
+                    assertTrue(received.contains("resolve " + (2 * i)), "Missing the sum for " + i);
+                }
+                assertTrue(received.contains("reject No values"), "The handler's failure should reject the reply");
+                assertTrue(received.contains("detach"), "Unforwarded messages should be handled locally");
+                assertEquals(List.of("{\"controller\":\"light\",\"action\":\"ping\"}"), local);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Forwarded messages without a reply settle through resolveCallback and rejectCallback")
+    void onMessage_WithoutReply_ShouldSettleCallbacks() throws Exception {
+        Path socket = directory.resolve("worker.sock");
+        ServiceRegistry services = new ServiceRegistry();
+        List<String> local = new CopyOnWriteArrayList<>();
+        BlockingQueue<String> scripts = new LinkedBlockingQueue<>();
+
+        try (HeadlessWindow window = new HeadlessWindow(); HeadlessWebView webView = new HeadlessWebView()) {
+            KonaRouterImpl workerSide = new KonaRouterImpl(window, webView, 1L, services);
+            workerSide.install(RouteTable.of(services, HeavyController.class)).join();
+            WebView page = new RecordingWebView(scripts);
+
+            try (WorkerServer server = WorkerServer.start(socket, workerSide);
+                 WorkerRouter router = new WorkerRouter(local::add, window, page, 1L,
+                         new WorkerOptions.Builder("heavy").sockets(socket).build())) {
+                router.start();
+
+                router.onMessage(1L, "{\"controller\":\"heavy\",\"action\":\"fail\",\"callbackId\":\"f\",\"payload\":{\"values\":[]}}");
+                assertEquals("window.kona.rejectCallback('f', 'No values');", scripts.poll(10, TimeUnit.SECONDS));
+                router.onMessage(1L, "{\"controller\":\"heavy\",\"action\":\"sum\",\"callbackId\":\"s\",\"payload\":{\"values\":[2,3]}}");
+                assertEquals("window.kona.resolveCallback('s', '5');", scripts.poll(10, TimeUnit.SECONDS));
+                router.onMessage(1L, "{\"controller\":\"heavy\",\"action\":\"sum\",\"callbackId\":\"b\",\"codec\":\"cbor\",\"payload\":\"AA==\"}");
+                assertEquals("window.kona.rejectCallback('b', 'Only JSON messages are forwarded to workers');", scripts.poll(10, TimeUnit.SECONDS));
+            }
+        }
+        assertTrue(local.isEmpty());
+    }
+
+    @Test
+    @DisplayName("Only the top-level controller decides whether a message is forwarded")
+    void peekController_ShouldReadTopLevelController() {
+        assertEquals("heavy", WorkerRouter.peekController("{\"controller\":\"heavy\",\"action\":\"sum\"}"));
+        assertEquals("light", WorkerRouter.peekController("{\"payload\":{\"controller\":\"heavy\"},\"controller\":\"light\"}"));
+        assertNull(WorkerRouter.peekController("[\"heavy\"]"));
+        assertNull(WorkerRouter.peekController("{\"controller\":42}"));
+        assertNull(WorkerRouter.peekController("not json"));
+    }
+
+    private static final class RecordingWebView implements WebView {
+        private final BlockingQueue<String> scripts;
+
+        RecordingWebView(BlockingQueue<String> scripts) {
+            this.scripts = scripts;
+        }
+
+        @Override public void runJavaScript(long webViewHandle, String script) { scripts.add(script); }
+        @Override public boolean initialize() { return true; }
+        @Override public void setPerformanceProfile(PerformanceProfile profile) {}
+        @Override public void setFileServer(FileServer fileServer) {}
+        @Override public long createWebViewWidget() { return 1L; }
+        @Override public void destroyWebViewWidget(long webViewHandle) {}
+        @Override public void loadUri(long webViewHandle, String uri) {}
+        @Override public void setScriptMessageHandler(KonaRouter handler) {}
+        @Override public void openChannels(Map<MessageChannel, ChannelReceiver> channels) {}
+        @Override public void close() {}
+    }
+
+    @KonaController(name = "heavy")
+    public static class HeavyController {
+
+        public record Values(List<Integer> values) implements Payload {}
+
+        @MessageHandler(action = "sum")
+        public int sum(Values payload) {
+            return payload.values().stream().mapToInt(Integer::intValue).sum();
+        }
+
+        @MessageHandler(action = "fail")
+        public int fail(Values payload) {
+            throw new IllegalStateException("No values");
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package io.github.hubertkuch.kona.worker;
+
+import io.github.hubertkuch.kona.application.HeadlessWebView;
+import io.github.hubertkuch.kona.application.HeadlessWindow;
+import io.github.hubertkuch.kona.routing.KonaRouterImpl;
+import io.github.hubertkuch.kona.routing.RouteTable;
+import io.github.hubertkuch.kona.routing.ServiceRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for starting, checking and restarting a worker, with its process replaced by a server in this JVM.
+ */
+class WorkerTest {
+
+    private static final String SUM = "{\"values\":[1,3]}";
+
+    @TempDir
+    Path directory;
+
+    private HeadlessWindow window;
+    private HeadlessWebView webView;
+    private KonaRouterImpl workerSide;
+    private WorkerOptions options;
+    private final List<ServerProcess> launches = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        ServiceRegistry services = new ServiceRegistry();
+        window = new HeadlessWindow();
+        webView = new HeadlessWebView();
+        workerSide = new KonaRouterImpl(window, webView, 1L, services);
+        workerSide.install(RouteTable.of(services, WorkerRouterTest.HeavyController.class)).join();
+        options = new WorkerOptions.Builder("heavy")
+                .controllerPackage("io.github.hubertkuch.kona.worker")
+                .socketDirectory(directory)
+                .startTimeout(Duration.ofSeconds(5))
+                .healthCheckTimeout(Duration.ofSeconds(2))
+                .build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        launches.forEach(ServerProcess::destroy);
+        webView.close();
+        window.close();
+    }
+
+    @Test
+    @DisplayName("A started worker binds its socket in a private directory and only accepts its launch token")
+    void start_ShouldSpawnInPrivateDirectoryWithToken() throws Exception {
+        Path socket;
+        try (Worker worker = new Worker(0, options, this::launch)) {
+            worker.start();
+            assertEquals("4", worker.request(1L, "heavy", "sum", SUM).get(10, TimeUnit.SECONDS));
+
+            ServerProcess launched = launches.getFirst();
+            socket = launched.socket;
+            assertEquals(directory, socket.getParent().getParent(), "The socket should be in a new subdirectory");
+            if (FileSystems.getDefault().supportedFileAttributeViews().contains("posix")) {
+                assertEquals(PosixFilePermissions.fromString("rwx------"), Files.getPosixFilePermissions(socket.getParent()));
+            }
+            assertEquals(16, launched.token.length);
+
+            try (WorkerConnection stranger = WorkerConnection.open(socket, new byte[16], "stranger")) {
+                ExecutionException refused = assertThrows(ExecutionException.class, () -> stranger.ping().get(5, TimeUnit.SECONDS));
+                assertInstanceOf(IOException.class, refused.getCause(), "A connection with another token should be closed");
+            }
+        }
+        assertFalse(Files.exists(socket.getParent()), "Closing the worker should remove its directory");
+    }
+
+    @Test
+    @DisplayName("A worker whose process exited is restarted with a new token by the next health check")
+    void checkHealth_ShouldRestartExitedWorker() throws Exception {
+        try (Worker worker = new Worker(0, options, this::launch)) {
+            worker.start();
+            assertEquals("4", worker.request(1L, "heavy", "sum", SUM).get(10, TimeUnit.SECONDS));
+
+            worker.checkHealth();
+            assertEquals(1, launches.size(), "A healthy worker should not be restarted");
+
+            launches.getFirst().destroy();
+            worker.checkHealth();
+
+            assertEquals(2, launches.size());
+            assertFalse(Arrays.equals(launches.get(0).token, launches.get(1).token), "Every launch should have its own token");
+            assertEquals("4", worker.request(1L, "heavy", "sum", SUM).get(10, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    @DisplayName("A worker that failed to start is only started again after its backoff delay, while requests wait for it")
+    void checkHealth_ShouldBackOffAfterFailedStart() throws Exception {
+        CountDownLatch failed = new CountDownLatch(1);
+        long[] failedAt = new long[1];
+        Worker.Launcher flaky = (socket, token) -> {
+            if (failed.getCount() > 0) {
+                failedAt[0] = System.nanoTime();
+                failed.countDown();
+                throw new IOException("Cannot start");
+            }
+            return launch(socket, token);
+        };
+
+        try (Worker worker = new Worker(0, options, flaky)) {
+            worker.start();
+            assertTrue(failed.await(5, TimeUnit.SECONDS));
+            CompletableFuture<String> waiting = worker.request(1L, "heavy", "sum", SUM);
+
+            worker.checkHealth();
+            assertTrue(launches.isEmpty(), "The worker should not be restarted during its backoff");
+
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (launches.isEmpty() && System.nanoTime() < deadline) {
+                Thread.sleep(50);
+                worker.checkHealth();
+            }
+            assertEquals(1, launches.size(), "The worker should be restarted after its backoff");
+            assertTrue(launches.getFirst().startedAt - failedAt[0] >= TimeUnit.MILLISECONDS.toNanos(900),
+                    "The first retry should wait about a second");
+            assertEquals("4", waiting.get(10, TimeUnit.SECONDS), "A request issued during the backoff should wait for the retry");
+            assertEquals("4", worker.request(1L, "heavy", "sum", SUM).get(10, TimeUnit.SECONDS));
+        }
+    }
+
+    private Process launch(Path socket, byte[] token) throws IOException {
+        ServerProcess process = new ServerProcess(socket, token.clone(), WorkerServer.start(socket, workerSide, token));
+        launches.add(process);
+        return process;
+    }
+
+    /**
+     * Stands in for a worker JVM: a worker server in this JVM that exits when destroyed.
+     */
+    private static final class ServerProcess extends Process {
+        private final Path socket;
+        private final byte[] token;
+        private final WorkerServer server;
+        private final long startedAt = System.nanoTime();
+        private final CountDownLatch exited = new CountDownLatch(1);
+
+        ServerProcess(Path socket, byte[] token, WorkerServer server) {
+            this.socket = socket;
+            this.token = token;
+            this.server = server;
+        }
+
+        @Override public OutputStream getOutputStream() { return OutputStream.nullOutputStream(); }
+        @Override public InputStream getInputStream() { return InputStream.nullInputStream(); }
+        @Override public InputStream getErrorStream() { return InputStream.nullInputStream(); }
+
+        @Override
+        public int waitFor() throws InterruptedException {
+            exited.await();
+            return exitValue();
+        }
+
+        @Override
+        public int exitValue() {
+            if (exited.getCount() > 0) {
+                throw new IllegalThreadStateException("Worker is running");
+            }
+            return 143;
+        }
+
+        @Override
+        public void destroy() {
+            server.close();
+            exited.countDown();
+        }
+    }
+}